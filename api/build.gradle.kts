@@ -22,6 +22,9 @@ dependencies {
     testCompileOnly("org.projectlombok:lombok:${lombokVersion}")
     testAnnotationProcessor("org.projectlombok:lombok:${lombokVersion}")
 
+    // Mappers of the @Model and ConfigurationPart classes
+    annotationProcessor(project(":processor"))
+
     implementation("org.slf4j:slf4j-api:1.7.25")
 }
 
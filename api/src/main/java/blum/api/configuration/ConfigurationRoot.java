@@ -1,6 +1,8 @@
 package blum.api.configuration;
 
+import blum.api.mapping.Mapped;
 
+@Mapped
 public class ConfigurationRoot implements ConfigurationPart{
 
     public final String file;
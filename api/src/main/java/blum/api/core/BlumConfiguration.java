@@ -25,4 +25,84 @@ public class BlumConfiguration extends ConfigurationRoot {
     @Named("ui.systemDialog")
     private boolean allowSystemDialog = true;
 
+    @Named("database.pool.readers")
+    private int databaseReaders = 4;
+
+    @Named("database.pool.acquireTimeout")
+    private int databaseAcquireTimeout = 30000;
+
+    @Named("database.pragma.synchronous")
+    private String databaseSynchronous = "NORMAL";
+
+    @Named("database.pragma.cacheSize")
+    private int databaseCacheSize = -16000;
+
+    @Named("database.pragma.mmapSize")
+    private long databaseMmapSize = 268435456L;
+
+    @Named("database.pragma.tempStore")
+    private String databaseTempStore = "MEMORY";
+
+    @Named("database.pragma.busyTimeout")
+    private int databaseBusyTimeout = 5000;
+
+    @Named("database.writeBehind.enabled")
+    private boolean databaseWriteBehind = false;
+
+    @Named("database.writeBehind.queueSize")
+    private int databaseWriteBehindQueueSize = 10000;
+
+    @Named("database.writeBehind.batch")
+    private int databaseWriteBehindBatch = 500;
+
+    @Named("database.writeBehind.delay")
+    private int databaseWriteBehindDelay = 20;
+
+    @Named("database.metrics.enabled")
+    private boolean databaseMetrics = true;
+
+    @Named("database.metrics.slowQuery")
+    private int databaseSlowQuery = 250;
+
+    /** Memory of the query result cache of each database in MB, 0 to disable it */
+    @Named("database.resultCache.size")
+    private int databaseResultCacheSize = 16;
+
+    @Named("library.cache.size")
+    private int libraryCacheSize = 1024;
+
+    @Named("library.cache.ttl")
+    private int libraryCacheTtl = 0;
+
+    /** Whether a binary copy of the catalog is kept in the data folder to start without reading every row */
+    @Named("library.catalogFile.enabled")
+    private boolean libraryCatalogFile = true;
+
+    /** Seconds without changes to the catalog before its binary copy is written again */
+    @Named("library.catalogFile.delay")
+    private int libraryCatalogFileDelay = 30;
+
+    /** Language tag of the locale the library is sorted for, e.g. fr or ja */
+    @Named("library.sortLocale")
+    private String librarySortLocale = "en";
+
+    /** Disk space of the resized artwork cache in MB, 0 to always serve the original images */
+    @Named("artwork.thumbnails.cacheSize")
+    private int artworkThumbnailCacheSize = 256;
+
+    @Named("artwork.thumbnails.threads")
+    private int artworkThumbnailThreads = 2;
+
+    /** Whether the usual sizes are generated as soon as an image is stored, rather than on first request */
+    @Named("artwork.thumbnails.pregenerate")
+    private boolean artworkThumbnailPregenerate = true;
+
+    /** Number of store feeds synced at the same time */
+    @Named("integrations.sync.threads")
+    private int integrationSyncThreads = 4;
+
+    /** Maximum number of games written per transaction when applying a sync */
+    @Named("integrations.sync.batchSize")
+    private int integrationSyncBatchSize = 500;
+
 }
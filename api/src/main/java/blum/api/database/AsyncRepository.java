@@ -0,0 +1,119 @@
+package blum.api.database;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Asynchronous view of a repository, running its calls on the executor of its database instead of the calling thread.
+ * The executor bounds the concurrent work to the connections of the database, so callers never queue on a connection.
+ * Futures fail with the exception thrown by the call, or with a {@link RejectedExecutionException} when the executor is saturated.
+ */
+public class AsyncRepository<T> {
+
+    private final BlumRepository<T> repository;
+    private final Executor executor;
+
+    public AsyncRepository(BlumRepository<T> repository) {
+        this(repository, repository.getConnectionProvider().getExecutor());
+    }
+
+    public AsyncRepository(BlumRepository<T> repository, Executor executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs any work on the executor of this repository, e.g. the specific queries of a repository subclass
+     */
+    public <R> CompletableFuture<R> submit(UnitOfWork<R> work) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(work.execute());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public CompletableFuture<T> findById(Object id) {
+        return submit(() -> repository.findById(id));
+    }
+
+    public CompletableFuture<T> findBy(String column, Object value) {
+        return submit(() -> repository.findBy(column, value));
+    }
+
+    public CompletableFuture<List<T>> listQuery(String sql, Object... values) {
+        return submit(() -> repository.listQuery(sql, values));
+    }
+
+    public CompletableFuture<T> query(String sql, Object... values) {
+        return submit(() -> repository.query(sql, values));
+    }
+
+    public CompletableFuture<Page<T>> page(String cursor, int limit, String... sortColumns) {
+        return submit(() -> repository.page(cursor, limit, sortColumns));
+    }
+
+    public CompletableFuture<Page<T>> page(String cursor, int limit, boolean descending, String... sortColumns) {
+        return submit(() -> repository.page(cursor, limit, descending, sortColumns));
+    }
+
+    public CompletableFuture<T> create(T object) {
+        return submit(() -> {
+            repository.create(object);
+            return object;
+        });
+    }
+
+    public CompletableFuture<long[]> createAll(Collection<T> objects) {
+        return submit(() -> repository.createAll(objects));
+    }
+
+    public CompletableFuture<Boolean> update(T object) {
+        return submit(() -> repository.update(object));
+    }
+
+    public CompletableFuture<Boolean> delete(T object) {
+        return submit(() -> repository.delete(object));
+    }
+
+    public CompletableFuture<Boolean> deleteById(Object id) {
+        return submit(() -> repository.deleteById(id));
+    }
+
+    public CompletableFuture<Integer> upsertAll(Collection<T> objects, String... conflictColumns) {
+        return submit(() -> repository.upsertAll(objects, conflictColumns));
+    }
+
+    public CompletableFuture<UpsertResult> mergeAll(Collection<T> objects, String... keyColumns) {
+        return submit(() -> repository.mergeAll(objects, keyColumns));
+    }
+
+    public CompletableFuture<Boolean> execute(String sql, Object... values) {
+        return submit(() -> repository.execute(sql, values));
+    }
+
+    /**
+     * Runs some work as a single transaction, see {@link BlumRepository#inTransaction(UnitOfWork)}
+     */
+    public <R> CompletableFuture<R> inTransaction(UnitOfWork<R> work) {
+        return submit(() -> repository.inTransaction(work));
+    }
+
+    /**
+     * Gets the repository behind this view, for blocking calls
+     */
+    public BlumRepository<T> getRepository() {
+        return repository;
+    }
+}
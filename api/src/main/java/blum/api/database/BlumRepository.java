@@ -1,61 +1,683 @@
 package blum.api.database;
 
+import blum.api.database.annotation.Indexed;
 import blum.api.database.annotation.Model;
+import blum.api.database.annotation.Unique;
+import blum.api.exception.DatabaseQueryException;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.InvalidClassException;
+import java.lang.reflect.Field;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 public abstract class BlumRepository<T> {
 
+    private ConnectionProvider provider;
+    private Class<T> type;
+    private EntityMapper<T> mapper;
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
     /**
      * -- GETTER --
-     *  Gets the connection used by this repository
+     *  Gets the number of rows sent per JDBC batch by upsertAll and mergeAll
      */
     @Getter
-    private Connection connection;
-    private Class<T> type;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public static final int DEFAULT_FETCH_SIZE = 256;
+
+    /** Bound parameters per statement when loading rows by keys, below the SQLite limit */
+    private static final int MAX_BOUND_PARAMETERS = 900;
+
+    /**
+     * -- GETTER --
+     *  Gets the fetch size hint given to streamed queries
+     */
+    @Getter
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    private final List<RepositoryListener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile RepositoryCache<T> cache;
+    private final AtomicLong cacheGeneration = new AtomicLong();
+    private volatile boolean cacheDirtyInTransaction;
+
+    private volatile QueryResultCache resultCache;
+
+    private final QueryMetrics metrics = new QueryMetrics();
 
     public BlumRepository(Connection connection, Class<T> type) throws InvalidClassException {
+        this(new SingleConnectionProvider(connection), type);
+    }
+
+    public BlumRepository(ConnectionProvider provider, Class<T> type) throws InvalidClassException {
         this.type = type;
-        this.connection = connection;
+        this.provider = provider;
         if(!type.isAnnotationPresent(Model.class)) {
             throw new InvalidClassException(this.getClass().getName(),
                     String.format("The class %1$s isn't @Model", type.getName()));
         }
+
+        try {
+            this.mapper = DatabaseMapper.getMapper(type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            InvalidClassException exception = new InvalidClassException(this.getClass().getName(),
+                    String.format("The class %1$s can't be mapped: %2$s", type.getName(), e.getMessage()));
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    /**
+     * Registers a listener notified of the writes made through this repository
+     */
+    public void addListener(RepositoryListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(RepositoryListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(Consumer<RepositoryListener<T>> event) {
+        for (RepositoryListener<T> listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                log.error("Repository listener {} failed", listener.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Sets the cache of the entities looked up by findById and findBy, null to disable it
+     */
+    public void setCache(RepositoryCache<T> cache) {
+        this.cache = cache;
+        cacheGeneration.incrementAndGet();
+    }
+
+    /**
+     * Gets the cache of this repository, null if caching is disabled
+     */
+    public RepositoryCache<T> getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the cache of the results of cachedListQuery and cachedQuery, usually shared by the repositories
+     * of a database so that their writes invalidate each other's results. Null to disable it.
+     */
+    public void setResultCache(QueryResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Gets the cache of query results of this repository, null if disabled
+     */
+    public QueryResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Finds an entity by its identifier, through the cache when enabled
+     */
+    public T findById(Object id) {
+        EntityMapper.Column identifier = mapper.getIdentifier();
+        if (identifier == null) {
+            throw new IllegalStateException(type.getSimpleName() + " has no @Identifier field");
+        }
+        return findBy(identifier.getName(), id);
+    }
+
+    /**
+     * Finds the entity with the lowest identifier having the given column value.
+     * Lookups by identifier, @Unique or @Indexed columns go through the cache when enabled.
+     */
+    public T findBy(String column, Object value) {
+        EntityMapper.Column lookup = mapper.getColumn(column);
+        if (lookup == null) {
+            throw new IllegalArgumentException("Unknown column '" + column + "' for " + type.getSimpleName());
+        }
+
+        EntityMapper.Column identifier = mapper.getIdentifier();
+        String sql = "SELECT * FROM " + getTableName() + " WHERE " + lookup.getName() + " = ?"
+                + (identifier != null ? " ORDER BY " + identifier.getName() : "") + " LIMIT 1";
+
+        RepositoryCache<T> cache = this.cache;
+        if (cache == null || value == null || !isCacheable(lookup)) {
+            return query(sql, value);
+        }
+
+        RepositoryCache.Key key = new RepositoryCache.Key(lookup.getName(), value);
+        try {
+            T cached = cache.get(key);
+            if (cached != null) return mapper.copy(cached);
+
+            // Don't cache a row read before a concurrent write invalidated the cache
+            long generation = cacheGeneration.get();
+            T entity = query(sql, value);
+            if (entity != null && generation == cacheGeneration.get()) {
+                cache.put(key, mapper.copy(entity));
+            }
+            return entity;
+        } catch (SQLException e) {
+            log.error("Failed to copy cached {} entity", type.getSimpleName(), e);
+            return query(sql, value);
+        }
+    }
+
+    private static boolean isCacheable(EntityMapper.Column column) {
+        Field field = column.getField();
+        return column.isIdentifier() || field.isAnnotationPresent(Unique.class) || field.isAnnotationPresent(Indexed.class);
+    }
+
+    /**
+     * Gets a page of entities in ascending order of the given columns, see {@link #page(String, int, boolean, String...)}
+     */
+    public Page<T> page(String cursor, int limit, String... sortColumns) {
+        return page(cursor, limit, false, sortColumns);
+    }
+
+    /**
+     * Gets a page of entities using keyset pagination: the next page starts right after the sort key of the
+     * last returned row, so every page costs the same with an index on the sort columns.
+     * The identifier is appended to the sort columns when missing, to make the sort key unique.
+     * Sort columns must not contain NULL values.
+     * @param cursor cursor returned with the previous page, null for the first page
+     * @param limit maximum number of entities of the page
+     * @param descending whether to sort in descending order
+     */
+    public Page<T> page(String cursor, int limit, boolean descending, String... sortColumns) {
+        return page("*", this::selectList, (item, column) -> column.get(item), cursor, limit, descending, sortColumns);
+    }
+
+    /**
+     * Gets a page of projections, see {@link #page(String, int, boolean, String...)}.
+     * Only the columns of the projection are read, they must include the sort columns and the identifier.
+     */
+    public <P> Page<P> page(Class<P> projection, String cursor, int limit, boolean descending, String... sortColumns) {
+        ProjectionMapper<P> projectionMapper = DatabaseMapper.getProjection(projection);
+
+        List<String> selected = new ArrayList<>();
+        for (List<String> candidates : projectionMapper.getColumnCandidates()) {
+            for (String candidate : candidates) {
+                EntityMapper.Column column = mapper.getColumn(candidate);
+                if (column != null) {
+                    selected.add(column.getName());
+                    break;
+                }
+            }
+        }
+
+        List<String> required = new ArrayList<>(Arrays.asList(sortColumns));
+        if (mapper.getIdentifier() != null) required.add(mapper.getIdentifier().getName());
+        for (String column : required) {
+            if (!projectionMapper.hasColumn(column)) {
+                throw new IllegalArgumentException("Sort column '" + column + "' isn't part of " + projection.getSimpleName());
+            }
+        }
+
+        return page(String.join(", ", selected), (sql, values) -> selectList(sql, projection, values),
+                (item, column) -> projectionMapper.get(item, column.getName()), cursor, limit, descending, sortColumns);
+    }
+
+    private <R> Page<R> page(String select, PageQuery<R> query, SortKeyReader<R> sortKey,
+                             String cursor, int limit, boolean descending, String... sortColumns) {
+        if (limit < 1) throw new IllegalArgumentException("Page limit must be positive");
+
+        List<EntityMapper.Column> keys = new ArrayList<>();
+        for (String name : sortColumns) {
+            EntityMapper.Column column = mapper.getColumn(name);
+            if (column == null) {
+                throw new IllegalArgumentException("Unknown column '" + name + "' for " + type.getSimpleName());
+            }
+            keys.add(column);
+        }
+        EntityMapper.Column identifier = mapper.getIdentifier();
+        if (identifier != null && !keys.contains(identifier)) keys.add(identifier);
+        if (keys.isEmpty()) throw new IllegalArgumentException("No sort columns given for " + type.getSimpleName());
+
+        String columns = keys.stream().map(EntityMapper.Column::getName).collect(Collectors.joining(", "));
+        String direction = descending ? " DESC" : "";
+        String order = keys.stream().map(column -> column.getName() + direction).collect(Collectors.joining(", "));
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(select).append(" FROM ").append(getTableName());
+        Object[] values = new Object[]{limit + 1};
+        if (cursor != null) {
+            Object[] after = KeysetCursor.decode(order, cursor);
+            if (after.length != keys.size()) throw new IllegalArgumentException("Cursor doesn't belong to this query");
+
+            sql.append(" WHERE (").append(columns).append(descending ? ") < (" : ") > (")
+                    .append(String.join(", ", Collections.nCopies(keys.size(), "?"))).append(')');
+            values = Arrays.copyOf(after, after.length + 1);
+            values[after.length] = limit + 1;
+        }
+        sql.append(" ORDER BY ").append(order).append(" LIMIT ?");
+
+        // One extra row tells whether there is a next page
+        List<R> items;
+        try {
+            items = query.list(sql.toString(), values);
+        } catch (SQLException e) {
+            throw new DatabaseQueryException("Failed to read a page of " + type.getSimpleName(), e);
+        }
+        if (items.size() <= limit) return new Page<>(items, null);
+
+        items = items.subList(0, limit);
+        R last = items.get(limit - 1);
+        Object[] key = new Object[keys.size()];
+        try {
+            for (int i = 0; i < key.length; i++) {
+                key[i] = sortKey.read(last, keys.get(i));
+                if (key[i] == null) throw new IllegalStateException("Sort column " + keys.get(i).getName() + " is NULL, it can't be used for keyset pagination");
+            }
+        } catch (SQLException e) {
+            throw new DatabaseQueryException("Failed to read the sort key of " + type.getSimpleName(), e);
+        }
+        return new Page<>(List.copyOf(items), KeysetCursor.encode(order, key));
+    }
+
+    /**
+     * Updates every column of an entity, matched by its identifier
+     * @return whether a row was updated
+     */
+    public boolean update(T object) throws SQLException {
+        EntityMapper.Column identifier = requireIdentifier();
+        prepareWrite(object);
+
+        List<String> assignments = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (EntityMapper.Column column : mapper.getColumns()) {
+            if (column.isIdentifier()) continue;
+            assignments.add(column.getName() + " = ?");
+            values.add(column.get(object));
+        }
+        Object id = identifier.get(object);
+        values.add(id);
+
+        String sql = String.format("UPDATE %s SET %s WHERE %s = ?", getTableName(), String.join(", ", assignments), identifier.getName());
+        log.debug("Update: {}", sql);
+
+        Object[] parameters = values.toArray();
+        int updated = measure(sql, parameters, () -> write(sql, parameters, PreparedStatement::executeUpdate), Integer::longValue);
+        invalidate(identifier, id, object);
+        if (updated > 0) notifyListeners(listener -> listener.onUpdate(object));
+        return updated > 0;
+    }
+
+    /**
+     * Deletes an entity, matched by its identifier
+     * @return whether a row was deleted
+     */
+    public boolean delete(T object) throws SQLException {
+        EntityMapper.Column identifier = requireIdentifier();
+        Object id = identifier.get(object);
+
+        boolean deleted = deleteById(id);
+        invalidate(identifier, id, object);
+        return deleted;
+    }
+
+    /**
+     * Deletes the entity with the given identifier
+     * @return whether a row was deleted
+     */
+    public boolean deleteById(Object id) throws SQLException {
+        EntityMapper.Column identifier = requireIdentifier();
+
+        String sql = String.format("DELETE FROM %s WHERE %s = ?", getTableName(), identifier.getName());
+        log.debug("Delete: {} {}", sql, id);
+
+        Object[] parameters = {id};
+        int deleted = measure(sql, parameters, () -> write(sql, parameters, PreparedStatement::executeUpdate), Integer::longValue);
+        invalidate(identifier, id, null);
+        if (deleted > 0) notifyListeners(listener -> listener.onDelete(id));
+        return deleted > 0;
+    }
+
+    /**
+     * Deletes the rows matching a condition with a single statement, then tells the cache and listeners about each of them
+     * @param condition WHERE clause of the statement, without the keyword, its parameters bound to the values
+     * @return the identifiers of the deleted rows
+     */
+    public List<Object> deleteWhere(String condition, Object... values) throws SQLException {
+        EntityMapper.Column identifier = requireIdentifier();
+
+        String sql = String.format("DELETE FROM %s WHERE %s RETURNING %s", getTableName(), condition, identifier.getName());
+        log.debug("Delete: {} {}", sql, Arrays.toString(values));
+
+        List<Object> ids = inTransaction(() -> measure(sql, values, () -> write(sql, values, statement -> {
+            List<Object> deleted = new ArrayList<>();
+            try (ResultSet keys = statement.executeQuery()) {
+                while (keys.next()) deleted.add(keys.getObject(1));
+            }
+            return deleted;
+        }), List::size));
+        if (ids.isEmpty()) return ids;
+
+        RepositoryCache<T> cache = this.cache;
+        if (cache != null) {
+            markCacheWrite();
+            // The driver returns the narrowest number type, which may not be the one of the field
+            Set<Object> deleted = ids.stream().map(BlumRepository::identity).collect(Collectors.toSet());
+            cache.invalidateIf(cached -> {
+                try {
+                    return deleted.contains(identity(identifier.get(cached)));
+                } catch (SQLException e) {
+                    return true;
+                }
+            });
+        }
+        for (Object id : ids) notifyListeners(listener -> listener.onDelete(id));
+        return ids;
+    }
+
+    private static Object identity(Object id) {
+        return id instanceof Integer || id instanceof Long || id instanceof Short ? ((Number) id).longValue() : id;
+    }
+
+    private EntityMapper.Column requireIdentifier() {
+        EntityMapper.Column identifier = mapper.getIdentifier();
+        if (identifier == null) {
+            throw new IllegalStateException(type.getSimpleName() + " has no @Identifier field");
+        }
+        return identifier;
+    }
+
+    /**
+     * Called before an entity is inserted or updated through this repository, e.g. to default derived columns.
+     * Does nothing by default.
+     */
+    protected void prepareWrite(T object) {
+    }
+
+    /**
+     * Drops the cached entries of an entity, and the lookups its new values may now answer
+     */
+    private void invalidate(EntityMapper.Column identifier, Object id, T current) throws SQLException {
+        RepositoryCache<T> cache = this.cache;
+        if (cache == null) return;
+
+        markCacheWrite();
+
+        List<Object> values = new ArrayList<>();
+        if (current != null) {
+            for (EntityMapper.Column column : mapper.getColumns()) {
+                if (isCacheable(column)) values.add(new RepositoryCache.Key(column.getName(), column.get(current)));
+            }
+        }
+
+        cache.invalidateIf(cached -> {
+            try {
+                if (Objects.equals(identifier.get(cached), id)) return true;
+                for (EntityMapper.Column column : mapper.getColumns()) {
+                    if (isCacheable(column) && values.contains(new RepositoryCache.Key(column.getName(), column.get(cached)))) return true;
+                }
+                return false;
+            } catch (SQLException e) {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Tells the cache and listeners that any row may have changed
+     */
+    private void invalidateAll() {
+        clearCache();
+        notifyListeners(RepositoryListener::onInvalidate);
+    }
+
+    /**
+     * Drops every cached entity, used after writes the repository can't track
+     */
+    public void clearCache() {
+        RepositoryCache<T> cache = this.cache;
+        if (cache == null) return;
+
+        markCacheWrite();
+        cache.clear();
+    }
+
+    private void markCacheWrite() {
+        cacheGeneration.incrementAndGet();
+        try {
+            // Readers may still load the old rows until the transaction commits, check again then
+            if (!provider.getWriter().getAutoCommit()) cacheDirtyInTransaction = true;
+        } catch (SQLException e) {
+            cacheDirtyInTransaction = true;
+        }
     }
 
     /**
      * Executes a SELECT query and returns a list of mapped objects
      */
-    public List<T> listQuery(String sql, String... values) {
-        sql = DatabaseMapper.formatSQL(sql, values);
-        log.debug("Query: {}", sql);
+    public List<T> listQuery(String sql, Object... values) {
+        return mapQuery(sql, values, mapper::bind);
+    }
 
-        try (Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(sql)) {
+    /**
+     * Executes a SELECT query and maps its rows to a projection, a record or an interface of getters
+     * reading only some columns, see {@link ProjectionMapper}
+     * @throws IllegalArgumentException if the type can't be used as a projection
+     */
+    public <P> List<P> listQuery(String sql, Class<P> projection, Object... values) {
+        return mapQuery(sql, values, DatabaseMapper.getProjection(projection)::bind);
+    }
 
-            List<T> result = new ArrayList<>();
-            while (resultSet.next()) {
-                result.add(DatabaseMapper.map(resultSet, type));
+    /**
+     * Executes a SELECT query and returns its first row mapped to a projection, or null
+     */
+    public <P> P query(String sql, Class<P> projection, Object... values) {
+        List<P> results = listQuery(sql, projection, values);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Executes a SELECT query and returns a list of mapped objects.
+     * Unlike listQuery, a failed query throws instead of returning an empty list: use it when
+     * an empty result leads to act, e.g. to delete what isn't listed.
+     */
+    public List<T> selectList(String sql, Object... values) throws SQLException {
+        return mapRows(sql, values, mapper::bind, null);
+    }
+
+    /**
+     * Executes a SELECT query and maps its rows to a projection, a failed query throws, see {@link #selectList(String, Object...)}
+     */
+    public <P> List<P> selectList(String sql, Class<P> projection, Object... values) throws SQLException {
+        return mapRows(sql, values, DatabaseMapper.getProjection(projection)::bind, null);
+    }
+
+    /**
+     * Executes a SELECT query and returns the first result or null, a failed query throws, see {@link #selectList(String, Object...)}
+     */
+    public T selectFirst(String sql, Object... values) throws SQLException {
+        List<T> results = selectList(sql, values);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Executes a SELECT query through the result cache, e.g. an aggregate the UI asks for on every refresh.
+     * The result is cached until a repository sharing the cache writes one of the tables the query reads,
+     * entities being copied so callers can't change the cached ones. Without a result cache, same as listQuery.
+     */
+    public List<T> cachedListQuery(String sql, Object... values) {
+        return cachedMapQuery(sql, values, mapper::bind, mapper::copy);
+    }
+
+    /**
+     * Executes a SELECT query mapped to a projection through the result cache, see {@link #cachedListQuery(String, Object...)}
+     */
+    public <P> List<P> cachedListQuery(String sql, Class<P> projection, Object... values) {
+        // Projections are immutable, they are shared as is
+        return cachedMapQuery(sql, values, DatabaseMapper.getProjection(projection)::bind, row -> row);
+    }
+
+    /**
+     * Executes a SELECT query through the result cache and returns its first row mapped to a projection, or null
+     */
+    public <P> P cachedQuery(String sql, Class<P> projection, Object... values) {
+        List<P> results = cachedListQuery(sql, projection, values);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> List<R> cachedMapQuery(String sql, Object[] values, RowBinder<R> binder, RowCopier<R> copier) {
+        QueryResultCache resultCache = this.resultCache;
+        if (resultCache == null) return mapQuery(sql, values, binder, null);
+
+        QueryResultCache.Key key = QueryResultCache.key(sql, values);
+        try {
+            List<R> cached = (List<R>) resultCache.get(key);
+            if (cached != null) return copy(cached, copier);
+
+            Set<String> tables = QueryResultCache.tablesRead(sql);
+            long stamp = resultCache.stamp(tables);
+            long[] size = new long[1];
+            List<R> rows = mapQuery(sql, values, binder, size);
+
+            // Failed queries aren't cached, nor rows a transaction may still roll back
+            if (size[0] >= 0 && provider.getWriter().getAutoCommit()) {
+                resultCache.put(key, tables, copy(rows, copier), size[0], stamp);
             }
-            return result;
+            return rows;
+        } catch (SQLException e) {
+            log.error("Failed to copy cached {} rows", type.getSimpleName(), e);
+            return mapQuery(sql, values, binder, null);
+        }
+    }
 
-        } catch (Exception e) {
+    private static <R> List<R> copy(List<R> rows, RowCopier<R> copier) throws SQLException {
+        List<R> copies = new ArrayList<>(rows.size());
+        for (R row : rows) copies.add(copier.copy(row));
+        return copies;
+    }
+
+    private <R> List<R> mapQuery(String sql, Object[] values, RowBinder<R> binder) {
+        return mapQuery(sql, values, binder, null);
+    }
+
+    /**
+     * @param size when not null, receives the estimated size of the rows read, or -1 if the query failed
+     */
+    private <R> List<R> mapQuery(String sql, Object[] values, RowBinder<R> binder, long[] size) {
+        try {
+            return mapRows(sql, values, binder, size);
+        } catch (SQLException | RuntimeException e) {
+            if (size != null) size[0] = -1;
             log.error("Failed to execute sql request on {} repository ({}): {}",
-                    this.getClass().getSimpleName(), connection.toString(), sql, e);
+                    this.getClass().getSimpleName(), provider.toString(), sql, e);
             return List.of();
         }
     }
 
+    /**
+     * @param size when not null, receives the estimated size of the rows read
+     */
+    private <R> List<R> mapRows(String sql, Object[] values, RowBinder<R> binder, long[] size) throws SQLException {
+        log.debug("Query: {} {}", sql, Arrays.toString(values));
+
+        long start = System.nanoTime();
+        long[] mappingNanos = new long[1];
+        try {
+            List<R> rows = read(sql, values, statement -> {
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    RowMapper<R> rowMapper = binder.bind(resultSet.getMetaData());
+                    int columnCount = resultSet.getMetaData().getColumnCount();
+
+                    List<R> result = new ArrayList<>();
+                    while (resultSet.next()) {
+                        long mapping = System.nanoTime();
+                        result.add(rowMapper.map(resultSet));
+                        mappingNanos[0] += System.nanoTime() - mapping;
+
+                        if (size != null) {
+                            for (int i = 1; i <= columnCount; i++) size[0] += QueryResultCache.estimateSize(resultSet.getObject(i));
+                        }
+                    }
+                    return result;
+                }
+            });
+            recordQuery(sql, values, start, mappingNanos[0], rows.size());
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordFailure(sql, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a SELECT query and maps its rows lazily, while the stream is consumed.
+     * The stream holds an open statement and a leased connection: close it (try-with-resources) when it isn't fully consumed.
+     */
+    public Stream<T> stream(String sql, Object... values) throws SQLException {
+        log.debug("Stream: {} {}", sql, Arrays.toString(values));
+
+        Connection connection = provider.acquireReader();
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            DatabaseMapper.bindParameters(statement, values);
+
+            ResultSet resultSet = statement.executeQuery();
+            Cursor<T> cursor = new Cursor<>(statement, resultSet, mapper.bind(resultSet.getMetaData()),
+                    () -> provider.releaseReader(connection));
+
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException | RuntimeException e) {
+            if (statement != null) statement.close();
+            provider.releaseReader(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a SELECT query and hands each mapped row to the consumer, without keeping the rows
+     * @return the number of rows consumed
+     */
+    public long forEach(String sql, Consumer<? super T> consumer, Object... values) throws SQLException {
+        long count = 0;
+        try (Stream<T> stream = stream(sql, values)) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Executes a SELECT query and returns the first result or null
      */
-    public T query(String sql, String... values) {
+    public T query(String sql, Object... values) {
         List<T> results = listQuery(sql, values);
         return results.isEmpty() ? null : results.get(0);
     }
@@ -64,38 +686,739 @@ public abstract class BlumRepository<T> {
      * Creates a PreparedStatement for the given SQL
      */
     public PreparedStatement prepare(String sql) throws SQLException {
-        return connection.prepareStatement(sql);
+        return provider.getWriter().prepareStatement(sql);
     }
 
     /**
      * Inserts an object into the database
      */
     public void create(T object) throws SQLException, IllegalAccessException {
-        String sql = DatabaseMapper.buildInsertSQL(object, getTableName());
+        prepareWrite(object);
+
+        StringBuilder columns = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
+        List<Object> values = new ArrayList<>();
+
+        for (EntityMapper.Column column : mapper.getColumns()) {
+            if (column.isIdentifier()) continue;
+
+            Object value = column.get(object);
+            if (value == null) continue;
+
+            if (!values.isEmpty()) {
+                columns.append(", ");
+                placeholders.append(", ");
+            }
+            columns.append(column.getName());
+            placeholders.append('?');
+            values.add(value);
+        }
+
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No non-null fields found to insert");
+        }
+
+        String sql = String.format("INSERT INTO %s (%s) VALUES (%s)", getTableName(), columns, placeholders);
         log.debug("Create: {}", sql);
 
-        try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(sql);
+        EntityMapper.Column identifier = mapper.getIdentifier();
+        Object[] parameters = values.toArray();
+        measure(sql, parameters, () -> write(sql, parameters, statement -> {
+            int inserted = statement.executeUpdate();
+            // The identifier is never inserted, write back the generated one
+            if (identifier != null) {
+                identifier.setGeneratedKey(object, lastInsertRowId(statement.getConnection()));
+            }
+            return inserted;
+        }), Integer::longValue);
+        notifyListeners(listener -> listener.onInsert(object));
+    }
+
+    /**
+     * Inserts objects in a single transaction. Like {@link #create(Object)}, null fields aren't inserted so that
+     * column defaults apply: objects are grouped by set of non-null columns, each set sharing one cached statement.
+     * Every row returns its own id, written back into the @Identifier field when there is one.
+     * @return the generated ids, in the iteration order of the collection, 0 for rows a trigger ignored
+     */
+    public long[] createAll(Collection<T> objects) throws SQLException {
+        if (objects.isEmpty()) return new long[0];
+        objects.forEach(this::prepareWrite);
+
+        List<EntityMapper.Column> insertable = new ArrayList<>();
+        for (EntityMapper.Column column : mapper.getColumns()) {
+            if (!column.isIdentifier()) insertable.add(column);
         }
+
+        List<T> rows = new ArrayList<>(objects);
+        Map<BitSet, List<Integer>> groups = new LinkedHashMap<>();
+        for (int row = 0; row < rows.size(); row++) {
+            BitSet present = new BitSet(insertable.size());
+            for (int i = 0; i < insertable.size(); i++) {
+                if (insertable.get(i).get(rows.get(row)) != null) present.set(i);
+            }
+            groups.computeIfAbsent(present, key -> new ArrayList<>()).add(row);
+        }
+
+        long[] ids = new long[rows.size()];
+        inTransaction(() -> {
+            for (Map.Entry<BitSet, List<Integer>> group : groups.entrySet()) {
+                List<EntityMapper.Column> columns = group.getKey().stream().mapToObj(insertable::get).toList();
+                String sql = columns.isEmpty()
+                        ? String.format("INSERT INTO %s DEFAULT VALUES RETURNING rowid", getTableName())
+                        : String.format("INSERT INTO %s (%s) VALUES (%s) RETURNING rowid", getTableName(),
+                                columns.stream().map(EntityMapper.Column::getName).collect(Collectors.joining(", ")),
+                                String.join(", ", Collections.nCopies(columns.size(), "?")));
+                log.debug("Create batch ({} rows): {}", group.getValue().size(), sql);
+
+                measure(sql, null, () -> write(sql, null, statement -> {
+                    for (int row : group.getValue()) {
+                        for (int i = 0; i < columns.size(); i++) {
+                            DatabaseMapper.bindValue(statement, i + 1, columns.get(i).get(rows.get(row)));
+                        }
+                        try (ResultSet keys = statement.executeQuery()) {
+                            ids[row] = keys.next() ? keys.getLong(1) : 0L;
+                        }
+                    }
+                    return group.getValue().size();
+                }), Integer::longValue);
+            }
+            return null;
+        });
+
+        EntityMapper.Column identifier = mapper.getIdentifier();
+        if (identifier != null) {
+            for (int row = 0; row < rows.size(); row++) {
+                if (ids[row] != 0) identifier.setGeneratedKey(rows.get(row), ids[row]);
+            }
+        }
+
+        if (!listeners.isEmpty()) {
+            for (T object : rows) {
+                notifyListeners(listener -> listener.onInsert(object));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Inserts objects in a single transaction, see {@link #createAll(Collection)}
+     * @deprecated rows are no longer sent in JDBC batches, each one returning its own id
+     */
+    @Deprecated
+    public long[] createAll(Collection<T> objects, int batchSize) throws SQLException {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        return createAll(objects);
     }
 
     /**
-     * Executes a generic SQL statement
+     * Inserts objects, or updates the stored rows having the same values in the conflict columns,
+     * using INSERT ... ON CONFLICT DO UPDATE in a single transaction.
+     * The conflict columns must be covered by a unique index, e.g. a unique @CompositeIndex.
+     * @return the number of inserted or updated rows
      */
-    public boolean execute(String sql, String... values) {
-        sql = DatabaseMapper.formatSQL(sql, values);
+    public int upsertAll(Collection<T> objects, String... conflictColumns) throws SQLException {
+        if (objects.isEmpty()) return 0;
+        objects.forEach(this::prepareWrite);
+
+        List<EntityMapper.Column> keys = resolveColumns(conflictColumns);
+        List<EntityMapper.Column> columns = new ArrayList<>();
+        for (EntityMapper.Column column : mapper.getColumns()) {
+            if (!column.isIdentifier()) columns.add(column);
+        }
+
+        List<String> assignments = new ArrayList<>();
+        for (EntityMapper.Column column : columns) {
+            if (!keys.contains(column)) assignments.add(column.getName() + " = excluded." + column.getName());
+        }
+
+        String sql = String.format("INSERT INTO %s (%s) VALUES (%s) ON CONFLICT (%s) DO %s", getTableName(),
+                columns.stream().map(EntityMapper.Column::getName).collect(Collectors.joining(", ")),
+                String.join(", ", Collections.nCopies(columns.size(), "?")),
+                keys.stream().map(EntityMapper.Column::getName).collect(Collectors.joining(", ")),
+                assignments.isEmpty() ? "NOTHING" : "UPDATE SET " + String.join(", ", assignments));
+        log.debug("Upsert batch ({} rows): {}", objects.size(), sql);
+
         try {
-            log.debug("Execute: {}", sql);
-            try (Statement statement = connection.createStatement()) {
-                return statement.execute(sql);
+            return measure(sql, null, () -> inTransaction(() -> write(sql, null, statement -> {
+                int written = 0;
+                int pending = 0;
+                try {
+                    for (T object : objects) {
+                        for (int i = 0; i < columns.size(); i++) {
+                            DatabaseMapper.bindValue(statement, i + 1, columns.get(i).get(object));
+                        }
+                        statement.addBatch();
+
+                        if (++pending == batchSize) {
+                            written += sum(statement.executeBatch());
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) written += sum(statement.executeBatch());
+                } finally {
+                    statement.clearBatch();
+                }
+                return written;
+            })), Integer::longValue);
+        } finally {
+            // Which rows were inserted or updated isn't known
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Merges objects into the table by comparing them with the stored rows having the same key:
+     * missing rows are inserted, rows with a different content are updated and identical rows aren't written.
+     * Identifiers of updated objects are taken from their stored row, generated ones are written back on insert.
+     * @param keyColumns columns identifying an entity across imports, e.g. a store id
+     */
+    public UpsertResult mergeAll(Collection<T> objects, String... keyColumns) throws SQLException {
+        if (objects.isEmpty()) return new UpsertResult(0, 0, 0);
+
+        EntityMapper.Column identifier = requireIdentifier();
+        List<EntityMapper.Column> keys = resolveColumns(keyColumns);
+        // Compared as they will be written
+        objects.forEach(this::prepareWrite);
+
+        // Looked up in the transaction writing the changes, a row written in between can't be missed or overwritten
+        return inTransaction(() -> {
+            Map<List<Object>, T> stored = loadByKeys(objects, keys);
+
+            List<T> inserts = new ArrayList<>();
+            List<T> updates = new ArrayList<>();
+            int unchanged = 0;
+            for (T object : objects) {
+                T current = stored.get(keyOf(object, keys));
+                if (current == null) {
+                    inserts.add(object);
+                } else if (!sameContent(object, current)) {
+                    identifier.set(object, identifier.get(current));
+                    updates.add(object);
+                } else {
+                    identifier.set(object, identifier.get(current));
+                    unchanged++;
+                }
+            }
+
+            if (!inserts.isEmpty()) createAll(inserts);
+            if (!updates.isEmpty()) updateAll(updates);
+
+            log.debug("Merged {} rows into {}: {} inserted, {} updated, {} unchanged",
+                    objects.size(), getTableName(), inserts.size(), updates.size(), unchanged);
+            return new UpsertResult(inserts.size(), updates.size(), unchanged);
+        });
+    }
+
+    /**
+     * Updates every column of the given entities, matched by identifier, using JDBC batches
+     */
+    private void updateAll(List<T> objects) throws SQLException {
+        EntityMapper.Column identifier = requireIdentifier();
+        List<EntityMapper.Column> columns = new ArrayList<>();
+        for (EntityMapper.Column column : mapper.getColumns()) {
+            if (!column.isIdentifier()) columns.add(column);
+        }
+
+        String sql = String.format("UPDATE %s SET %s WHERE %s = ?", getTableName(),
+                columns.stream().map(column -> column.getName() + " = ?").collect(Collectors.joining(", ")),
+                identifier.getName());
+
+        measure(sql, null, () -> write(sql, null, statement -> {
+            int pending = 0;
+            try {
+                for (T object : objects) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        DatabaseMapper.bindValue(statement, i + 1, columns.get(i).get(object));
+                    }
+                    DatabaseMapper.bindValue(statement, columns.size() + 1, identifier.get(object));
+                    statement.addBatch();
+
+                    if (++pending == batchSize) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) statement.executeBatch();
+            } finally {
+                statement.clearBatch();
+            }
+            return objects.size();
+        }), Integer::longValue);
+
+        for (T object : objects) {
+            invalidate(identifier, identifier.get(object), object);
+            notifyListeners(listener -> listener.onUpdate(object));
+        }
+    }
+
+    /**
+     * Loads the stored rows having the keys of the given objects.
+     * Small sets are looked up by chunks of bound parameters, large ones with a single scan of the table.
+     */
+    private Map<List<Object>, T> loadByKeys(Collection<T> objects, List<EntityMapper.Column> keys) throws SQLException {
+        if (objects.size() * keys.size() > MAX_BOUND_PARAMETERS) {
+            Set<List<Object>> wanted = new HashSet<>();
+            for (T object : objects) wanted.add(keyOf(object, keys));
+
+            Map<List<Object>, T> stored = new HashMap<>();
+            forEach("SELECT * FROM " + getTableName(), row -> {
+                try {
+                    List<Object> key = keyOf(row, keys);
+                    if (wanted.contains(key)) stored.putIfAbsent(key, row);
+                } catch (SQLException | IllegalArgumentException e) {
+                    // Stored rows without a key can't match
+                }
+            });
+            return stored;
+        }
+
+        String columns = keys.stream().map(EntityMapper.Column::getName).collect(Collectors.joining(", "));
+        String tuple = keys.size() == 1 ? "?" : "(" + String.join(", ", Collections.nCopies(keys.size(), "?")) + ")";
+        int chunk = Math.max(1, MAX_BOUND_PARAMETERS / keys.size());
+
+        Map<List<Object>, T> stored = new HashMap<>();
+        List<T> all = new ArrayList<>(objects);
+        for (int start = 0; start < all.size(); start += chunk) {
+            List<T> part = all.subList(start, Math.min(all.size(), start + chunk));
+
+            List<Object> values = new ArrayList<>(part.size() * keys.size());
+            for (T object : part) values.addAll(keyOf(object, keys));
+
+            String sql = keys.size() == 1
+                    ? String.format("SELECT * FROM %s WHERE %s IN (%s)", getTableName(), columns, String.join(", ", Collections.nCopies(part.size(), tuple)))
+                    : String.format("SELECT * FROM %s WHERE (%s) IN (VALUES %s)", getTableName(), columns, String.join(", ", Collections.nCopies(part.size(), tuple)));
+
+            // Not cached, the statement text depends on the chunk size
+            List<T> rows = measure(sql, values.toArray(), () -> provider.read(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    DatabaseMapper.bindParameters(statement, values.toArray());
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        RowMapper<T> rowMapper = mapper.bind(resultSet.getMetaData());
+                        List<T> result = new ArrayList<>();
+                        while (resultSet.next()) result.add(rowMapper.map(resultSet));
+                        return result;
+                    }
+                }
+            }), List::size);
+            for (T row : rows) stored.putIfAbsent(keyOf(row, keys), row);
+        }
+        return stored;
+    }
+
+    private List<Object> keyOf(T object, List<EntityMapper.Column> keys) throws SQLException {
+        List<Object> key = new ArrayList<>(keys.size());
+        for (EntityMapper.Column column : keys) {
+            Object value = column.get(object);
+            if (value == null) throw new IllegalArgumentException("Key column " + column.getName() + " is NULL");
+            key.add(value);
+        }
+        return key;
+    }
+
+    /**
+     * Compares every non identifier column of two entities
+     */
+    private boolean sameContent(T first, T second) throws SQLException {
+        for (EntityMapper.Column column : mapper.getColumns()) {
+            if (column.isIdentifier()) continue;
+            if (!Objects.deepEquals(column.get(first), column.get(second))) return false;
+        }
+        return true;
+    }
+
+    private List<EntityMapper.Column> resolveColumns(String... names) {
+        if (names.length == 0) throw new IllegalArgumentException("No key columns given for " + type.getSimpleName());
+
+        List<EntityMapper.Column> columns = new ArrayList<>();
+        for (String name : names) {
+            EntityMapper.Column column = mapper.getColumn(name);
+            if (column == null) {
+                throw new IllegalArgumentException("Unknown column '" + name + "' for " + type.getSimpleName());
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            if (count > 0) total += count;
+        }
+        return total;
+    }
+
+    private static long lastInsertRowId(Connection connection) throws SQLException {
+        try (Statement rowid = connection.createStatement();
+             ResultSet resultSet = rowid.executeQuery("SELECT last_insert_rowid()")) {
+            return resultSet.next() ? resultSet.getLong(1) : 0L;
+        }
+    }
+
+    /**
+     * Runs a statement, recording its latency and row count in the query metrics
+     */
+    private <R> R measure(String sql, Object[] values, UnitOfWork<R> work, ToLongFunction<R> rows) throws SQLException {
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = runWork(work);
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordFailure(sql, System.nanoTime() - start);
+            throw e;
+        }
+
+        recordQuery(sql, values, start, 0, rows.applyAsLong(result));
+        return result;
+    }
+
+    /**
+     * Records an execution in the query metrics, logging it with its query plan when slower than the threshold
+     */
+    private void recordQuery(String sql, Object[] values, long start, long mappingNanos, long rows) {
+        long elapsed = System.nanoTime() - start;
+        if (!metrics.record(sql, elapsed - mappingNanos, mappingNanos, rows)) return;
+
+        List<String> plan = explain(sql, values);
+        metrics.logSlowQuery(sql, elapsed, rows, plan);
+        log.warn("Slow query on {} ({} ms, {} rows, {} ms mapping): {}{}", getTableName(), elapsed / 1_000_000, rows,
+                mappingNanos / 1_000_000, sql, plan.isEmpty() ? "" : "\n  " + String.join("\n  ", plan));
+    }
+
+    /**
+     * Gets the query plan chosen by SQLite for a statement, empty if it can't be explained
+     */
+    private List<String> explain(String sql, Object[] values) {
+        try {
+            return provider.read(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+                    if (values != null) DatabaseMapper.bindParameters(statement, values);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        List<String> plan = new ArrayList<>();
+                        while (resultSet.next()) plan.add(resultSet.getString("detail"));
+                        return plan;
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            log.debug("Failed to explain {}", sql, e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Gets the query metrics of this repository, to tune their slow query threshold
+     */
+    public QueryMetrics getQueryMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the latency of the statements run by this repository and its latest slow queries
+     */
+    public RepositoryMetrics getMetrics() {
+        return metrics.snapshot(getClass().getSimpleName(), getTableName());
+    }
+
+    /**
+     * Runs some work as a single transaction on the writer connection of this repository.
+     * Repository calls made by the work are committed together, or rolled back if it throws.
+     * Nested calls join the outer transaction.
+     */
+    public <R> R inTransaction(UnitOfWork<R> work) throws SQLException {
+        return provider.write(connection -> {
+            if (!connection.getAutoCommit()) {
+                return runWork(work);
+            }
+
+            connection.setAutoCommit(false);
+            try {
+                R result = runWork(work);
+                connection.commit();
+                return result;
+            } catch (Throwable e) {
+                connection.rollback();
+                // Listeners were told about writes that are now undone
+                notifyListeners(RepositoryListener::onInvalidate);
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+                endTransaction();
+                if (cacheDirtyInTransaction) {
+                    cacheDirtyInTransaction = false;
+                    clearCache();
+                }
+            }
+        });
+    }
+
+    private static <R> R runWork(UnitOfWork<R> work) throws SQLException {
+        try {
+            return work.execute();
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException("Unit of work failed", e);
+        }
+    }
+
+    /**
+     * Sets the number of rows sent per JDBC batch by upsertAll and mergeAll
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the fetch size hint given to streamed queries
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) throw new IllegalArgumentException("Fetch size can't be negative");
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Inserts an object through the write-behind queue of the provider, when it has one
+     */
+    public CompletableFuture<Void> createAsync(T object) {
+        return provider.<Void>submitWrite(connection -> {
+            try {
+                create(object);
+            } catch (IllegalAccessException e) {
+                throw new SQLException("Failed to read " + type.getSimpleName() + " fields", e);
             }
+            return null;
+        }).whenComplete((result, error) -> invalidateTableResults());
+    }
+
+    /**
+     * Inserts objects through the write-behind queue of the provider, when it has one
+     * @return the generated ids, once committed
+     */
+    public CompletableFuture<long[]> createAllAsync(Collection<T> objects) {
+        return provider.submitWrite(connection -> createAll(objects))
+                .whenComplete((result, error) -> invalidateTableResults());
+    }
+
+    /**
+     * Executes a statement through the write-behind queue of the provider, when it has one.
+     * Unlike execute, failures are reported through the future.
+     */
+    public CompletableFuture<Integer> executeAsync(String sql, Object... values) {
+        log.debug("Execute async: {} {}", sql, Arrays.toString(values));
+        return provider.submitWrite(connection -> measure(sql, values,
+                        () -> withStatement(connection, sql, values, PreparedStatement::executeUpdate), Integer::longValue))
+                .whenComplete((result, error) -> {
+                    invalidateResults(sql);
+                    if (result != null && result > 0) invalidateAll();
+                });
+    }
+
+    /**
+     * Executes a generic SQL statement. When it changed rows, the repository cache is cleared and listeners
+     * are told to reload, since any row may have changed.
+     */
+    public boolean execute(String sql, Object... values) {
+        int[] changed = new int[1];
+        try {
+            log.debug("Execute: {} {}", sql, Arrays.toString(values));
+            return measure(sql, values, () -> write(sql, values, statement -> {
+                boolean resultSet = statement.execute();
+                changed[0] = Math.max(0, statement.getUpdateCount());
+                return resultSet;
+            }), resultSet -> changed[0]);
         } catch (SQLException e) {
             log.error("Failed to execute sql request on {} repository ({}): {}",
-                    this.getClass().getSimpleName(), connection.toString(), sql, e);
+                    this.getClass().getSimpleName(), provider.toString(), sql, e);
             return false;
+        } finally {
+            // Reads, failed statements and statements matching no row leave the table as it was
+            if (changed[0] > 0) invalidateAll();
+        }
+    }
+
+    /**
+     * Executes a SQL script that may contain several statements, without caching it
+     */
+    public void executeScript(String sql) throws SQLException {
+        log.debug("Script: {}", sql);
+        try {
+            provider.write(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    return statement.executeUpdate(sql);
+                }
+            });
+        } finally {
+            invalidateResults(null);
+            invalidateAll();
         }
     }
 
+    /**
+     * Checks whether the table of this repository exists
+     */
+    public boolean tableExists() throws SQLException {
+        return tableExists(getTableName());
+    }
+
+    /**
+     * Checks whether a table, virtual tables included, exists in the database of this repository
+     */
+    public boolean tableExists(String table) throws SQLException {
+        return read("SELECT 1 FROM sqlite_master WHERE type='table' AND name=?", new Object[]{table}, statement -> {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        });
+    }
+
+    /**
+     * Gets the indexes declared on the entity class of this repository
+     */
+    public List<IndexDefinition> getIndexes() {
+        return DatabaseMapper.getIndexes(mapper, getTableName());
+    }
+
+    /**
+     * Creates the declared indexes that don't exist yet
+     * @return the created indexes
+     */
+    public List<IndexDefinition> createIndexes() throws SQLException {
+        List<IndexDefinition> created = new ArrayList<>();
+        for (IndexDefinition index : getIndexes()) {
+            if (indexExists(index.name())) continue;
+
+            log.info("Creating index {} on {} ({})", index.name(), index.table(), String.join(", ", index.columns()));
+            executeScript(index.toSQL());
+            created.add(index);
+        }
+        return created;
+    }
+
+    /**
+     * Checks whether an index exists in the database of this repository
+     */
+    public boolean indexExists(String index) throws SQLException {
+        return read("SELECT 1 FROM sqlite_master WHERE type='index' AND name=?", new Object[]{index}, statement -> {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        });
+    }
+
+    /**
+     * Runs some work with the cached statement of the given SQL on a reader connection
+     */
+    protected <R> R read(String sql, Object[] values, StatementWork<R> work) throws SQLException {
+        return provider.read(connection -> withStatement(connection, sql, values, work));
+    }
+
+    /**
+     * Runs some work with the cached statement of the given SQL on the writer connection
+     */
+    protected <R> R write(String sql, Object[] values, StatementWork<R> work) throws SQLException {
+        try {
+            return provider.write(connection -> withStatement(connection, sql, values, work));
+        } finally {
+            invalidateResults(sql);
+        }
+    }
+
+    /**
+     * Drops the cached query results reading the tables a statement writes, every result when they aren't known
+     * @param sql the statement, null for a script
+     */
+    private void invalidateResults(String sql) {
+        QueryResultCache resultCache = this.resultCache;
+        if (resultCache == null) return;
+
+        Set<String> tables = sql == null ? null : QueryResultCache.tablesWritten(sql);
+        if (tables == null) {
+            resultCache.clear();
+        } else {
+            tables.forEach(resultCache::invalidate);
+        }
+
+        // Readers still see the committed rows and may cache them again until the transaction ends
+        try {
+            if (!provider.getWriter().getAutoCommit()) resultCache.writtenInTransaction(tables);
+        } catch (SQLException e) {
+            resultCache.writtenInTransaction(tables);
+        }
+    }
+
+    /**
+     * Drops the cached query results reading the tables written by the transaction that just ended
+     */
+    private void endTransaction() {
+        QueryResultCache resultCache = this.resultCache;
+        if (resultCache != null) resultCache.endTransaction();
+    }
+
+    /**
+     * Drops the cached query results reading the table of this repository, e.g. once a queued insert is committed
+     */
+    private void invalidateTableResults() {
+        QueryResultCache resultCache = this.resultCache;
+        if (resultCache != null) resultCache.invalidate(getTableName());
+    }
+
+    /**
+     * Runs some work with the cached statement of the given SQL, bound to the given values.
+     * The statement is held exclusively until the work returns.
+     */
+    protected <R> R withStatement(Connection connection, String sql, Object[] values, StatementWork<R> work) throws SQLException {
+        StatementCache cache = provider.getStatementCache(connection);
+
+        while (true) {
+            PreparedStatement statement = cache.prepare(sql);
+            synchronized (statement) {
+                // Evicted by another thread in the meantime
+                if (statement.isClosed()) continue;
+
+                Throwable failure = null;
+                try {
+                    DatabaseMapper.bindParameters(statement, values);
+                    return work.run(statement);
+                } catch (Throwable e) {
+                    failure = e;
+                    throw e;
+                } finally {
+                    clearParameters(statement, failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Unbinds the values of a cached statement, without hiding the failure of the work that used it
+     */
+    private static void clearParameters(PreparedStatement statement, Throwable failure) throws SQLException {
+        try {
+            // A statement failing badly enough may have been closed by the driver
+            if (!statement.isClosed()) statement.clearParameters();
+        } catch (SQLException e) {
+            if (failure == null) throw e;
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Gets the writer connection used by this repository.
+     * Prefer the repository methods, which lease connections from the provider.
+     */
+    public Connection getConnection() {
+        return provider.getWriter();
+    }
+
+    /**
+     * Gets the provider of the connections used by this repository
+     */
+    public ConnectionProvider getConnectionProvider() {
+        return provider;
+    }
+
     /**
      * Gets the type class managed by this repository
      */
@@ -103,6 +1426,13 @@ public abstract class BlumRepository<T> {
         return type;
     }
 
+    /**
+     * Gets the compiled mapper of the type managed by this repository
+     */
+    protected EntityMapper<T> getMapper() {
+        return mapper;
+    }
+
     /**
      * Abstract method to get the table name for this repository
      */
@@ -112,4 +1442,32 @@ public abstract class BlumRepository<T> {
      * Abstract method to initialize the table structure
      */
     public abstract String initTable() throws Exception;
-}
\ No newline at end of file
+
+    /**
+     * Work done with a bound prepared statement
+     */
+    @FunctionalInterface
+    protected interface StatementWork<R> {
+        R run(PreparedStatement statement) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface PageQuery<R> {
+        List<R> list(String sql, Object[] values) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SortKeyReader<R> {
+        Object read(R item, EntityMapper.Column column) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<R> {
+        RowMapper<R> bind(ResultSetMetaData metaData) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface RowCopier<R> {
+        R copy(R row) throws SQLException;
+    }
+}
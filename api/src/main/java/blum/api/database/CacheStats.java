@@ -0,0 +1,21 @@
+package blum.api.database;
+
+/**
+ * Counters of a repository cache
+ *
+ * @param hits lookups answered by the cache
+ * @param misses lookups that went to the database
+ * @param evictions entries dropped because the cache was full or the entry expired
+ * @param size current number of entries
+ * @param capacity maximum number of entries
+ */
+public record CacheStats(long hits, long misses, long evictions, int size, int capacity) {
+
+    /**
+     * Gets the ratio of lookups answered by the cache, between 0 and 1
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,150 @@
+package blum.api.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reading strategy for a mapped field, resolved once per field so rows can be
+ * read without inspecting the field type again
+ */
+enum ColumnType {
+
+    STRING((set, i) -> set.getString(i), (set, c) -> set.getString(c)),
+    INTEGER((set, i) -> (Integer) set.getObject(i), (set, c) -> (Integer) set.getObject(c)),
+    INT((set, i) -> {
+        int tmp = set.getInt(i);
+        return set.wasNull() ? 0 : tmp;
+    }, (set, c) -> {
+        int tmp = set.getInt(c);
+        return set.wasNull() ? 0 : tmp;
+    }),
+    LONG((set, i) -> (Long) set.getObject(i), (set, c) -> (Long) set.getObject(c)),
+    LONG_PRIMITIVE((set, i) -> {
+        long tmp = set.getLong(i);
+        return set.wasNull() ? 0L : tmp;
+    }, (set, c) -> {
+        long tmp = set.getLong(c);
+        return set.wasNull() ? 0L : tmp;
+    }),
+    DOUBLE((set, i) -> (Double) set.getObject(i), (set, c) -> (Double) set.getObject(c)),
+    DOUBLE_PRIMITIVE((set, i) -> {
+        double tmp = set.getDouble(i);
+        return set.wasNull() ? 0.0 : tmp;
+    }, (set, c) -> {
+        double tmp = set.getDouble(c);
+        return set.wasNull() ? 0.0 : tmp;
+    }),
+    FLOAT((set, i) -> (Float) set.getObject(i), (set, c) -> (Float) set.getObject(c)),
+    FLOAT_PRIMITIVE((set, i) -> {
+        float tmp = set.getFloat(i);
+        return set.wasNull() ? 0f : tmp;
+    }, (set, c) -> {
+        float tmp = set.getFloat(c);
+        return set.wasNull() ? 0f : tmp;
+    }),
+    BOOLEAN((set, i) -> (Boolean) set.getObject(i), (set, c) -> (Boolean) set.getObject(c)),
+    BOOLEAN_PRIMITIVE((set, i) -> {
+        boolean tmp = set.getBoolean(i);
+        return set.wasNull() ? false : tmp;
+    }, (set, c) -> {
+        boolean tmp = set.getBoolean(c);
+        return set.wasNull() ? false : tmp;
+    }),
+    SHORT((set, i) -> (Short) set.getObject(i), (set, c) -> (Short) set.getObject(c)),
+    SHORT_PRIMITIVE((set, i) -> {
+        short tmp = set.getShort(i);
+        return set.wasNull() ? (short) 0 : tmp;
+    }, (set, c) -> {
+        short tmp = set.getShort(c);
+        return set.wasNull() ? (short) 0 : tmp;
+    }),
+    BYTE((set, i) -> (Byte) set.getObject(i), (set, c) -> (Byte) set.getObject(c)),
+    BYTE_PRIMITIVE((set, i) -> {
+        byte tmp = set.getByte(i);
+        return set.wasNull() ? (byte) 0 : tmp;
+    }, (set, c) -> {
+        byte tmp = set.getByte(c);
+        return set.wasNull() ? (byte) 0 : tmp;
+    }),
+    DATE((set, i) -> set.getDate(i), (set, c) -> set.getDate(c)),
+    TIME((set, i) -> set.getTime(i), (set, c) -> set.getTime(c)),
+    TIMESTAMP((set, i) -> set.getTimestamp(i), (set, c) -> set.getTimestamp(c)),
+    LOCAL_DATE((set, i) -> {
+        java.sql.Date d = set.getDate(i);
+        return d != null ? d.toLocalDate() : null;
+    }, (set, c) -> {
+        java.sql.Date d = set.getDate(c);
+        return d != null ? d.toLocalDate() : null;
+    }),
+    LOCAL_DATE_TIME((set, i) -> {
+        java.sql.Timestamp ts = set.getTimestamp(i);
+        return ts != null ? ts.toLocalDateTime() : null;
+    }, (set, c) -> {
+        java.sql.Timestamp ts = set.getTimestamp(c);
+        return ts != null ? ts.toLocalDateTime() : null;
+    }),
+    BIG_DECIMAL((set, i) -> set.getBigDecimal(i), (set, c) -> set.getBigDecimal(c)),
+    BYTES((set, i) -> set.getBytes(i), (set, c) -> set.getBytes(c)),
+    OBJECT((set, i) -> set.getObject(i), (set, c) -> set.getObject(c));
+
+    private final IndexReader indexReader;
+    private final LabelReader labelReader;
+
+    ColumnType(IndexReader indexReader, LabelReader labelReader) {
+        this.indexReader = indexReader;
+        this.labelReader = labelReader;
+    }
+
+    /**
+     * Reads the column at the given (1-based) index
+     */
+    Object read(ResultSet set, int index) throws SQLException {
+        return indexReader.read(set, index);
+    }
+
+    /**
+     * Reads the column with the given label
+     */
+    Object read(ResultSet set, String column) throws SQLException {
+        return labelReader.read(set, column);
+    }
+
+    /**
+     * Resolves the reading strategy for a field type
+     */
+    static ColumnType of(Class<?> fieldType) {
+        if (fieldType.equals(String.class)) return STRING;
+        if (fieldType.equals(Integer.class)) return INTEGER;
+        if (fieldType.equals(int.class)) return INT;
+        if (fieldType.equals(Long.class)) return LONG;
+        if (fieldType.equals(long.class)) return LONG_PRIMITIVE;
+        if (fieldType.equals(Double.class)) return DOUBLE;
+        if (fieldType.equals(double.class)) return DOUBLE_PRIMITIVE;
+        if (fieldType.equals(Float.class)) return FLOAT;
+        if (fieldType.equals(float.class)) return FLOAT_PRIMITIVE;
+        if (fieldType.equals(Boolean.class)) return BOOLEAN;
+        if (fieldType.equals(boolean.class)) return BOOLEAN_PRIMITIVE;
+        if (fieldType.equals(Short.class)) return SHORT;
+        if (fieldType.equals(short.class)) return SHORT_PRIMITIVE;
+        if (fieldType.equals(Byte.class)) return BYTE;
+        if (fieldType.equals(byte.class)) return BYTE_PRIMITIVE;
+        if (fieldType.equals(java.sql.Date.class)) return DATE;
+        if (fieldType.equals(java.sql.Time.class)) return TIME;
+        if (fieldType.equals(java.sql.Timestamp.class)) return TIMESTAMP;
+        if (fieldType.equals(java.time.LocalDate.class)) return LOCAL_DATE;
+        if (fieldType.equals(java.time.LocalDateTime.class)) return LOCAL_DATE_TIME;
+        if (fieldType.equals(java.math.BigDecimal.class)) return BIG_DECIMAL;
+        if (fieldType.equals(byte[].class)) return BYTES;
+        return OBJECT;
+    }
+
+    @FunctionalInterface
+    private interface IndexReader {
+        Object read(ResultSet set, int index) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface LabelReader {
+        Object read(ResultSet set, String column) throws SQLException;
+    }
+}
@@ -0,0 +1,76 @@
+package blum.api.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Gives access to the connections of a database.
+ * Writes go through a single writer connection held exclusively, reads may use any connection.
+ * Reads made by the thread currently holding the writer use the writer, so they see its uncommitted changes.
+ */
+public interface ConnectionProvider {
+
+    /**
+     * Runs read-only work with a leased connection
+     */
+    public <R> R read(ConnectionWork<R> work) throws SQLException;
+
+    /**
+     * Runs work with the writer connection, held exclusively until the work returns
+     */
+    public <R> R write(ConnectionWork<R> work) throws SQLException;
+
+    /**
+     * Submits work to run with the writer connection.
+     * Providers with a write-behind queue run it later, grouped with other writes in one transaction;
+     * by default it runs immediately on the calling thread.
+     */
+    public default <R> CompletableFuture<R> submitWrite(ConnectionWork<R> work) {
+        try {
+            return CompletableFuture.completedFuture(write(work));
+        } catch (SQLException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Waits until every submitted write has been committed
+     */
+    public default void flush() throws SQLException {
+    }
+
+    /**
+     * Gets the executor running the asynchronous work of this database, bounded to as many tasks as it has connections.
+     * By default the work runs immediately on the calling thread.
+     */
+    public default Executor getExecutor() {
+        return Runnable::run;
+    }
+
+    /**
+     * Leases a connection for reading until it is given back with {@link #releaseReader(Connection)}
+     */
+    public Connection acquireReader() throws SQLException;
+
+    /**
+     * Gives back a connection leased with {@link #acquireReader()}
+     */
+    public void releaseReader(Connection connection);
+
+    /**
+     * Gets the cache of prepared statements of a connection of this provider, closed with the provider
+     */
+    public StatementCache getStatementCache(Connection connection);
+
+    /**
+     * Gets the writer connection, without holding it
+     */
+    public Connection getWriter();
+
+    /**
+     * Gets the current usage of the connections
+     */
+    public PoolMetrics getMetrics();
+}
@@ -0,0 +1,13 @@
+package blum.api.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Work done with a leased connection
+ */
+@FunctionalInterface
+public interface ConnectionWork<R> {
+
+    R run(Connection connection) throws SQLException;
+}
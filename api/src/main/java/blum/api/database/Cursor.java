@@ -0,0 +1,68 @@
+package blum.api.database;
+
+import blum.api.exception.DatabaseQueryException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Lazily maps the rows of an open result, one row per advance.
+ * The statement is closed, and its connection given back, as soon as the result is exhausted, fails, or the cursor is closed.
+ */
+@Slf4j
+class Cursor<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+    private final Runnable onClose;
+    private boolean closed;
+
+    Cursor(PreparedStatement statement, ResultSet resultSet, RowMapper<T> rowMapper, Runnable onClose) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) return false;
+
+        T value;
+        try {
+            if (!resultSet.next()) {
+                close();
+                return false;
+            }
+            value = rowMapper.map(resultSet);
+        } catch (SQLException e) {
+            close();
+            throw new DatabaseQueryException("Failed to read next row", e);
+        }
+
+        action.accept(value);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        try {
+            resultSet.close();
+            statement.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close cursor: {}", e.getMessage());
+        } finally {
+            onClose.run();
+        }
+    }
+}
@@ -1,165 +1,122 @@
 package blum.api.database;
 
-import blum.api.annotation.Identifier;
-import blum.api.annotation.Ignored;
 import blum.api.annotation.Named;
+import blum.api.database.annotation.CompositeIndex;
+import blum.api.database.annotation.Indexed;
+import blum.api.database.annotation.Unique;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 @Slf4j
 public class DatabaseMapper {
 
+    private static final Map<Class<?>, EntityMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ProjectionMapper<?>> PROJECTIONS = new ConcurrentHashMap<>();
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
     /**
      * Maps a ResultSet row to an object instance of the specified type
      */
     public static <T> T map(ResultSet set, Class<T> type) throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException, SQLException {
-        T instance = type.getDeclaredConstructor().newInstance();
-
-        for (Field f : type.getDeclaredFields()) {
-            if (f.isAnnotationPresent(Ignored.class)) continue;
-
-            f.setAccessible(true);
-
-            String name = getColumnName(f);
-            Object value = extractValue(set, f, name);
+        return getMapper(type).map(set);
+    }
 
-            if (value != null) {
-                f.set(instance, value);
-            }
+    /**
+     * Gets the compiled mapper of a type, building and caching it on first use
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMapper<T> getMapper(Class<T> type) throws NoSuchMethodException, IllegalAccessException {
+        EntityMapper<T> mapper = (EntityMapper<T>) MAPPERS.get(type);
+        if (mapper == null) {
+            mapper = new EntityMapper<>(type);
+            EntityMapper<T> existing = (EntityMapper<T>) MAPPERS.putIfAbsent(type, mapper);
+            if (existing != null) mapper = existing;
         }
-
-        return instance;
+        return mapper;
     }
 
     /**
-     * Extracts the appropriate value from ResultSet based on field type
+     * Gets the compiled mapper of a projection record or interface, building and caching it on first use
+     * @throws IllegalArgumentException if the type can't be used as a projection
      */
-    private static Object extractValue(ResultSet set, Field field, String columnName) {
-        try {
-            Class<?> fieldType = field.getType();
-
-            if (fieldType.equals(String.class)) {
-                return set.getString(columnName);
-            } else if (fieldType.equals(Integer.class)) {
-                return (Integer) set.getObject(columnName);
-            } else if (fieldType.equals(int.class)) {
-                int tmp = set.getInt(columnName);
-                return set.wasNull() ? 0 : tmp;
-            } else if (fieldType.equals(Long.class)) {
-                return (Long) set.getObject(columnName);
-            } else if (fieldType.equals(long.class)) {
-                long tmp = set.getLong(columnName);
-                return set.wasNull() ? 0L : tmp;
-            } else if (fieldType.equals(Double.class)) {
-                return (Double) set.getObject(columnName);
-            } else if (fieldType.equals(double.class)) {
-                double tmp = set.getDouble(columnName);
-                return set.wasNull() ? 0.0 : tmp;
-            } else if (fieldType.equals(Float.class)) {
-                return (Float) set.getObject(columnName);
-            } else if (fieldType.equals(float.class)) {
-                float tmp = set.getFloat(columnName);
-                return set.wasNull() ? 0f : tmp;
-            } else if (fieldType.equals(Boolean.class)) {
-                return (Boolean) set.getObject(columnName);
-            } else if (fieldType.equals(boolean.class)) {
-                boolean tmp = set.getBoolean(columnName);
-                return set.wasNull() ? false : tmp;
-            } else if (fieldType.equals(Short.class)) {
-                return (Short) set.getObject(columnName);
-            } else if (fieldType.equals(short.class)) {
-                short tmp = set.getShort(columnName);
-                return set.wasNull() ? 0 : tmp;
-            } else if (fieldType.equals(Byte.class)) {
-                return (Byte) set.getObject(columnName);
-            } else if (fieldType.equals(byte.class)) {
-                byte tmp = set.getByte(columnName);
-                return set.wasNull() ? 0 : tmp;
-            } else if (fieldType.equals(java.sql.Date.class)) {
-                return set.getDate(columnName);
-            } else if (fieldType.equals(java.sql.Time.class)) {
-                return set.getTime(columnName);
-            } else if (fieldType.equals(java.sql.Timestamp.class)) {
-                return set.getTimestamp(columnName);
-            } else if (fieldType.equals(java.time.LocalDate.class)) {
-                java.sql.Date d = set.getDate(columnName);
-                return d != null ? d.toLocalDate() : null;
-            } else if (fieldType.equals(java.time.LocalDateTime.class)) {
-                java.sql.Timestamp ts = set.getTimestamp(columnName);
-                return ts != null ? ts.toLocalDateTime() : null;
-            } else if (fieldType.equals(java.math.BigDecimal.class)) {
-                return set.getBigDecimal(columnName);
-            } else if (fieldType.equals(byte[].class)) {
-                return set.getBytes(columnName);
-            } else {
-                return set.getObject(columnName);
+    @SuppressWarnings("unchecked")
+    public static <P> ProjectionMapper<P> getProjection(Class<P> type) {
+        ProjectionMapper<P> mapper = (ProjectionMapper<P>) PROJECTIONS.get(type);
+        if (mapper == null) {
+            try {
+                mapper = new ProjectionMapper<>(type);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalArgumentException(type.getName() + " can't be used as a projection: " + e.getMessage(), e);
             }
-
-        } catch (SQLException exception) {
-            log.debug("Mapping error for column '{}': {}", columnName, exception.getMessage());
-            return null;
+            ProjectionMapper<P> existing = (ProjectionMapper<P>) PROJECTIONS.putIfAbsent(type, mapper);
+            if (existing != null) mapper = existing;
         }
+        return mapper;
     }
 
     /**
-     * Builds an INSERT SQL statement from an object
+     * Gets the indexes declared on a model through @Indexed, @Unique and @CompositeIndex annotations
      */
-    public static <T> String buildInsertSQL(T object, String tableName) throws IllegalAccessException {
-        StringBuilder columns = new StringBuilder();
-        StringBuilder values = new StringBuilder();
-
-        List<Field> fieldsToInsert = getInsertableFields(object);
-
-        if (fieldsToInsert.isEmpty()) {
-            throw new IllegalArgumentException("No non-null fields found to insert");
+    public static List<IndexDefinition> getIndexes(EntityMapper<?> mapper, String tableName) {
+        List<IndexDefinition> indexes = new ArrayList<>();
+        Map<String, String> columns = new HashMap<>();
+
+        for (EntityMapper.Column column : mapper.getColumns()) {
+            String name = checkIdentifier(column.getName());
+            columns.put(name.toLowerCase(Locale.ROOT), name);
+
+            Field field = column.getField();
+            if (field.isAnnotationPresent(Unique.class)) {
+                indexes.add(indexOf(field.getAnnotation(Unique.class).name(), tableName, List.of(name), true));
+            } else if (field.isAnnotationPresent(Indexed.class)) {
+                indexes.add(indexOf(field.getAnnotation(Indexed.class).name(), tableName, List.of(name), false));
+            }
         }
 
-        for (int i = 0; i < fieldsToInsert.size(); i++) {
-            Field field = fieldsToInsert.get(i);
-            field.setAccessible(true);
-            Object value = field.get(object);
-
-            String columnName = getColumnName(field);
-
-            if (i > 0) {
-                columns.append(", ");
-                values.append(", ");
+        for (CompositeIndex composite : mapper.getType().getAnnotationsByType(CompositeIndex.class)) {
+            if (composite.columns().length == 0) {
+                throw new IllegalArgumentException("Composite index of " + mapper.getType().getSimpleName() + " has no columns");
             }
 
-            columns.append(columnName);
-            values.append(formatValue(value));
+            List<String> indexed = new ArrayList<>();
+            for (String column : composite.columns()) {
+                String name = columns.get(column.toLowerCase(Locale.ROOT));
+                if (name == null) {
+                    throw new IllegalArgumentException("Unknown column '" + column + "' in composite index of " + mapper.getType().getSimpleName());
+                }
+                indexed.add(name);
+            }
+            indexes.add(indexOf(composite.name(), tableName, indexed, composite.unique()));
         }
 
-        return String.format("INSERT INTO %s (%s) VALUES (%s)",
-                tableName, columns.toString(), values.toString());
+        return indexes;
     }
 
-    /**
-     * Gets the list of fields that should be included in an INSERT statement
-     */
-    private static <T> List<Field> getInsertableFields(T object) throws IllegalAccessException {
-        List<Field> insertableFields = new ArrayList<>();
-
-        for (Field field : object.getClass().getDeclaredFields()) {
-            if (field.isAnnotationPresent(Ignored.class)) continue;
-            if (field.isAnnotationPresent(Identifier.class)) continue;
-
-            field.setAccessible(true);
-            Object value = field.get(object);
-
-            // Skip null values
-            if (value == null) continue;
-
-            insertableFields.add(field);
+    private static IndexDefinition indexOf(String name, String tableName, List<String> columns, boolean unique) {
+        if (name.isBlank()) {
+            name = (unique ? "ux_" : "idx_") + tableName + "_" + String.join("_", columns);
         }
+        return new IndexDefinition(checkIdentifier(name), checkIdentifier(tableName), columns, unique);
+    }
 
-        return insertableFields;
+    private static String checkIdentifier(String identifier) {
+        if (!IDENTIFIER.matcher(identifier).matches()) {
+            throw new IllegalArgumentException("Invalid SQL identifier: " + identifier);
+        }
+        return identifier;
     }
 
     /**
@@ -173,39 +130,58 @@ public class DatabaseMapper {
     }
 
     /**
-     * Formats a value for SQL insertion
+     * Binds typed values to the parameters of a statement, in order
      */
-    private static String formatValue(Object value) {
-        if (value == null) {
-            return "NULL";
-        } else if (value instanceof String) {
-            return "'" + ((String) value).replace("'", "''") + "'";
-        } else if (value instanceof Number || value instanceof Boolean) {
-            return value.toString();
-        } else {
-            // For other types, convert to string and quote
-            return "'" + value.toString().replace("'", "''") + "'";
+    public static void bindParameters(PreparedStatement statement, Object... values) throws SQLException {
+        if (values == null) return;
+
+        for (int i = 0; i < values.length; i++) {
+            bindValue(statement, i + 1, values[i]);
         }
     }
 
     /**
-     * Formats SQL with parameter substitution
+     * Binds a typed value to a statement parameter (1-based index)
      */
-    public static String formatSQL(String sql, String... values) {
-        if (values == null || values.length == 0) return sql;
-
-        StringBuilder formatted = new StringBuilder();
-        int valueIndex = 0;
-
-        for (int i = 0; i < sql.length(); i++) {
-            char c = sql.charAt(i);
-            if (c == '?' && valueIndex < values.length) {
-                formatted.append("'").append(values[valueIndex].replace("'", "''")).append("'");
-                valueIndex++;
-            } else {
-                formatted.append(c);
-            }
+    public static void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NULL);
+        } else if (value instanceof String str) {
+            statement.setString(index, str);
+        } else if (value instanceof Integer i) {
+            statement.setInt(index, i);
+        } else if (value instanceof Long l) {
+            statement.setLong(index, l);
+        } else if (value instanceof Double d) {
+            statement.setDouble(index, d);
+        } else if (value instanceof Float f) {
+            statement.setFloat(index, f);
+        } else if (value instanceof Boolean b) {
+            statement.setBoolean(index, b);
+        } else if (value instanceof Short sh) {
+            statement.setShort(index, sh);
+        } else if (value instanceof Byte b) {
+            statement.setByte(index, b);
+        } else if (value instanceof byte[] bytes) {
+            statement.setBytes(index, bytes);
+        } else if (value instanceof java.sql.Timestamp ts) {
+            statement.setTimestamp(index, ts);
+        } else if (value instanceof java.sql.Date date) {
+            statement.setDate(index, date);
+        } else if (value instanceof java.sql.Time time) {
+            statement.setTime(index, time);
+        } else if (value instanceof java.time.LocalDateTime dateTime) {
+            statement.setTimestamp(index, java.sql.Timestamp.valueOf(dateTime));
+        } else if (value instanceof java.time.LocalDate date) {
+            statement.setDate(index, java.sql.Date.valueOf(date));
+        } else if (value instanceof java.time.Instant instant) {
+            statement.setTimestamp(index, java.sql.Timestamp.from(instant));
+        } else if (value instanceof java.math.BigDecimal decimal) {
+            statement.setBigDecimal(index, decimal);
+        } else if (value instanceof Enum<?> e) {
+            statement.setString(index, e.name());
+        } else {
+            statement.setObject(index, value);
         }
-        return formatted.toString();
     }
-}
\ No newline at end of file
+}
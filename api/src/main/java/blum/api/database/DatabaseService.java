@@ -4,9 +4,36 @@ import blum.api.services.Service;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 public interface DatabaseService extends Service {
 
     public Connection createOrGet(String name) throws SQLException;
+    public ConnectionProvider createOrGetProvider(String name) throws SQLException;
+
+    /**
+     * Gets the repository of an entity type in a database, creating it and its table on first use.
+     * Later calls with the same repository class and entity type return the same instance.
+     */
     public <E, T extends BlumRepository<E>> T createOrGet(String name, Class<E> entityType, Class<T> repo) throws Exception;
+
+    /**
+     * Gets an asynchronous view of a repository, running its work on the executor of its database
+     */
+    public default <E> AsyncRepository<E> async(BlumRepository<E> repository) {
+        return new AsyncRepository<>(repository);
+    }
+
+    public Map<String, PoolMetrics> getPoolMetrics();
+
+    /**
+     * Gets the query metrics of the repositories created by this service, by database name
+     */
+    public Map<String, List<RepositoryMetrics>> getQueryMetrics();
+
+    /**
+     * Gets the counters of the query result cache of each database, by database name
+     */
+    public Map<String, QueryCacheStats> getResultCacheStats();
 }
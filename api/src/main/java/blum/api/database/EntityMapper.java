@@ -0,0 +1,318 @@
+package blum.api.database;
+
+import blum.api.annotation.Identifier;
+import blum.api.annotation.Ignored;
+import blum.api.mapping.GeneratedMapper;
+import blum.api.mapping.GeneratedMappers;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiled mapper for an entity class.
+ * Fields, annotations and accessors are resolved once when the mapper is built, rows are then mapped
+ * through the mapper generated at build time when there is one, through method handles otherwise.
+ */
+@Slf4j
+public class EntityMapper<T> {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<T> type;
+    private final GeneratedMapper<T> generated;
+    private final MethodHandle constructor;
+    private final Column[] columns;
+    private final Column identifier;
+
+    EntityMapper(Class<T> type) throws NoSuchMethodException, IllegalAccessException {
+        this.type = type;
+        this.generated = GeneratedMappers.find(type);
+
+        List<Column> list = new ArrayList<>();
+        if (generated != null) {
+            // Fields are still looked up for their annotations, but never accessed reflectively
+            List<String> fields = generated.getFields();
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = getDeclaredField(type, fields.get(i));
+                list.add(new Column(generated.getKeys().get(i), field, ColumnType.of(field.getType()),
+                        null, null, cast(generated), i, field.isAnnotationPresent(Identifier.class)));
+            }
+            this.constructor = null;
+        } else {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            Constructor<T> ctor = type.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Ignored.class)) continue;
+                if (Modifier.isStatic(field.getModifiers())) continue;
+
+                field.setAccessible(true);
+                list.add(new Column(
+                        DatabaseMapper.getColumnName(field),
+                        field,
+                        ColumnType.of(field.getType()),
+                        lookup.unreflectSetter(field).asType(SETTER_TYPE),
+                        lookup.unreflectGetter(field).asType(GETTER_TYPE),
+                        null,
+                        -1,
+                        field.isAnnotationPresent(Identifier.class)
+                ));
+            }
+        }
+        this.columns = list.toArray(new Column[0]);
+        this.identifier = list.stream().filter(Column::isIdentifier).findFirst().orElse(null);
+    }
+
+    private static Field getDeclaredField(Class<?> type, String name) throws NoSuchMethodException {
+        try {
+            return type.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new NoSuchMethodException("Generated mapper of " + type.getName() + " is out of date, field " + name + " is gone");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static GeneratedMapper<Object> cast(GeneratedMapper<?> mapper) {
+        return (GeneratedMapper<Object>) mapper;
+    }
+
+    /**
+     * Gets the class mapped by this mapper
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Whether entities are mapped by the mapper generated at build time rather than by reflection
+     */
+    public boolean isGenerated() {
+        return generated != null;
+    }
+
+    /**
+     * Gets the mapped columns, in field declaration order
+     */
+    public List<Column> getColumns() {
+        return List.of(columns);
+    }
+
+    /**
+     * Gets the column annotated with @Identifier, or null if there is none
+     */
+    public Column getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Gets a column by name, ignoring case, or null if there is none
+     */
+    public Column getColumn(String name) {
+        for (Column column : columns) {
+            if (column.name.equalsIgnoreCase(name)) return column;
+        }
+        return null;
+    }
+
+    /**
+     * Creates a shallow copy of an entity, column by column
+     */
+    public T copy(T entity) throws SQLException {
+        T copy = newInstance();
+        for (Column column : columns) {
+            column.set(copy, column.get(entity));
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a new empty instance of the mapped class
+     */
+    public T newInstance() throws SQLException {
+        try {
+            if (generated != null) return generated.newInstance();
+            return type.cast(constructor.invokeExact());
+        } catch (Throwable e) {
+            throw new SQLException("Failed to instantiate " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Maps the current row by looking up every column by name
+     */
+    public T map(ResultSet set) throws SQLException {
+        T instance = newInstance();
+
+        for (Column column : columns) {
+            Object value;
+            try {
+                value = column.columnType.read(set, column.name);
+            } catch (SQLException exception) {
+                log.debug("Mapping error for column '{}': {}", column.name, exception.getMessage());
+                continue;
+            }
+
+            if (value != null) {
+                column.set(instance, value);
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * Resolves the column indexes of a result once, the returned mapper can then be used for every row of that result
+     */
+    public RowMapper<T> bind(ResultSetMetaData metaData) throws SQLException {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = metaData.getColumnCount(); i >= 1; i--) {
+            indexes.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        List<Column> bound = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (Column column : columns) {
+            Integer index = indexes.get(column.name.toLowerCase(Locale.ROOT));
+            if (index == null) continue;
+
+            bound.add(column);
+            positions.add(index);
+        }
+
+        Column[] boundColumns = bound.toArray(new Column[0]);
+        int[] boundIndexes = positions.stream().mapToInt(Integer::intValue).toArray();
+
+        return set -> {
+            T instance = newInstance();
+
+            for (int i = 0; i < boundColumns.length; i++) {
+                Column column = boundColumns[i];
+                Object value;
+                try {
+                    value = column.columnType.read(set, boundIndexes[i]);
+                } catch (SQLException exception) {
+                    log.debug("Mapping error for column '{}': {}", column.name, exception.getMessage());
+                    continue;
+                }
+
+                if (value != null) {
+                    column.set(instance, value);
+                }
+            }
+
+            return instance;
+        };
+    }
+
+    /**
+     * A mapped field of an entity
+     */
+    public static final class Column {
+
+        private final String name;
+        private final Field field;
+        private final ColumnType columnType;
+        private final MethodHandle setter;
+        private final MethodHandle getter;
+        private final GeneratedMapper<Object> generated;
+        private final int index;
+        private final boolean identifier;
+
+        private Column(String name, Field field, ColumnType columnType, MethodHandle setter, MethodHandle getter,
+                       GeneratedMapper<Object> generated, int index, boolean identifier) {
+            this.name = name;
+            this.field = field;
+            this.columnType = columnType;
+            this.setter = setter;
+            this.getter = getter;
+            this.generated = generated;
+            this.index = index;
+            this.identifier = identifier;
+        }
+
+        /**
+         * Gets the column name, considering @Named annotation
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the mapped field
+         */
+        public Field getField() {
+            return field;
+        }
+
+        /**
+         * Whether this column is annotated with @Identifier
+         */
+        public boolean isIdentifier() {
+            return identifier;
+        }
+
+        /**
+         * Reads the value of this column from an entity
+         */
+        public Object get(Object instance) throws SQLException {
+            try {
+                if (generated != null) return generated.get(instance, index);
+                return (Object) getter.invokeExact(instance);
+            } catch (Throwable e) {
+                throw new SQLException("Failed to read field " + field.getName(), e);
+            }
+        }
+
+        /**
+         * Writes a value of this column into an entity
+         */
+        public void set(Object instance, Object value) throws SQLException {
+            try {
+                if (generated != null) {
+                    generated.set(instance, index, value);
+                    return;
+                }
+                setter.invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw new SQLException("Failed to write field " + field.getName(), e);
+            }
+        }
+
+        /**
+         * Writes a generated key into this column, converted to the field type
+         */
+        public void setGeneratedKey(Object instance, long key) throws SQLException {
+            Class<?> fieldType = field.getType();
+
+            if (fieldType == int.class || fieldType == Integer.class) {
+                set(instance, (int) key);
+            } else if (fieldType == long.class || fieldType == Long.class) {
+                set(instance, key);
+            } else if (fieldType == short.class || fieldType == Short.class) {
+                set(instance, (short) key);
+            } else if (fieldType == String.class) {
+                set(instance, Long.toString(key));
+            } else {
+                throw new SQLException("Unsupported generated key type for field " + field.getName() + ": " + fieldType.getName());
+            }
+        }
+    }
+}
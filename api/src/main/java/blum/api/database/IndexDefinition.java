@@ -0,0 +1,22 @@
+package blum.api.database;
+
+import java.util.List;
+
+/**
+ * A secondary index declared on a model through @Indexed, @Unique or @CompositeIndex
+ *
+ * @param name index name
+ * @param table indexed table
+ * @param columns indexed columns, in order
+ * @param unique whether the index enforces unique values
+ */
+public record IndexDefinition(String name, String table, List<String> columns, boolean unique) {
+
+    /**
+     * Builds the statement creating this index if it doesn't exist yet
+     */
+    public String toSQL() {
+        return String.format("CREATE %sINDEX IF NOT EXISTS %s ON %s (%s)",
+                unique ? "UNIQUE " : "", name, table, String.join(", ", columns));
+    }
+}
@@ -0,0 +1,68 @@
+package blum.api.database;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Encodes the sort key of the last row of a page into an opaque cursor.
+ * The cursor carries the sort order it was built for, so it can't be replayed against another one.
+ */
+final class KeysetCursor {
+
+    private static final byte VERSION = 1;
+    private static final byte LONG = 'L';
+    private static final byte DOUBLE = 'D';
+    private static final byte STRING = 'S';
+
+    private KeysetCursor() {}
+
+    static String encode(String order, Object[] values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(order);
+            out.writeByte(values.length);
+            for (Object value : values) {
+                if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    out.writeByte(LONG);
+                    out.writeLong(((Number) value).longValue());
+                } else if (value instanceof Number number) {
+                    out.writeByte(DOUBLE);
+                    out.writeDouble(number.doubleValue());
+                } else {
+                    out.writeByte(STRING);
+                    out.writeUTF(String.valueOf(value));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    static Object[] decode(String order, String cursor) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readByte() != VERSION || !in.readUTF().equals(order)) {
+                throw new IllegalArgumentException("Cursor doesn't belong to this query");
+            }
+
+            Object[] values = new Object[in.readByte()];
+            for (int i = 0; i < values.length; i++) {
+                byte type = in.readByte();
+                values[i] = switch (type) {
+                    case LONG -> in.readLong();
+                    case DOUBLE -> in.readDouble();
+                    case STRING -> in.readUTF();
+                    default -> throw new IllegalArgumentException("Malformed cursor");
+                };
+            }
+            return values;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
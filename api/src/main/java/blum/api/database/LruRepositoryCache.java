@@ -0,0 +1,84 @@
+package blum.api.database;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bounded repository cache evicting the least recently used entries, with an optional time to live
+ */
+public class LruRepositoryCache<T> implements RepositoryCache<T> {
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity maximum number of entries
+     * @param ttl time after which an entry expires, zero or null to keep entries until evicted
+     */
+    public LruRepositoryCache(int capacity, Duration ttl) {
+        if (capacity < 1) throw new IllegalArgumentException("Cache capacity must be positive");
+        if (ttl != null && ttl.isNegative()) throw new IllegalArgumentException("Cache TTL can't be negative");
+        this.capacity = capacity;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+    }
+
+    public LruRepositoryCache(int capacity) {
+        this(capacity, null);
+    }
+
+    @Override
+    public synchronized T get(Key key) {
+        Entry<T> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        if (ttlNanos > 0 && System.nanoTime() - entry.created > ttlNanos) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.entity;
+    }
+
+    @Override
+    public synchronized void put(Key key, T entity) {
+        entries.put(key, new Entry<>(entity, System.nanoTime()));
+
+        Iterator<Map.Entry<Key, Entry<T>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    @Override
+    public synchronized void invalidateIf(Predicate<T> filter) {
+        entries.values().removeIf(entry -> filter.test(entry.entity));
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, entries.size(), capacity);
+    }
+
+    private record Entry<T>(T entity, long created) {}
+}
@@ -0,0 +1,16 @@
+package blum.api.database;
+
+import java.util.List;
+
+/**
+ * A page of a keyset paginated query
+ *
+ * @param items entities of this page
+ * @param nextCursor opaque cursor of the next page, null on the last page
+ */
+public record Page<T>(List<T> items, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,23 @@
+package blum.api.database;
+
+/**
+ * Usage snapshot of the connections of a database
+ *
+ * @param readers number of reader connections
+ * @param idleReaders reader connections currently available
+ * @param readerAcquisitions reader leases since start
+ * @param readerWaits reader leases that had to wait for a connection
+ * @param readerWaitNanos total time spent waiting for reader connections
+ * @param maxReaderWaitNanos longest wait for a reader connection
+ * @param writerAcquisitions writer leases since start
+ * @param writerWaitNanos total time spent waiting for the writer connection
+ * @param timeouts leases abandoned after the acquire timeout
+ * @param pendingWrites writes waiting in the write-behind queue
+ * @param writeBatches transactions committed by the write-behind queue
+ * @param queuedWrites writes committed by the write-behind queue
+ */
+public record PoolMetrics(int readers, int idleReaders,
+                          long readerAcquisitions, long readerWaits, long readerWaitNanos, long maxReaderWaitNanos,
+                          long writerAcquisitions, long writerWaitNanos, long timeouts,
+                          int pendingWrites, long writeBatches, long queuedWrites) {
+}
@@ -0,0 +1,271 @@
+package blum.api.database;
+
+import blum.api.annotation.Named;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiled mapper of a projection: a record, or an interface of getters, holding a subset of the columns of a table.
+ * Components are matched to columns by their @Named value, or by their name either as is or in snake case
+ * (sortName matches sort_name). Components without a column in the result get their default value.
+ */
+public class ProjectionMapper<P> {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<P> type;
+    private final Component[] components;
+    private final Map<Method, Integer> methods = new HashMap<>();
+    private final MethodHandle constructor;
+
+    ProjectionMapper(Class<P> type) throws NoSuchMethodException, IllegalAccessException {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        List<Component> list = new ArrayList<>();
+        if (type.isRecord()) {
+            RecordComponent[] recordComponents = type.getRecordComponents();
+            Class<?>[] parameterTypes = new Class<?>[recordComponents.length];
+            for (int i = 0; i < recordComponents.length; i++) {
+                RecordComponent component = recordComponents[i];
+                Method accessor = component.getAccessor();
+                accessor.setAccessible(true);
+                parameterTypes[i] = component.getType();
+                list.add(new Component(component.getName(), columnName(component), component.getType(),
+                        lookup.unreflect(accessor).asType(GETTER_TYPE)));
+            }
+
+            Constructor<P> canonical = type.getDeclaredConstructor(parameterTypes);
+            canonical.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(canonical)
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(CONSTRUCTOR_TYPE);
+        } else if (type.isInterface()) {
+            for (Method method : type.getMethods()) {
+                if (method.isDefault() || Modifier.isStatic(method.getModifiers()) || method.getParameterCount() > 0) continue;
+                if (method.getReturnType() == void.class) continue;
+
+                String property = propertyName(method);
+                methods.put(method, list.size());
+                list.add(new Component(property, columnName(method), method.getReturnType(), null));
+            }
+            this.constructor = null;
+        } else {
+            throw new IllegalArgumentException(type.getName() + " must be a record or an interface to be used as a projection");
+        }
+
+        this.components = list.toArray(new Component[0]);
+    }
+
+    private static String columnName(AnnotatedElement element) {
+        Named named = element.getAnnotation(Named.class);
+        return named != null ? named.value() : null;
+    }
+
+    private static String propertyName(Method method) {
+        String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) return decapitalize(name.substring(3));
+        if (name.startsWith("is") && name.length() > 2
+                && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+            return decapitalize(name.substring(2));
+        }
+        return name;
+    }
+
+    private static String decapitalize(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String snakeCase(String name) {
+        StringBuilder result = new StringBuilder();
+        for (char c : name.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                if (!result.isEmpty()) result.append('_');
+                result.append(Character.toLowerCase(c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Gets the class mapped by this mapper
+     */
+    public Class<P> getType() {
+        return type;
+    }
+
+    /**
+     * Gets, for each component, the names of the columns it may be read from, in order of preference
+     */
+    public List<List<String>> getColumnCandidates() {
+        return Arrays.stream(components).map(Component::candidates).toList();
+    }
+
+    /**
+     * Whether a column is read by a component of this projection
+     */
+    public boolean hasColumn(String column) {
+        return indexOf(column) >= 0;
+    }
+
+    /**
+     * Reads the value of the component mapped to a column
+     * @throws IllegalArgumentException if no component reads this column
+     */
+    public Object get(P projection, String column) throws SQLException {
+        int index = indexOf(column);
+        if (index < 0) throw new IllegalArgumentException("Column '" + column + "' isn't part of " + type.getSimpleName());
+
+        Component component = components[index];
+        if (component.accessor == null) {
+            return ((Values) Proxy.getInvocationHandler(projection)).values[index];
+        }
+        try {
+            return (Object) component.accessor.invokeExact((Object) projection);
+        } catch (Throwable e) {
+            throw new SQLException("Failed to read component " + component.name, e);
+        }
+    }
+
+    private int indexOf(String column) {
+        for (int i = 0; i < components.length; i++) {
+            for (String candidate : components[i].candidates()) {
+                if (candidate.equalsIgnoreCase(column)) return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Resolves the columns of a result once, the returned mapper can then be used for every row of that result
+     */
+    public RowMapper<P> bind(ResultSetMetaData metaData) throws SQLException {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = metaData.getColumnCount(); i >= 1; i--) {
+            indexes.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        int[] positions = new int[components.length];
+        for (int i = 0; i < components.length; i++) {
+            for (String candidate : components[i].candidates()) {
+                Integer index = indexes.get(candidate.toLowerCase(Locale.ROOT));
+                if (index != null) {
+                    positions[i] = index;
+                    break;
+                }
+            }
+        }
+
+        return set -> {
+            Object[] values = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                Component component = components[i];
+                values[i] = positions[i] > 0 ? component.columnType.read(set, positions[i]) : component.defaultValue;
+                if (values[i] == null) values[i] = component.defaultValue;
+            }
+            return newInstance(values);
+        };
+    }
+
+    private P newInstance(Object[] values) throws SQLException {
+        if (constructor == null) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new Values(this, values)));
+        }
+        try {
+            return type.cast(constructor.invokeExact(values));
+        } catch (Throwable e) {
+            throw new SQLException("Failed to instantiate " + type.getName(), e);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0f;
+        if (type == boolean.class) return false;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == char.class) return (char) 0;
+        return null;
+    }
+
+    private static final class Component {
+
+        private final String name;
+        private final List<String> candidates;
+        private final ColumnType columnType;
+        private final Object defaultValue;
+        private final MethodHandle accessor;
+
+        private Component(String name, String named, Class<?> type, MethodHandle accessor) {
+            this.name = name;
+            this.candidates = named != null ? List.of(named)
+                    : snakeCase(name).equals(name) ? List.of(name) : List.of(name, snakeCase(name));
+            this.columnType = ColumnType.of(type);
+            this.defaultValue = defaultValue(type);
+            this.accessor = accessor;
+        }
+
+        private List<String> candidates() {
+            return candidates;
+        }
+    }
+
+    /**
+     * Backs the instances of an interface projection
+     */
+    private static final class Values implements InvocationHandler {
+
+        private final ProjectionMapper<?> mapper;
+        private final Object[] values;
+
+        private Values(ProjectionMapper<?> mapper, Object[] values) {
+            this.mapper = mapper;
+            this.values = values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Integer index = mapper.methods.get(method);
+            if (index != null) return values[index];
+
+            switch (method.getName()) {
+                case "equals":
+                    return args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                            && Proxy.getInvocationHandler(args[0]) instanceof Values other
+                            && other.mapper == mapper && Arrays.equals(values, other.values);
+                case "hashCode":
+                    return Arrays.hashCode(values);
+                case "toString":
+                    Map<String, Object> fields = new LinkedHashMap<>();
+                    for (int i = 0; i < values.length; i++) fields.put(mapper.components[i].name, values[i]);
+                    return mapper.type.getSimpleName() + fields;
+                default:
+                    if (method.isDefault()) return InvocationHandler.invokeDefault(proxy, method, args);
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package blum.api.database;
+
+/**
+ * Counters of a query result cache
+ *
+ * @param hits queries answered by the cache
+ * @param misses queries that went to the database
+ * @param evictions results dropped to stay within the memory bound
+ * @param invalidations results dropped because a table they read was written
+ * @param rejected results not cached, being too large or read while one of their tables was written
+ * @param entries current number of cached results
+ * @param bytes estimated memory used by the cached results
+ * @param maxBytes memory bound of the cache
+ */
+public record QueryCacheStats(long hits, long misses, long evictions, long invalidations, long rejected,
+                              int entries, long bytes, long maxBytes) {
+
+    /**
+     * Gets the ratio of queries answered by the cache, between 0 and 1
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
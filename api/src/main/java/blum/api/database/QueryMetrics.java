@@ -0,0 +1,247 @@
+package blum.api.database;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Latency histograms of the statements run by a repository, grouped by normalized statement,
+ * and a log of the latest statements slower than a threshold.
+ */
+public class QueryMetrics {
+
+    public static final long DEFAULT_SLOW_QUERY_MILLIS = 250;
+
+    /** Distinct statements tracked, further ones are counted together */
+    private static final int MAX_STATEMENTS = 256;
+    private static final int MAX_SLOW_QUERIES = 50;
+    private static final int MAX_NORMALIZED = 1024;
+    private static final String OTHER_STATEMENTS = "(other)";
+
+    /** Upper bounds of the histogram buckets, the last bucket is unbounded */
+    private static final long[] BUCKET_MICROS = {50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000};
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern TUPLE_LIST = Pattern.compile("\\(\\?, \\.\\.\\.\\)(?:\\s*,\\s*\\(\\?, \\.\\.\\.\\))+");
+
+    private static final Map<String, String> NORMALIZED = new ConcurrentHashMap<>();
+
+    private final Map<String, Stats> statements = new ConcurrentHashMap<>();
+    private final Stats total = new Stats();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    private volatile boolean enabled = true;
+    private volatile long slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_QUERY_MILLIS);
+
+    /**
+     * Records an execution
+     * @param executionNanos time spent running the statement, waiting for a connection included
+     * @param mappingNanos time spent mapping its rows to entities
+     * @return whether it is slower than the slow query threshold
+     */
+    public boolean record(String sql, long executionNanos, long mappingNanos, long rows) {
+        if (!enabled) return false;
+
+        long elapsed = executionNanos + mappingNanos;
+        statement(sql).add(elapsed, mappingNanos, rows, false);
+        total.add(elapsed, mappingNanos, rows, false);
+        return elapsed >= slowQueryNanos;
+    }
+
+    /**
+     * Records a failed execution
+     */
+    public void recordFailure(String sql, long elapsedNanos) {
+        if (!enabled) return;
+
+        statement(sql).add(elapsedNanos, 0, 0, true);
+        total.add(elapsedNanos, 0, 0, true);
+    }
+
+    /**
+     * Adds a statement to the slow query log, dropping the oldest entry when full
+     */
+    public void logSlowQuery(String sql, long elapsedNanos, long rows, List<String> plan) {
+        SlowQuery query = new SlowQuery(normalize(sql), toMillis(elapsedNanos), rows, List.copyOf(plan), System.currentTimeMillis());
+        synchronized (slowQueries) {
+            if (slowQueries.size() == MAX_SLOW_QUERIES) slowQueries.removeLast();
+            slowQueries.addFirst(query);
+        }
+    }
+
+    private Stats statement(String sql) {
+        String key = normalize(sql);
+        Stats stats = statements.get(key);
+        if (stats != null) return stats;
+
+        if (statements.size() >= MAX_STATEMENTS) key = OTHER_STATEMENTS;
+        return statements.computeIfAbsent(key, k -> new Stats());
+    }
+
+    /**
+     * Gets the metrics of the repository, every statement and the slow query log
+     */
+    public RepositoryMetrics snapshot(String repository, String table) {
+        List<StatementMetrics> result = new ArrayList<>();
+        statements.forEach((sql, stats) -> result.add(stats.snapshot(sql)));
+        result.sort(Comparator.comparingDouble(StatementMetrics::totalMillis).reversed());
+
+        List<SlowQuery> slow;
+        synchronized (slowQueries) {
+            slow = List.copyOf(slowQueries);
+        }
+        return new RepositoryMetrics(repository, table, total.snapshot("*"), result, slow);
+    }
+
+    /**
+     * Forgets every recorded execution and slow query
+     */
+    public void reset() {
+        statements.clear();
+        total.reset();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the duration from which statements are logged as slow, in milliseconds
+     */
+    public long getSlowQueryMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryNanos);
+    }
+
+    /**
+     * Sets the duration from which statements are logged as slow, 0 to log every statement
+     */
+    public void setSlowQueryMillis(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("Slow query threshold can't be negative");
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Normalizes a statement so its executions are grouped whatever their literals or number of parameters:
+     * whitespace is collapsed, literals become ? and lists of parameters or tuples are shortened.
+     */
+    public static String normalize(String sql) {
+        String normalized = NORMALIZED.get(sql);
+        if (normalized != null) return normalized;
+
+        normalized = WHITESPACE.matcher(sql).replaceAll(" ").strip();
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("?, ...");
+        normalized = TUPLE_LIST.matcher(normalized).replaceAll("(?, ...), ...");
+
+        // Statements built with literals would grow the cache without bound
+        if (NORMALIZED.size() < MAX_NORMALIZED) NORMALIZED.put(sql, normalized);
+        return normalized;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static class Stats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder mappingNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_MICROS.length + 1);
+
+        private void add(long elapsedNanos, long mapping, long rowCount, boolean failed) {
+            count.increment();
+            if (failed) errors.increment();
+            if (rowCount > 0) rows.add(rowCount);
+            totalNanos.add(elapsedNanos);
+            mappingNanos.add(mapping);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+            buckets.incrementAndGet(bucketOf(elapsedNanos));
+        }
+
+        private static int bucketOf(long nanos) {
+            long micros = nanos / 1_000;
+            for (int i = 0; i < BUCKET_MICROS.length; i++) {
+                if (micros <= BUCKET_MICROS[i]) return i;
+            }
+            return BUCKET_MICROS.length;
+        }
+
+        private void reset() {
+            count.reset();
+            errors.reset();
+            rows.reset();
+            totalNanos.reset();
+            mappingNanos.reset();
+            maxNanos.set(0);
+            for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+        }
+
+        private StatementMetrics snapshot(String sql) {
+            long[] counts = new long[buckets.length()];
+            long executions = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                executions += counts[i];
+            }
+
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                histogram.put(i < BUCKET_MICROS.length ? String.valueOf(BUCKET_MICROS[i] / 1000.0) : "+Inf", counts[i]);
+            }
+
+            double max = toMillis(maxNanos.get());
+            double totalMillis = toMillis(totalNanos.sum());
+            return new StatementMetrics(sql, executions, errors.sum(), rows.sum(), totalMillis, toMillis(mappingNanos.sum()),
+                    executions == 0 ? 0 : totalMillis / executions,
+                    percentile(counts, executions, 0.50, max), percentile(counts, executions, 0.95, max),
+                    percentile(counts, executions, 0.99, max), max, histogram);
+        }
+
+        /**
+         * Estimates a percentile by interpolating within its bucket, the unbounded bucket ends at the maximum
+         */
+        private static double percentile(long[] counts, long executions, double quantile, double max) {
+            if (executions == 0) return 0;
+
+            double rank = quantile * executions;
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0 || seen + counts[i] < rank) {
+                    seen += counts[i];
+                    continue;
+                }
+
+                double lower = i == 0 ? 0 : BUCKET_MICROS[i - 1] / 1000.0;
+                double upper = i < BUCKET_MICROS.length ? BUCKET_MICROS[i] / 1000.0 : Math.max(lower, max);
+                return Math.min(max, lower + (upper - lower) * (rank - seen) / counts[i]);
+            }
+            return max;
+        }
+    }
+}
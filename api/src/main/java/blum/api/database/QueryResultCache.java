@@ -0,0 +1,349 @@
+package blum.api.database;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of query results shared by the repositories of a database, keyed by statement and bound parameters.
+ * Each result is tagged with the tables its statement reads, and dropped as soon as a repository writes one of them.
+ * Tables written by triggers or by other processes aren't tracked: queries reading them, e.g. full-text indexes,
+ * shouldn't be cached. The size of the results is estimated from the values read, and the least recently used
+ * results are evicted beyond the memory bound. Tables written in a transaction are invalidated again once it ends,
+ * readers loading the committed rows until then.
+ */
+public class QueryResultCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_PARSED = 1024;
+    private static final long ENTRY_OVERHEAD = 128;
+
+    /** Keywords that can't be table names */
+    private static final Set<String> CLAUSES = Set.of("where", "group", "order", "limit", "offset", "having", "window",
+            "join", "inner", "left", "right", "full", "outer", "cross", "natural", "on", "using", "union", "except",
+            "intersect", "indexed", "not", "returning", "set", "values", "select");
+
+    /** Keywords ending a FROM clause */
+    private static final Set<String> FROM_END = Set.of("where", "group", "order", "limit", "having", "window",
+            "union", "except", "intersect", "returning", "values");
+
+    private static final Map<String, Set<String>> TABLES_READ = new ConcurrentHashMap<>();
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> tagged = new HashMap<>();
+    private final Map<String, Long> versions = new HashMap<>();
+    /** Tables written by the open transaction of the writer, null when any table may have been */
+    private Set<String> transactionTables = new HashSet<>();
+
+    private long epoch;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long rejected;
+
+    /**
+     * @param maxBytes estimated memory the cached results may use, a single result can use a quarter of it at most
+     */
+    public QueryResultCache(long maxBytes) {
+        if (maxBytes < 1) throw new IllegalArgumentException("Cache size must be positive");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Builds the key of a query, its statement with whitespace collapsed and its bound parameters
+     */
+    public static Key key(String sql, Object... values) {
+        Object[] parameters = values == null ? new Object[0] : values.clone();
+        for (int i = 0; i < parameters.length; i++) {
+            // Arrays only compare by identity
+            if (parameters[i] instanceof byte[] array) parameters[i] = ByteBuffer.wrap(array.clone());
+        }
+        return new Key(WHITESPACE.matcher(sql).replaceAll(" ").strip(), Collections.unmodifiableList(Arrays.asList(parameters)));
+    }
+
+    /**
+     * Gets the cached result of a query, or null if absent
+     */
+    public synchronized List<?> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.rows;
+    }
+
+    /**
+     * Gets a stamp of the given tables, which changes whenever one of them is invalidated.
+     * Taken before running a query, it tells {@link #put} whether a write happened in the meantime.
+     */
+    public synchronized long stamp(Set<String> tables) {
+        long stamp = epoch;
+        for (String table : tables) stamp += versions.getOrDefault(table, 0L);
+        return stamp;
+    }
+
+    /**
+     * Caches the result of a query, unless one of its tables was invalidated since the stamp was taken
+     * @param tables tables read by the query, see {@link #tablesRead(String)}
+     * @param size estimated size of the rows, see {@link #estimateSize(Object)}
+     * @return whether the result was cached
+     */
+    public synchronized boolean put(Key key, Set<String> tables, List<?> rows, long size, long stamp) {
+        long total = size + ENTRY_OVERHEAD + 2L * key.sql().length();
+        if (total > maxBytes / 4 || stamp != stamp(tables)) {
+            rejected++;
+            return false;
+        }
+
+        remove(key);
+        entries.put(key, new Entry(Collections.unmodifiableList(new ArrayList<>(rows)), Set.copyOf(tables), total));
+        bytes += total;
+        for (String table : tables) tagged.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+
+        // Iterates from the least recently used, the new entry being a quarter of the bound at most
+        while (bytes > maxBytes) {
+            remove(entries.keySet().iterator().next());
+            evictions++;
+        }
+        return true;
+    }
+
+    /**
+     * Drops the results reading a table, called after every write to it
+     */
+    public synchronized void invalidate(String table) {
+        String name = table.toLowerCase(Locale.ROOT);
+        versions.merge(name, 1L, Long::sum);
+
+        Set<Key> keys = tagged.remove(name);
+        if (keys == null) return;
+        for (Key key : keys) {
+            if (remove(key)) invalidations++;
+        }
+    }
+
+    /**
+     * Records tables written by the open transaction, invalidated again by {@link #endTransaction()}
+     * @param tables the written tables, null when unknown
+     */
+    public synchronized void writtenInTransaction(Set<String> tables) {
+        if (tables == null) {
+            transactionTables = null;
+        } else if (transactionTables != null) {
+            for (String table : tables) transactionTables.add(table.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Invalidates the tables written by the transaction that just committed or rolled back:
+     * results read and stamped before it ended hold the old rows
+     */
+    public synchronized void endTransaction() {
+        Set<String> tables = transactionTables;
+        transactionTables = new HashSet<>();
+        if (tables == null) {
+            clear();
+        } else {
+            tables.forEach(this::invalidate);
+        }
+    }
+
+    /**
+     * Drops every result, called after writes whose tables aren't known
+     */
+    public synchronized void clear() {
+        epoch++;
+        invalidations += entries.size();
+        entries.clear();
+        tagged.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Removes an entry, releasing its memory and its tags
+     */
+    private boolean remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) return false;
+
+        bytes -= entry.size;
+        for (String table : entry.tables) {
+            Set<Key> keys = tagged.get(table);
+            if (keys == null) continue;
+            keys.remove(key);
+            if (keys.isEmpty()) tagged.remove(table);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the hit, miss, eviction and invalidation counters of this cache
+     */
+    public synchronized QueryCacheStats getStats() {
+        return new QueryCacheStats(hits, misses, evictions, invalidations, rejected, entries.size(), bytes, maxBytes);
+    }
+
+    /**
+     * Gets the tables read by a statement, in lower case: those following FROM, JOIN
+     * or a comma of a FROM clause, subqueries included
+     */
+    public static Set<String> tablesRead(String sql) {
+        Set<String> tables = TABLES_READ.get(sql);
+        if (tables != null) return tables;
+
+        List<String> tokens = tokenize(sql);
+        Set<String> found = new HashSet<>();
+        // Whether each level of parentheses is within a FROM clause, where commas separate tables
+        Deque<Boolean> inFrom = new ArrayDeque<>();
+        boolean from = false;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            switch (token) {
+                case "from" -> {
+                    from = true;
+                    readTable(tokens, i + 1, found);
+                }
+                case "join" -> readTable(tokens, i + 1, found);
+                case "," -> {
+                    if (from) readTable(tokens, i + 1, found);
+                }
+                case "(" -> {
+                    inFrom.push(from);
+                    from = false;
+                }
+                case ")" -> from = !inFrom.isEmpty() && inFrom.pop();
+                default -> {
+                    if (FROM_END.contains(token)) from = false;
+                }
+            }
+        }
+
+        tables = Set.copyOf(found);
+        if (TABLES_READ.size() < MAX_PARSED) TABLES_READ.put(sql, tables);
+        return tables;
+    }
+
+    /**
+     * Gets the table written by an INSERT, REPLACE, UPDATE or DELETE statement, none for a SELECT,
+     * or null when unknown, e.g. for schema changes or statements starting with WITH
+     */
+    public static Set<String> tablesWritten(String sql) {
+        List<String> tokens = tokenize(sql);
+        if (tokens.isEmpty()) return Set.of();
+
+        Set<String> tables = new HashSet<>();
+        switch (tokens.get(0)) {
+            case "select", "pragma", "explain" -> {
+                return Set.of();
+            }
+            case "insert", "replace" -> {
+                int into = tokens.indexOf("into");
+                if (into < 0) return null;
+                readTable(tokens, into + 1, tables);
+            }
+            case "update" -> readTable(tokens, tokens.size() > 1 && tokens.get(1).equals("or") ? 3 : 1, tables);
+            case "delete" -> {
+                if (tokens.size() < 2 || !tokens.get(1).equals("from")) return null;
+                readTable(tokens, 2, tables);
+            }
+            default -> {
+                return null;
+            }
+        }
+        return tables.isEmpty() ? null : tables;
+    }
+
+    /**
+     * Reads a possibly qualified table name, subqueries being skipped
+     */
+    private static void readTable(List<String> tokens, int index, Set<String> tables) {
+        if (index >= tokens.size() || !isName(tokens.get(index))) return;
+
+        String name = tokens.get(index);
+        if (index + 2 < tokens.size() && tokens.get(index + 1).equals(".") && isName(tokens.get(index + 2))) {
+            name = tokens.get(index + 2);
+        }
+        tables.add(name.startsWith("\"") ? name.substring(1) : name);
+    }
+
+    private static boolean isName(String token) {
+        char first = token.charAt(0);
+        return first == '"' || ((Character.isLetter(first) || first == '_') && !CLAUSES.contains(token));
+    }
+
+    /**
+     * Splits a statement into lower case words and symbols, without literals or comments.
+     * Quoted identifiers are prefixed with a double quote so they are never taken for keywords.
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                int end = i + 1;
+                while (end < length && (sql.charAt(end) != '\'' || (end + 1 < length && sql.charAt(end + 1) == '\''))) {
+                    end += sql.charAt(end) == '\'' ? 2 : 1;
+                }
+                tokens.add("'");
+                i = end + 1;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '"' || c == '`' || c == '[') {
+                int end = sql.indexOf(c == '[' ? ']' : c, i + 1);
+                if (end < 0) end = length;
+                tokens.add("\"" + sql.substring(i + 1, end).toLowerCase(Locale.ROOT));
+                i = end + 1;
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) i++;
+                tokens.add(sql.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Estimates the memory used by a value read from a result set
+     */
+    public static long estimateSize(Object value) {
+        if (value == null) return 8;
+        if (value instanceof String string) return 40 + 2L * string.length();
+        if (value instanceof byte[] array) return 16 + array.length;
+        return 24;
+    }
+
+    /**
+     * Statement and bound parameters of a cached query
+     */
+    public record Key(String sql, List<Object> parameters) {}
+
+    private record Entry(List<?> rows, Set<String> tables, long size) {}
+}
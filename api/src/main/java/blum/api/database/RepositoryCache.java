@@ -0,0 +1,40 @@
+package blum.api.database;
+
+import java.util.function.Predicate;
+
+/**
+ * Cache of entities looked up by a repository, keyed by lookup column and value.
+ * Implementations must be thread-safe.
+ */
+public interface RepositoryCache<T> {
+
+    /**
+     * Gets the cached entity of a key, or null if absent or expired
+     */
+    T get(Key key);
+
+    /**
+     * Caches an entity under a key, evicting other entries if the cache is full
+     */
+    void put(Key key, T entity);
+
+    /**
+     * Removes the entries whose entity matches the filter
+     */
+    void invalidateIf(Predicate<T> filter);
+
+    /**
+     * Removes every entry
+     */
+    void clear();
+
+    /**
+     * Gets the hit, miss and eviction counters of this cache
+     */
+    CacheStats getStats();
+
+    /**
+     * Lookup of an entity by the value of a column
+     */
+    record Key(String column, Object value) {}
+}
@@ -0,0 +1,30 @@
+package blum.api.database;
+
+/**
+ * Listener of the writes made through a repository.
+ * Events are sent on the writing thread once the statement succeeded, possibly before its transaction commits.
+ * Received entities belong to the caller and must not be kept.
+ */
+public interface RepositoryListener<T> {
+
+    /**
+     * An entity was inserted, its generated identifier is set
+     */
+    default void onInsert(T entity) {}
+
+    /**
+     * An entity was updated
+     */
+    default void onUpdate(T entity) {}
+
+    /**
+     * The entity with this identifier was deleted
+     */
+    default void onDelete(Object id) {}
+
+    /**
+     * Rows changed in a way the repository can't track (raw statements, rolled back transactions),
+     * any state derived from the table should be reloaded
+     */
+    default void onInvalidate() {}
+}
@@ -0,0 +1,16 @@
+package blum.api.database;
+
+import java.util.List;
+
+/**
+ * Query metrics of a repository
+ *
+ * @param repository class name of the repository
+ * @param table table of the repository
+ * @param total every statement of the repository together
+ * @param statements every normalized statement, most time consuming first
+ * @param slowQueries the latest slow queries, most recent first
+ */
+public record RepositoryMetrics(String repository, String table, StatementMetrics total,
+                                List<StatementMetrics> statements, List<SlowQuery> slowQueries) {
+}
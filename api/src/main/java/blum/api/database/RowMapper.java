@@ -0,0 +1,13 @@
+package blum.api.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an object
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T map(ResultSet set) throws SQLException;
+}
@@ -0,0 +1,83 @@
+package blum.api.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Provider sharing one connection between readers and the writer.
+ * Writes are serialized, reads run directly on the connection.
+ * The connection belongs to the caller, closing the provider only closes its cached statements.
+ */
+public class SingleConnectionProvider implements ConnectionProvider, AutoCloseable {
+
+    private final Connection connection;
+    private final StatementCache statements;
+    private final ReentrantLock writerLock = new ReentrantLock();
+
+    private final AtomicLong readerAcquisitions = new AtomicLong();
+    private final AtomicLong writerAcquisitions = new AtomicLong();
+    private final AtomicLong writerWaitNanos = new AtomicLong();
+
+    public SingleConnectionProvider(Connection connection) {
+        this.connection = connection;
+        this.statements = new StatementCache(connection, StatementCache.DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public <R> R read(ConnectionWork<R> work) throws SQLException {
+        readerAcquisitions.incrementAndGet();
+        return work.run(connection);
+    }
+
+    @Override
+    public <R> R write(ConnectionWork<R> work) throws SQLException {
+        long start = System.nanoTime();
+        writerLock.lock();
+        try {
+            writerAcquisitions.incrementAndGet();
+            writerWaitNanos.addAndGet(System.nanoTime() - start);
+            return work.run(connection);
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    @Override
+    public Connection acquireReader() {
+        readerAcquisitions.incrementAndGet();
+        return connection;
+    }
+
+    @Override
+    public void releaseReader(Connection connection) {
+    }
+
+    @Override
+    public StatementCache getStatementCache(Connection connection) {
+        if (connection != this.connection) throw new IllegalArgumentException("Connection not provided by " + this);
+        return statements;
+    }
+
+    @Override
+    public Connection getWriter() {
+        return connection;
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return new PoolMetrics(0, 0, readerAcquisitions.get(), 0, 0, 0,
+                writerAcquisitions.get(), writerWaitNanos.get(), 0, 0, 0, 0);
+    }
+
+    @Override
+    public void close() {
+        statements.clear();
+    }
+
+    @Override
+    public String toString() {
+        return connection.toString();
+    }
+}
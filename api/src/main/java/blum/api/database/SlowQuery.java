@@ -0,0 +1,15 @@
+package blum.api.database;
+
+import java.util.List;
+
+/**
+ * A statement slower than the slow query threshold of its repository
+ *
+ * @param sql the normalized statement, its parameter values aren't kept
+ * @param millis execution and mapping time
+ * @param rows rows read or written
+ * @param plan lines of its EXPLAIN QUERY PLAN, empty when it couldn't be explained
+ * @param timestamp epoch milliseconds of the execution
+ */
+public record SlowQuery(String sql, double millis, long rows, List<String> plan, long timestamp) {
+}
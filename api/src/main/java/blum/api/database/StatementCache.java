@@ -0,0 +1,96 @@
+package blum.api.database;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Bounded cache of prepared statements for a connection, keyed by SQL text.
+ * Statements are parsed and planned once, then reused until evicted (least recently used first).
+ * A cached statement must be used while holding its monitor, since it may be shared between threads.
+ * Caches are owned by the provider of their connection, see {@link ConnectionProvider#getStatementCache(Connection)}.
+ */
+@Slf4j
+public class StatementCache {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    public StatementCache(Connection connection, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Statement cache capacity must be positive");
+        this.connection = connection;
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the cached statement for the given SQL, preparing it if needed
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement;
+        List<PreparedStatement> evicted = new ArrayList<>();
+
+        synchronized (this) {
+            statement = statements.get(sql);
+            if (statement != null && !statement.isClosed()) return statement;
+
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+
+            Iterator<PreparedStatement> iterator = statements.values().iterator();
+            while (statements.size() > capacity && iterator.hasNext()) {
+                evicted.add(iterator.next());
+                iterator.remove();
+            }
+        }
+
+        evicted.forEach(this::close);
+        return statement;
+    }
+
+    /**
+     * Gets the number of cached statements
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Gets the maximum number of cached statements
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Closes every cached statement
+     */
+    public void clear() {
+        List<PreparedStatement> all;
+        synchronized (this) {
+            all = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+        all.forEach(this::close);
+    }
+
+    private void close(PreparedStatement statement) {
+        // Wait for any thread still using the statement
+        synchronized (statement) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                log.debug("Failed to close cached statement: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package blum.api.database;
+
+import java.util.Map;
+
+/**
+ * Latency and volume of one normalized statement, or of every statement of a repository
+ *
+ * @param sql the statement with literals and parameter lists collapsed, "*" for the repository total
+ * @param count executions, failed ones included
+ * @param errors failed executions
+ * @param rows rows read or written
+ * @param totalMillis time spent executing and mapping
+ * @param mappingMillis part of the time spent mapping rows to entities
+ * @param meanMillis mean latency
+ * @param p50Millis median latency, estimated from the histogram
+ * @param p95Millis 95th percentile latency, estimated from the histogram
+ * @param p99Millis 99th percentile latency, estimated from the histogram
+ * @param maxMillis slowest execution
+ * @param histogram executions by latency bucket, keyed by the upper bound of the bucket in milliseconds
+ */
+public record StatementMetrics(String sql, long count, long errors, long rows, double totalMillis, double mappingMillis,
+                               double meanMillis, double p50Millis, double p95Millis, double p99Millis, double maxMillis,
+                               Map<String, Long> histogram) {
+}
@@ -0,0 +1,10 @@
+package blum.api.database;
+
+/**
+ * Work executed inside a single database transaction
+ */
+@FunctionalInterface
+public interface UnitOfWork<R> {
+
+    R execute() throws Exception;
+}
@@ -0,0 +1,18 @@
+package blum.api.database;
+
+/**
+ * Outcome of a diff-based merge
+ *
+ * @param inserted entities that had no stored row
+ * @param updated entities whose stored row had a different content
+ * @param unchanged entities identical to their stored row, not written
+ */
+public record UpsertResult(int inserted, int updated, int unchanged) {
+
+    /**
+     * Gets the number of written rows
+     */
+    public int written() {
+        return inserted + updated;
+    }
+}
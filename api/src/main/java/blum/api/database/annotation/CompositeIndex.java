@@ -0,0 +1,24 @@
+package blum.api.database.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Creates an index over several columns of a model, in the given order
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Repeatable(CompositeIndexes.class)
+public @interface CompositeIndex {
+
+    /** Column names, considering @Named annotations */
+    String[] columns();
+
+    boolean unique() default false;
+
+    /** Index name, generated from the table and column names by default */
+    String name() default "";
+}
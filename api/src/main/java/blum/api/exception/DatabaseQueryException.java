@@ -0,0 +1,7 @@
+package blum.api.exception;
+
+public class DatabaseQueryException extends RuntimeException {
+    public DatabaseQueryException(String message, Exception e) {
+        super(message,e);
+    }
+}
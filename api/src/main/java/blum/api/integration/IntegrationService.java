@@ -0,0 +1,41 @@
+package blum.api.integration;
+
+import blum.api.integration.model.SyncState;
+import blum.api.services.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface IntegrationService extends Service {
+
+    /**
+     * Registers a store integration, replacing the one with the same source
+     */
+    void register(StoreIntegration integration);
+
+    /**
+     * Unregisters the integration of a store, its games are kept
+     */
+    void unregister(String source);
+
+    /**
+     * Gets the sources of the registered integrations
+     */
+    List<String> getSources();
+
+    /**
+     * Syncs every feed of a store, feeds already being synced are joined rather than started again
+     * @throws IllegalArgumentException if no integration is registered for this source
+     */
+    CompletableFuture<List<SyncResult>> sync(String source);
+
+    /**
+     * Syncs every feed of every registered store
+     */
+    CompletableFuture<List<SyncResult>> syncAll();
+
+    /**
+     * Gets the checkpoint and last outcome of every feed synced so far
+     */
+    List<SyncState> getSyncStates();
+}
@@ -0,0 +1,45 @@
+package blum.api.integration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Connector to a store the library is synced with, registered with the {@link IntegrationService} or declared as a
+ * {@link java.util.ServiceLoader} provider. Games are fetched as deltas from a checkpoint chosen by the integration,
+ * a store without change tracking may return its whole listing: only games that changed are written.
+ */
+public interface StoreIntegration {
+
+    /**
+     * Gets the key of the store, written as the source of its games, e.g. steam
+     */
+    String source();
+
+    /**
+     * Gets the feeds of the store, synced in parallel and each with its own checkpoint, e.g. owned games and wishlist
+     */
+    default List<String> feeds() {
+        return List.of("library");
+    }
+
+    /**
+     * Gets the maximum number of fetches running at the same time against this store, all feeds included
+     */
+    default int maxConcurrency() {
+        return 1;
+    }
+
+    /**
+     * Gets the minimum time between two automatic syncs of a feed
+     */
+    default Duration syncInterval() {
+        return Duration.ofHours(1);
+    }
+
+    /**
+     * Fetches the next changes of a feed. Called again with the returned checkpoint while there are more changes,
+     * the checkpoint is persisted once the changes are applied so an interrupted sync resumes from it.
+     * @param checkpoint checkpoint returned by the last applied batch, {@link SyncCheckpoint#NONE} for a first sync
+     */
+    SyncBatch fetch(String feed, SyncCheckpoint checkpoint) throws Exception;
+}
@@ -0,0 +1,29 @@
+package blum.api.integration;
+
+import blum.api.library.model.GameMetadata;
+
+import java.util.List;
+
+/**
+ * Changes fetched from a store feed, applied together with their checkpoint
+ *
+ * @param games added or changed games, matched with the catalog by name within the source of the integration
+ * @param removed names of the games removed from the store
+ * @param checkpoint checkpoint to fetch the next changes from
+ * @param hasMore whether more changes can be fetched right away from the checkpoint
+ */
+public record SyncBatch(List<GameMetadata> games, List<String> removed, SyncCheckpoint checkpoint, boolean hasMore) {
+
+    public SyncBatch {
+        games = games == null ? List.of() : games;
+        removed = removed == null ? List.of() : removed;
+        checkpoint = checkpoint == null ? SyncCheckpoint.NONE : checkpoint;
+    }
+
+    /**
+     * Batch of a feed that didn't change since the checkpoint, e.g. answered 304 Not Modified
+     */
+    public static SyncBatch unchanged(SyncCheckpoint checkpoint) {
+        return new SyncBatch(List.of(), List.of(), checkpoint, false);
+    }
+}
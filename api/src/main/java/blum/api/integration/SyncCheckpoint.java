@@ -0,0 +1,15 @@
+package blum.api.integration;
+
+/**
+ * Position of a sync in the changes of a store feed, opaque to the sync engine.
+ * Any of its values may be null when the store doesn't use it.
+ *
+ * @param cursor continuation token of the store API
+ * @param etag entity tag of the last listing, sent back in If-None-Match
+ * @param lastModified last modification date of the last listing, sent back in If-Modified-Since
+ */
+public record SyncCheckpoint(String cursor, String etag, String lastModified) {
+
+    /** Checkpoint of a feed never synced */
+    public static final SyncCheckpoint NONE = new SyncCheckpoint(null, null, null);
+}
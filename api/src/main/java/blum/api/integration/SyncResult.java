@@ -0,0 +1,21 @@
+package blum.api.integration;
+
+/**
+ * Outcome of the sync of a store feed
+ *
+ * @param batches number of fetched batches
+ * @param fetched number of fetched games
+ * @param inserted games added to the catalog
+ * @param updated games of the catalog that changed
+ * @param unchanged fetched games identical to the catalog, not written
+ * @param removed games deleted from the catalog
+ * @param error message of the failure that stopped the sync, null if it completed.
+ *              Batches applied before the failure are kept, the next sync resumes after them.
+ */
+public record SyncResult(String source, String feed, int batches, int fetched, int inserted, int updated,
+                         int unchanged, int removed, long elapsedMillis, String error) {
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
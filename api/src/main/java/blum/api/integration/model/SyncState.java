@@ -0,0 +1,44 @@
+package blum.api.integration.model;
+
+import blum.api.annotation.Identifier;
+import blum.api.annotation.Named;
+import blum.api.database.annotation.CompositeIndex;
+import blum.api.database.annotation.Model;
+import blum.api.integration.SyncCheckpoint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checkpoint of a store feed, persisted with the changes it was reached with
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Model
+@CompositeIndex(columns = {"source", "feed"}, unique = true)
+public class SyncState {
+
+    @Identifier
+    private int id;
+
+    private String source;
+    private String feed;
+    private String cursor;
+    private String etag;
+
+    @Named("last_modified")
+    private String lastModified;
+
+    /** When the last sync completed, in epoch milliseconds */
+    @Named("synced_at")
+    private long syncedAt;
+
+    /** Message of the failure of the last sync, null if it completed */
+    @Named("last_error")
+    private String lastError;
+
+    public SyncCheckpoint checkpoint() {
+        return new SyncCheckpoint(cursor, etag, lastModified);
+    }
+}
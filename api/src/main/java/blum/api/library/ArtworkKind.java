@@ -0,0 +1,33 @@
+package blum.api.library;
+
+import java.util.Locale;
+
+/**
+ * Role of an image in the library, a game has at most one artwork of each kind
+ */
+public enum ArtworkKind {
+    COVER,
+    BACKGROUND,
+    LOGO,
+    ICON;
+
+    /**
+     * Gets the name stored in the database and used in URLs
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses a kind from its key, case-insensitively
+     * @throws IllegalArgumentException if the kind is unknown
+     */
+    public static ArtworkKind parse(String key) {
+        if (key != null) {
+            for (ArtworkKind kind : values()) {
+                if (kind.name().equalsIgnoreCase(key)) return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown artwork kind: " + key);
+    }
+}
@@ -0,0 +1,62 @@
+package blum.api.library;
+
+import blum.api.library.model.GameArtwork;
+import blum.api.services.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+public interface ArtworkService extends Service {
+
+    /**
+     * Stores an image and makes it the artwork of this kind of a game, replacing the previous one.
+     * Images are stored once per content, whatever the number of games using them.
+     * @throws IllegalArgumentException if the game is unknown, or the content is empty, too large or not a supported image format
+     */
+    GameArtwork storeArtwork(int gameId, ArtworkKind kind, InputStream content) throws IOException, SQLException;
+
+    /**
+     * Gets the artwork of this kind of a game, or null if it has none
+     */
+    GameArtwork getArtwork(int gameId, ArtworkKind kind);
+
+    /**
+     * Gets every artwork of a game
+     */
+    List<GameArtwork> listArtwork(int gameId);
+
+    /**
+     * Gets an artwork having this content, or null if no game uses it
+     */
+    GameArtwork findByHash(String hash);
+
+    /**
+     * Gets the file holding the image with this hash, or null if it isn't stored
+     */
+    Path getFile(String hash);
+
+    /**
+     * Gets a resized copy of an image at least as wide as requested, generated on first request
+     * @return the copy, or null if the image should be served as is: it is small enough,
+     *         can't be resized in time, or resizing is disabled
+     */
+    Thumbnail getThumbnail(String hash, int width);
+
+    ThumbnailStats getThumbnailStats();
+
+    /**
+     * Removes the artwork of this kind of a game, deleting its image when no other game uses it
+     * @return whether the game had such an artwork
+     */
+    boolean removeArtwork(int gameId, ArtworkKind kind) throws IOException, SQLException;
+
+    /**
+     * Deletes the stored images no game uses anymore, e.g. left by deleted games whose artwork went with them.
+     * Nothing is deleted when the artwork in use can't be read.
+     * @return the number of deleted images
+     */
+    int purgeUnreferenced() throws IOException, SQLException;
+}
@@ -0,0 +1,9 @@
+package blum.api.library;
+
+/**
+ * A game suggested for a partially typed name
+ *
+ * @param score how well the name matches, 1 when every word of the query starts a word of the name
+ */
+public record Completion(int id, String name, double score) {
+}
@@ -0,0 +1,44 @@
+package blum.api.library;
+
+import blum.api.library.model.GameMetadata;
+
+import java.util.function.Function;
+
+/**
+ * Fields of the game metadata the library can be filtered and counted by
+ */
+public enum Facet {
+
+    GENRES(GameMetadata::getGenres, true),
+    TAGS(GameMetadata::getTags, true),
+    CATEGORIES(GameMetadata::getCategories, true),
+    FEATURES(GameMetadata::getFeatures, true),
+    DEVELOPERS(GameMetadata::getDevelopers, true),
+    PUBLISHERS(GameMetadata::getPublishers, true),
+    PLATFORM(GameMetadata::getPlatform, false),
+    SOURCE(GameMetadata::getSource, false),
+    REGION(GameMetadata::getRegion, false),
+    PEGI(GameMetadata::getPegi, false);
+
+    private final Function<GameMetadata, String> extractor;
+    private final boolean multiValued;
+
+    Facet(Function<GameMetadata, String> extractor, boolean multiValued) {
+        this.extractor = extractor;
+        this.multiValued = multiValued;
+    }
+
+    /**
+     * Gets the raw value of this facet for a game
+     */
+    public String extract(GameMetadata game) {
+        return extractor.apply(game);
+    }
+
+    /**
+     * Whether the field holds a list of values, separated by commas
+     */
+    public boolean isMultiValued() {
+        return multiValued;
+    }
+}
@@ -0,0 +1,38 @@
+package blum.api.library;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filter of the game library.
+ * A game matches when, for every facet, it has at least one of the requested values,
+ * and when its ratings are at least the requested minimums.
+ *
+ * @param facets requested values of each filtered facet, compared ignoring case
+ * @param minPressRating minimum press rating, null to ignore it
+ * @param minCommunityRating minimum community rating, null to ignore it
+ */
+public record LibraryFilter(Map<Facet, Set<String>> facets, Integer minPressRating, Integer minCommunityRating) {
+
+    public LibraryFilter {
+        facets = facets == null || facets.isEmpty() ? Map.of() : Map.copyOf(new EnumMap<>(facets));
+    }
+
+    /**
+     * Filter matching the whole library
+     */
+    public static LibraryFilter all() {
+        return new LibraryFilter(Map.of(), null, null);
+    }
+
+    /**
+     * Gets a copy of this filter also requiring one of the given values of a facet
+     */
+    public LibraryFilter with(Facet facet, String... values) {
+        Map<Facet, Set<String>> copy = new EnumMap<>(Facet.class);
+        copy.putAll(facets);
+        copy.put(facet, Set.of(values));
+        return new LibraryFilter(copy, minPressRating, minCommunityRating);
+    }
+}
@@ -1,6 +1,50 @@
 package blum.api.library;
 
+import blum.api.database.Page;
+import blum.api.library.model.GameMetadata;
+import blum.api.library.model.GameSummary;
 import blum.api.services.Service;
 
+import java.util.List;
+import java.util.Map;
+
 public interface LibraryService extends Service {
+
+    /**
+     * Lists the game catalog in sort name order for the configured locale, one page of summaries at a time
+     * @param cursor cursor of the previous page, null for the first page
+     * @param limit maximum number of games of the page
+     */
+    Page<GameSummary> listGames(String cursor, int limit);
+
+    /**
+     * Searches the game catalog by name, series, developers, genres, tags and description, best matches first
+     * @param query words to search, each one matched as a prefix
+     * @param offset number of results to skip
+     * @param limit maximum number of results
+     */
+    List<GameMetadata> search(String query, int offset, int limit);
+
+    /**
+     * Suggests games for a partially typed name, tolerating typos, best matches first.
+     * Answered from memory, it can be called on every keystroke.
+     * @param limit maximum number of suggestions
+     */
+    List<Completion> complete(String query, int limit);
+
+    /**
+     * Gets the identifiers of the games matching a filter, in identifier order
+     */
+    int[] filter(LibraryFilter filter);
+
+    /**
+     * Counts the games matching a filter for every value of a facet, most frequent values first
+     */
+    Map<String, Integer> countFacet(Facet facet, LibraryFilter filter);
+
+    /**
+     * Gets the totals of the library by platform, source, genre, PEGI rating and release year, and the distributions
+     * of its ratings. Maintained as the library changes, it can be called on every dashboard refresh.
+     */
+    LibraryStats getStatistics();
 }
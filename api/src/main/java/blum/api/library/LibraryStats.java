@@ -0,0 +1,20 @@
+package blum.api.library;
+
+import java.util.Map;
+
+/**
+ * Aggregates of the whole game library, values counted most frequent first
+ *
+ * @param games number of games
+ * @param platforms games by platform
+ * @param sources games by store they were imported from
+ * @param genres games by genre, a game counting once for each of its genres
+ * @param pegi games by PEGI rating
+ * @param releaseYears games by release year, in year order, games without a known year aren't counted
+ * @param pressRatings distribution of the press ratings
+ * @param communityRatings distribution of the community ratings
+ */
+public record LibraryStats(int games, Map<String, Integer> platforms, Map<String, Integer> sources,
+                           Map<String, Integer> genres, Map<String, Integer> pegi, Map<Integer, Integer> releaseYears,
+                           RatingStats pressRatings, RatingStats communityRatings) {
+}
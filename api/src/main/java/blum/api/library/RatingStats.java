@@ -0,0 +1,16 @@
+package blum.api.library;
+
+import java.util.Map;
+
+/**
+ * Distribution of a 0-100 rating over the library
+ *
+ * @param count number of rated games
+ * @param mean mean rating, 0 when no game is rated
+ * @param min lowest rating, null when no game is rated
+ * @param max highest rating, null when no game is rated
+ * @param histogram rated games by range of ten points in ascending order, keyed by the lower bound of the range,
+ *                  100 counting in the 90 range
+ */
+public record RatingStats(int count, double mean, Integer min, Integer max, Map<Integer, Integer> histogram) {
+}
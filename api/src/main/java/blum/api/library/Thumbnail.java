@@ -0,0 +1,11 @@
+package blum.api.library;
+
+import java.nio.file.Path;
+
+/**
+ * A resized copy of an artwork image
+ *
+ * @param width width of the copy, the height keeping the aspect ratio of the image
+ */
+public record Thumbnail(Path file, String contentType, int width) {
+}
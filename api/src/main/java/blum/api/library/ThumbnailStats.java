@@ -0,0 +1,30 @@
+package blum.api.library;
+
+/**
+ * Counters of the resized artwork cache
+ *
+ * @param hits requests answered without resizing, from the cache or because the original was small enough
+ * @param misses requests that started a resize
+ * @param coalesced requests that waited for a resize started by another request
+ * @param generated thumbnails written to the cache
+ * @param failures images that couldn't be resized
+ * @param rejected resizes not started because the worker queue was full, the original being served instead
+ * @param evictions thumbnails deleted to stay within the disk bound
+ * @param entries current number of cached thumbnails
+ * @param bytes disk space used by the cached thumbnails
+ * @param maxBytes disk bound of the cache
+ * @param meanGenerationMillis mean time to decode, resize and write a thumbnail
+ * @param maxGenerationMillis longest time to decode, resize and write a thumbnail
+ */
+public record ThumbnailStats(long hits, long misses, long coalesced, long generated, long failures, long rejected,
+                             long evictions, int entries, long bytes, long maxBytes,
+                             double meanGenerationMillis, double maxGenerationMillis) {
+
+    /**
+     * Gets the ratio of requests answered without resizing, between 0 and 1
+     */
+    public double hitRate() {
+        long requests = hits + misses + coalesced;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
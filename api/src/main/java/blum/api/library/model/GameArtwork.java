@@ -0,0 +1,40 @@
+package blum.api.library.model;
+
+import blum.api.annotation.Identifier;
+import blum.api.annotation.Named;
+import blum.api.database.annotation.CompositeIndex;
+import blum.api.database.annotation.Indexed;
+import blum.api.database.annotation.Model;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Link between a game and an image of the artwork store, identified by the hash of its content
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Model
+@CompositeIndex(columns = {"game_id", "kind"}, unique = true)
+public class GameArtwork {
+
+    @Identifier
+    private int id;
+
+    @Named("game_id")
+    private int gameId;
+
+    private String kind;
+
+    @Indexed
+    private String hash;
+
+    @Named("content_type")
+    private String contentType;
+
+    private long size;
+
+    @Named("added_at")
+    private long addedAt;
+}
@@ -1,6 +1,9 @@
 package blum.api.library.model;
 
+import blum.api.annotation.Identifier;
 import blum.api.annotation.Named;
+import blum.api.database.annotation.CompositeIndex;
+import blum.api.database.annotation.Indexed;
 import blum.api.database.annotation.Model;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,15 +13,20 @@ import lombok.AllArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Model
+@CompositeIndex(columns = {"sort_name", "id"})
+@CompositeIndex(columns = {"source", "name"})
 public class GameMetadata {
 
+    @Identifier
     private int id;
 
+    @Indexed
     private String name;
 
     @Named("sort_name")
     private String sortName;
 
+    @Indexed
     private String platform;
     private String genres;
     private String developers;
@@ -34,6 +42,7 @@ public class GameMetadata {
     private String series;
     private String pegi;
     private String region;
+    @Indexed
     private String source;
 
     @Named("press_rating")
@@ -0,0 +1,13 @@
+package blum.api.library.model;
+
+import blum.api.annotation.Named;
+
+/**
+ * The columns of a game shown by library grids, read without the rest of its metadata
+ */
+public record GameSummary(int id,
+                          String name,
+                          @Named("sort_name") String sortName,
+                          String platform,
+                          @Named("community_rating") Integer communityRating) {
+}
@@ -0,0 +1,52 @@
+package blum.api.mapping;
+
+import java.util.List;
+
+/**
+ * Mapper generated at build time for a @Model or ConfigurationPart class, reading and writing its fields
+ * through plain calls instead of reflection. Fields are addressed by their position in {@link #getFields()}.
+ * Implementations are named after the mapped class, see {@link GeneratedMappers#getMapperName(Class)}.
+ */
+public interface GeneratedMapper<T> {
+
+    /**
+     * Gets the class mapped by this mapper
+     */
+    Class<T> getType();
+
+    /**
+     * Gets the names of the mapped fields, in declaration order
+     */
+    List<String> getFields();
+
+    /**
+     * Gets the column or configuration key of each field, its @Named value or its name
+     */
+    List<String> getKeys();
+
+    /**
+     * Creates an instance through the no-arg constructor, always generated for @Model classes and configuration parts
+     * @throws UnsupportedOperationException if the class has none
+     */
+    default T newInstance() {
+        throw new UnsupportedOperationException(getType().getName() + " has no no-arg constructor");
+    }
+
+    /**
+     * Creates a configuration root bound to a file, always generated for configuration roots
+     * @throws UnsupportedOperationException if the class has no constructor taking the file name
+     */
+    default T newInstance(String file) {
+        throw new UnsupportedOperationException(getType().getName() + " has no file name constructor");
+    }
+
+    /**
+     * Reads a field of an instance
+     */
+    Object get(T instance, int field);
+
+    /**
+     * Writes a field of an instance, numbers being converted to the type of the field
+     */
+    void set(T instance, int field, Object value);
+}
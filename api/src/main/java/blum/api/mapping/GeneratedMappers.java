@@ -0,0 +1,58 @@
+package blum.api.mapping;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the mappers generated at build time. Classes compiled without the processor, or whose fields
+ * can't be reached without reflection, have no generated mapper and are mapped reflectively instead.
+ */
+@Slf4j
+public final class GeneratedMappers {
+
+    public static final String SUFFIX = "_BlumMapper";
+
+    private static final Map<Class<?>, Optional<GeneratedMapper<?>>> MAPPERS = new ConcurrentHashMap<>();
+
+    private GeneratedMappers() {
+    }
+
+    /**
+     * Gets the generated mapper of a class, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> GeneratedMapper<T> find(Class<T> type) {
+        return (GeneratedMapper<T>) MAPPERS.computeIfAbsent(type, GeneratedMappers::load).orElse(null);
+    }
+
+    private static Optional<GeneratedMapper<?>> load(Class<?> type) {
+        try {
+            Class<?> mapperClass = Class.forName(getMapperName(type), true, type.getClassLoader());
+            GeneratedMapper<?> mapper = (GeneratedMapper<?>) mapperClass.getDeclaredConstructor().newInstance();
+            if (mapper.getType() != type) {
+                log.warn("Ignoring generated mapper {}, it maps {}", mapperClass.getName(), mapper.getType().getName());
+                return Optional.empty();
+            }
+            return Optional.of(mapper);
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+            log.warn("Failed to load the generated mapper of {}, falling back to reflection", type.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Gets the name of the generated mapper of a class: in the same package, named after the class
+     * and its enclosing classes joined by underscores, e.g. {@code Outer_Inner_BlumMapper}
+     */
+    public static String getMapperName(Class<?> type) {
+        String packageName = type.getPackageName();
+        String simpleName = packageName.isEmpty() ? type.getName() : type.getName().substring(packageName.length() + 1);
+        String flatName = simpleName.replace('$', '_') + SUFFIX;
+        return packageName.isEmpty() ? flatName : packageName + "." + flatName;
+    }
+}
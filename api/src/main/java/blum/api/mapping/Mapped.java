@@ -0,0 +1,19 @@
+package blum.api.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Asks for a mapper generated at build time, see {@link GeneratedMapper}. Inherited, so every configuration root has one;
+ * other ConfigurationPart classes carry it themselves. @Model classes get a mapper without it.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Mapped {
+}
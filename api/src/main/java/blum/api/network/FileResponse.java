@@ -0,0 +1,13 @@
+package blum.api.network;
+
+import java.nio.file.Path;
+
+/**
+ * A file sent as a response body without being loaded in memory, along with its validator and caching policy
+ *
+ * @param etag strong entity tag of the content, without quotes, e.g. its hash
+ * @param immutable whether the URL always designates this content, so clients may keep it forever;
+ *                  otherwise they revalidate it with If-None-Match on every use
+ */
+public record FileResponse(Path file, String contentType, String etag, boolean immutable) {
+}
@@ -0,0 +1,19 @@
+package blum.api.network.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds an endpoint method parameter to a query parameter of the request
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Param {
+
+    String value();
+
+    /** Value used when the request doesn't contain the parameter, none by default */
+    String defaultValue() default "";
+}
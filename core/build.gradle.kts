@@ -28,6 +28,10 @@ dependencies {
     testCompileOnly("org.projectlombok:lombok:${lombokVersion}")
     testAnnotationProcessor("org.projectlombok:lombok:${lombokVersion}")
 
+    // Mappers of the @Model and ConfigurationPart classes
+    annotationProcessor(project(":processor"))
+    testAnnotationProcessor(project(":processor"))
+
     // Jetty serveur WebSocket
     implementation("org.eclipse.jetty:jetty-server:${jettyVersion}")
     implementation("org.eclipse.jetty.websocket:websocket-jetty-server:${jettyVersion}")
@@ -52,4 +56,12 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+// ---- Benchmarks (hors tests unitaires) ----
+tasks.register<JavaExec>("benchmark") {
+    group = "verification"
+    description = "Runs a benchmark main class from the test sources (-Pbenchmark=<class> -Pargs=\"...\")"
+    classpath = sourceSets.test.get().runtimeClasspath
+    mainClass.set(providers.gradleProperty("benchmark").orElse("blum.test.benchmark.RepositoryBatchBenchmark"))
+    args = providers.gradleProperty("args").map { it.split(" ").filter(String::isNotBlank) }.getOrElse(emptyList())
+}
@@ -3,12 +3,18 @@ package blum.core.configuration;
 import blum.api.configuration.ConfigurationPart;
 import blum.api.configuration.ConfigurationRoot;
 import blum.api.annotation.Named;
+import blum.api.mapping.GeneratedMapper;
+import blum.api.mapping.GeneratedMappers;
 import blum.core.configuration.loader.ReflectionHelper;
 import com.typesafe.config.*;
 
 import java.lang.reflect.Field;
 import java.util.List;
 
+/**
+ * Maps configuration parts to and from HOCON objects, through the mapper generated at build time
+ * when the part has one, by reflection otherwise.
+ */
 public class ConfigurationMapper {
 
     private ReflectionHelper reflectionHelper;
@@ -24,6 +30,16 @@ public class ConfigurationMapper {
 
         Config conf = ConfigFactory.empty();
 
+        GeneratedMapper<ConfigurationPart> generated = generatedMapper(obj.getClass());
+        if (generated != null) {
+            List<String> fields = generated.getFields();
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i).equals("file")) continue;
+                conf = withValue(conf, generated.getKeys().get(i), generated.get(obj, i));
+            }
+            return conf.root();
+        }
+
         List<Field> fields = reflectionHelper.getAllFields(obj.getClass());
 
         for (Field field : fields) {
@@ -31,25 +47,38 @@ public class ConfigurationMapper {
 
             String key = getConfigurationKey(field); // ex: "custom.dotted.name"
             field.setAccessible(true);
-            Object value = field.get(obj);
-
-            if (value != null) {
-                if (value instanceof ConfigurationPart) {
-                    // récursif
-                    conf = conf.withValue(key, toConfig((ConfigurationPart) value));
-                } else {
-                    conf = conf.withValue(key, ConfigValueFactory.fromAnyRef(value));
-                }
-            }
+            conf = withValue(conf, key, field.get(obj));
         }
 
         return conf.root();
     }
 
+    private Config withValue(Config conf, String key, Object value) throws IllegalAccessException {
+        if (value == null) return conf;
+        if (value instanceof ConfigurationPart) {
+            // récursif
+            return conf.withValue(key, toConfig((ConfigurationPart) value));
+        }
+        return conf.withValue(key, ConfigValueFactory.fromAnyRef(value));
+    }
+
 
 
     public <T extends ConfigurationPart> T parseConfigurationPart(ConfigObject conf, Class<T> type, String name) throws Exception {
 
+        GeneratedMapper<T> generated = GeneratedMappers.find(type);
+        if (generated != null) {
+            T obj = ConfigurationRoot.class.isAssignableFrom(type) ? generated.newInstance(name) : generated.newInstance();
+
+            List<String> keys = generated.getKeys();
+            for (int i = 0; i < keys.size(); i++) {
+                if (conf.toConfig().hasPath(keys.get(i))) {
+                    generated.set(obj, i, conf.toConfig().getValue(keys.get(i)).unwrapped());
+                }
+            }
+            return obj;
+        }
+
         ConfigurationPart obj;
 
         if(ConfigurationRoot.class.isAssignableFrom(type)) {
@@ -70,6 +99,11 @@ public class ConfigurationMapper {
         return (T) obj;
     }
 
+    @SuppressWarnings("unchecked")
+    private static GeneratedMapper<ConfigurationPart> generatedMapper(Class<? extends ConfigurationPart> type) {
+        return (GeneratedMapper<ConfigurationPart>) GeneratedMappers.find(type);
+    }
+
     private String getConfigurationKey(Field field) {
         if (field.isAnnotationPresent(Named.class)) {
             return field.getAnnotation(Named.class).value();
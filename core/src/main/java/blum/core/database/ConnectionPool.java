@@ -0,0 +1,315 @@
+package blum.core.database;
+
+import blum.api.database.ConnectionProvider;
+import blum.api.database.ConnectionWork;
+import blum.api.database.PoolMetrics;
+import blum.api.database.StatementCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Connection pool of a SQLite database file.
+ * The database runs in WAL mode: one dedicated writer connection, held exclusively,
+ * and a fixed set of query-only reader connections that read concurrently with the writer.
+ */
+@Slf4j
+public class ConnectionPool implements ConnectionProvider, AutoCloseable {
+
+    /** Asynchronous tasks allowed to wait for a connection before new ones are rejected */
+    private static final int MAX_PENDING_TASKS = 10_000;
+
+    /** Time given to the reads and writes still running to finish when closing */
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+
+    private final File file;
+    private final PoolSettings settings;
+
+    private final Connection writer;
+    private final ReentrantLock writerLock = new ReentrantLock();
+
+    private final List<Connection> readers = new ArrayList<>();
+    /** Statement caches of the writer and the readers, filled once opened */
+    private final Map<Connection, StatementCache> statements = new IdentityHashMap<>();
+    private final BlockingQueue<Connection> idleReaders;
+
+    private final AtomicLong readerAcquisitions = new AtomicLong();
+    private final AtomicLong readerWaits = new AtomicLong();
+    private final AtomicLong readerWaitNanos = new AtomicLong();
+    private final AtomicLong maxReaderWaitNanos = new AtomicLong();
+    private final AtomicLong writerAcquisitions = new AtomicLong();
+    private final AtomicLong writerWaitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private final WriteBehindQueue writeBehind;
+    private final DatabaseExecutor executor;
+
+    private volatile boolean closed;
+
+    public ConnectionPool(File file, PoolSettings settings) throws SQLException {
+        this(file, settings, WriteBehindSettings.disabled());
+    }
+
+    public ConnectionPool(File file, PoolSettings settings, WriteBehindSettings writeBehindSettings) throws SQLException {
+        this.file = file;
+        this.settings = settings;
+        this.idleReaders = new ArrayBlockingQueue<>(Math.max(1, settings.readers()));
+
+        this.writer = open();
+        statements.put(writer, new StatementCache(writer, StatementCache.DEFAULT_CAPACITY));
+        try {
+            try (Statement statement = writer.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+            }
+
+            for (int i = 0; i < settings.readers(); i++) {
+                Connection reader = open();
+                try (Statement statement = reader.createStatement()) {
+                    statement.execute("PRAGMA query_only=ON");
+                }
+                readers.add(reader);
+                idleReaders.add(reader);
+                statements.put(reader, new StatementCache(reader, StatementCache.DEFAULT_CAPACITY));
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+
+        this.writeBehind = writeBehindSettings.enabled() ? new WriteBehindQueue(this, writeBehindSettings, file.getName()) : null;
+        // As many tasks as connections: every reader plus the writer
+        this.executor = new DatabaseExecutor(file.getName(), settings.readers() + 1, MAX_PENDING_TASKS);
+
+        log.debug("Opened database pool {} (1 writer, {} readers, write-behind {})", file.getName(), settings.readers(),
+                writeBehindSettings.enabled() ? "on" : "off");
+    }
+
+    private Connection open() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout=" + settings.busyTimeoutMillis());
+            statement.execute("PRAGMA synchronous=" + settings.synchronous());
+            statement.execute("PRAGMA cache_size=" + settings.cacheSize());
+            statement.execute("PRAGMA mmap_size=" + settings.mmapSize());
+            statement.execute("PRAGMA temp_store=" + settings.tempStore());
+            // Off by default in SQLite, e.g. the artwork of a game goes with it
+            statement.execute("PRAGMA foreign_keys=ON");
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    @Override
+    public <R> R read(ConnectionWork<R> work) throws SQLException {
+        Connection connection = acquireReader();
+        try {
+            return work.run(connection);
+        } finally {
+            releaseReader(connection);
+        }
+    }
+
+    @Override
+    public <R> R write(ConnectionWork<R> work) throws SQLException {
+        ensureOpen();
+
+        long start = System.nanoTime();
+        lockWriter();
+        try {
+            writerAcquisitions.incrementAndGet();
+            writerWaitNanos.addAndGet(System.nanoTime() - start);
+            return work.run(writer);
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    @Override
+    public <R> CompletableFuture<R> submitWrite(ConnectionWork<R> work) {
+        if (writeBehind == null) return ConnectionProvider.super.submitWrite(work);
+        return writeBehind.submit(work);
+    }
+
+    @Override
+    public void flush() throws SQLException {
+        if (writeBehind != null) writeBehind.flush();
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public Connection acquireReader() throws SQLException {
+        ensureOpen();
+
+        readerAcquisitions.incrementAndGet();
+
+        // Without readers, a read lease holds the writer lock until released
+        if (readers.isEmpty()) {
+            lockWriter();
+            return writer;
+        }
+
+        // Inside a write (e.g. a transaction), read through the writer to see its changes
+        if (writerLock.isHeldByCurrentThread()) return writer;
+
+        Connection connection = idleReaders.poll();
+        if (connection != null) return connection;
+
+        readerWaits.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            connection = idleReaders.poll(settings.acquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader connection", e);
+        }
+
+        long waited = System.nanoTime() - start;
+        readerWaitNanos.addAndGet(waited);
+        maxReaderWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (connection == null) {
+            timeouts.incrementAndGet();
+            throw new SQLException("Timed out waiting for a reader connection of " + file.getName());
+        }
+        return connection;
+    }
+
+    private void lockWriter() throws SQLException {
+        try {
+            if (!writerLock.tryLock(settings.acquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out waiting for the writer connection of " + file.getName());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the writer connection", e);
+        }
+    }
+
+    @Override
+    public void releaseReader(Connection connection) {
+        if (connection == writer) {
+            if (readers.isEmpty()) writerLock.unlock();
+            return;
+        }
+        idleReaders.offer(connection);
+    }
+
+    @Override
+    public StatementCache getStatementCache(Connection connection) {
+        StatementCache cache = statements.get(connection);
+        if (cache == null) throw new IllegalArgumentException("Connection not provided by " + this);
+        return cache;
+    }
+
+    @Override
+    public Connection getWriter() {
+        return writer;
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return new PoolMetrics(readers.size(), idleReaders.size(),
+                readerAcquisitions.get(), readerWaits.get(), readerWaitNanos.get(), maxReaderWaitNanos.get(),
+                writerAcquisitions.get(), writerWaitNanos.get(), timeouts.get(),
+                writeBehind != null ? writeBehind.getPendingWrites() : 0,
+                writeBehind != null ? writeBehind.getBatches() : 0,
+                writeBehind != null ? writeBehind.getWrites() : 0);
+    }
+
+    /**
+     * Gets the database file of this pool
+     */
+    public File getFile() {
+        return file;
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (!closed) return;
+
+        // While closing, the tasks and queued writes submitted before still run
+        boolean draining = (executor != null && executor.isRunningTask()) || (writeBehind != null && writeBehind.isWriterThread());
+        if (!draining) throw new SQLException("Database pool " + file.getName() + " is closed");
+    }
+
+    /**
+     * Stops accepting work, finishes the submitted tasks and commits the queued writes,
+     * then closes every connection once the reads and writes still running are done
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (executor != null) executor.close();
+        if (writeBehind != null) writeBehind.close();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+        boolean writerHeld = false;
+        try {
+            writerHeld = writerLock.tryLock(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writerHeld) log.warn("Closing database pool {} while its writer is still in use", file.getName());
+
+        try {
+            // Every reader back in the idle queue, none is leased anymore
+            List<Connection> returned = new ArrayList<>();
+            while (returned.size() < readers.size()) {
+                Connection reader;
+                try {
+                    reader = idleReaders.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    reader = null;
+                }
+                if (reader == null) break;
+                returned.add(reader);
+            }
+            if (returned.size() < readers.size()) {
+                log.warn("Closing database pool {} while {} readers are still in use", file.getName(), readers.size() - returned.size());
+            }
+
+            List<Connection> connections = new ArrayList<>(readers);
+            if (writer != null) connections.add(writer);
+
+            for (Connection connection : connections) {
+                try {
+                    StatementCache cache = statements.get(connection);
+                    if (cache != null) cache.clear();
+                    connection.close();
+                } catch (SQLException e) {
+                    log.error("Failed to close database connection", e);
+                }
+            }
+        } finally {
+            if (writerHeld) writerLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool[" + file.getName() + "]";
+    }
+}
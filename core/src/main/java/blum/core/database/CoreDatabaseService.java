@@ -1,7 +1,14 @@
 package blum.core.database;
 
+import blum.api.core.Blum;
+import blum.api.core.BlumConfiguration;
 import blum.api.database.BlumRepository;
+import blum.api.database.ConnectionProvider;
 import blum.api.database.DatabaseService;
+import blum.api.database.PoolMetrics;
+import blum.api.database.QueryCacheStats;
+import blum.api.database.QueryResultCache;
+import blum.api.database.RepositoryMetrics;
 import blum.api.exception.ServiceStartException;
 import blum.api.services.Service;
 import blum.api.services.annotation.ServiceDescriptor;
@@ -9,12 +16,14 @@ import blum.core.system.BlumBoot;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
-import java.io.FilenameFilter;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @ServiceDescriptor(
         name = "database",
@@ -25,16 +34,27 @@ import java.util.Map;
 @Slf4j
 public class CoreDatabaseService implements Service, DatabaseService {
 
-    private Map<String, Connection> databases = new HashMap<>();
+    private final Map<String, ConnectionPool> databases = new ConcurrentHashMap<>();
+    private final Map<String, List<BlumRepository<?>>> repositories = new ConcurrentHashMap<>();
+    /** Repositories by database, repository class and entity type, so every caller shares their caches and listeners */
+    private final Map<String, BlumRepository<?>> instances = new ConcurrentHashMap<>();
+    private final Map<String, QueryResultCache> resultCaches = new ConcurrentHashMap<>();
     private File dataFolder;
+    private PoolSettings settings;
+    private WriteBehindSettings writeBehindSettings;
+    private boolean metricsEnabled = true;
+    private int slowQueryMillis = 250;
+    private long resultCacheBytes = 16L << 20;
 
     @Override
     public void start() throws ServiceStartException {
         dataFolder = BlumBoot.DATA_DIR;
+        dataFolder.mkdirs();
+        loadSettings();
 
         for(String nm : dataFolder.list((dir, name) -> name.endsWith(".db"))) {
             try {
-                databases.put(nm.substring(0, nm.length() - 3), get(nm));
+                createOrGetProvider(nm.substring(0, nm.length() - 3));
             } catch (SQLException e) {
                 log.error("Unable to load database: {}", nm, e);
             }
@@ -42,47 +62,126 @@ public class CoreDatabaseService implements Service, DatabaseService {
 
     }
 
-    private Connection get(String name) throws SQLException {
-        File file = new File(dataFolder, name);
-        String url = "jdbc:sqlite:" + file.getAbsolutePath();
+    private void loadSettings() {
+        settings = PoolSettings.defaults();
+        writeBehindSettings = WriteBehindSettings.disabled();
 
-        return DriverManager.getConnection(url);
+        BlumConfiguration configuration = Blum.getCore() != null ? Blum.getCoreConfiguration() : null;
+        if(configuration == null) return;
+
+        metricsEnabled = configuration.isDatabaseMetrics();
+        slowQueryMillis = Math.max(0, configuration.getDatabaseSlowQuery());
+        resultCacheBytes = Math.max(0, configuration.getDatabaseResultCacheSize()) * (1L << 20);
+
+        try {
+            settings = PoolSettings.from(configuration);
+            writeBehindSettings = WriteBehindSettings.from(configuration);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid database configuration, using defaults: {}", e.getMessage());
+        }
     }
 
     @Override
-    public Connection createOrGet(String name) throws SQLException {
-        if(databases.containsKey(name)) return databases.get(name);
+    public ConnectionPool createOrGetProvider(String name) throws SQLException {
+        ConnectionPool pool = databases.get(name);
+        if(pool != null) return pool;
+
+        synchronized (databases) {
+            pool = databases.get(name);
+            if(pool == null) {
+                pool = new ConnectionPool(new File(dataFolder, name + ".db"), settings, writeBehindSettings);
+                databases.put(name, pool);
+            }
+            return pool;
+        }
+    }
 
-        Connection conn = get(name+".db");
+    @Override
+    public Connection createOrGet(String name) throws SQLException {
+        return createOrGetProvider(name).getWriter();
+    }
 
-        if(conn == null) throw new SQLException("Unable to create database connection");
+    @Override
+    public <E, T extends BlumRepository<E>> T createOrGet(String name, Class<E> entityType, Class<T> repo) throws Exception {
+        String key = name + '/' + repo.getName() + '/' + entityType.getName();
+        BlumRepository<?> existing = instances.get(key);
+        if(existing != null) return repo.cast(existing);
 
-        databases.put(name, conn);
+        synchronized (instances) {
+            existing = instances.get(key);
+            if(existing != null) return repo.cast(existing);
 
-        return conn;
+            T created = create(name, entityType, repo);
+            instances.put(key, created);
+            return created;
+        }
     }
 
-    @Override
-    public <E, T extends BlumRepository<E>> T createOrGet(String name, Class<E> entityType, Class<T> repo) throws Exception {
-        Connection conn = createOrGet(name);
-        T repoObj = repo.getConstructor(Connection.class, Class.class).newInstance(conn, entityType);
+    private <E, T extends BlumRepository<E>> T create(String name, Class<E> entityType, Class<T> repo) throws Exception {
+        ConnectionProvider provider = createOrGetProvider(name);
+
+        T repoObj;
+        try {
+            repoObj = repo.getConstructor(ConnectionProvider.class, Class.class).newInstance(provider, entityType);
+        } catch (NoSuchMethodException e) {
+            // Repositories written against a single shared connection
+            repoObj = repo.getConstructor(Connection.class, Class.class).newInstance(provider.getWriter(), entityType);
+        }
 
-        if(repoObj.query("SELECT name FROM sqlite_master WHERE type='table' AND name=?", repoObj.getTableName()) == null) {
-            repoObj.execute(repoObj.initTable());
+        repoObj.getQueryMetrics().setEnabled(metricsEnabled);
+        repoObj.getQueryMetrics().setSlowQueryMillis(slowQueryMillis);
+        // Shared by the repositories of the database, so their writes invalidate each other's results
+        if (resultCacheBytes > 0) {
+            repoObj.setResultCache(resultCaches.computeIfAbsent(name, key -> new QueryResultCache(resultCacheBytes)));
+        }
+        repositories.computeIfAbsent(name, key -> new CopyOnWriteArrayList<>()).add(repoObj);
+
+        if(!repoObj.tableExists()) {
+            repoObj.executeScript(repoObj.initTable());
+        }
+
+        try {
+            repoObj.createIndexes();
+        } catch (SQLException e) {
+            // e.g. existing rows violating a new unique index, the repository stays usable
+            log.error("Failed to create indexes of {} in database {}", entityType.getSimpleName(), name, e);
         }
 
         return repoObj;
     }
 
+    @Override
+    public Map<String, PoolMetrics> getPoolMetrics() {
+        Map<String, PoolMetrics> metrics = new LinkedHashMap<>();
+        databases.forEach((name, pool) -> metrics.put(name, pool.getMetrics()));
+        return metrics;
+    }
 
     @Override
-    public void stop() throws ServiceStartException {
-        databases.values().forEach(connection -> {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                log.error("Failed to close database connection",e);
-            }
+    public Map<String, List<RepositoryMetrics>> getQueryMetrics() {
+        Map<String, List<RepositoryMetrics>> metrics = new LinkedHashMap<>();
+        repositories.forEach((name, repos) -> {
+            List<RepositoryMetrics> list = new ArrayList<>();
+            repos.forEach(repository -> list.add(repository.getMetrics()));
+            metrics.put(name, list);
         });
+        return metrics;
+    }
+
+    @Override
+    public Map<String, QueryCacheStats> getResultCacheStats() {
+        Map<String, QueryCacheStats> stats = new LinkedHashMap<>();
+        resultCaches.forEach((name, cache) -> stats.put(name, cache.getStats()));
+        return stats;
+    }
+
+    @Override
+    public void stop() throws ServiceStartException {
+        // Closing a pool commits its queued writes first
+        databases.values().forEach(ConnectionPool::close);
+        databases.clear();
+        repositories.clear();
+        instances.clear();
+        resultCaches.clear();
     }
 }
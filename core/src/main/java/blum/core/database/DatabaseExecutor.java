@@ -0,0 +1,137 @@
+package blum.core.database;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor of the asynchronous work of a database, running at most as many tasks at once as the pool has connections.
+ * Tasks run on virtual threads when the runtime supports them, otherwise on a fixed pool of platform threads.
+ * At most {@code maxPending} tasks may wait, further submissions are rejected.
+ */
+@Slf4j
+public class DatabaseExecutor implements Executor, AutoCloseable {
+
+    /** Executor whose task the current thread runs */
+    private static final ThreadLocal<DatabaseExecutor> RUNNING = new ThreadLocal<>();
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final int maxPending;
+    private final boolean virtual;
+
+    public DatabaseExecutor(String name, int concurrency, int maxPending) {
+        if (concurrency < 1) throw new IllegalArgumentException("Executor concurrency must be positive");
+        this.maxPending = maxPending;
+
+        ExecutorService virtualExecutor = newVirtualThreadExecutor();
+        if (virtualExecutor != null) {
+            this.delegate = virtualExecutor;
+            this.permits = new Semaphore(concurrency);
+            this.virtual = true;
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            this.delegate = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, maxPending)), runnable -> {
+                        Thread thread = new Thread(runnable, "blum-db-" + name + "-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.permits = null;
+            this.virtual = false;
+        }
+    }
+
+    /**
+     * Creates a thread-per-task executor of virtual threads, available from Java 21
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new RejectedExecutionException("Too many pending database tasks");
+        }
+
+        Runnable task = () -> {
+            RUNNING.set(this);
+            try {
+                if (permits == null) {
+                    command.run();
+                    return;
+                }
+
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            } finally {
+                RUNNING.remove();
+                pending.decrementAndGet();
+            }
+        };
+
+        try {
+            delegate.execute(task);
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether tasks run on virtual threads
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Whether the current thread runs a task of this executor
+     */
+    public boolean isRunningTask() {
+        return RUNNING.get() == this;
+    }
+
+    /**
+     * Gets the number of submitted tasks not finished yet
+     */
+    public int getPendingTasks() {
+        return pending.get();
+    }
+
+    /**
+     * Stops accepting tasks and waits for the submitted ones
+     */
+    @Override
+    public void close() {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Database tasks didn't finish in time, {} still pending", pending.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
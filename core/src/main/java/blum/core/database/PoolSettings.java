@@ -0,0 +1,51 @@
+package blum.core.database;
+
+import blum.api.core.BlumConfiguration;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Sizing and pragmas applied to the connections of a database pool
+ *
+ * @param readers number of reader connections, 0 to read through the writer
+ * @param acquireTimeoutMillis maximum wait for a connection
+ * @param synchronous PRAGMA synchronous (OFF, NORMAL, FULL, EXTRA)
+ * @param cacheSize PRAGMA cache_size (pages, or KiB when negative)
+ * @param mmapSize PRAGMA mmap_size in bytes
+ * @param tempStore PRAGMA temp_store (DEFAULT, FILE, MEMORY)
+ * @param busyTimeoutMillis PRAGMA busy_timeout
+ */
+public record PoolSettings(int readers, int acquireTimeoutMillis, String synchronous, int cacheSize,
+                           long mmapSize, String tempStore, int busyTimeoutMillis) {
+
+    private static final Set<String> SYNCHRONOUS_MODES = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final Set<String> TEMP_STORES = Set.of("DEFAULT", "FILE", "MEMORY");
+
+    public PoolSettings {
+        if (readers < 0) throw new IllegalArgumentException("Reader count can't be negative");
+        if (acquireTimeoutMillis < 0) throw new IllegalArgumentException("Acquire timeout can't be negative");
+
+        // Pragma values can't be bound, only known keywords are accepted
+        synchronous = synchronous.toUpperCase(Locale.ROOT);
+        tempStore = tempStore.toUpperCase(Locale.ROOT);
+        if (!SYNCHRONOUS_MODES.contains(synchronous)) throw new IllegalArgumentException("Invalid synchronous mode: " + synchronous);
+        if (!TEMP_STORES.contains(tempStore)) throw new IllegalArgumentException("Invalid temp store: " + tempStore);
+    }
+
+    public static PoolSettings defaults() {
+        return from(new BlumConfiguration("core"));
+    }
+
+    public static PoolSettings from(BlumConfiguration configuration) {
+        return new PoolSettings(
+                configuration.getDatabaseReaders(),
+                configuration.getDatabaseAcquireTimeout(),
+                configuration.getDatabaseSynchronous(),
+                configuration.getDatabaseCacheSize(),
+                configuration.getDatabaseMmapSize(),
+                configuration.getDatabaseTempStore(),
+                configuration.getDatabaseBusyTimeout()
+        );
+    }
+}
@@ -0,0 +1,242 @@
+package blum.core.database;
+
+import blum.api.database.ConnectionProvider;
+import blum.api.database.ConnectionWork;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded queue of writes drained by a single writer thread.
+ * Queued writes are grouped into one transaction, up to a batch size or a time window,
+ * each of them isolated by a savepoint so a failing write doesn't roll back the others.
+ * Futures complete once the transaction holding their write is committed.
+ */
+@Slf4j
+public class WriteBehindQueue implements AutoCloseable {
+
+    private final ConnectionProvider provider;
+    private final WriteBehindSettings settings;
+    private final BlockingQueue<PendingWrite<?>> queue;
+    private final Thread thread;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    /** Held to queue a write and exclusively to close, so no write is queued once the writer may have stopped */
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public WriteBehindQueue(ConnectionProvider provider, WriteBehindSettings settings, String name) {
+        this.provider = provider;
+        this.settings = settings;
+        this.queue = new ArrayBlockingQueue<>(settings.queueSize());
+
+        this.thread = new Thread(this::drain, "blum-write-behind-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a write, blocking while the queue is full
+     */
+    public <R> CompletableFuture<R> submit(ConnectionWork<R> work) {
+        PendingWrite<R> write = new PendingWrite<>(work);
+
+        // Writes submitted by queued work join the running transaction
+        if (Thread.currentThread() == thread) {
+            write.runInline();
+            return write.future;
+        }
+
+        closing.readLock().lock();
+        try {
+            if (!running) {
+                write.future.completeExceptionally(new SQLException("Write-behind queue is closed"));
+                return write.future;
+            }
+            queue.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.future.completeExceptionally(e);
+        } finally {
+            closing.readLock().unlock();
+        }
+        return write.future;
+    }
+
+    /**
+     * Waits until every write queued before this call is committed
+     */
+    public void flush() throws SQLException {
+        if (Thread.currentThread() == thread) return;
+
+        try {
+            submit(connection -> null).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while flushing writes", e);
+        } catch (ExecutionException e) {
+            throw new SQLException("Failed to flush writes", e.getCause());
+        }
+    }
+
+    /**
+     * Whether the current thread is the writer thread of this queue
+     */
+    public boolean isWriterThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Gets the number of writes waiting in the queue
+     */
+    public int getPendingWrites() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of committed transactions
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Gets the number of committed writes
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+
+    private void drain() {
+        List<PendingWrite<?>> batch = new ArrayList<>(settings.maxBatch());
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Group the writes arriving within the time window of the first one
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.maxDelayMillis());
+                while (batch.size() < settings.maxBatch()) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Keep draining, queued writes must not be lost
+                queue.drainTo(batch, settings.maxBatch() - batch.size());
+            }
+
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite<?>> batch) {
+        try {
+            provider.write(connection -> {
+                connection.setAutoCommit(false);
+                try {
+                    for (PendingWrite<?> write : batch) {
+                        write.runIsolated(connection);
+                    }
+                    connection.commit();
+                } catch (Throwable e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                return null;
+            });
+
+            batches.incrementAndGet();
+            writes.addAndGet(batch.size());
+            batch.forEach(PendingWrite::complete);
+        } catch (SQLException | RuntimeException e) {
+            log.error("Failed to commit {} queued writes", batch.size(), e);
+            batch.forEach(write -> write.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Stops accepting writes, commits the queued ones and stops the writer thread
+     */
+    @Override
+    public void close() {
+        // Waits for writes being queued, the writer drains the queue meanwhile
+        closing.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            closing.writeLock().unlock();
+        }
+
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (thread.isAlive()) {
+            log.warn("Write-behind queue didn't drain in time, {} writes left", queue.size());
+        }
+    }
+
+    private class PendingWrite<R> {
+
+        private final ConnectionWork<R> work;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private R result;
+        private Throwable failure;
+
+        private PendingWrite(ConnectionWork<R> work) {
+            this.work = work;
+        }
+
+        private void runIsolated(Connection connection) throws SQLException {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                result = work.run(connection);
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback(savepoint);
+                failure = e;
+            }
+        }
+
+        private void runInline() {
+            try {
+                future.complete(work.run(provider.getWriter()));
+            } catch (SQLException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void complete() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
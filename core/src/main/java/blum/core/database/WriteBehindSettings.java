@@ -0,0 +1,33 @@
+package blum.core.database;
+
+import blum.api.core.BlumConfiguration;
+
+/**
+ * Settings of the write-behind queue of a database pool
+ *
+ * @param enabled whether submitted writes are queued, otherwise they run on the calling thread
+ * @param queueSize maximum number of queued writes before submitters block
+ * @param maxBatch maximum number of writes grouped in one transaction
+ * @param maxDelayMillis time window during which writes are grouped with the first queued one
+ */
+public record WriteBehindSettings(boolean enabled, int queueSize, int maxBatch, int maxDelayMillis) {
+
+    public WriteBehindSettings {
+        if (queueSize < 1) throw new IllegalArgumentException("Write-behind queue size must be positive");
+        if (maxBatch < 1) throw new IllegalArgumentException("Write-behind batch size must be positive");
+        if (maxDelayMillis < 0) throw new IllegalArgumentException("Write-behind delay can't be negative");
+    }
+
+    public static WriteBehindSettings disabled() {
+        return new WriteBehindSettings(false, 1, 1, 0);
+    }
+
+    public static WriteBehindSettings from(BlumConfiguration configuration) {
+        return new WriteBehindSettings(
+                configuration.isDatabaseWriteBehind(),
+                configuration.getDatabaseWriteBehindQueueSize(),
+                configuration.getDatabaseWriteBehindBatch(),
+                configuration.getDatabaseWriteBehindDelay()
+        );
+    }
+}
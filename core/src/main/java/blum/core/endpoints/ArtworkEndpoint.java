@@ -0,0 +1,101 @@
+package blum.core.endpoints;
+
+import blum.api.core.Blum;
+import blum.api.library.ArtworkKind;
+import blum.api.library.ArtworkService;
+import blum.api.library.Thumbnail;
+import blum.api.library.ThumbnailStats;
+import blum.api.library.model.GameArtwork;
+import blum.api.network.FileResponse;
+import blum.api.network.ResponseWrapper;
+import blum.api.network.annotations.Endpoints;
+import blum.api.network.annotations.Param;
+import blum.api.network.annotations.Request;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Map;
+
+@Endpoints("/artwork")
+public class ArtworkEndpoint {
+
+    /**
+     * Serves the current artwork of a game, revalidated on every use as it changes when replaced
+     * @param width minimum width of the served image, 0 for the original
+     */
+    @Request.Get
+    public Object get(@Param("game") int gameId,
+                      @Param(value = "kind", defaultValue = "cover") String kind,
+                      @Param(value = "width", defaultValue = "0") int width) {
+        GameArtwork artwork;
+        try {
+            artwork = artwork().getArtwork(gameId, ArtworkKind.parse(kind));
+        } catch (IllegalArgumentException e) {
+            return new ResponseWrapper(400, Map.of(), e.getMessage());
+        }
+
+        Path file = artwork == null ? null : artwork().getFile(artwork.getHash());
+        if (file == null) return new ResponseWrapper(404, Map.of(), "No " + kind + " for game " + gameId);
+        return serve(file, artwork.getContentType(), artwork.getHash(), width, false);
+    }
+
+    /**
+     * Serves an image by hash, which never changes so it is cached forever
+     */
+    @Request.Get("blob")
+    public Object blob(@Param("hash") String hash,
+                       @Param(value = "width", defaultValue = "0") int width) {
+        GameArtwork artwork = artwork().findByHash(hash);
+        Path file = artwork == null ? null : artwork().getFile(hash);
+        if (file == null) return new ResponseWrapper(404, Map.of(), "Unknown image: " + hash);
+        return serve(file, artwork.getContentType(), hash, width, true);
+    }
+
+    @Request.Get("list")
+    public Object list(@Param("game") int gameId) {
+        return artwork().listArtwork(gameId);
+    }
+
+    @Request.Get("thumbnails")
+    public ThumbnailStats thumbnails() {
+        return artwork().getThumbnailStats();
+    }
+
+    @Request.Put
+    public Object store(@Param("game") int gameId,
+                        @Param(value = "kind", defaultValue = "cover") String kind,
+                        HttpServletRequest request) throws IOException, SQLException {
+        try {
+            return ResponseWrapper.created(artwork().storeArtwork(gameId, ArtworkKind.parse(kind), request.getInputStream()));
+        } catch (IllegalArgumentException e) {
+            return new ResponseWrapper(400, Map.of(), e.getMessage());
+        }
+    }
+
+    @Request.Delete
+    public Object remove(@Param("game") int gameId,
+                         @Param(value = "kind", defaultValue = "cover") String kind) throws IOException, SQLException {
+        try {
+            if (artwork().removeArtwork(gameId, ArtworkKind.parse(kind))) return null;
+            return new ResponseWrapper(404, Map.of(), "No " + kind + " for game " + gameId);
+        } catch (IllegalArgumentException e) {
+            return new ResponseWrapper(400, Map.of(), e.getMessage());
+        }
+    }
+
+    /**
+     * Serves an image, or a resized copy when a width is requested and the image is wider
+     */
+    private static FileResponse serve(Path file, String contentType, String hash, int width, boolean immutable) {
+        Thumbnail thumbnail = width > 0 ? artwork().getThumbnail(hash, width) : null;
+        if (thumbnail == null) return new FileResponse(file, contentType, hash, immutable);
+        return new FileResponse(thumbnail.file(), thumbnail.contentType(), hash + "-" + thumbnail.width(), immutable);
+    }
+
+    private static ArtworkService artwork() {
+        return Blum.getServiceManager().getService("artwork", ArtworkService.class);
+    }
+
+}
@@ -0,0 +1,36 @@
+package blum.core.endpoints;
+
+import blum.api.core.Blum;
+import blum.api.database.DatabaseService;
+import blum.api.database.PoolMetrics;
+import blum.api.database.QueryCacheStats;
+import blum.api.database.RepositoryMetrics;
+import blum.api.network.annotations.Endpoints;
+import blum.api.network.annotations.Request;
+
+import java.util.List;
+import java.util.Map;
+
+@Endpoints("/database")
+public class DatabaseEndpoint {
+
+    @Request.Get("metrics")
+    public Map<String, List<RepositoryMetrics>> metrics() {
+        return database().getQueryMetrics();
+    }
+
+    @Request.Get("pools")
+    public Map<String, PoolMetrics> pools() {
+        return database().getPoolMetrics();
+    }
+
+    @Request.Get("cache")
+    public Map<String, QueryCacheStats> cache() {
+        return database().getResultCacheStats();
+    }
+
+    private static DatabaseService database() {
+        return Blum.getServiceManager().getService("database", DatabaseService.class);
+    }
+
+}
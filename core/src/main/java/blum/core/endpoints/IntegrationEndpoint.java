@@ -0,0 +1,48 @@
+package blum.core.endpoints;
+
+import blum.api.core.Blum;
+import blum.api.integration.IntegrationService;
+import blum.api.integration.model.SyncState;
+import blum.api.network.ResponseWrapper;
+import blum.api.network.annotations.Endpoints;
+import blum.api.network.annotations.Param;
+import blum.api.network.annotations.Request;
+
+import java.util.List;
+import java.util.Map;
+
+@Endpoints("/integrations")
+public class IntegrationEndpoint {
+
+    @Request.Get
+    public List<SyncState> states() {
+        return integrations().getSyncStates();
+    }
+
+    @Request.Get("sources")
+    public List<String> sources() {
+        return integrations().getSources();
+    }
+
+    /**
+     * Starts the sync of a store, or of every store without source, the outcome is found in the sync states
+     */
+    @Request.Post("sync")
+    public Object sync(@Param(value = "source", defaultValue = "") String source) {
+        try {
+            if (source.isEmpty()) {
+                integrations().syncAll();
+            } else {
+                integrations().sync(source);
+            }
+            return new ResponseWrapper(202, Map.of(), source.isEmpty() ? integrations().getSources() : List.of(source));
+        } catch (IllegalArgumentException e) {
+            return new ResponseWrapper(400, Map.of(), e.getMessage());
+        }
+    }
+
+    private static IntegrationService integrations() {
+        return Blum.getServiceManager().getService("integrations", IntegrationService.class);
+    }
+
+}
@@ -0,0 +1,51 @@
+package blum.core.endpoints;
+
+import blum.api.core.Blum;
+import blum.api.library.Completion;
+import blum.api.library.LibraryService;
+import blum.api.library.LibraryStats;
+import blum.api.library.model.GameMetadata;
+import blum.api.network.ResponseWrapper;
+import blum.api.network.annotations.Endpoints;
+import blum.api.network.annotations.Param;
+import blum.api.network.annotations.Request;
+
+import java.util.List;
+import java.util.Map;
+
+@Endpoints("/library")
+public class LibraryEndpoint {
+
+    @Request.Get
+    public Object list(@Param("cursor") String cursor,
+                       @Param(value = "limit", defaultValue = "100") int limit) {
+        try {
+            return library().listGames(cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return new ResponseWrapper(400, Map.of(), e.getMessage());
+        }
+    }
+
+    @Request.Get("search")
+    public List<GameMetadata> search(@Param("q") String query,
+                                     @Param(value = "offset", defaultValue = "0") int offset,
+                                     @Param(value = "limit", defaultValue = "20") int limit) {
+        return library().search(query, offset, limit);
+    }
+
+    @Request.Get("complete")
+    public List<Completion> complete(@Param("q") String query,
+                                     @Param(value = "limit", defaultValue = "10") int limit) {
+        return library().complete(query, limit);
+    }
+
+    @Request.Get("statistics")
+    public LibraryStats statistics() {
+        return library().getStatistics();
+    }
+
+    private static LibraryService library() {
+        return Blum.getServiceManager().getService("library", LibraryService.class);
+    }
+
+}
@@ -0,0 +1,143 @@
+package blum.core.integration;
+
+import blum.api.annotation.Scheduled;
+import blum.api.core.Blum;
+import blum.api.core.BlumConfiguration;
+import blum.api.database.DatabaseService;
+import blum.api.exception.ServiceStartException;
+import blum.api.integration.IntegrationService;
+import blum.api.integration.StoreIntegration;
+import blum.api.integration.SyncResult;
+import blum.api.integration.model.SyncState;
+import blum.api.services.Service;
+import blum.api.services.annotation.ServiceDescriptor;
+import blum.core.integration.repositories.SyncStateRepository;
+import blum.core.library.CoreLibraryService;
+import blum.core.library.repositories.GameMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@ServiceDescriptor(
+        name = "integrations",
+        displayName = "Blum Store Integrations",
+        version = "1.0.0",
+        description = "Syncs the library with the stores it is linked to",
+        dependencies = {"database", "library"}
+)
+@Slf4j
+public class CoreIntegrationService implements Service, IntegrationService {
+
+    private final Map<String, StoreIntegration> integrations = new ConcurrentHashMap<>();
+
+    private SyncStateRepository syncStateRepository;
+    private SyncEngine engine;
+
+    public CoreIntegrationService() {
+    }
+
+    public CoreIntegrationService(GameMetadataRepository games, SyncStateRepository states, int threads, int batchSize) {
+        this.syncStateRepository = states;
+        this.engine = new SyncEngine(games, states, threads, batchSize);
+    }
+
+    @Override
+    public void start() throws ServiceStartException {
+        try {
+            // Synced games go through the repository of the library, whose listeners keep its views up to date
+            GameMetadataRepository games = Blum.getServiceManager().getService("library", CoreLibraryService.class).getGameMetadataRepository();
+            DatabaseService database = Blum.getServiceManager().getService("database", DatabaseService.class);
+            syncStateRepository = database.createOrGet("game", SyncState.class, SyncStateRepository.class);
+
+            BlumConfiguration configuration = Blum.getCoreConfiguration();
+            engine = new SyncEngine(games, syncStateRepository,
+                    configuration != null ? configuration.getIntegrationSyncThreads() : 4,
+                    configuration != null ? configuration.getIntegrationSyncBatchSize() : 500);
+        } catch (Exception e) {
+            throw new ServiceStartException("Failed to initialize store integrations", e);
+        }
+
+        for (StoreIntegration integration : ServiceLoader.load(StoreIntegration.class)) {
+            register(integration);
+        }
+    }
+
+    @Override
+    public void register(StoreIntegration integration) {
+        if (integrations.put(integration.source(), integration) == null) {
+            log.info("Registered store integration {}", integration.source());
+        }
+    }
+
+    @Override
+    public void unregister(String source) {
+        integrations.remove(source);
+    }
+
+    @Override
+    public List<String> getSources() {
+        return integrations.keySet().stream().sorted().toList();
+    }
+
+    @Override
+    public CompletableFuture<List<SyncResult>> sync(String source) {
+        StoreIntegration integration = integrations.get(source);
+        if (integration == null) throw new IllegalArgumentException("Unknown store: " + source);
+
+        List<CompletableFuture<SyncResult>> syncs = new ArrayList<>();
+        for (String feed : integration.feeds()) syncs.add(engine.sync(integration, feed));
+        return join(syncs);
+    }
+
+    @Override
+    public CompletableFuture<List<SyncResult>> syncAll() {
+        List<CompletableFuture<SyncResult>> syncs = new ArrayList<>();
+        for (StoreIntegration integration : integrations.values()) {
+            for (String feed : integration.feeds()) syncs.add(engine.sync(integration, feed));
+        }
+        return join(syncs);
+    }
+
+    /**
+     * Syncs the feeds whose last completed sync is older than the interval of their store
+     */
+    @Scheduled(value = 1, unit = TimeUnit.MINUTES)
+    public void syncDue() {
+        if (engine == null || integrations.isEmpty()) return;
+
+        Map<String, Long> syncedAt = new HashMap<>();
+        for (SyncState state : syncStateRepository.listStates()) {
+            syncedAt.put(state.getSource() + '/' + state.getFeed(), state.getSyncedAt());
+        }
+
+        long now = System.currentTimeMillis();
+        for (StoreIntegration integration : integrations.values()) {
+            for (String feed : integration.feeds()) {
+                long last = syncedAt.getOrDefault(integration.source() + '/' + feed, 0L);
+                if (now - last >= integration.syncInterval().toMillis()) engine.sync(integration, feed);
+            }
+        }
+    }
+
+    @Override
+    public List<SyncState> getSyncStates() {
+        return syncStateRepository.listStates();
+    }
+
+    private static CompletableFuture<List<SyncResult>> join(List<CompletableFuture<SyncResult>> syncs) {
+        return CompletableFuture.allOf(syncs.toArray(CompletableFuture[]::new))
+                .thenApply(done -> syncs.stream().map(CompletableFuture::join).toList());
+    }
+
+    @Override
+    public void stop() throws ServiceStartException {
+        if (engine != null) engine.close();
+    }
+}
@@ -0,0 +1,222 @@
+package blum.core.integration;
+
+import blum.api.database.UpsertResult;
+import blum.api.integration.StoreIntegration;
+import blum.api.integration.SyncBatch;
+import blum.api.integration.SyncCheckpoint;
+import blum.api.integration.SyncResult;
+import blum.api.integration.model.SyncState;
+import blum.api.library.model.GameMetadata;
+import blum.core.integration.repositories.SyncStateRepository;
+import blum.core.library.repositories.GameMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Syncs store feeds into the catalog. Feeds are synced in parallel on a pool of workers, fetches of a store being
+ * limited to its {@link StoreIntegration#maxConcurrency()}. Each fetched batch is merged with the catalog in
+ * transactions of bounded size, only games that changed are written, and the last transaction of a batch persists
+ * its checkpoint: an interrupted sync resumes after the last applied batch.
+ */
+@Slf4j
+public class SyncEngine implements AutoCloseable {
+
+    private final GameMetadataRepository games;
+    private final SyncStateRepository states;
+    private final int batchSize;
+    private final ExecutorService workers;
+
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<SyncResult>> running = new ConcurrentHashMap<>();
+
+    /**
+     * @param threads number of feeds synced at the same time
+     * @param batchSize maximum number of games written per transaction
+     */
+    public SyncEngine(GameMetadataRepository games, SyncStateRepository states, int threads, int batchSize) {
+        if (threads < 1) throw new IllegalArgumentException("Sync threads must be positive");
+        if (batchSize < 1) throw new IllegalArgumentException("Sync batch size must be positive");
+
+        this.games = games;
+        this.states = states;
+        this.batchSize = batchSize;
+
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "blum-sync-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        this.workers = executor;
+    }
+
+    /**
+     * Syncs a feed of a store, joining its sync if one is already running
+     */
+    public CompletableFuture<SyncResult> sync(StoreIntegration integration, String feed) {
+        String key = integration.source() + '/' + feed;
+        CompletableFuture<SyncResult> future = new CompletableFuture<>();
+
+        CompletableFuture<SyncResult> existing = running.putIfAbsent(key, future);
+        if (existing != null) return existing;
+
+        try {
+            workers.execute(() -> {
+                SyncResult result = null;
+                Throwable failure = null;
+                try {
+                    result = run(integration, feed);
+                } catch (Throwable e) {
+                    failure = e;
+                }
+                // Unregistered first, a sync requested once this one completed must start a new one
+                running.remove(key, future);
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Fetches and applies the batches of a feed until the store has no more changes
+     */
+    private SyncResult run(StoreIntegration integration, String feed) {
+        String source = integration.source();
+        long start = System.nanoTime();
+        Semaphore semaphore = permits.computeIfAbsent(source, key -> new Semaphore(Math.max(1, integration.maxConcurrency())));
+
+        SyncState state = states.find(source, feed);
+        if (state == null) state = new SyncState(0, source, feed, null, null, null, 0, null);
+
+        Counts counts = new Counts();
+        String error = null;
+        try {
+            SyncCheckpoint checkpoint = state.checkpoint();
+            SyncBatch batch;
+            do {
+                semaphore.acquire();
+                try {
+                    batch = integration.fetch(feed, checkpoint);
+                } finally {
+                    semaphore.release();
+                }
+                if (batch == null) throw new IllegalStateException("The integration returned no batch");
+
+                apply(source, state, batch, counts);
+                checkpoint = batch.checkpoint();
+            } while (batch.hasMore());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (Exception e) {
+            log.warn("Failed to sync feed {} of {}", feed, source, e);
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+
+        state.setLastError(error);
+        if (error == null) state.setSyncedAt(System.currentTimeMillis());
+        try {
+            states.save(state);
+        } catch (SQLException e) {
+            log.warn("Failed to save the sync state of feed {} of {}", feed, source, e);
+        }
+
+        SyncResult result = new SyncResult(source, feed, counts.batches, counts.fetched, counts.inserted, counts.updated,
+                counts.unchanged, counts.removed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), error);
+        log.info("Synced feed {} of {} in {} ms: {} fetched, {} inserted, {} updated, {} removed{}", feed, source,
+                result.elapsedMillis(), result.fetched(), result.inserted(), result.updated(), result.removed(),
+                error != null ? " (failed: " + error + ")" : "");
+        return result;
+    }
+
+    /**
+     * Merges a batch with the catalog, its last transaction removing games and saving the checkpoint
+     */
+    private void apply(String source, SyncState state, SyncBatch batch, Counts counts) throws SQLException {
+        // Games are identified by name within a source, the last version of a game fetched twice wins
+        Map<String, GameMetadata> fetched = new LinkedHashMap<>();
+        for (GameMetadata game : batch.games()) {
+            if (game == null || game.getName() == null || game.getName().isBlank()) continue;
+            game.setSource(source);
+            // Same default as the importer, so games fetched again compare equal to the stored rows
+            if (game.getSortName() == null) game.setSortName(game.getName());
+            fetched.put(game.getName(), game);
+        }
+        List<GameMetadata> changes = new ArrayList<>(fetched.values());
+
+        int chunks = Math.max(1, (changes.size() + batchSize - 1) / batchSize);
+        for (int i = 0; i < chunks; i++) {
+            List<GameMetadata> chunk = changes.subList(i * batchSize, Math.min(changes.size(), (i + 1) * batchSize));
+            boolean last = i == chunks - 1;
+
+            games.inTransaction(() -> {
+                if (!chunk.isEmpty()) {
+                    UpsertResult result = games.importGames(chunk);
+                    counts.inserted += result.inserted();
+                    counts.updated += result.updated();
+                    counts.unchanged += result.unchanged();
+                }
+                if (last) {
+                    if (!batch.removed().isEmpty()) counts.removed += games.deleteImported(source, batch.removed());
+
+                    SyncCheckpoint checkpoint = batch.checkpoint();
+                    states.save(new SyncState(state.getId(), source, state.getFeed(), checkpoint.cursor(),
+                            checkpoint.etag(), checkpoint.lastModified(), state.getSyncedAt(), state.getLastError()));
+                }
+                return null;
+            });
+        }
+
+        // Only reached once committed, a rolled back checkpoint must not be saved with the outcome
+        SyncCheckpoint checkpoint = batch.checkpoint();
+        state.setCursor(checkpoint.cursor());
+        state.setEtag(checkpoint.etag());
+        state.setLastModified(checkpoint.lastModified());
+
+        counts.batches++;
+        counts.fetched += changes.size();
+    }
+
+    /**
+     * Stops the workers, running syncs are interrupted between two batches
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Counts {
+        private int batches;
+        private int fetched;
+        private int inserted;
+        private int updated;
+        private int unchanged;
+        private int removed;
+    }
+}
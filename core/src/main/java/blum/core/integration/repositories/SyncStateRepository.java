@@ -0,0 +1,53 @@
+package blum.core.integration.repositories;
+
+import blum.api.database.BlumRepository;
+import blum.api.database.ConnectionProvider;
+import blum.api.integration.model.SyncState;
+import blum.core.util.FileUtil;
+
+import java.io.InvalidClassException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+public class SyncStateRepository extends BlumRepository<SyncState> {
+
+    /** Columns identifying a feed: its store and its name in that store */
+    private static final String[] FEED_KEY = {"source", "feed"};
+
+    public SyncStateRepository(ConnectionProvider provider, Class<SyncState> type) throws InvalidClassException {
+        super(provider, type);
+    }
+
+    public SyncStateRepository(Connection connection, Class<SyncState> type) throws InvalidClassException {
+        super(connection, type);
+    }
+
+    @Override
+    public String getTableName() {
+        return "sync_state";
+    }
+
+    @Override
+    public String initTable() throws Exception {
+        return FileUtil.getFileContentFromJar("database/sync-state.sql");
+    }
+
+    /**
+     * Gets the state of a feed, or null if it was never synced
+     */
+    public SyncState find(String source, String feed) {
+        return query("SELECT * FROM sync_state WHERE source = ? AND feed = ?", source, feed);
+    }
+
+    public List<SyncState> listStates() {
+        return listQuery("SELECT * FROM sync_state ORDER BY source, feed");
+    }
+
+    /**
+     * Writes the state of a feed, replacing the previous one
+     */
+    public void save(SyncState state) throws SQLException {
+        upsertAll(List.of(state), FEED_KEY);
+    }
+}
@@ -0,0 +1,574 @@
+package blum.core.library;
+
+import blum.api.database.RepositoryListener;
+import blum.api.library.Completion;
+import blum.api.library.model.GameMetadata;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index of the game names for search as you type, answering without querying the database.
+ * Names and sort names are normalized (case, accents, symbols) and split into words: a sorted map of the words
+ * finds the games having a word starting with each typed word, trigram postings find those with a misspelled one.
+ * Candidates are then ranked by how closely each typed word matches a word of their name.
+ * Postings are primitive arrays of ordinals that writes only append to, postings of replaced names are skipped
+ * when ranking and dropped once they make up half of the index. The index follows the repository writes as a listener.
+ */
+public class AutocompleteIndex implements RepositoryListener<GameMetadata> {
+
+    private static final Pattern IGNORED = Pattern.compile("['’\\p{M}]+");
+    private static final Pattern SYMBOLS = Pattern.compile("\\p{S}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final char PADDING = ' ';
+
+    private static final double MIN_SCORE = 0.6;
+    /** Penalty per word of a name, so a game comes before its longer named editions and sequels */
+    private static final double LENGTH_PENALTY = 0.0005;
+    private static final int MAX_TOKENS = 8;
+    private static final int MAX_FUZZY_CANDIDATES = 512;
+    private static final int MIN_STALE_POSTINGS = 10_000;
+
+    private static final Comparator<Completion> RANKING = Comparator.comparingDouble(Completion::score).reversed()
+            .thenComparing(Completion::name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(Completion::id);
+
+    private final Supplier<Iterable<GameMetadata>> loader;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+
+    private int size;
+    private int[] ids = new int[1024];
+    private String[] names = new String[1024];
+    private String[][] wordsByOrdinal = new String[1024][];
+
+    private long postingCount;
+    private long stalePostings;
+
+    /**
+     * @param loader supplies the id, name and sort name of every game, used to build the index and to reload it
+     *               after untracked changes
+     */
+    public AutocompleteIndex(Supplier<Iterable<GameMetadata>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Rebuilds the index from the whole library
+     */
+    public void reload() {
+        load(loader.get());
+    }
+
+    /**
+     * Rebuilds the index from the given games, e.g. read from the catalog file at startup
+     */
+    public void load(Iterable<GameMetadata> games) {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            freeOrdinals.clear();
+            words.clear();
+            trigrams.clear();
+            Arrays.fill(names, null);
+            Arrays.fill(wordsByOrdinal, null);
+            size = 0;
+            postingCount = 0;
+            stalePostings = 0;
+
+            for (GameMetadata game : games) {
+                put(game);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onInsert(GameMetadata entity) {
+        lock.writeLock().lock();
+        try {
+            put(entity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onUpdate(GameMetadata entity) {
+        onInsert(entity);
+    }
+
+    @Override
+    public void onDelete(Object id) {
+        if (!(id instanceof Number number)) return;
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(number.intValue());
+            if (ordinal == null) return;
+
+            retire(ordinal);
+            freeOrdinals.push(ordinal);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onInvalidate() {
+        reload();
+    }
+
+    /**
+     * Gets the number of games in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Suggests games for a partially typed name, best matches first.
+     * Every typed word must start a word of the name or be within one or two typos of one, the last word being
+     * matched as a prefix unless the query ends with a separator. Up to a third of the words may be missing.
+     */
+    public List<Completion> complete(String query, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0 || limit <= 0) return List.of();
+        boolean typing = tokens.length <= MAX_TOKENS && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        if (tokens.length > MAX_TOKENS) tokens = Arrays.copyOf(tokens, MAX_TOKENS);
+
+        lock.readLock().lock();
+        try {
+            int[] masks = new int[size];
+            int[] hits = new int[size];
+            IntList touched = new IntList();
+            int queryTrigrams = 0;
+            TypoMatcher[] typos = new TypoMatcher[tokens.length];
+
+            for (int i = 0; i < tokens.length; i++) {
+                String token = tokens[i];
+                boolean prefix = typing && i == tokens.length - 1;
+                int bit = 1 << i;
+                typos[i] = new TypoMatcher(token, prefix);
+                for (Postings postings : words.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                    mark(postings, bit, masks, hits, touched);
+                }
+
+                // Short words have too few trigrams to tell typos from other words
+                if (token.length() < 3) continue;
+
+                // Words with the same first letter within a typo or two, trigrams missing swapped letters of short words
+                String first = token.substring(0, 1);
+                for (Map.Entry<String, Postings> entry : words.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                    String word = entry.getKey();
+                    if (word.length() < token.length() - 2 || (!prefix && word.length() > token.length() + 2)) continue;
+                    if (word.startsWith(token)) continue;
+
+                    if (typos[i].score(word) > 0) mark(entry.getValue(), bit, masks, hits, touched);
+                }
+
+                // Words with a typo in their first letter
+                long[] codes = trigrams(token, !prefix);
+                queryTrigrams += codes.length;
+                for (long code : codes) {
+                    Postings postings = trigrams.get(code);
+                    if (postings == null) continue;
+                    for (int j = 0; j < postings.size; j++) {
+                        int ordinal = postings.ordinals[j];
+                        if (masks[ordinal] == 0 && hits[ordinal] == 0) touched.add(ordinal);
+                        hits[ordinal]++;
+                    }
+                }
+            }
+
+            int complete = (1 << tokens.length) - 1;
+            int minHits = Math.max(1, (queryTrigrams + 2) / 3);
+            IntList candidates = new IntList();
+            IntList fuzzy = new IntList();
+            for (int i = 0; i < touched.size; i++) {
+                int ordinal = touched.values[i];
+                if (masks[ordinal] == complete) {
+                    candidates.add(ordinal);
+                } else if (hits[ordinal] >= minHits) {
+                    fuzzy.add(ordinal);
+                }
+            }
+            addBestFuzzy(fuzzy, hits, candidates);
+
+            PriorityQueue<Completion> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (int i = 0; i < candidates.size; i++) {
+                int ordinal = candidates.values[i];
+                String[] nameWords = wordsByOrdinal[ordinal];
+                if (nameWords == null) continue;
+
+                double score = score(tokens, typing, nameWords, typos);
+                if (score < MIN_SCORE) continue;
+
+                score -= nameWords.length * LENGTH_PENALTY;
+                if (best.size() == limit) {
+                    // Most candidates rank below the kept ones, they are dropped before allocating their completion
+                    Completion worst = best.peek();
+                    if (score < worst.score() || (score == worst.score()
+                            && String.CASE_INSENSITIVE_ORDER.compare(names[ordinal], worst.name()) >= 0)) continue;
+                    best.poll();
+                }
+                best.add(new Completion(ids[ordinal], names[ordinal], score));
+            }
+
+            List<Completion> result = new ArrayList<>(best);
+            result.sort(RANKING);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void mark(Postings postings, int bit, int[] masks, int[] hits, IntList touched) {
+        for (int j = 0; j < postings.size; j++) {
+            int ordinal = postings.ordinals[j];
+            if (masks[ordinal] == 0 && hits[ordinal] == 0) touched.add(ordinal);
+            masks[ordinal] |= bit;
+        }
+    }
+
+    /**
+     * Keeps the candidates sharing the most trigrams with the query, ranking every one of them would be too slow
+     */
+    private static void addBestFuzzy(IntList fuzzy, int[] hits, IntList candidates) {
+        if (fuzzy.size <= MAX_FUZZY_CANDIDATES) {
+            for (int i = 0; i < fuzzy.size; i++) candidates.add(fuzzy.values[i]);
+            return;
+        }
+
+        // Lowest trigram count kept, found by counting the candidates of every count
+        int maxHits = 0;
+        for (int i = 0; i < fuzzy.size; i++) maxHits = Math.max(maxHits, hits[fuzzy.values[i]]);
+        int[] counts = new int[maxHits + 1];
+        for (int i = 0; i < fuzzy.size; i++) counts[hits[fuzzy.values[i]]]++;
+
+        int threshold = maxHits;
+        int kept = counts[maxHits];
+        while (threshold > 0 && kept + counts[threshold - 1] <= MAX_FUZZY_CANDIDATES) {
+            kept += counts[--threshold];
+        }
+        for (int i = 0; i < fuzzy.size; i++) {
+            if (hits[fuzzy.values[i]] >= threshold) candidates.add(fuzzy.values[i]);
+        }
+    }
+
+    /**
+     * Scores a name as the mean of the best match of every typed word
+     */
+    private static double score(String[] tokens, boolean typing, String[] nameWords, TypoMatcher[] typos) {
+        double total = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            boolean prefix = typing && i == tokens.length - 1;
+            double best = 0;
+            for (String word : nameWords) {
+                best = Math.max(best, prefixMatch(tokens[i], word, prefix));
+            }
+            // Typos are only looked for when no word starts with the typed one
+            if (best == 0) {
+                for (String word : nameWords) {
+                    best = Math.max(best, typos[i].score(word));
+                }
+            }
+            total += best;
+        }
+        return total / tokens.length;
+    }
+
+    /**
+     * Scores a typed word against a word of a name: 1 if equal, less if it only starts it
+     * @param prefix whether the word is still being typed
+     */
+    private static double prefixMatch(String token, String word, boolean prefix) {
+        if (word.equals(token)) return 1;
+        if (word.startsWith(token)) return prefix ? 0.95 : 0.85;
+        return 0;
+    }
+
+    /**
+     * Adds or replaces a game, the write lock must be held
+     */
+    private void put(GameMetadata game) {
+        String[] nameWords = wordsOf(game);
+        Integer ordinal = ordinals.get(game.getId());
+
+        if (ordinal != null) {
+            if (Arrays.equals(wordsByOrdinal[ordinal], nameWords)) {
+                names[ordinal] = game.getName();
+                return;
+            }
+            retire(ordinal);
+        } else {
+            ordinal = freeOrdinals.isEmpty() ? size++ : freeOrdinals.pop();
+            ordinals.put(game.getId(), ordinal);
+            ensureCapacity(ordinal + 1);
+        }
+
+        ids[ordinal] = game.getId();
+        names[ordinal] = game.getName();
+        wordsByOrdinal[ordinal] = nameWords;
+        index(ordinal, nameWords);
+        compactIfNeeded();
+    }
+
+    /**
+     * Adds the postings of a name
+     */
+    private void index(int ordinal, String[] nameWords) {
+        for (int i = 0; i < nameWords.length; i++) {
+            Postings postings = words.computeIfAbsent(nameWords[i], Postings::new);
+            postings.add(ordinal);
+            // Names share the instances of the words, so they are stored once
+            nameWords[i] = postings.word;
+        }
+        long[] codes = trigrams(nameWords);
+        for (long code : codes) {
+            trigrams.computeIfAbsent(code, key -> new Postings(null)).add(ordinal);
+        }
+        postingCount += nameWords.length + codes.length;
+    }
+
+    /**
+     * Forgets the name of an ordinal, its postings becoming stale
+     */
+    private void retire(int ordinal) {
+        String[] nameWords = wordsByOrdinal[ordinal];
+        if (nameWords != null) stalePostings += nameWords.length + trigrams(nameWords).length;
+        wordsByOrdinal[ordinal] = null;
+        names[ordinal] = null;
+    }
+
+    /**
+     * Rebuilds the postings from the indexed names once half of them are stale
+     */
+    private void compactIfNeeded() {
+        if (stalePostings < MIN_STALE_POSTINGS || stalePostings * 2 < postingCount) return;
+
+        words.clear();
+        trigrams.clear();
+        postingCount = 0;
+        stalePostings = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (wordsByOrdinal[ordinal] != null) index(ordinal, wordsByOrdinal[ordinal]);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+
+        int length = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, length);
+        names = Arrays.copyOf(names, length);
+        wordsByOrdinal = Arrays.copyOf(wordsByOrdinal, length);
+    }
+
+    /**
+     * Gets the distinct words of the name and sort name of a game
+     */
+    private static String[] wordsOf(GameMetadata game) {
+        Set<String> result = new LinkedHashSet<>();
+        result.addAll(Arrays.asList(tokenize(game.getName())));
+        result.addAll(Arrays.asList(tokenize(game.getSortName())));
+        return result.toArray(String[]::new);
+    }
+
+    /**
+     * Splits a text into lower case words without accents, apostrophes or symbols, e.g. "The Witcher® 3: Wild Hunt"
+     * into the, witcher, 3, wild and hunt
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) return new String[0];
+
+        String plain = SYMBOLS.matcher(text).replaceAll(" ");
+        plain = IGNORED.matcher(Normalizer.normalize(plain, Normalizer.Form.NFKD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(plain.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Gets the distinct trigrams of the words of a name, each word padded on both sides
+     */
+    private static long[] trigrams(String[] nameWords) {
+        long[] codes = new long[0];
+        int count = 0;
+        for (String word : nameWords) {
+            long[] wordCodes = trigrams(word, true);
+            if (count + wordCodes.length > codes.length) codes = Arrays.copyOf(codes, Math.max(16, (count + wordCodes.length) * 2));
+            System.arraycopy(wordCodes, 0, codes, count, wordCodes.length);
+            count += wordCodes.length;
+        }
+
+        Arrays.sort(codes, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || codes[i] != codes[distinct - 1]) codes[distinct++] = codes[i];
+        }
+        return Arrays.copyOf(codes, distinct);
+    }
+
+    /**
+     * Encodes the trigrams of a word, three chars per long
+     * @param complete whether the word is padded at its end too, a word still being typed only being padded at its start
+     */
+    private static long[] trigrams(String word, boolean complete) {
+        String padded = PADDING + word + (complete ? String.valueOf(PADDING) : "");
+        if (padded.length() < 3) return new long[0];
+
+        long[] codes = new long[padded.length() - 2];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return codes;
+    }
+
+    /**
+     * Scores the words of names against a typed word within one typo, or two for longer words, a swap of two adjacent
+     * letters counting as one. Scores are kept by word, computing them being much slower than ranking.
+     */
+    private static class TypoMatcher {
+
+        private final String token;
+        private final boolean prefix;
+        private final int maxDistance;
+        private final Map<String, Double> scores = new HashMap<>();
+        private int[] previous2 = new int[16];
+        private int[] previous = new int[16];
+        private int[] current = new int[16];
+
+        /**
+         * @param prefix whether the word is still being typed, it is then compared with the beginning of the words
+         */
+        private TypoMatcher(String token, boolean prefix) {
+            this.token = token;
+            this.prefix = prefix;
+            this.maxDistance = token.length() <= 4 ? 1 : 2;
+        }
+
+        private double score(String word) {
+            if (token.length() < 3) return 0;
+
+            Double score = scores.get(word);
+            if (score == null) {
+                int distance = distance(word);
+                score = distance > maxDistance ? 0 : distance == 1 ? 0.75 : 0.6;
+                scores.put(word, score);
+            }
+            return score;
+        }
+
+        private int distance(String word) {
+            if (prefix && word.length() > token.length()) {
+                // Compared with the beginning of the word, give or take a letter, short words being never shortened:
+                // a letter less and a typo would match any word starting with the same two letters
+                int shortest = maxDistance > 1 ? token.length() - 1 : token.length();
+                int longest = token.length() + 1;
+                if (!compute(word, Math.min(longest, word.length()))) return Integer.MAX_VALUE;
+
+                int distance = Integer.MAX_VALUE;
+                for (int length = shortest; length <= longest && length <= word.length(); length++) {
+                    distance = Math.min(distance, previous[length]);
+                }
+                return distance;
+            }
+
+            if (Math.abs(word.length() - token.length()) > maxDistance || !compute(word, word.length())) return Integer.MAX_VALUE;
+            return previous[word.length()];
+        }
+
+        /**
+         * Computes the distances between the token and the beginnings of a word up to a length into the last row
+         * @return false if they all exceed the maximum distance
+         */
+        private boolean compute(String word, int length) {
+            if (previous.length <= length) {
+                previous2 = new int[length + 1];
+                previous = new int[length + 1];
+                current = new int[length + 1];
+            }
+            for (int j = 0; j <= length; j++) previous[j] = j;
+
+            for (int i = 1; i <= token.length(); i++) {
+                current[0] = i;
+                int min = i;
+                for (int j = 1; j <= length; j++) {
+                    int cost = token.charAt(i - 1) == word.charAt(j - 1) ? 0 : 1;
+                    int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                    if (i > 1 && j > 1 && token.charAt(i - 1) == word.charAt(j - 2) && token.charAt(i - 2) == word.charAt(j - 1)) {
+                        value = Math.min(value, previous2[j - 2] + 1);
+                    }
+                    current[j] = value;
+                    min = Math.min(min, value);
+                }
+                int[] recycled = previous2;
+                previous2 = previous;
+                previous = current;
+                current = recycled;
+                // Distances never decrease from one row to the next
+                if (min > maxDistance + 1) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Growable array of ordinals
+     */
+    private static class Postings {
+
+        /** Indexed word, null for a trigram */
+        private final String word;
+        private int[] ordinals = new int[2];
+        private int size;
+
+        private Postings(String word) {
+            this.word = word;
+        }
+
+        private void add(int ordinal) {
+            if (size == ordinals.length) ordinals = Arrays.copyOf(ordinals, size + (size >> 1) + 1);
+            ordinals[size++] = ordinal;
+        }
+    }
+
+    private static class IntList {
+
+        private int[] values = new int[64];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package blum.core.library;
+
+import blum.api.library.model.GameMetadata;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * Binary copy of the game catalog, read at startup instead of mapping every row from the database.
+ * The file is stamped with the catalog version it was written at and is only used while the database still has it.
+ * Games are stored in blocks of rows with their own checksum, memory-mapped and decoded in parallel.
+ * A file with another format, version or a checksum mismatch is ignored, the catalog is then read from the database.
+ */
+@Slf4j
+public class CatalogFile {
+
+    private static final long MAGIC = 0x424C554D43415431L; // BLUMCAT1
+    private static final int FORMAT_VERSION = 1;
+    private static final int BLOCK_ROWS = 4096;
+    private static final int NO_RATING = Integer.MIN_VALUE;
+    private static final int NULL_STRING = -1;
+
+    /** Fields of the model written by this format, a model with other fields can't be stored */
+    private static final Set<String> FIELDS = Set.of("id", "name", "sortName", "platform", "genres", "developers",
+            "publishers", "categories", "features", "tags", "description", "releaseDate", "series", "pegi", "region",
+            "source", "pressRating", "communityRating");
+
+    private static final boolean SUPPORTED = FIELDS.equals(Arrays.stream(GameMetadata.class.getDeclaredFields())
+            .filter(field -> !Modifier.isStatic(field.getModifiers()))
+            .map(Field::getName)
+            .collect(Collectors.toSet()));
+
+    private final Path file;
+
+    public CatalogFile(Path file) {
+        this.file = file;
+        if (!SUPPORTED) log.warn("The catalog file doesn't support the fields of GameMetadata, the catalog will be read from the database");
+    }
+
+    /**
+     * Writes the catalog, replacing the previous file once complete
+     * @param version version of the catalog the games were read at, see {@link blum.core.library.repositories.GameMetadataRepository#getCatalogVersion()}
+     */
+    public void write(long version, List<GameMetadata> games) throws IOException {
+        if (!SUPPORTED) return;
+
+        List<byte[]> blocks = new ArrayList<>();
+        for (int start = 0; start < games.size(); start += BLOCK_ROWS) {
+            blocks.add(encode(games.subList(start, Math.min(games.size(), start + BLOCK_ROWS))));
+        }
+
+        int headerSize = 8 + 4 + 8 + 4 + 4 + blocks.size() * 20 + 4;
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.putLong(MAGIC).putInt(FORMAT_VERSION).putLong(version).putInt(games.size()).putInt(blocks.size());
+        long offset = headerSize;
+        for (int i = 0; i < blocks.size(); i++) {
+            byte[] block = blocks.get(i);
+            int rows = Math.min(BLOCK_ROWS, games.size() - i * BLOCK_ROWS);
+            header.putLong(offset).putInt(block.length).putInt(rows).putInt(checksum(ByteBuffer.wrap(block)));
+            offset += block.length;
+        }
+        header.putInt(checksum(header.duplicate().flip()));
+        header.flip();
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) channel.write(header);
+            for (byte[] block : blocks) {
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the catalog if the file was written at the given version
+     * @return the games in the order they were written, null if the file is missing, outdated or damaged
+     */
+    public List<GameMetadata> read(long version) {
+        if (!SUPPORTED) return null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < 28 || buffer.getLong() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                log.info("Ignoring catalog file {}, its format isn't supported", file);
+                return null;
+            }
+            long written = buffer.getLong();
+            if (written != version) {
+                log.info("Ignoring catalog file {}, the catalog changed since it was written", file);
+                return null;
+            }
+
+            int count = buffer.getInt();
+            int blockCount = buffer.getInt();
+            if (count < 0 || blockCount < 0 || blockCount > buffer.remaining() / 20) return damaged();
+
+            long[] offsets = new long[blockCount];
+            int[] lengths = new int[blockCount];
+            int[] rows = new int[blockCount];
+            int[] checksums = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                offsets[i] = buffer.getLong();
+                lengths[i] = buffer.getInt();
+                rows[i] = buffer.getInt();
+                checksums[i] = buffer.getInt();
+            }
+            int headerChecksum = checksum(buffer.duplicate().flip());
+            if (buffer.getInt() != headerChecksum || Arrays.stream(rows).sum() != count) return damaged();
+            for (int i = 0; i < blockCount; i++) {
+                if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > buffer.capacity()) return damaged();
+            }
+
+            // Blocks are independent slices of the mapping, decoded by the common pool
+            List<GameMetadata[]> blocks = IntStream.range(0, blockCount).parallel()
+                    .mapToObj(i -> decode(buffer.slice((int) offsets[i], lengths[i]), rows[i], checksums[i]))
+                    .toList();
+
+            List<GameMetadata> games = new ArrayList<>(count);
+            for (GameMetadata[] block : blocks) {
+                if (block == null) return damaged();
+                games.addAll(Arrays.asList(block));
+            }
+            return games;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read catalog file {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the file, e.g. when it can't be kept up to date
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private List<GameMetadata> damaged() {
+        log.warn("Ignoring catalog file {}, it is damaged", file);
+        return null;
+    }
+
+    private static byte[] encode(List<GameMetadata> games) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(games.size() * 256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (GameMetadata game : games) {
+                out.writeInt(game.getId());
+                writeString(out, game.getName());
+                writeString(out, game.getSortName());
+                writeString(out, game.getPlatform());
+                writeString(out, game.getGenres());
+                writeString(out, game.getDevelopers());
+                writeString(out, game.getPublishers());
+                writeString(out, game.getCategories());
+                writeString(out, game.getFeatures());
+                writeString(out, game.getTags());
+                writeString(out, game.getDescription());
+                writeString(out, game.getReleaseDate());
+                writeString(out, game.getSeries());
+                writeString(out, game.getPegi());
+                writeString(out, game.getRegion());
+                writeString(out, game.getSource());
+                out.writeInt(game.getPressRating() != null ? game.getPressRating() : NO_RATING);
+                out.writeInt(game.getCommunityRating() != null ? game.getCommunityRating() : NO_RATING);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a block of games, null if its checksum doesn't match
+     */
+    private static GameMetadata[] decode(ByteBuffer block, int rows, int checksum) {
+        if (checksum(block.duplicate()) != checksum) return null;
+
+        try {
+            GameMetadata[] games = new GameMetadata[rows];
+            for (int i = 0; i < rows; i++) {
+                games[i] = new GameMetadata(block.getInt(), readString(block), readString(block), readString(block),
+                        readString(block), readString(block), readString(block), readString(block), readString(block),
+                        readString(block), readString(block), readString(block), readString(block), readString(block),
+                        readString(block), readString(block), readRating(block), readRating(block));
+            }
+            return block.hasRemaining() ? null : games;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_STRING) return null;
+        if (length < 0 || length > buffer.remaining()) throw new IllegalArgumentException("Malformed string");
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Integer readRating(ByteBuffer buffer) {
+        int rating = buffer.getInt();
+        return rating == NO_RATING ? null : rating;
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,130 @@
+package blum.core.library;
+
+import blum.api.database.RepositoryListener;
+import blum.api.library.model.GameMetadata;
+import blum.core.library.repositories.GameMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the catalog file up to date as a listener of the repository writes.
+ * The file is written again once the catalog stopped changing for a while, so imports write it once, and when closed.
+ */
+@Slf4j
+public class CatalogFileWriter implements RepositoryListener<GameMetadata>, AutoCloseable {
+
+    private final GameMetadataRepository repository;
+    private final CatalogFile file;
+    private final long delayNanos;
+    private final ScheduledThreadPoolExecutor executor;
+
+    private volatile long lastChange;
+    private boolean scheduled;
+    private boolean dirty;
+
+    /**
+     * @param delayMillis time without changes before the file is written
+     */
+    public CatalogFileWriter(GameMetadataRepository repository, CatalogFile file, long delayMillis) {
+        this.repository = repository;
+        this.file = file;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "blum-catalog-file");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    @Override
+    public void onInsert(GameMetadata entity) {
+        schedule();
+    }
+
+    @Override
+    public void onUpdate(GameMetadata entity) {
+        schedule();
+    }
+
+    @Override
+    public void onDelete(Object id) {
+        schedule();
+    }
+
+    @Override
+    public void onInvalidate() {
+        schedule();
+    }
+
+    /**
+     * Marks the file as outdated, it is written once no change happened during the delay
+     */
+    public void schedule() {
+        lastChange = System.nanoTime();
+        synchronized (this) {
+            dirty = true;
+            // A single pending task, pushed back while changes keep coming
+            if (scheduled || executor.isShutdown()) return;
+            scheduled = true;
+        }
+        executor.schedule(this::writeWhenQuiet, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void writeWhenQuiet() {
+        long quiet = System.nanoTime() - lastChange;
+        if (quiet < delayNanos) {
+            executor.schedule(this::writeWhenQuiet, delayNanos - quiet, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        synchronized (this) {
+            scheduled = false;
+            dirty = false;
+        }
+        write();
+    }
+
+    /**
+     * Writes the whole catalog to the file now
+     * @return whether it was written
+     */
+    public boolean write() {
+        try {
+            long start = System.nanoTime();
+            long version = repository.getCatalogVersion();
+            List<GameMetadata> games = repository.selectList("SELECT * FROM metadata ORDER BY id");
+            file.write(version, games);
+            log.debug("Catalog file written in {} ms ({} games)", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), games.size());
+            return true;
+        } catch (IOException | SQLException e) {
+            log.warn("Failed to write the catalog file", e);
+            return false;
+        }
+    }
+
+    /**
+     * Stops the scheduled writes, the file is written one last time if the catalog changed since
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) log.warn("Timed out waiting for the catalog file to be written");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        boolean outdated;
+        synchronized (this) {
+            outdated = dirty;
+            dirty = false;
+        }
+        if (outdated) write();
+    }
+}
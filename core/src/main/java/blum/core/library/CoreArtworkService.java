@@ -0,0 +1,184 @@
+package blum.core.library;
+
+import blum.api.core.Blum;
+import blum.api.core.BlumConfiguration;
+import blum.api.database.DatabaseService;
+import blum.api.exception.DatabaseQueryException;
+import blum.api.exception.ServiceStartException;
+import blum.api.library.ArtworkKind;
+import blum.api.library.ArtworkService;
+import blum.api.library.Thumbnail;
+import blum.api.library.ThumbnailStats;
+import blum.api.library.model.GameArtwork;
+import blum.api.services.Service;
+import blum.api.services.annotation.ServiceDescriptor;
+import blum.core.system.BlumBoot;
+import blum.core.library.artwork.ArtworkStore;
+import blum.core.library.artwork.ThumbnailCache;
+import blum.core.library.repositories.ArtworkRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@ServiceDescriptor(
+        name = "artwork",
+        displayName = "Blum Artwork Store",
+        version = "1.0.0",
+        description = "Covers and other game images, stored once per content"
+)
+@Slf4j
+public class CoreArtworkService implements Service, ArtworkService {
+
+    /** Longest wait for a resize, the original is served beyond */
+    private static final long THUMBNAIL_TIMEOUT = 10;
+
+    private ArtworkRepository repository;
+    private ArtworkStore store;
+    private ThumbnailCache thumbnails;
+    private boolean pregenerate;
+
+    public CoreArtworkService() {
+    }
+
+    /**
+     * @param thumbnails cache of resized images, null to always serve the originals
+     */
+    public CoreArtworkService(ArtworkRepository repository, ArtworkStore store, ThumbnailCache thumbnails, boolean pregenerate) {
+        this.repository = repository;
+        this.store = store;
+        this.thumbnails = thumbnails;
+        this.pregenerate = pregenerate;
+    }
+
+    @Override
+    public void start() throws ServiceStartException {
+        if (repository != null) return;
+        try {
+            repository = Blum.getServiceManager().getService("database", DatabaseService.class).createOrGet("game", GameArtwork.class, ArtworkRepository.class);
+            store = new ArtworkStore(new File(BlumBoot.DATA_DIR, "artwork").toPath());
+
+            BlumConfiguration configuration = Blum.getCoreConfiguration();
+            long cacheSize = (configuration != null ? configuration.getArtworkThumbnailCacheSize() : 256) * (1L << 20);
+            if (cacheSize > 0) {
+                int threads = configuration != null ? configuration.getArtworkThumbnailThreads() : 2;
+                thumbnails = new ThumbnailCache(new File(BlumBoot.DATA_DIR, "thumbnails").toPath(), cacheSize, threads);
+                pregenerate = configuration == null || configuration.isArtworkThumbnailPregenerate();
+            }
+        } catch (Exception e) {
+            throw new ServiceStartException("Failed to initialize artwork store", e);
+        }
+    }
+
+    // Mutations are serialized, so an image is never deleted while another game is being linked to it
+
+    @Override
+    public synchronized GameArtwork storeArtwork(int gameId, ArtworkKind kind, InputStream content) throws IOException, SQLException {
+        // Checked before storing, the link would fail on the foreign key and leave the image unused
+        if (!repository.gameExists(gameId)) throw new IllegalArgumentException("Unknown game " + gameId);
+
+        ArtworkStore.Blob blob = store.put(content);
+        GameArtwork previous = repository.find(gameId, kind);
+
+        repository.link(new GameArtwork(0, gameId, kind.key(), blob.hash(), blob.contentType(), blob.size(), System.currentTimeMillis()));
+        if (previous != null && !previous.getHash().equals(blob.hash())) release(previous.getHash());
+        if (thumbnails != null && pregenerate) thumbnails.pregenerate(blob.hash(), store.get(blob.hash()));
+        return repository.find(gameId, kind);
+    }
+
+    @Override
+    public GameArtwork getArtwork(int gameId, ArtworkKind kind) {
+        return repository.find(gameId, kind);
+    }
+
+    @Override
+    public List<GameArtwork> listArtwork(int gameId) {
+        return repository.listByGame(gameId);
+    }
+
+    @Override
+    public GameArtwork findByHash(String hash) {
+        try {
+            return repository.findByHash(hash);
+        } catch (SQLException e) {
+            throw new DatabaseQueryException("Failed to find the artwork of " + hash, e);
+        }
+    }
+
+    @Override
+    public Path getFile(String hash) {
+        return store.get(hash);
+    }
+
+    @Override
+    public Thumbnail getThumbnail(String hash, int width) {
+        Path source = store.get(hash);
+        if (thumbnails == null || source == null || width <= 0) return null;
+
+        try {
+            return thumbnails.get(hash, source, width).get(THUMBNAIL_TIMEOUT, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Resize of {} to {}px is taking more than {}s, serving the original", hash, width, THUMBNAIL_TIMEOUT);
+        } catch (ExecutionException e) {
+            log.warn("Failed to resize {}, serving the original", hash, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    @Override
+    public ThumbnailStats getThumbnailStats() {
+        return thumbnails != null ? thumbnails.getStats() : new ThumbnailStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    @Override
+    public synchronized boolean removeArtwork(int gameId, ArtworkKind kind) throws IOException, SQLException {
+        GameArtwork artwork = repository.find(gameId, kind);
+        if (artwork == null || !repository.deleteById(artwork.getId())) return false;
+
+        release(artwork.getHash());
+        return true;
+    }
+
+    @Override
+    public synchronized int purgeUnreferenced() throws IOException, SQLException {
+        Set<String> referenced = repository.referencedHashes();
+        int deleted = 0;
+        for (String hash : store.hashes()) {
+            if (!referenced.contains(hash) && store.delete(hash)) {
+                if (thumbnails != null) thumbnails.delete(hash);
+                deleted++;
+            }
+        }
+        if (deleted > 0) log.info("Deleted {} unused artwork images", deleted);
+        return deleted;
+    }
+
+    /**
+     * Deletes an image once no game uses it anymore, kept for the next purge when the lookup fails
+     */
+    private void release(String hash) throws IOException {
+        try {
+            if (repository.findByHash(hash) != null) return;
+        } catch (SQLException e) {
+            log.warn("Failed to check whether {} is still used, keeping it", hash, e);
+            return;
+        }
+        store.delete(hash);
+        if (thumbnails != null) thumbnails.delete(hash);
+    }
+
+    @Override
+    public void stop() throws ServiceStartException {
+        if (thumbnails != null) thumbnails.close();
+    }
+}
@@ -1,15 +1,46 @@
 package blum.core.library;
 
 import blum.api.core.Blum;
+import blum.api.core.BlumConfiguration;
 import blum.api.database.DatabaseService;
+import blum.api.database.LruRepositoryCache;
+import blum.api.database.Page;
+import blum.api.database.RepositoryListener;
+import blum.api.exception.DatabaseQueryException;
 import blum.api.exception.ServiceStartException;
+import blum.api.library.Completion;
+import blum.api.library.Facet;
+import blum.api.library.LibraryFilter;
 import blum.api.library.LibraryService;
+import blum.api.library.LibraryStats;
 import blum.api.library.model.GameMetadata;
+import blum.api.library.model.GameSummary;
 import blum.api.services.Service;
 import blum.api.services.annotation.ServiceDescriptor;
+import blum.core.library.importer.GameImporter;
+import blum.core.library.importer.ImportOptions;
+import blum.core.library.importer.ImportProgress;
+import blum.core.library.importer.ImportResult;
 import blum.core.library.repositories.GameMetadataRepository;
+import blum.core.system.BlumBoot;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
 @ServiceDescriptor(
         name = "library",
         displayName = "Blum Game Library",
@@ -19,20 +50,204 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CoreLibraryService implements Service, LibraryService {
 
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_COMPLETIONS = 50;
+
     private GameMetadataRepository gameMetadataRepository;
+    private LibrarySnapshot snapshot;
+    private AutocompleteIndex autocomplete;
+    private LibraryStatistics statistics;
+    private CatalogFileWriter catalogFileWriter;
+    private boolean catalogLoadedFromFile;
 
     @Override
     public void start() throws ServiceStartException {
         try {
             gameMetadataRepository = Blum.getServiceManager().getService("database", DatabaseService.class).createOrGet("game", GameMetadata.class, GameMetadataRepository.class);
+            gameMetadataRepository.initCatalog(sortLocale());
+            configureCache();
+
+            BlumConfiguration configuration = Blum.getCoreConfiguration();
+            CatalogFile catalogFile = configuration == null || configuration.isLibraryCatalogFile()
+                    ? new CatalogFile(new File(BlumBoot.DATA_DIR, "catalog.bin").toPath()) : null;
+
+            // Listening before the catalog is read, so a write during the load schedules the file too
+            if (catalogFile != null) {
+                catalogFileWriter = new CatalogFileWriter(gameMetadataRepository, catalogFile,
+                        (configuration != null ? configuration.getLibraryCatalogFileDelay() : 30) * 1000L);
+                gameMetadataRepository.addListener(catalogFileWriter);
+            }
+            loadCatalog(catalogFile);
+            if (catalogFileWriter != null && !catalogLoadedFromFile) catalogFileWriter.schedule();
         } catch (Exception e) {
             throw new ServiceStartException("Failed to initialize libraries database", e);
         }
 
     }
 
+    /**
+     * Builds the in-memory views of the catalog in parallel, from the catalog file when it is up to date.
+     * Views built from a catalog that changed meanwhile are reloaded once they listen to the repository.
+     */
+    private void loadCatalog(CatalogFile catalogFile) throws SQLException {
+        long start = System.nanoTime();
+        ChangeWatcher watcher = new ChangeWatcher();
+        gameMetadataRepository.addListener(watcher);
+        try {
+            buildViews(catalogFile);
+        } finally {
+            gameMetadataRepository.removeListener(watcher);
+        }
+        if (watcher.changed) {
+            snapshot.reload();
+            autocomplete.reload();
+            statistics.reload();
+        }
+        log.info("Library loaded from the {} in {} ms ({} games)", catalogLoadedFromFile ? "catalog file" : "database",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), snapshot.size());
+    }
+
+    private void buildViews(CatalogFile catalogFile) throws SQLException {
+        List<GameMetadata> games = catalogFile != null ? catalogFile.read(gameMetadataRepository.getCatalogVersion()) : null;
+        catalogLoadedFromFile = games != null;
+        if (games == null) games = gameMetadataRepository.selectList("SELECT * FROM metadata");
+
+        // A failed reload throws, the views keep their content instead of being emptied
+        Supplier<Iterable<GameMetadata>> loader = () -> loadGames("SELECT * FROM metadata");
+        snapshot = new LibrarySnapshot(loader);
+        autocomplete = new AutocompleteIndex(() -> loadGames("SELECT id, name, sort_name FROM metadata"));
+        statistics = new LibraryStatistics(loader);
+
+        // Own threads, the common pool is shared with the rest of the application
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService builders = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "blum-library-load-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<GameMetadata> catalog = games;
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(() -> snapshot.load(catalog), builders),
+                    CompletableFuture.runAsync(() -> autocomplete.load(catalog), builders),
+                    CompletableFuture.runAsync(() -> statistics.load(catalog), builders)
+            ).join();
+        } finally {
+            builders.shutdown();
+        }
+
+        gameMetadataRepository.addListener(snapshot);
+        gameMetadataRepository.addListener(autocomplete);
+        gameMetadataRepository.addListener(statistics);
+    }
+
+    /**
+     * Tells whether the catalog changed while the views were built from an older copy
+     */
+    private static class ChangeWatcher implements RepositoryListener<GameMetadata> {
+
+        private volatile boolean changed;
+
+        @Override
+        public void onInsert(GameMetadata game) {
+            changed = true;
+        }
+
+        @Override
+        public void onUpdate(GameMetadata game) {
+            changed = true;
+        }
+
+        @Override
+        public void onDelete(Object id) {
+            changed = true;
+        }
+
+        @Override
+        public void onInvalidate() {
+            changed = true;
+        }
+    }
+
+    private List<GameMetadata> loadGames(String sql) {
+        try {
+            return gameMetadataRepository.selectList(sql);
+        } catch (SQLException e) {
+            throw new DatabaseQueryException("Failed to load the library", e);
+        }
+    }
+
+    private void configureCache() {
+        BlumConfiguration configuration = Blum.getCoreConfiguration();
+        int size = configuration != null ? configuration.getLibraryCacheSize() : 1024;
+        int ttl = configuration != null ? configuration.getLibraryCacheTtl() : 0;
+
+        if (size > 0) {
+            gameMetadataRepository.setCache(new LruRepositoryCache<>(size, Duration.ofSeconds(Math.max(0, ttl))));
+        }
+    }
+
+    private static Locale sortLocale() {
+        BlumConfiguration configuration = Blum.getCoreConfiguration();
+        String tag = configuration != null ? configuration.getLibrarySortLocale() : null;
+        return tag == null || tag.isBlank() ? Locale.ENGLISH : Locale.forLanguageTag(tag);
+    }
+
+    /**
+     * Gets the repository of the catalog, shared by the services writing games so they notify the library views
+     */
+    public GameMetadataRepository getGameMetadataRepository() {
+        return gameMetadataRepository;
+    }
+
     @Override
-    public void stop() throws ServiceStartException {
+    public Page<GameSummary> listGames(String cursor, int limit) {
+        return gameMetadataRepository.listGames(cursor, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    @Override
+    public List<GameMetadata> search(String query, int offset, int limit) {
+        return gameMetadataRepository.search(query, offset, Math.min(limit, MAX_SEARCH_RESULTS));
+    }
+
+    @Override
+    public List<Completion> complete(String query, int limit) {
+        return autocomplete.complete(query, Math.min(limit, MAX_COMPLETIONS));
+    }
+
+    @Override
+    public int[] filter(LibraryFilter filter) {
+        return snapshot.filter(filter);
+    }
 
+    @Override
+    public Map<String, Integer> countFacet(Facet facet, LibraryFilter filter) {
+        return snapshot.countFacet(facet, filter);
+    }
+
+    @Override
+    public LibraryStats getStatistics() {
+        return statistics.get();
+    }
+
+    /**
+     * Imports a JSON, NDJSON or CSV library export into the catalog, see {@link GameImporter}
+     * @param source store of the games not naming one, e.g. steam
+     * @param progress notified after every written batch, may be null
+     */
+    public ImportResult importGames(Path file, String source, Consumer<ImportProgress> progress) throws IOException, SQLException {
+        return new GameImporter(gameMetadataRepository, ImportOptions.defaults(source)).importFile(file, progress);
+    }
+
+    @Override
+    public void stop() throws ServiceStartException {
+        if (snapshot != null) gameMetadataRepository.removeListener(snapshot);
+        if (autocomplete != null) gameMetadataRepository.removeListener(autocomplete);
+        if (statistics != null) gameMetadataRepository.removeListener(statistics);
+        if (catalogFileWriter != null) {
+            gameMetadataRepository.removeListener(catalogFileWriter);
+            catalogFileWriter.close();
+        }
     }
 }
@@ -0,0 +1,300 @@
+package blum.core.library;
+
+import blum.api.database.RepositoryListener;
+import blum.api.library.Facet;
+import blum.api.library.LibraryFilter;
+import blum.api.library.model.GameMetadata;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Columnar in-memory view of the game library, used to filter and count facets without querying the database.
+ * Every game gets an ordinal; facet values are interned in dictionaries and indexed by one bitmap of ordinals per value,
+ * ratings are kept in primitive arrays. The snapshot follows the repository writes as a listener.
+ */
+public class LibrarySnapshot implements RepositoryListener<GameMetadata> {
+
+    private static final Pattern VALUE_SEPARATOR = Pattern.compile("[,;|]");
+    private static final int NO_RATING = Integer.MIN_VALUE;
+    private static final int[] NO_CODES = new int[0];
+
+    private final Supplier<Iterable<GameMetadata>> loader;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet alive = new BitSet();
+    private final Map<Facet, FacetColumn> facets = new EnumMap<>(Facet.class);
+
+    private int size;
+    private int[] ids = new int[1024];
+    private int[] pressRatings = new int[1024];
+    private int[] communityRatings = new int[1024];
+
+    /**
+     * @param loader supplies the whole library, used to build the snapshot and to reload it after untracked changes
+     */
+    public LibrarySnapshot(Supplier<Iterable<GameMetadata>> loader) {
+        this.loader = loader;
+        for (Facet facet : Facet.values()) {
+            facets.put(facet, new FacetColumn());
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot from the whole library
+     */
+    public void reload() {
+        load(loader.get());
+    }
+
+    /**
+     * Rebuilds the snapshot from the given games, e.g. read from the catalog file at startup
+     */
+    public void load(Iterable<GameMetadata> games) {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            freeOrdinals.clear();
+            alive.clear();
+            facets.replaceAll((facet, column) -> new FacetColumn());
+            size = 0;
+
+            for (GameMetadata game : games) {
+                put(game);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onInsert(GameMetadata entity) {
+        lock.writeLock().lock();
+        try {
+            put(entity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onUpdate(GameMetadata entity) {
+        onInsert(entity);
+    }
+
+    @Override
+    public void onDelete(Object id) {
+        if (!(id instanceof Number number)) return;
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(number.intValue());
+            if (ordinal == null) return;
+
+            for (FacetColumn column : facets.values()) {
+                column.clear(ordinal);
+            }
+            alive.clear(ordinal);
+            freeOrdinals.push(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onInvalidate() {
+        reload();
+    }
+
+    /**
+     * Gets the number of games in the snapshot
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the identifiers of the games matching a filter, in identifier order
+     */
+    public int[] filter(LibraryFilter filter) {
+        lock.readLock().lock();
+        try {
+            BitSet selection = select(filter);
+
+            int[] result = new int[selection.cardinality()];
+            int i = 0;
+            for (int ordinal = selection.nextSetBit(0); ordinal >= 0; ordinal = selection.nextSetBit(ordinal + 1)) {
+                result[i++] = ids[ordinal];
+            }
+            Arrays.sort(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the games matching a filter for every value of a facet, most frequent values first
+     */
+    public Map<String, Integer> countFacet(Facet facet, LibraryFilter filter) {
+        lock.readLock().lock();
+        try {
+            BitSet selection = select(filter);
+            FacetColumn column = facets.get(facet);
+
+            int[] counts = new int[column.values.size()];
+            for (int ordinal = selection.nextSetBit(0); ordinal >= 0; ordinal = selection.nextSetBit(ordinal + 1)) {
+                for (int code : column.codesOf(ordinal)) {
+                    counts[code]++;
+                }
+            }
+
+            List<Integer> codes = new ArrayList<>();
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) codes.add(code);
+            }
+            codes.sort((a, b) -> counts[a] != counts[b] ? Integer.compare(counts[b], counts[a])
+                    : column.values.get(a).compareToIgnoreCase(column.values.get(b)));
+
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (int code : codes) {
+                result.put(column.values.get(code), counts[code]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet select(LibraryFilter filter) {
+        BitSet selection = (BitSet) alive.clone();
+
+        for (Map.Entry<Facet, Set<String>> entry : filter.facets().entrySet()) {
+            FacetColumn column = facets.get(entry.getKey());
+
+            BitSet matching = new BitSet();
+            for (String value : entry.getValue()) {
+                Integer code = column.codes.get(normalize(value));
+                if (code != null) matching.or(column.bitmaps.get(code));
+            }
+            selection.and(matching);
+        }
+
+        if (filter.minPressRating() != null) keepRatedAtLeast(selection, pressRatings, filter.minPressRating());
+        if (filter.minCommunityRating() != null) keepRatedAtLeast(selection, communityRatings, filter.minCommunityRating());
+        return selection;
+    }
+
+    private static void keepRatedAtLeast(BitSet selection, int[] ratings, int minimum) {
+        for (int ordinal = selection.nextSetBit(0); ordinal >= 0; ordinal = selection.nextSetBit(ordinal + 1)) {
+            if (ratings[ordinal] == NO_RATING || ratings[ordinal] < minimum) selection.clear(ordinal);
+        }
+    }
+
+    /**
+     * Adds or replaces a game, the write lock must be held
+     */
+    private void put(GameMetadata game) {
+        Integer ordinal = ordinals.get(game.getId());
+        if (ordinal == null) {
+            ordinal = freeOrdinals.isEmpty() ? size++ : freeOrdinals.pop();
+            ordinals.put(game.getId(), ordinal);
+            ensureCapacity(ordinal + 1);
+        }
+
+        ids[ordinal] = game.getId();
+        pressRatings[ordinal] = game.getPressRating() != null ? game.getPressRating() : NO_RATING;
+        communityRatings[ordinal] = game.getCommunityRating() != null ? game.getCommunityRating() : NO_RATING;
+
+        for (Map.Entry<Facet, FacetColumn> entry : facets.entrySet()) {
+            entry.getValue().set(ordinal, entry.getKey(), entry.getKey().extract(game));
+        }
+        alive.set(ordinal);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+
+        int length = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, length);
+        pressRatings = Arrays.copyOf(pressRatings, length);
+        communityRatings = Arrays.copyOf(communityRatings, length);
+    }
+
+    private static String normalize(String value) {
+        return value.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Dictionary encoded values of a facet, with one bitmap of ordinals per value
+     */
+    private static class FacetColumn {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<BitSet> bitmaps = new ArrayList<>();
+        private int[][] codesByOrdinal = new int[1024][];
+
+        private int[] codesOf(int ordinal) {
+            int[] result = ordinal < codesByOrdinal.length ? codesByOrdinal[ordinal] : null;
+            return result != null ? result : NO_CODES;
+        }
+
+        private void set(int ordinal, Facet facet, String raw) {
+            clear(ordinal);
+            if (raw == null || raw.isBlank()) return;
+
+            String[] parts = facet.isMultiValued() ? VALUE_SEPARATOR.split(raw) : new String[]{raw};
+            int[] result = new int[parts.length];
+            int count = 0;
+
+            for (String part : parts) {
+                String value = part.strip();
+                if (value.isEmpty()) continue;
+
+                int code = codes.computeIfAbsent(normalize(value), key -> {
+                    values.add(value);
+                    bitmaps.add(new BitSet());
+                    return values.size() - 1;
+                });
+                if (bitmaps.get(code).get(ordinal)) continue;
+
+                bitmaps.get(code).set(ordinal);
+                result[count++] = code;
+            }
+
+            if (ordinal >= codesByOrdinal.length) {
+                codesByOrdinal = Arrays.copyOf(codesByOrdinal, Math.max(ordinal + 1, codesByOrdinal.length * 2));
+            }
+            codesByOrdinal[ordinal] = count == result.length ? result : Arrays.copyOf(result, count);
+        }
+
+        private void clear(int ordinal) {
+            for (int code : codesOf(ordinal)) {
+                bitmaps.get(code).clear(ordinal);
+            }
+            if (ordinal < codesByOrdinal.length) codesByOrdinal[ordinal] = null;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package blum.core.library;
+
+import blum.api.database.RepositoryListener;
+import blum.api.library.Facet;
+import blum.api.library.LibraryStats;
+import blum.api.library.RatingStats;
+import blum.api.library.model.GameMetadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Aggregates of the game library, computed once from the whole library and then maintained as the repository writes
+ * go through, so dashboards never group the metadata table. Each game's contribution is remembered to be withdrawn
+ * when it is updated or deleted. The aggregates are published as an immutable {@link LibraryStats}, built again on
+ * the first read following a write: reads between writes return it as is.
+ */
+public class LibraryStatistics implements RepositoryListener<GameMetadata> {
+
+    private static final Pattern VALUE_SEPARATOR = Pattern.compile("[,;|]");
+    private static final Pattern YEAR = Pattern.compile("(?<!\\d)(1[89]\\d{2}|2\\d{3})(?!\\d)");
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+    private static final String[] NO_VALUES = new String[0];
+
+    private final Supplier<Iterable<GameMetadata>> loader;
+
+    private final Map<Integer, Contribution> contributions = new HashMap<>();
+    private final Tally platforms = new Tally();
+    private final Tally sources = new Tally();
+    private final Tally genres = new Tally();
+    private final Tally pegi = new Tally();
+    private final Map<Integer, Integer> releaseYears = new TreeMap<>();
+    private final Ratings pressRatings = new Ratings();
+    private final Ratings communityRatings = new Ratings();
+
+    private volatile LibraryStats published;
+
+    /**
+     * @param loader supplies the whole library, used to compute the aggregates and to recompute them after untracked changes
+     */
+    public LibraryStatistics(Supplier<Iterable<GameMetadata>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Computes the aggregates from the whole library
+     */
+    public void reload() {
+        load(loader.get());
+    }
+
+    /**
+     * Computes the aggregates from the given games, e.g. read from the catalog file at startup
+     */
+    public synchronized void load(Iterable<GameMetadata> games) {
+        contributions.clear();
+        platforms.clear();
+        sources.clear();
+        genres.clear();
+        pegi.clear();
+        releaseYears.clear();
+        pressRatings.clear();
+        communityRatings.clear();
+
+        for (GameMetadata game : games) {
+            put(game);
+        }
+        published = null;
+    }
+
+    @Override
+    public synchronized void onInsert(GameMetadata entity) {
+        put(entity);
+        published = null;
+    }
+
+    @Override
+    public void onUpdate(GameMetadata entity) {
+        onInsert(entity);
+    }
+
+    @Override
+    public synchronized void onDelete(Object id) {
+        if (!(id instanceof Number number)) return;
+
+        Contribution contribution = contributions.remove(number.intValue());
+        if (contribution == null) return;
+        apply(contribution, -1);
+        published = null;
+    }
+
+    @Override
+    public void onInvalidate() {
+        reload();
+    }
+
+    /**
+     * Gets the aggregates of the library, only built when a write happened since the last call
+     */
+    public LibraryStats get() {
+        LibraryStats stats = published;
+        if (stats != null) return stats;
+
+        synchronized (this) {
+            if (published == null) {
+                published = new LibraryStats(contributions.size(), platforms.sorted(), sources.sorted(),
+                        genres.sorted(), pegi.sorted(), Collections.unmodifiableMap(new LinkedHashMap<>(releaseYears)),
+                        pressRatings.stats(), communityRatings.stats());
+            }
+            return published;
+        }
+    }
+
+    /**
+     * Adds or replaces the contribution of a game, the monitor must be held
+     */
+    private void put(GameMetadata game) {
+        Contribution previous = contributions.remove(game.getId());
+        if (previous != null) apply(previous, -1);
+
+        Contribution contribution = new Contribution(
+                value(game.getPlatform()),
+                value(game.getSource()),
+                values(Facet.GENRES.extract(game)),
+                value(game.getPegi()),
+                year(game.getReleaseDate()),
+                game.getPressRating() != null ? game.getPressRating() : NO_VALUE,
+                game.getCommunityRating() != null ? game.getCommunityRating() : NO_VALUE
+        );
+        contributions.put(game.getId(), contribution);
+        apply(contribution, 1);
+    }
+
+    private void apply(Contribution contribution, int delta) {
+        platforms.add(contribution.platform, delta);
+        sources.add(contribution.source, delta);
+        for (String genre : contribution.genres) {
+            genres.add(genre, delta);
+        }
+        pegi.add(contribution.pegi, delta);
+        if (contribution.year != NO_VALUE) releaseYears.merge(contribution.year, delta, LibraryStatistics::sum);
+        pressRatings.add(contribution.pressRating, delta);
+        communityRatings.add(contribution.communityRating, delta);
+    }
+
+    /**
+     * Adds two counts, null removing the entry when they cancel out
+     */
+    private static Integer sum(int a, int b) {
+        return a + b == 0 ? null : a + b;
+    }
+
+    private static String value(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        return raw.strip();
+    }
+
+    private static String[] values(String raw) {
+        if (raw == null || raw.isBlank()) return NO_VALUES;
+
+        // Values differing by case only count once, like the facets of the snapshot
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String part : VALUE_SEPARATOR.split(raw)) {
+            String value = part.strip();
+            if (!value.isEmpty()) unique.putIfAbsent(value.toLowerCase(Locale.ROOT), value);
+        }
+        return unique.values().toArray(NO_VALUES);
+    }
+
+    /**
+     * Gets the year of an ISO date, or of the first plausible year written in a free-form date
+     */
+    private static int year(String date) {
+        if (date == null) return NO_VALUE;
+        Matcher matcher = YEAR.matcher(date);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : NO_VALUE;
+    }
+
+    /**
+     * Values a game adds to the aggregates, null or {@link #NO_VALUE} when unknown
+     */
+    private record Contribution(String platform, String source, String[] genres, String pegi, int year,
+                                int pressRating, int communityRating) {}
+
+    /**
+     * Counts of the values of a field, values differing by case only being counted together under their most common
+     * spelling, so the aggregates don't depend on the order of the writes
+     */
+    private static class Tally {
+
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final Map<String, Map<String, Integer>> spellings = new HashMap<>();
+
+        private void add(String value, int delta) {
+            if (value == null) return;
+
+            String key = value.toLowerCase(Locale.ROOT);
+            if (counts.merge(key, delta, LibraryStatistics::sum) == null) {
+                spellings.remove(key);
+            } else {
+                spellings.computeIfAbsent(key, k -> new HashMap<>(2)).merge(value, delta, LibraryStatistics::sum);
+            }
+        }
+
+        private void clear() {
+            counts.clear();
+            spellings.clear();
+        }
+
+        private String label(String key) {
+            String label = null;
+            int labelCount = 0;
+            for (Map.Entry<String, Integer> entry : spellings.get(key).entrySet()) {
+                int count = entry.getValue();
+                if (count > labelCount || (count == labelCount && entry.getKey().compareTo(label) < 0)) {
+                    label = entry.getKey();
+                    labelCount = count;
+                }
+            }
+            return label;
+        }
+
+        /**
+         * Gets the counts by value, most frequent values first
+         */
+        private Map<String, Integer> sorted() {
+            Map<String, String> labels = new HashMap<>();
+            for (String key : counts.keySet()) {
+                labels.put(key, label(key));
+            }
+
+            List<String> keys = new ArrayList<>(counts.keySet());
+            keys.sort((a, b) -> !counts.get(a).equals(counts.get(b)) ? Integer.compare(counts.get(b), counts.get(a))
+                    : labels.get(a).compareToIgnoreCase(labels.get(b)));
+
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (String key : keys) {
+                result.put(labels.get(key), counts.get(key));
+            }
+            return Collections.unmodifiableMap(result);
+        }
+    }
+
+    /**
+     * Counts of the values of a rating, from which the distribution is derived
+     */
+    private static class Ratings {
+
+        private final TreeMap<Integer, Integer> counts = new TreeMap<>();
+        private int count;
+        private long sum;
+
+        private void add(int rating, int delta) {
+            if (rating == NO_VALUE) return;
+
+            counts.merge(rating, delta, LibraryStatistics::sum);
+            count += delta;
+            sum += (long) rating * delta;
+        }
+
+        private void clear() {
+            counts.clear();
+            count = 0;
+            sum = 0;
+        }
+
+        private RatingStats stats() {
+            if (count == 0) return new RatingStats(0, 0, null, null, Map.of());
+
+            Map<Integer, Integer> histogram = new TreeMap<>();
+            for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+                int range = Math.min(Math.floorDiv(entry.getKey(), 10), 9) * 10;
+                histogram.merge(range, entry.getValue(), Integer::sum);
+            }
+            return new RatingStats(count, (double) sum / count, counts.firstKey(), counts.lastKey(),
+                    Collections.unmodifiableMap(new LinkedHashMap<>(histogram)));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package blum.core.library.artwork;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store of images: each file is named after the SHA-256 of its content,
+ * so an image shared by several games is stored once. Files are never modified once written,
+ * which lets them be served with their hash as a strong ETag and cached forever.
+ * Files are spread over 256 directories by the first byte of their hash.
+ */
+public class ArtworkStore {
+
+    public static final long DEFAULT_MAX_SIZE = 32L << 20;
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final int HEADER_SIZE = 16;
+
+    private final Path root;
+    private final Path temp;
+    private final long maxSize;
+
+    public ArtworkStore(Path root) throws IOException {
+        this(root, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize largest accepted image, in bytes
+     */
+    public ArtworkStore(Path root, long maxSize) throws IOException {
+        this.root = root;
+        this.temp = root.resolve("tmp");
+        this.maxSize = maxSize;
+        Files.createDirectories(temp);
+    }
+
+    /**
+     * Stores an image, hashing it while it is written to a temporary file then moving it to its final name.
+     * Nothing is written when an image with the same content is already stored.
+     * @throws IllegalArgumentException if the content is empty, larger than the limit or not a known image format
+     */
+    public Blob put(InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        Path file = Files.createTempFile(temp, "upload", ".tmp");
+        try {
+            long size = 0;
+            byte[] header = new byte[HEADER_SIZE];
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = content.read(buffer)) >= 0) {
+                    if (size < HEADER_SIZE) System.arraycopy(buffer, 0, header, (int) size, (int) Math.min(read, HEADER_SIZE - size));
+                    size += read;
+                    if (size > maxSize) throw new IllegalArgumentException("Image larger than " + maxSize + " bytes");
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (size == 0) throw new IllegalArgumentException("Empty image");
+
+            String contentType = detectContentType(Arrays.copyOf(header, (int) Math.min(size, HEADER_SIZE)));
+            if (contentType == null) throw new IllegalArgumentException("Unsupported image format");
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                move(file, target);
+            }
+            return new Blob(hash, size, contentType);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Renames a complete file to its final name, so readers never see a partial image
+     */
+    private static void move(Path file, Path target) throws IOException {
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(file, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // Stored concurrently, with the same content
+            }
+        }
+    }
+
+    /**
+     * Gets the file of an image, or null if the hash is invalid or isn't stored
+     */
+    public Path get(String hash) {
+        if (!isHash(hash)) return null;
+        Path file = resolve(hash);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * Deletes an image
+     * @return whether it was stored
+     */
+    public boolean delete(String hash) throws IOException {
+        return isHash(hash) && Files.deleteIfExists(resolve(hash));
+    }
+
+    /**
+     * Lists the hashes of every stored image
+     */
+    public Set<String> hashes() throws IOException {
+        Set<String> hashes = new HashSet<>();
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path directory : directories) {
+                if (directory.equals(temp)) continue;
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        if (isHash(name)) hashes.add(name);
+                    }
+                }
+            }
+        }
+        return hashes;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    private Path resolve(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Checks the hash before it is used as a file name, which also rules out path traversal
+     */
+    private static boolean isHash(String hash) {
+        return hash != null && HASH.matcher(hash).matches();
+    }
+
+    /**
+     * Detects the format of an image from its first bytes
+     * @return its media type, or null if it isn't a supported format
+     */
+    static String detectContentType(byte[] header) {
+        if (startsWith(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) return "image/png";
+        if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) return "image/jpeg";
+        if (startsWith(header, 0, 'G', 'I', 'F', '8')) return "image/gif";
+        if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) return "image/webp";
+        if (startsWith(header, 4, 'f', 't', 'y', 'p', 'a', 'v', 'i', 'f')) return "image/avif";
+        if (startsWith(header, 0, 'B', 'M')) return "image/bmp";
+        if (startsWith(header, 0, 0x00, 0x00, 0x01, 0x00)) return "image/x-icon";
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int offset, int... signature) {
+        if (header.length < offset + signature.length) return false;
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[offset + i] & 0xFF) != signature[i]) return false;
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /**
+     * A stored image
+     *
+     * @param hash SHA-256 of the content, in lower case hexadecimal
+     */
+    public record Blob(String hash, long size, String contentType) {}
+}
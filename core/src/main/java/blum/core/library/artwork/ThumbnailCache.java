@@ -0,0 +1,377 @@
+package blum.core.library.artwork;
+
+import blum.api.library.Thumbnail;
+import blum.api.library.ThumbnailStats;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Disk cache of resized artwork images, generated on a bounded worker pool.
+ * Requested widths are rounded up to a few fixed sizes so the number of files per image stays bounded,
+ * and concurrent requests for the same thumbnail wait for a single resize. Opaque images are written
+ * as JPEG and transparent ones as PNG. The least recently used files are deleted beyond the disk bound.
+ */
+@Slf4j
+public class ThumbnailCache implements Closeable {
+
+    public static final int[] WIDTHS = {64, 128, 256, 512, 1024};
+
+    /** Widths of the library tiles, generated as soon as an image is stored */
+    private static final int[] PREGENERATED = {256, 512};
+
+    private static final int QUEUE_SIZE = 256;
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final int MAX_ORIGINALS = 10_000;
+
+    private final Path root;
+    private final long maxBytes;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, CompletableFuture<Thumbnail>> pending = new ConcurrentHashMap<>();
+    /** Thumbnails known to be useless, the original being small enough or not decodable */
+    private final Set<String> originals = ConcurrentHashMap.newKeySet();
+    private final LinkedHashMap<Path, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long evictions;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+    private final AtomicLong maxGenerationNanos = new AtomicLong();
+
+    /**
+     * @param maxBytes disk space the thumbnails may use
+     * @param threads number of images resized in parallel
+     */
+    public ThumbnailCache(Path root, long maxBytes, int threads) throws IOException {
+        if (maxBytes < 1) throw new IllegalArgumentException("Cache size must be positive");
+        this.root = root;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(root);
+        load();
+
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "blum-thumbnails-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        int size = Math.max(1, threads);
+        executor = new ThreadPoolExecutor(size, size, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), factory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Registers the thumbnails of previous runs, the oldest being evicted first
+     */
+    private void load() throws IOException {
+        List<Path> existing = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root, 2)) {
+            walk.filter(Files::isRegularFile).forEach(existing::add);
+        }
+
+        Map<Path, Long> modified = new LinkedHashMap<>();
+        for (Path file : existing) {
+            if (file.getFileName().toString().endsWith(".tmp")) {
+                Files.deleteIfExists(file);
+            } else {
+                modified.put(file, Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+
+        modified.entrySet().stream().sorted(Map.Entry.comparingByValue(Comparator.naturalOrder())).forEach(entry -> {
+            try {
+                register(entry.getKey(), Files.size(entry.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to read cached thumbnail {}", entry.getKey(), e);
+            }
+        });
+    }
+
+    /**
+     * Rounds a requested width up to one of the generated sizes
+     */
+    public static int snap(int width) {
+        for (int size : WIDTHS) {
+            if (size >= width) return size;
+        }
+        return WIDTHS[WIDTHS.length - 1];
+    }
+
+    /**
+     * Gets a thumbnail of an image at least as wide as requested, resized on the worker pool on first request.
+     * Completes with null when the original should be served instead: it is small enough, can't be decoded,
+     * or the worker queue is full.
+     * @param hash hash of the image in the artwork store
+     * @param source file of the image
+     */
+    public CompletableFuture<Thumbnail> get(String hash, Path source, int width) {
+        int size = snap(width);
+        String key = size + "/" + hash;
+
+        Thumbnail cached = lookup(hash, size);
+        if (cached != null || originals.contains(key)) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Thumbnail> future = new CompletableFuture<>();
+        CompletableFuture<Thumbnail> running = pending.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.increment();
+            return running;
+        }
+
+        misses.increment();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(generate(hash, source, size, key));
+                } catch (Throwable e) {
+                    failures.increment();
+                    remember(key);
+                    future.completeExceptionally(e);
+                } finally {
+                    pending.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            pending.remove(key, future);
+            future.complete(null);
+        }
+        return future;
+    }
+
+    /**
+     * Queues the resize of an image to the widths of the library tiles
+     */
+    public void pregenerate(String hash, Path source) {
+        for (int width : PREGENERATED) get(hash, source, width);
+    }
+
+    private Thumbnail generate(String hash, Path source, int size, String key) throws IOException {
+        // Another request may have written it between the lookup and the registration of its future
+        Thumbnail cached = lookup(hash, size);
+        if (cached != null) return cached;
+
+        long start = System.nanoTime();
+        BufferedImage image = read(source, size);
+        if (image == null) {
+            remember(key);
+            return null;
+        }
+
+        BufferedImage resized = resize(image, size, Math.max(1, Math.round((float) image.getHeight() * size / image.getWidth())));
+        boolean transparent = resized.getColorModel().hasAlpha();
+        Path target = file(hash, size, transparent ? "png" : "jpg");
+        Files.createDirectories(target.getParent());
+
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            if (transparent) {
+                ImageIO.write(resized, "png", temp.toFile());
+            } else {
+                writeJpeg(resized, temp);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        register(target, Files.size(target));
+
+        long elapsed = System.nanoTime() - start;
+        generated.increment();
+        generationNanos.add(elapsed);
+        maxGenerationNanos.accumulateAndGet(elapsed, Math::max);
+        return new Thumbnail(target, transparent ? "image/png" : "image/jpeg", size);
+    }
+
+    /**
+     * Remembers that the original of a thumbnail is served instead, so it isn't decoded on every request
+     */
+    private void remember(String key) {
+        if (originals.size() >= MAX_ORIGINALS) originals.clear();
+        originals.add(key);
+    }
+
+    /**
+     * Decodes an image wider than the requested size, skipping pixels of very large images
+     * @return the image, or null if it is narrow enough or can't be decoded
+     */
+    private static BufferedImage read(Path source, int size) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                if (width <= size) return null;
+
+                // Decoding one pixel out of n is much cheaper, twice the target width is kept for a smooth downscale
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / (size * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Downscales an image by successive halvings, bilinear interpolation alone skipping pixels beyond a factor of two
+     */
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private synchronized Thumbnail lookup(String hash, int size) {
+        Path jpeg = file(hash, size, "jpg");
+        if (files.get(jpeg) != null) return new Thumbnail(jpeg, "image/jpeg", size);
+        Path png = file(hash, size, "png");
+        if (files.get(png) != null) return new Thumbnail(png, "image/png", size);
+        return null;
+    }
+
+    /**
+     * Adds a thumbnail to the cache, deleting the least recently used ones beyond the disk bound
+     */
+    private synchronized void register(Path file, long size) {
+        Long previous = files.put(file, size);
+        bytes += size - (previous == null ? 0 : previous);
+
+        Iterator<Map.Entry<Path, Long>> eldest = files.entrySet().iterator();
+        while (bytes > maxBytes && files.size() > 1) {
+            Map.Entry<Path, Long> entry = eldest.next();
+            eldest.remove();
+            bytes -= entry.getValue();
+            evictions++;
+            deleteFile(entry.getKey());
+        }
+    }
+
+    /**
+     * Deletes every thumbnail of an image, called when it is removed from the artwork store
+     */
+    public void delete(String hash) {
+        for (int size : WIDTHS) {
+            originals.remove(size + "/" + hash);
+            for (String extension : new String[]{"jpg", "png"}) {
+                Path file = file(hash, size, extension);
+                synchronized (this) {
+                    Long removed = files.remove(file);
+                    if (removed == null) continue;
+                    bytes -= removed;
+                }
+                deleteFile(file);
+            }
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // e.g. still being served on Windows, it will be overwritten if generated again
+            log.debug("Failed to delete thumbnail {}", file, e);
+        }
+    }
+
+    private Path file(String hash, int size, String extension) {
+        return root.resolve(String.valueOf(size)).resolve(hash + "." + extension);
+    }
+
+    public ThumbnailStats getStats() {
+        long count = generated.sum();
+        int entries;
+        long used;
+        long evicted;
+        synchronized (this) {
+            entries = files.size();
+            used = bytes;
+            evicted = evictions;
+        }
+        return new ThumbnailStats(hits.sum(), misses.sum(), coalesced.sum(), count, failures.sum(), rejected.sum(),
+                evicted, entries, used, maxBytes,
+                count == 0 ? 0 : generationNanos.sum() / 1e6 / count, maxGenerationNanos.get() / 1e6);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
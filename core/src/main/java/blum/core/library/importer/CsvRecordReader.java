@@ -0,0 +1,123 @@
+package blum.core.library.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams the rows of a CSV export (RFC 4180) keyed by the names of its header row.
+ * Quoted fields may hold separators, doubled quotes and line breaks.
+ */
+public class CsvRecordReader implements RecordReader {
+
+    private static final int END = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private long line = 1;
+
+    private List<String> header;
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        if (header == null) {
+            if (peek() == '\uFEFF') read();
+            header = readRow();
+            if (header == null) return null;
+            header.replaceAll(String::strip);
+        }
+
+        List<String> row;
+        do {
+            row = readRow();
+            if (row == null) return null;
+        } while (row.size() == 1 && row.get(0).isEmpty());
+
+        Map<String, String> record = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(header.size(), row.size()); i++) {
+            if (!row.get(i).isEmpty()) record.put(header.get(i), row.get(i));
+        }
+        return record;
+    }
+
+    /**
+     * Reads the fields of the next row, or null at the end of the input
+     */
+    private List<String> readRow() throws IOException {
+        if (peek() == END) return null;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        long start = line;
+
+        while (true) {
+            int c = read();
+            if (quoted) {
+                if (c == END) throw new IOException("Unterminated quoted field starting at line " + start);
+                if (c == '"') {
+                    if (peek() == '"') {
+                        field.append((char) read());
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> quoted = true;
+                case ',' -> {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                }
+                case '\r' -> {
+                    if (peek() == '\n') read();
+                    fields.add(field.toString());
+                    return fields;
+                }
+                case '\n', END -> {
+                    fields.add(field.toString());
+                    return fields;
+                }
+                default -> field.append((char) c);
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return END;
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return END;
+        char c = buffer[position++];
+        if (c == '\n') line++;
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer);
+        position = 0;
+        if (limit > 0) return true;
+        limit = 0;
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,257 @@
+package blum.core.library.importer;
+
+import blum.api.database.UpsertResult;
+import blum.api.library.model.GameMetadata;
+import blum.core.library.repositories.GameMetadataRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Imports library exports into the game catalog as a streaming pipeline:
+ * the calling thread reads the records in batches, a pool of threads normalizes the batches in parallel,
+ * and a single writer thread merges them into the catalog in reading order.
+ * At most {@link ImportOptions#maxPendingBatches()} batches wait for the writer, reading blocks beyond,
+ * so the memory used doesn't depend on the size of the export.
+ * Batches written before a failure stay in the catalog.
+ */
+@Slf4j
+public class GameImporter {
+
+    private static final Future<List<GameMetadata>> END = CompletableFuture.completedFuture(List.of());
+
+    private final GameMetadataRepository repository;
+    private final ImportOptions options;
+    private final GameNormalizer normalizer;
+
+    public GameImporter(GameMetadataRepository repository, ImportOptions options) {
+        this.repository = repository;
+        this.options = options;
+        this.normalizer = new GameNormalizer(options.defaultSource());
+    }
+
+    /**
+     * Imports an export file, its format being detected from its extension
+     * @param progress notified on the writer thread after every written batch, may be null
+     */
+    public ImportResult importFile(Path file, Consumer<ImportProgress> progress) throws IOException, SQLException {
+        ImportFormat format = ImportFormat.detect(file.getFileName().toString());
+        try (InputStream input = Files.newInputStream(file)) {
+            return importFrom(input, format, Files.size(file), progress);
+        }
+    }
+
+    /**
+     * Imports an export read from a UTF-8 stream, which is left open
+     * @param totalBytes size of the export used to report progress, -1 when unknown
+     * @param progress notified on the writer thread after every written batch, may be null
+     */
+    public ImportResult importFrom(InputStream input, ImportFormat format, long totalBytes,
+                                   Consumer<ImportProgress> progress) throws IOException, SQLException {
+        Run run = new Run(new CountingInputStream(input), totalBytes, progress);
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService normalizers = Executors.newFixedThreadPool(options.parallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "blum-import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        BlockingQueue<Future<List<GameMetadata>>> pending = new ArrayBlockingQueue<>(options.maxPendingBatches());
+        Thread writer = new Thread(() -> write(pending, run), "blum-import-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        try {
+            // Not closed, the caller owns the stream
+            RecordReader records = RecordReader.open(new InputStreamReader(run.input, StandardCharsets.UTF_8), format);
+
+            List<Map<String, String>> batch = new ArrayList<>(options.batchSize());
+            Map<String, String> record;
+            while ((record = records.next()) != null) {
+                run.read.incrementAndGet();
+                batch.add(record);
+
+                if (batch.size() == options.batchSize()) {
+                    if (!enqueue(pending, normalizers.submit(normalize(batch, run)), writer)) break;
+                    batch = new ArrayList<>(options.batchSize());
+                }
+            }
+            if (!batch.isEmpty()) enqueue(pending, normalizers.submit(normalize(batch, run)), writer);
+        } finally {
+            // The batches already read are still written when reading fails
+            try {
+                enqueue(pending, END, writer);
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                normalizers.shutdownNow();
+            }
+        }
+
+        if (run.failure != null) {
+            if (run.failure instanceof SQLException e) throw e;
+            throw new SQLException("Failed to import games", run.failure);
+        }
+
+        ImportResult result = new ImportResult(run.read.get(), run.skipped.get(), run.inserted, run.updated, run.unchanged,
+                run.elapsedMillis());
+        log.info("Imported {} records in {} ms: {} inserted, {} updated, {} unchanged, {} skipped",
+                result.read(), result.elapsedMillis(), result.inserted(), result.updated(), result.unchanged(), result.skipped());
+        return result;
+    }
+
+    /**
+     * Queues a batch for the writer, waiting while the queue is full
+     * @return false if the writer stopped after a failure
+     */
+    private static boolean enqueue(BlockingQueue<Future<List<GameMetadata>>> pending, Future<List<GameMetadata>> batch,
+                                   Thread writer) throws InterruptedIOException {
+        try {
+            while (!pending.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive()) return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while importing games");
+        }
+    }
+
+    /**
+     * Normalizes a batch of records, keeping the last record of a game listed several times
+     */
+    private Callable<List<GameMetadata>> normalize(List<Map<String, String>> records, Run run) {
+        return () -> {
+            Map<List<String>, GameMetadata> games = new LinkedHashMap<>();
+            for (Map<String, String> record : records) {
+                GameMetadata game = normalizer.normalize(record);
+                if (game == null) continue;
+                games.put(List.of(game.getSource(), game.getName()), game);
+            }
+
+            run.skipped.addAndGet(records.size() - games.size());
+            return new ArrayList<>(games.values());
+        };
+    }
+
+    private void write(BlockingQueue<Future<List<GameMetadata>>> pending, Run run) {
+        try {
+            while (true) {
+                Future<List<GameMetadata>> next = pending.take();
+                if (next == END) return;
+
+                List<GameMetadata> games = next.get();
+                if (games.isEmpty()) continue;
+
+                UpsertResult result = repository.importGames(games);
+                run.inserted += result.inserted();
+                run.updated += result.updated();
+                run.unchanged += result.unchanged();
+                run.report();
+            }
+        } catch (ExecutionException e) {
+            run.failure = e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            run.failure = e;
+        } catch (SQLException | RuntimeException e) {
+            run.failure = e;
+        }
+    }
+
+    /**
+     * State of a running import, the writer counts are only updated by the writer thread
+     */
+    private static class Run {
+
+        private final CountingInputStream input;
+        private final long totalBytes;
+        private final Consumer<ImportProgress> progress;
+        private final long start = System.nanoTime();
+
+        private final AtomicLong read = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private volatile long inserted;
+        private volatile long updated;
+        private volatile long unchanged;
+        private volatile Exception failure;
+
+        private Run(CountingInputStream input, long totalBytes, Consumer<ImportProgress> progress) {
+            this.input = input;
+            this.totalBytes = totalBytes;
+            this.progress = progress;
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+
+        private void report() {
+            if (progress == null) return;
+            try {
+                progress.accept(new ImportProgress(read.get(), inserted + updated + unchanged, skipped.get(),
+                        input.count, totalBytes, elapsedMillis()));
+            } catch (RuntimeException e) {
+                log.error("Import progress listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from the export, to report progress
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private volatile long count;
+
+        private CountingInputStream(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
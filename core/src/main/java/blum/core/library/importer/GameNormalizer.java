@@ -0,0 +1,145 @@
+package blum.core.library.importer;
+
+import blum.api.library.model.GameMetadata;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the raw fields of an exported record to a game, whatever the naming of the store.
+ * Field names are matched ignoring case and separators, values are trimmed, multi-valued fields
+ * are deduplicated and joined with commas, ratings are parsed to 0-100 and dates to ISO format when recognized.
+ * Stateless, it may be shared between threads.
+ */
+public class GameNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern VALUE_SEPARATOR = Pattern.compile("[,;|]");
+    private static final Pattern NAME_SEPARATOR = Pattern.compile("[^a-z0-9]");
+    private static final Pattern ISO_DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}.*");
+    private static final Pattern EPOCH = Pattern.compile("\\d{9,13}");
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.ENGLISH),
+            DateTimeFormatter.ofPattern("d MMM, yyyy", Locale.ENGLISH),
+            DateTimeFormatter.ofPattern("MMMM d, yyyy", Locale.ENGLISH)
+    );
+
+    private static final Map<String, BiConsumer<GameMetadata, String>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        field((game, value) -> game.setName(clean(value)), "name", "title", "gamename");
+        field((game, value) -> game.setSortName(clean(value)), "sortname", "sorttitle", "sortingname");
+        field((game, value) -> game.setPlatform(clean(value)), "platform", "platforms");
+        field((game, value) -> game.setGenres(list(value)), "genres", "genre");
+        field((game, value) -> game.setDevelopers(list(value)), "developers", "developer");
+        field((game, value) -> game.setPublishers(list(value)), "publishers", "publisher");
+        field((game, value) -> game.setCategories(list(value)), "categories", "category");
+        field((game, value) -> game.setFeatures(list(value)), "features", "feature");
+        field((game, value) -> game.setTags(list(value)), "tags", "tag", "keywords");
+        field((game, value) -> game.setDescription(clean(value)), "description", "summary", "about");
+        field((game, value) -> game.setReleaseDate(date(value)), "releasedate", "released", "release");
+        field((game, value) -> game.setSeries(clean(value)), "series", "franchise");
+        field((game, value) -> game.setPegi(clean(value)), "pegi", "agerating");
+        field((game, value) -> game.setRegion(clean(value)), "region", "regions");
+        field((game, value) -> game.setSource(source(value)), "source", "store", "storefront");
+        field((game, value) -> game.setPressRating(rating(value)), "pressrating", "criticscore", "criticrating", "metascore");
+        field((game, value) -> game.setCommunityRating(rating(value)), "communityrating", "userscore", "userrating", "rating");
+    }
+
+    private static void field(BiConsumer<GameMetadata, String> setter, String... names) {
+        for (String name : names) FIELDS.put(name, setter);
+    }
+
+    private final String defaultSource;
+
+    public GameNormalizer(String defaultSource) {
+        this.defaultSource = source(defaultSource);
+    }
+
+    /**
+     * Converts a record to a game
+     * @return the game, or null if the record has no name
+     */
+    public GameMetadata normalize(Map<String, String> record) {
+        GameMetadata game = new GameMetadata();
+        for (Map.Entry<String, String> entry : record.entrySet()) {
+            BiConsumer<GameMetadata, String> setter = FIELDS.get(fieldName(entry.getKey()));
+            if (setter != null && entry.getValue() != null) setter.accept(game, entry.getValue());
+        }
+
+        if (game.getName() == null) return null;
+        if (game.getSource() == null) game.setSource(defaultSource);
+        // Same default as the repository, so re-imports compare equal to the stored rows
+        if (game.getSortName() == null) game.setSortName(game.getName());
+        return game;
+    }
+
+    private static String fieldName(String name) {
+        return NAME_SEPARATOR.matcher(name.toLowerCase(Locale.ROOT)).replaceAll("");
+    }
+
+    private static String clean(String value) {
+        String cleaned = WHITESPACE.matcher(value).replaceAll(" ").strip();
+        return cleaned.isEmpty() ? null : cleaned;
+    }
+
+    private static String source(String value) {
+        String cleaned = clean(value);
+        return cleaned != null ? cleaned.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static String list(String value) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String part : VALUE_SEPARATOR.split(value)) {
+            String cleaned = clean(part);
+            if (cleaned != null) values.putIfAbsent(cleaned.toLowerCase(Locale.ROOT), cleaned);
+        }
+        return values.isEmpty() ? null : String.join(", ", values.values());
+    }
+
+    private static Integer rating(String value) {
+        String cleaned = clean(value);
+        if (cleaned == null) return null;
+        if (cleaned.endsWith("%")) cleaned = cleaned.substring(0, cleaned.length() - 1).strip();
+
+        try {
+            double rating = Double.parseDouble(cleaned);
+            return rating >= 0 && rating <= 100 ? (int) Math.round(rating) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Converts known date formats to ISO dates, other values are kept as written
+     */
+    private static String date(String value) {
+        String cleaned = clean(value);
+        if (cleaned == null) return null;
+
+        if (ISO_DATE.matcher(cleaned).matches()) return cleaned.substring(0, 10);
+        if (EPOCH.matcher(cleaned).matches()) {
+            long epoch = Long.parseLong(cleaned);
+            Instant instant = cleaned.length() > 10 ? Instant.ofEpochMilli(epoch) : Instant.ofEpochSecond(epoch);
+            return LocalDate.ofInstant(instant, ZoneOffset.UTC).toString();
+        }
+
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(cleaned, format).toString();
+            } catch (DateTimeParseException e) {
+                // Try the next format
+            }
+        }
+        return cleaned;
+    }
+}
@@ -0,0 +1,28 @@
+package blum.core.library.importer;
+
+import java.util.Locale;
+
+/**
+ * Formats of the library exports accepted by the importer
+ */
+public enum ImportFormat {
+
+    /** A JSON array of game objects */
+    JSON,
+    /** One JSON game object per line */
+    NDJSON,
+    /** Comma separated values with a header row */
+    CSV;
+
+    /**
+     * Guesses the format of an export from its file extension
+     * @throws IllegalArgumentException if the extension isn't known
+     */
+    public static ImportFormat detect(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) return NDJSON;
+        if (name.endsWith(".json")) return JSON;
+        if (name.endsWith(".csv")) return CSV;
+        throw new IllegalArgumentException("Unknown import format: " + fileName);
+    }
+}
@@ -0,0 +1,26 @@
+package blum.core.library.importer;
+
+/**
+ * Sizing of an import
+ *
+ * @param batchSize games merged per write, kept small enough for the stored rows to be looked up by key
+ * @param parallelism threads parsing and normalizing the read records
+ * @param maxPendingBatches batches read ahead of the writer before reading blocks
+ * @param defaultSource source given to games that don't name their store
+ */
+public record ImportOptions(int batchSize, int parallelism, int maxPendingBatches, String defaultSource) {
+
+    public static final int DEFAULT_BATCH_SIZE = 400;
+
+    public ImportOptions {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive");
+        if (maxPendingBatches < 1) throw new IllegalArgumentException("Pending batches must be positive");
+        if (defaultSource == null || defaultSource.isBlank()) throw new IllegalArgumentException("A default source is required");
+    }
+
+    public static ImportOptions defaults(String defaultSource) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new ImportOptions(DEFAULT_BATCH_SIZE, Math.max(1, cores - 1), cores * 2, defaultSource);
+    }
+}
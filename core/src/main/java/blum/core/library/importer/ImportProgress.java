@@ -0,0 +1,29 @@
+package blum.core.library.importer;
+
+/**
+ * Progress of a running import
+ *
+ * @param read records read from the export
+ * @param written games merged into the library
+ * @param skipped records rejected by the normalization, e.g. without a name
+ * @param bytesRead bytes of the export read so far
+ * @param totalBytes size of the export, -1 when unknown
+ * @param elapsedMillis time since the import started
+ */
+public record ImportProgress(long read, long written, long skipped, long bytesRead, long totalBytes, long elapsedMillis) {
+
+    /**
+     * Gets the read fraction of the export between 0 and 1, or -1 when its size is unknown
+     */
+    public double fraction() {
+        if (totalBytes <= 0) return -1;
+        return Math.min(1.0, (double) bytesRead / totalBytes);
+    }
+
+    /**
+     * Gets the number of records read per second
+     */
+    public double recordsPerSecond() {
+        return read * 1000.0 / Math.max(1, elapsedMillis);
+    }
+}
@@ -0,0 +1,21 @@
+package blum.core.library.importer;
+
+/**
+ * Outcome of a completed import
+ *
+ * @param read records read from the export
+ * @param skipped records rejected by the normalization
+ * @param inserted games added to the library
+ * @param updated stored games whose metadata changed
+ * @param unchanged stored games already up to date
+ * @param elapsedMillis duration of the import
+ */
+public record ImportResult(long read, long skipped, long inserted, long updated, long unchanged, long elapsedMillis) {
+
+    /**
+     * Gets the number of records imported per second
+     */
+    public double recordsPerSecond() {
+        return read * 1000.0 / Math.max(1, elapsedMillis);
+    }
+}
@@ -0,0 +1,127 @@
+package blum.core.library.importer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams the game objects of a JSON array, or of a sequence of JSON objects such as NDJSON.
+ * Arrays of values are joined with commas; objects found in them contribute their name or description.
+ */
+public class JsonRecordReader implements RecordReader {
+
+    private final JsonReader json;
+    private boolean started;
+    private boolean inArray;
+
+    public JsonRecordReader(Reader reader) {
+        this.json = new JsonReader(reader);
+        // Accepts several top-level values, one per line for NDJSON
+        this.json.setLenient(true);
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        try {
+            if (!started) {
+                started = true;
+                if (json.peek() == JsonToken.BEGIN_ARRAY) {
+                    json.beginArray();
+                    inArray = true;
+                }
+            }
+
+            JsonToken token = json.peek();
+            if (inArray && token == JsonToken.END_ARRAY) {
+                json.endArray();
+                inArray = false;
+                token = json.peek();
+            }
+            if (token == JsonToken.END_DOCUMENT) return null;
+            if (token != JsonToken.BEGIN_OBJECT) {
+                throw new IOException("Expected a game object but was " + token + " at " + json.getPath());
+            }
+
+            return readObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed JSON at " + json.getPath(), e);
+        }
+    }
+
+    private Map<String, String> readObject() throws IOException {
+        Map<String, String> record = new LinkedHashMap<>();
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            String value = readValue();
+            if (value != null) record.put(name, value);
+        }
+        json.endObject();
+        return record;
+    }
+
+    private String readValue() throws IOException {
+        switch (json.peek()) {
+            case STRING, NUMBER:
+                return json.nextString();
+            case BOOLEAN:
+                return String.valueOf(json.nextBoolean());
+            case BEGIN_ARRAY:
+                return readArray();
+            case BEGIN_OBJECT:
+                return readLabel();
+            default:
+                json.skipValue();
+                return null;
+        }
+    }
+
+    private String readArray() throws IOException {
+        List<String> values = new ArrayList<>();
+
+        json.beginArray();
+        while (json.hasNext()) {
+            String value = json.peek() == JsonToken.BEGIN_ARRAY ? skip() : readValue();
+            if (value != null && !value.isBlank()) values.add(value);
+        }
+        json.endArray();
+        return values.isEmpty() ? null : String.join(", ", values);
+    }
+
+    /**
+     * Reads the label of a nested object, e.g. {"id": 1, "description": "Action"} in store exports
+     */
+    private String readLabel() throws IOException {
+        String label = null;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            JsonToken token = json.peek();
+            if (label == null && (name.equals("name") || name.equals("description")) && token == JsonToken.STRING) {
+                label = json.nextString();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return label;
+    }
+
+    private String skip() throws IOException {
+        json.skipValue();
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        json.close();
+    }
+}
@@ -0,0 +1,28 @@
+package blum.core.library.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * Reads the records of an export one at a time, as raw field values by field name
+ */
+public interface RecordReader extends AutoCloseable {
+
+    /**
+     * Reads the next record
+     * @return the fields of the record, or null once the export is fully read
+     * @throws IOException if the export can't be read or is malformed
+     */
+    Map<String, String> next() throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    static RecordReader open(Reader reader, ImportFormat format) throws IOException {
+        return switch (format) {
+            case JSON, NDJSON -> new JsonRecordReader(reader);
+            case CSV -> new CsvRecordReader(reader);
+        };
+    }
+}
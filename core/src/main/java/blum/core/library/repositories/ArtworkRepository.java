@@ -0,0 +1,80 @@
+package blum.core.library.repositories;
+
+import blum.api.database.BlumRepository;
+import blum.api.database.ConnectionProvider;
+import blum.api.library.ArtworkKind;
+import blum.api.library.model.GameArtwork;
+import blum.core.util.FileUtil;
+
+import java.io.InvalidClassException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ArtworkRepository extends BlumRepository<GameArtwork> {
+
+    /** Columns identifying an artwork: a game has one of each kind */
+    private static final String[] ARTWORK_KEY = {"game_id", "kind"};
+
+    public record Hash(String hash) {}
+
+    public ArtworkRepository(ConnectionProvider provider, Class<GameArtwork> type) throws InvalidClassException {
+        super(provider, type);
+    }
+
+    public ArtworkRepository(Connection connection, Class<GameArtwork> type) throws InvalidClassException {
+        super(connection, type);
+    }
+
+    @Override
+    public String getTableName() {
+        return "artwork";
+    }
+
+    @Override
+    public String initTable() throws Exception {
+        return FileUtil.getFileContentFromJar("database/artwork.sql");
+    }
+
+    public GameArtwork find(int gameId, ArtworkKind kind) {
+        return query("SELECT * FROM artwork WHERE game_id = ? AND kind = ?", gameId, kind.key());
+    }
+
+    public List<GameArtwork> listByGame(int gameId) {
+        return listQuery("SELECT * FROM artwork WHERE game_id = ? ORDER BY kind", gameId);
+    }
+
+    public GameArtwork findByHash(String hash) throws SQLException {
+        return selectFirst("SELECT * FROM artwork WHERE hash = ? LIMIT 1", hash);
+    }
+
+    /**
+     * Whether the catalog has a game with this id
+     */
+    public boolean gameExists(int gameId) throws SQLException {
+        return read("SELECT 1 FROM metadata WHERE id = ?", new Object[]{gameId}, statement -> {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        });
+    }
+
+    /**
+     * Links an artwork to its game, replacing the previous artwork of the same kind
+     */
+    public void link(GameArtwork artwork) throws SQLException {
+        upsertAll(List.of(artwork), ARTWORK_KEY);
+    }
+
+    /**
+     * Gets the hashes of the images used by at least one game
+     */
+    public Set<String> referencedHashes() throws SQLException {
+        Set<String> hashes = new HashSet<>();
+        for (Hash hash : selectList("SELECT DISTINCT hash FROM artwork", Hash.class)) hashes.add(hash.hash());
+        return hashes;
+    }
+}
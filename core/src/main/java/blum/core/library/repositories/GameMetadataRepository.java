@@ -1,14 +1,59 @@
 package blum.core.library.repositories;
 
 import blum.api.database.BlumRepository;
+import blum.api.database.ConnectionProvider;
+import blum.api.database.Page;
+import blum.api.database.RepositoryListener;
+import blum.api.database.UnitOfWork;
+import blum.api.database.UpsertResult;
+import blum.api.exception.DatabaseQueryException;
 import blum.api.library.model.GameMetadata;
+import blum.api.library.model.GameSummary;
 import blum.core.util.FileUtil;
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InvalidClassException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+@Slf4j
 public class GameMetadataRepository extends BlumRepository<GameMetadata> {
 
+    private static final String SEARCH_TABLE = "metadata_fts";
+
+    /** Columns identifying an imported game: its store and its name in that store */
+    private static final String[] IMPORT_KEY = {"source", "name"};
+
+    private static final Gson GSON = new Gson();
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final String SUMMARY_COLUMNS = "id, name, sort_name, platform, community_rating, sort_key";
+
+    /** Collator of the persisted sort keys, null until they are initialized */
+    private Collator collator;
+
+    public GameMetadataRepository(ConnectionProvider provider, Class<GameMetadata> type) throws InvalidClassException {
+        super(provider, type);
+    }
+
     public GameMetadataRepository(Connection connection, Class<GameMetadata> type) throws InvalidClassException {
         super(connection, type);
     }
@@ -23,8 +68,358 @@ public class GameMetadataRepository extends BlumRepository<GameMetadata> {
         return FileUtil.getFileContentFromJar("database/game-metadata.sql");
     }
 
+    /**
+     * Initializes the catalog tables derived from the metadata table: search index, sort names and keys, version
+     * @param sortLocale locale the games are sorted in
+     */
+    public void initCatalog(Locale sortLocale) throws Exception {
+        initSearchIndex();
+        initSortNames();
+        initSortKeys(sortLocale);
+        initCatalogVersion();
+    }
+
+    /**
+     * Creates the full-text index of the catalog if missing, indexing the existing rows.
+     * Triggers keep it in sync with the metadata table afterwards, the update one being replaced on every start.
+     */
+    public void initSearchIndex() throws Exception {
+        boolean exists = tableExists(SEARCH_TABLE);
+        String script = FileUtil.getFileContentFromJar("database/game-metadata-search.sql");
+        String update = FileUtil.getFileContentFromJar("database/game-metadata-search-update.sql");
+        inTransaction(() -> {
+            if (!exists) executeScript(script);
+            executeScript(update);
+            return null;
+        });
+    }
+
+    /**
+     * Defaults missing sort names of the stored games to their name, so every game has a sort key.
+     * Games written through the repository get the same default, see {@link #prepareWrite(GameMetadata)}.
+     */
+    public void initSortNames() throws Exception {
+        executeScript(FileUtil.getFileContentFromJar("database/game-metadata-sort.sql"));
+    }
+
+    /**
+     * Sorts games without a sort name by their name
+     */
+    @Override
+    protected void prepareWrite(GameMetadata game) {
+        if (game.getSortName() == null) game.setSortName(game.getName());
+    }
+
+    // Writes through the repository compute the sort keys they leave missing in their own transaction,
+    // so a game is never committed without its key
+
+    @Override
+    public void create(GameMetadata game) throws SQLException, IllegalAccessException {
+        withSortKeys(() -> {
+            super.create(game);
+            return null;
+        });
+    }
+
+    @Override
+    public long[] createAll(Collection<GameMetadata> games) throws SQLException {
+        return withSortKeys(() -> super.createAll(games));
+    }
+
+    @Override
+    public boolean update(GameMetadata game) throws SQLException {
+        return withSortKeys(() -> super.update(game));
+    }
+
+    @Override
+    public int upsertAll(Collection<GameMetadata> games, String... conflictColumns) throws SQLException {
+        return withSortKeys(() -> super.upsertAll(games, conflictColumns));
+    }
+
+    @Override
+    public UpsertResult mergeAll(Collection<GameMetadata> games, String... keyColumns) throws SQLException {
+        return withSortKeys(() -> super.mergeAll(games, keyColumns));
+    }
+
+    private <R> R withSortKeys(UnitOfWork<R> write) throws SQLException {
+        return inTransaction(() -> {
+            R result = write.execute();
+            fillSortKeys();
+            return result;
+        });
+    }
+
+    /**
+     * Creates the version counter of the catalog if missing, triggers increment it on every write to the metadata table
+     * except to the sort keys
+     */
+    public void initCatalogVersion() throws Exception {
+        String script = FileUtil.getFileContentFromJar("database/game-metadata-version.sql");
+        inTransaction(() -> {
+            executeScript(script);
+            return null;
+        });
+    }
+
+    /**
+     * Gets the version of the catalog, which changes with every written row, raw statements and other processes included.
+     * Computed sort keys don't change it.
+     */
+    public long getCatalogVersion() throws SQLException {
+        return read("SELECT version FROM metadata_version", null, statement -> {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) throw new SQLException("The catalog version isn't initialized");
+                return resultSet.getLong(1);
+            }
+        });
+    }
+
+    /**
+     * Persists the collation key of every sort name for a locale, so sorted pages compare bytes through an index
+     * instead of collating names on every request. Keys are computed again when the locale or the Java version changes,
+     * then written in the transaction of the games inserted or updated through this repository, and filled after raw statements.
+     */
+    public void initSortKeys(Locale locale) throws Exception {
+        boolean migrated = read("SELECT 1 FROM pragma_table_info('metadata') WHERE name = 'sort_key'", null, statement -> {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        });
+        if (!migrated) executeScript("ALTER TABLE metadata ADD COLUMN sort_key BLOB");
+        executeScript(FileUtil.getFileContentFromJar("database/game-metadata-collation.sql"));
+
+        // Collation rules may change with the Java version, keys of another one wouldn't compare consistently
+        String collation = locale.toLanguageTag() + " java-" + Runtime.version().feature();
+        String stored = read("SELECT locale FROM metadata_collation", null, statement -> {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        });
+        if (!collation.equals(stored)) {
+            inTransaction(() -> {
+                write("UPDATE metadata SET sort_key = NULL", null, statement -> statement.executeUpdate());
+                write("DELETE FROM metadata_collation", null, statement -> statement.executeUpdate());
+                write("INSERT INTO metadata_collation (locale) VALUES (?)", new Object[]{collation}, statement -> statement.executeUpdate());
+                return null;
+            });
+        }
+
+        Collator collator = Collator.getInstance(locale);
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        boolean listening = this.collator != null;
+        this.collator = collator;
+        fillSortKeys();
+        if (!listening) addListener(new SortKeyWriter());
+    }
+
+    /**
+     * Computes the missing sort keys, those of new games and of games whose sort name changed
+     * @return the number of computed keys
+     */
+    public int fillSortKeys() throws SQLException {
+        if (collator == null) return 0;
+
+        // Read and written under the writer, reads joining the transaction of the write calling it
+        return inTransaction(() -> {
+            List<Object[]> missing = read("SELECT id, sort_name, name FROM metadata WHERE sort_key IS NULL", null, statement -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String sortName = resultSet.getString(2);
+                    rows.add(new Object[]{resultSet.getInt(1), sortName != null ? sortName : resultSet.getString(3)});
+                }
+            }
+                return rows;
+            });
+            if (missing.isEmpty()) return 0;
+
+            // Not mapped by the entities, listeners aren't told. The search index and the catalog version ignore the column
+            return write("UPDATE metadata SET sort_key = ? WHERE id = ?", null, statement -> {
+                for (Object[] row : missing) {
+                    String name = (String) row[1];
+                    statement.setBytes(1, collator.getCollationKey(name != null ? name : "").toByteArray());
+                    statement.setInt(2, (Integer) row[0]);
+                    statement.addBatch();
+                }
+                try {
+                    statement.executeBatch();
+                } finally {
+                    statement.clearBatch();
+                }
+                return missing.size();
+            });
+        });
+    }
+
+    /**
+     * Gets a page of game summaries in sort name order, using keyset pagination over the persisted sort keys.
+     * Games whose key isn't computed yet, e.g. written by another process, follow in sort name order.
+     * Until the keys are initialized, sort names are compared as is, see {@link #page(Class, String, int, boolean, String...)}.
+     */
+    public Page<GameSummary> listGames(String cursor, int limit) {
+        if (collator == null) return page(GameSummary.class, cursor, limit, false, "sort_name", "id");
+        if (limit < 1) throw new IllegalArgumentException("Page limit must be positive");
+
+        SortCursor after = cursor != null ? SortCursor.decode(cursor) : null;
+        List<Object> values = new ArrayList<>();
+
+        // Each part reads its own index, games without a key only once every keyed one is listed
+        String unkeyed = "SELECT " + SUMMARY_COLUMNS + ", 1 AS unkeyed, COALESCE(sort_name, name, '') AS fallback_name FROM metadata WHERE sort_key IS NULL";
+        String sql;
+        if (after != null && after.unkeyed()) {
+            values.addAll(List.of(new String(after.key(), StandardCharsets.UTF_8), after.id()));
+            sql = unkeyed + " AND (COALESCE(sort_name, name, ''), id) > (?, ?) ORDER BY fallback_name, id LIMIT ?";
+        } else {
+            String keyed = "SELECT " + SUMMARY_COLUMNS + ", 0 AS unkeyed, NULL AS fallback_name FROM metadata WHERE ";
+            if (after != null) {
+                values.addAll(List.of(after.key(), after.id()));
+                keyed += "(sort_key, id) > (?, ?)";
+            } else {
+                keyed += "sort_key IS NOT NULL";
+            }
+            values.add(limit + 1);
+            sql = "SELECT * FROM (" + keyed + " ORDER BY sort_key, id LIMIT ?) UNION ALL SELECT * FROM (" + unkeyed
+                    + " ORDER BY fallback_name, id LIMIT ?) ORDER BY unkeyed, sort_key, fallback_name, id LIMIT ?";
+            values.add(limit + 1);
+        }
+        values.add(limit + 1);
+
+        try {
+            return read(sql, values.toArray(), statement -> {
+                List<GameSummary> items = new ArrayList<>();
+                SortCursor next = null;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        // One extra row tells whether there is a next page
+                        if (items.size() == limit) return new Page<>(List.copyOf(items), next.encode());
+
+                        int id = resultSet.getInt(1);
+                        items.add(new GameSummary(id, resultSet.getString(2), resultSet.getString(3),
+                                resultSet.getString(4), (Integer) resultSet.getObject(5)));
+                        next = resultSet.getBoolean(7)
+                                ? new SortCursor(true, resultSet.getString(8).getBytes(StandardCharsets.UTF_8), id)
+                                : new SortCursor(false, resultSet.getBytes(6), id);
+                    }
+                }
+                return new Page<>(List.copyOf(items), null);
+            });
+        } catch (SQLException e) {
+            throw new DatabaseQueryException("Failed to list the games", e);
+        }
+    }
+
+    /**
+     * Searches the catalog, best matches first.
+     * Every word of the query must match one of the indexed columns, the last one as a prefix.
+     */
+    public List<GameMetadata> search(String query, int offset, int limit) {
+        String match = toMatchExpression(query);
+        if (match.isEmpty() || limit <= 0) return List.of();
+
+        // Rank and paginate within the index, only the returned page is joined to the catalog
+        try {
+            return selectList("SELECT m.* FROM (SELECT rowid, rank FROM metadata_fts WHERE metadata_fts MATCH ? " +
+                    "ORDER BY rank LIMIT ? OFFSET ?) r JOIN metadata m ON m.id = r.rowid ORDER BY r.rank",
+                    match, limit, Math.max(0, offset));
+        } catch (SQLException e) {
+            throw new DatabaseQueryException("Failed to search the games", e);
+        }
+    }
+
+    /**
+     * Converts user input into a FTS5 expression of quoted terms, so it can't inject query syntax
+     */
+    private static String toMatchExpression(String query) {
+        if (query == null) return "";
+
+        List<String> tokens = Arrays.stream(TOKEN_SEPARATOR.split(query)).filter(token -> !token.isEmpty()).toList();
+
+        // Only the last word may still be typed, prefix terms are much more expensive to match
+        StringBuilder match = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) match.append(' ');
+            match.append('"').append(tokens.get(i)).append('"');
+            if (i == tokens.size() - 1) match.append('*');
+        }
+        return match.toString();
+    }
+
+    /**
+     * Merges a batch of imported games with the catalog by source and name, see {@link #mergeAll(java.util.Collection, String...)}.
+     * Every game must have a source and a name.
+     */
+    public UpsertResult importGames(List<GameMetadata> games) throws SQLException {
+        return mergeAll(games, IMPORT_KEY);
+    }
+
+    /**
+     * Deletes the games of a source having one of the given names, in a single statement
+     * @return the number of deleted games
+     */
+    public int deleteImported(String source, Collection<String> names) throws SQLException {
+        if (names.isEmpty()) return 0;
+
+        // Bound as one JSON array, whatever the number of names
+        return deleteWhere("source = ? AND name IN (SELECT value FROM json_each(?))", source, GSON.toJson(names)).size();
+    }
+
+    /**
+     * Gets the first game with this name, through the repository cache when enabled
+     */
     public GameMetadata getGame(String name) {
-        return query("SELECT * FROM metadata WHERE name = ?", name);
+        return findBy("name", name);
+    }
+
+    /**
+     * Streams the whole catalog in id order, the stream must be closed after use
+     */
+    public Stream<GameMetadata> streamGames() throws SQLException {
+        return stream("SELECT * FROM metadata ORDER BY id");
+    }
+
+    /**
+     * Fills the sort keys of the rows changed by raw statements, the sort name trigger having cleared them.
+     * Already committed, a failure leaves the games listed after the keyed ones until the next fill.
+     */
+    private class SortKeyWriter implements RepositoryListener<GameMetadata> {
+
+        @Override
+        public void onInvalidate() {
+            try {
+                fillSortKeys();
+            } catch (SQLException e) {
+                log.warn("Failed to fill the sort keys of the catalog", e);
+            }
+        }
+    }
+
+    /**
+     * Sort key and identifier of the last game of a page, encoded into an opaque cursor.
+     * For a game without sort key, the key is its sort name in UTF-8.
+     */
+    private record SortCursor(boolean unkeyed, byte[] key, int id) {
+
+        private String encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeBoolean(unkeyed);
+                out.writeInt(id);
+                out.write(key);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to encode cursor", e);
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        }
+
+        private static SortCursor decode(String cursor) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+                boolean unkeyed = in.readBoolean();
+                int id = in.readInt();
+                return new SortCursor(unkeyed, in.readAllBytes(), id);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed cursor", e);
+            }
+        }
     }
 
 }
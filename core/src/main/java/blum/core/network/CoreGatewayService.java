@@ -70,13 +70,19 @@ public class CoreGatewayService implements Service, GatewayService {
 
             Request.RequestInfo info = Request.extract(mtd);
             if(!info.path().isBlank()) {
-                path = basePath + "\\" + info.path().strip();
+                path = joinPath(basePath, info.path().strip());
             }
 
             saveEndpoint(path, info.type(), obj, mtd);
         }
     }
 
+    private static String joinPath(String basePath, String subPath) {
+        String base = basePath.endsWith("/") ? basePath.substring(0, basePath.length() - 1) : basePath;
+        String sub = subPath.startsWith("/") ? subPath.substring(1) : subPath;
+        return base + "/" + sub;
+    }
+
     private void saveEndpoint(String path, Request.Type type, Object obj, Method mtd) {
         if(!endpoints.containsKey(path)) {
             endpoints.put(path, new EndpointHandler(path));
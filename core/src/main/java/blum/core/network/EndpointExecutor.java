@@ -1,15 +1,24 @@
 package blum.core.network;
 
+import blum.api.network.FileResponse;
 import blum.api.network.ResponseWrapper;
+import blum.api.network.annotations.Param;
 import com.google.gson.Gson;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.SneakyThrows;
+import org.eclipse.jetty.server.HttpOutput;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 
 @AllArgsConstructor
 @Getter
@@ -17,61 +26,170 @@ public class EndpointExecutor {
 
     private static final Gson gson = new Gson();
 
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+
+    /** Smaller files are read through the channel, mapping them costs more than copying them */
+    private static final long MAPPED_THRESHOLD = 64 * 1024;
+
     private Object target;
     private Method method;
 
     @SneakyThrows
     public void handle(HttpServletRequest request, HttpServletResponse response) {
 
-        //TODO Params handling
+        Object[] args;
+        try {
+            args = resolveArguments(request, response);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("text/plain; charset=utf-8");
+            response.getWriter().print(e.getMessage());
+            return;
+        }
+
+        Object obj = method.invoke(target, args);
+        adaptResponse(obj, HttpServletResponse.SC_OK, request, response);
+
+    }
+
+    private Object[] resolveArguments(HttpServletRequest request, HttpServletResponse response) {
+        Parameter[] parameters = method.getParameters();
+        Object[] args = new Object[parameters.length];
+
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            Class<?> type = parameter.getType();
+
+            if (type == HttpServletRequest.class) {
+                args[i] = request;
+            } else if (type == HttpServletResponse.class) {
+                args[i] = response;
+            } else if (parameter.isAnnotationPresent(Param.class)) {
+                Param param = parameter.getAnnotation(Param.class);
+                String value = request.getParameter(param.value());
+                if (value == null && !param.defaultValue().isEmpty()) value = param.defaultValue();
+                args[i] = convertParameter(param.value(), value, type);
+            }
+        }
+        return args;
+    }
 
-        Object obj = method.invoke(target);
-        adaptResponse(obj, response);
+    private static Object convertParameter(String name, String value, Class<?> type) {
+        if (value == null) {
+            if (type.isPrimitive()) throw new IllegalArgumentException("Missing parameter: " + name);
+            return null;
+        }
 
+        try {
+            if (type == String.class) return value;
+            if (type == int.class || type == Integer.class) return Integer.parseInt(value);
+            if (type == long.class || type == Long.class) return Long.parseLong(value);
+            if (type == double.class || type == Double.class) return Double.parseDouble(value);
+            if (type == boolean.class || type == Boolean.class) return Boolean.parseBoolean(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for parameter " + name + ": " + value);
+        }
+        throw new IllegalArgumentException("Unsupported parameter type for " + name + ": " + type.getSimpleName());
     }
 
-    private void adaptResponse(Object result, HttpServletResponse response) throws Exception {
+    private void adaptResponse(Object result, int status, HttpServletRequest request, HttpServletResponse response) throws Exception {
         if (result == null) {
             response.setStatus(HttpServletResponse.SC_NO_CONTENT); // 204
             return;
         }
 
         if (result instanceof String str) {
-            response.setStatus(HttpServletResponse.SC_OK);
+            response.setStatus(status);
             response.setContentType("text/plain; charset=utf-8");
             response.getWriter().print(str);
             return;
         }
 
         if (result instanceof byte[] bytes) {
-            response.setStatus(HttpServletResponse.SC_OK);
+            response.setStatus(status);
             response.setContentType("application/octet-stream");
             response.getOutputStream().write(bytes);
             return;
         }
 
         if (result instanceof Number || result instanceof Boolean) {
-            response.setStatus(HttpServletResponse.SC_OK);
+            response.setStatus(status);
             response.setContentType("text/plain; charset=utf-8");
             response.getWriter().print(result.toString());
             return;
         }
 
+        if (result instanceof FileResponse file) {
+            sendFile(file, request, response);
+            return;
+        }
+
         // Exemple d'une classe maison pour contrôler le retour (style ResponseEntity)
         if (result instanceof ResponseWrapper wrapper) {
             response.setStatus(wrapper.status());
             wrapper.headers().forEach(response::setHeader);
             if (wrapper.body() != null) {
-                adaptResponse(wrapper.body(), response);
+                adaptResponse(wrapper.body(), wrapper.status(), request, response);
             }
             return;
         }
 
         // Sinon → JSON par défaut
-        response.setStatus(HttpServletResponse.SC_OK);
+        response.setStatus(status);
         response.setContentType("application/json; charset=utf-8");
         response.getWriter().print(gson.toJson(result));
     }
-}
 
+    /**
+     * Sends a file with its ETag, or 304 when the client already has this version.
+     * Under Jetty the file is handed to the connector as a channel, large files being memory-mapped
+     * so they are written to the socket from the page cache without being copied through the heap.
+     */
+    private static void sendFile(FileResponse file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = "\"" + file.etag() + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", file.immutable() ? IMMUTABLE : REVALIDATE);
+
+        if (matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
 
+        try (FileChannel channel = FileChannel.open(file.file(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(file.contentType() != null ? file.contentType() : "application/octet-stream");
+            response.setContentLengthLong(size);
+
+            ServletOutputStream out = response.getOutputStream();
+            if (out instanceof HttpOutput output) {
+                if (size >= MAPPED_THRESHOLD) {
+                    output.sendContent(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+                } else {
+                    output.sendContent(channel);
+                }
+            } else {
+                channel.transferTo(0, size, Channels.newChannel(out));
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted since the response was built
+            response.setHeader("ETag", null);
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Checks an If-None-Match header against an entity tag, using the weak comparison required for GET
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.strip();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+}
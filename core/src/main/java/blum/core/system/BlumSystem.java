@@ -7,7 +7,13 @@ import blum.api.services.ServicesManager;
 import blum.api.core.BlumConfiguration;
 import blum.core.configuration.CoreConfigurationService;
 import blum.core.database.CoreDatabaseService;
+import blum.core.endpoints.ArtworkEndpoint;
 import blum.core.endpoints.CoreEndpoint;
+import blum.core.endpoints.DatabaseEndpoint;
+import blum.core.endpoints.IntegrationEndpoint;
+import blum.core.endpoints.LibraryEndpoint;
+import blum.core.integration.CoreIntegrationService;
+import blum.core.library.CoreArtworkService;
 import blum.core.library.CoreLibraryService;
 import blum.core.network.CoreGatewayService;
 import blum.core.services.CoreServicesManager;
@@ -63,11 +69,26 @@ public class BlumSystem implements BlumCore {
         servicesManager.registerService(CoreDatabaseService.class);
         servicesManager.registerService(CoreGatewayService.class);
         servicesManager.registerService(CoreLibraryService.class);
+        servicesManager.registerService(CoreArtworkService.class);
+        servicesManager.registerService(CoreIntegrationService.class);
     }
 
     private void registerCoreEndpoints() {
         if(servicesManager.hasService("gateway")) {
-            servicesManager.getService("gateway", CoreGatewayService.class).registerEndpoints(new CoreEndpoint());
+            CoreGatewayService gateway = servicesManager.getService("gateway", CoreGatewayService.class);
+            gateway.registerEndpoints(new CoreEndpoint());
+            if(servicesManager.hasService("database")) {
+                gateway.registerEndpoints(new DatabaseEndpoint());
+            }
+            if(servicesManager.hasService("library")) {
+                gateway.registerEndpoints(new LibraryEndpoint());
+            }
+            if(servicesManager.hasService("artwork")) {
+                gateway.registerEndpoints(new ArtworkEndpoint());
+            }
+            if(servicesManager.hasService("integrations")) {
+                gateway.registerEndpoints(new IntegrationEndpoint());
+            }
         }else {
             log.warn("Gateway service is offline, network interface unavailible. Please restart Blum Core");
         }
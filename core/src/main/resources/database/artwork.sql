@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS artwork (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  game_id INTEGER NOT NULL REFERENCES metadata(id) ON DELETE CASCADE,
+  kind TEXT NOT NULL,
+  hash TEXT NOT NULL,
+  content_type TEXT,
+  size INTEGER,
+  added_at INTEGER
+);
\ No newline at end of file
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS metadata_collation (
+  locale TEXT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS metadata_sort_key ON metadata (sort_key, id);
+
+CREATE TRIGGER IF NOT EXISTS metadata_sort_key_update AFTER UPDATE OF sort_name ON metadata WHEN new.sort_name IS NOT old.sort_name BEGIN
+  UPDATE metadata SET sort_key = NULL WHERE id = new.id;
+END;
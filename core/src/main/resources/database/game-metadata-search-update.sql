@@ -0,0 +1,9 @@
+-- Only writes to the indexed columns reindex a row, catalogs indexed before reindexed it on any write
+DROP TRIGGER IF EXISTS metadata_fts_update;
+
+CREATE TRIGGER metadata_fts_update AFTER UPDATE OF name, series, developers, genres, tags, description ON metadata BEGIN
+  INSERT INTO metadata_fts(metadata_fts, rowid, name, series, developers, genres, tags, description)
+  VALUES ('delete', old.id, old.name, old.series, old.developers, old.genres, old.tags, old.description);
+  INSERT INTO metadata_fts(rowid, name, series, developers, genres, tags, description)
+  VALUES (new.id, new.name, new.series, new.developers, new.genres, new.tags, new.description);
+END;
@@ -0,0 +1,26 @@
+CREATE VIRTUAL TABLE IF NOT EXISTS metadata_fts USING fts5(
+  name,
+  series,
+  developers,
+  genres,
+  tags,
+  description,
+  content='metadata',
+  content_rowid='id',
+  tokenize='unicode61 remove_diacritics 2'
+);
+
+CREATE TRIGGER IF NOT EXISTS metadata_fts_insert AFTER INSERT ON metadata BEGIN
+  INSERT INTO metadata_fts(rowid, name, series, developers, genres, tags, description)
+  VALUES (new.id, new.name, new.series, new.developers, new.genres, new.tags, new.description);
+END;
+
+CREATE TRIGGER IF NOT EXISTS metadata_fts_delete AFTER DELETE ON metadata BEGIN
+  INSERT INTO metadata_fts(metadata_fts, rowid, name, series, developers, genres, tags, description)
+  VALUES ('delete', old.id, old.name, old.series, old.developers, old.genres, old.tags, old.description);
+END;
+
+-- Ranking of ORDER BY rank: bm25 weights of name, series, developers, genres, tags and description
+INSERT INTO metadata_fts(metadata_fts, rank) VALUES ('rank', 'bm25(10.0, 4.0, 2.0, 2.0, 2.0, 1.0)');
+
+INSERT INTO metadata_fts(metadata_fts) VALUES ('rebuild');
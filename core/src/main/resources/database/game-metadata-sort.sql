@@ -0,0 +1,6 @@
+UPDATE metadata SET sort_name = name WHERE sort_name IS NULL;
+
+-- Replaced by the repository defaulting the sort name: updating the inserted row from a trigger ran before the
+-- full-text index trigger and corrupted the index
+DROP TRIGGER IF EXISTS metadata_sort_name_insert;
+DROP TRIGGER IF EXISTS metadata_sort_name_update;
@@ -0,0 +1,24 @@
+CREATE TABLE IF NOT EXISTS metadata_version (
+  version INTEGER NOT NULL
+);
+
+-- Starts at a random value, so a copy of another catalog never has the version of a snapshot file by chance
+INSERT INTO metadata_version (version) SELECT abs(random() % 1000000000000) WHERE NOT EXISTS (SELECT 1 FROM metadata_version);
+
+CREATE TRIGGER IF NOT EXISTS metadata_version_insert AFTER INSERT ON metadata BEGIN
+  UPDATE metadata_version SET version = version + 1;
+END;
+
+-- Only the columns of the catalog file count, derived ones like the sort key don't outdate it.
+-- Replaced on every start, catalogs created before counted writes to any column
+DROP TRIGGER IF EXISTS metadata_version_update;
+
+CREATE TRIGGER metadata_version_update AFTER UPDATE OF id, name, sort_name, platform, genres, developers, publishers,
+    categories, features, tags, description, release_date, series, pegi, region, source, press_rating, community_rating
+    ON metadata BEGIN
+  UPDATE metadata_version SET version = version + 1;
+END;
+
+CREATE TRIGGER IF NOT EXISTS metadata_version_delete AFTER DELETE ON metadata BEGIN
+  UPDATE metadata_version SET version = version + 1;
+END;
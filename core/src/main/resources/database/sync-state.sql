@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS sync_state (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  source TEXT NOT NULL,
+  feed TEXT NOT NULL,
+  cursor TEXT,
+  etag TEXT,
+  last_modified TEXT,
+  synced_at INTEGER NOT NULL DEFAULT 0,
+  last_error TEXT
+);
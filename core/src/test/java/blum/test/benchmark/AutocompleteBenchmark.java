@@ -0,0 +1,75 @@
+package blum.test.benchmark;
+
+import blum.api.library.model.GameMetadata;
+import blum.core.library.AutocompleteIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the latency of search as you type on the in-memory autocomplete index, typos included.
+ * Run with: gradle :core:benchmark -Pbenchmark=blum.test.benchmark.AutocompleteBenchmark -Pargs="100000 2000"
+ */
+public class AutocompleteBenchmark {
+
+    private static final String[] WORDS = {"dark", "souls", "legend", "zelda", "witcher", "wild", "hunt", "final",
+            "fantasy", "space", "quest", "star", "wars", "knight", "hollow", "dragon", "age", "origins", "mass", "effect",
+            "portal", "half", "life", "city", "skylines", "tales", "arise", "grand", "theft", "auto", "resident", "evil",
+            "monster", "hunter", "world", "rise", "tomb", "raider", "shadow", "war", "kingdom", "hearts", "persona",
+            "golden", "royal", "super", "mario", "odyssey", "metal", "gear", "solid", "phantom", "pain", "dead", "cells"};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        Random random = new Random(42);
+        List<GameMetadata> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder name = new StringBuilder();
+            int words = 1 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) name.append(' ');
+                String word = WORDS[random.nextInt(WORDS.length)];
+                name.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+            }
+            // Most names are unique in a real catalog
+            name.append(' ').append(Integer.toString(i, 36));
+
+            GameMetadata game = new GameMetadata();
+            game.setId(i + 1);
+            game.setName(name.toString());
+            games.add(game);
+        }
+
+        AutocompleteIndex index = new AutocompleteIndex(() -> games);
+        long start = System.nanoTime();
+        index.reload();
+        System.out.printf("Indexed %,d games in %,d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+
+        // Every keystroke of a few queries, exact and misspelled
+        List<String> queries = new ArrayList<>();
+        for (String query : new String[]{"witcher 3 wild", "wticher wlid", "legend of zelda", "hollow knigt", "zz"}) {
+            for (int length = 1; length <= query.length(); length++) queries.add(query.substring(0, length));
+        }
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            long[] latencies = new long[iterations];
+            int results = 0;
+            for (int i = 0; i < iterations; i++) {
+                String query = queries.get(i % queries.size());
+                long begin = System.nanoTime();
+                results += index.complete(query, 10).size();
+                latencies[i] = System.nanoTime() - begin;
+            }
+
+            if (warmup == 1) {
+                Arrays.sort(latencies);
+                System.out.printf("%,d keystrokes, %.1f results on average: p50 %.1f µs, p99 %.1f µs, max %.1f µs%n",
+                        iterations, (double) results / iterations, latencies[iterations / 2] / 1_000.0,
+                        latencies[iterations * 99 / 100] / 1_000.0, latencies[iterations - 1] / 1_000.0);
+            }
+        }
+    }
+}
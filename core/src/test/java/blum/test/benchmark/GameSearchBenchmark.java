@@ -0,0 +1,83 @@
+package blum.test.benchmark;
+
+import blum.api.library.model.GameMetadata;
+import blum.core.library.repositories.GameMetadataRepository;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures full-text search latency on a generated catalog.
+ * Run with: gradle :core:benchmark -Pbenchmark=blum.test.benchmark.GameSearchBenchmark -Pargs="50000 2000"
+ */
+public class GameSearchBenchmark {
+
+    private static final String[] QUERIES = {"dark", "knight", "dark knight", "rogue", "word123", "word12 strategy", "zzz"};
+
+    private static final String[] TITLE_WORDS = {"dark", "knight", "star", "legend", "shadow", "city", "quest", "fall",
+            "tales", "hollow", "iron", "lost", "sky", "dragon", "ocean", "frontier", "night", "crown", "empire", "echo"};
+    private static final String[] GENRES = {"action", "adventure", "rogue-like", "strategy", "puzzle", "racing",
+            "simulation", "platformer", "shooter", "rpg", "sports", "horror"};
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        File folder = Files.createTempDirectory("blum-bench").toFile();
+        File file = new File(folder, "search.db");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            GameMetadataRepository repository = new GameMetadataRepository(connection, GameMetadata.class);
+            repository.executeScript(repository.initTable());
+            repository.createAll(generate(count));
+
+            long start = System.nanoTime();
+            repository.initSearchIndex();
+            System.out.printf("Indexed %,d rows in %,d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+
+            for (String query : QUERIES) {
+                long[] samples = new long[iterations];
+                int results = 0;
+                for (int i = 0; i < iterations; i++) {
+                    long begin = System.nanoTime();
+                    List<GameMetadata> page = repository.search(query, 0, 20);
+                    samples[i] = System.nanoTime() - begin;
+                    results = page.size();
+                }
+                Arrays.sort(samples);
+                System.out.printf("%-22s %2d results  p50 %6.3f ms  p99 %6.3f ms%n", '"' + query + '"', results,
+                        samples[iterations / 2] / 1e6, samples[iterations * 99 / 100] / 1e6);
+            }
+
+        } finally {
+            for (File f : folder.listFiles()) f.delete();
+            folder.delete();
+        }
+    }
+
+    private static List<GameMetadata> generate(int count) {
+        Random random = new Random(42);
+        List<GameMetadata> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GameMetadata game = new GameMetadata();
+            game.setName(pick(random, TITLE_WORDS) + " " + pick(random, TITLE_WORDS) + " " + i);
+            game.setDevelopers("studio" + random.nextInt(2_000));
+            game.setGenres(pick(random, GENRES) + ", " + pick(random, GENRES));
+
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 30; w++) description.append("word").append(random.nextInt(20_000)).append(' ');
+            game.setDescription(description.toString());
+            games.add(game);
+        }
+        return games;
+    }
+
+    private static String pick(Random random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
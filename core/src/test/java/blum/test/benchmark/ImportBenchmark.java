@@ -0,0 +1,69 @@
+package blum.test.benchmark;
+
+import blum.api.library.model.GameMetadata;
+import blum.core.library.importer.GameImporter;
+import blum.core.library.importer.ImportOptions;
+import blum.core.library.importer.ImportResult;
+import blum.core.library.repositories.GameMetadataRepository;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+/**
+ * Measures the throughput of importing an NDJSON export into an empty catalog, then of re-importing it unchanged,
+ * with a single normalization thread and with the default parallelism.
+ * Run with: gradle :core:benchmark -Pbenchmark=blum.test.benchmark.ImportBenchmark -Pargs="100000"
+ */
+public class ImportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        File folder = Files.createTempDirectory("blum-bench").toFile();
+        try {
+            File export = new File(folder, "export.ndjson");
+            writeExport(export, count);
+            System.out.printf("export: %,d games, %,d KiB%n", count, export.length() / 1024);
+
+            ImportOptions defaults = ImportOptions.defaults("steam");
+            run(new File(folder, "single.db"), export, new ImportOptions(defaults.batchSize(), 1, defaults.maxPendingBatches(), "steam"));
+            run(new File(folder, "parallel.db"), export, defaults);
+        } finally {
+            for (File file : folder.listFiles()) file.delete();
+            folder.delete();
+        }
+    }
+
+    private static void run(File file, File export, ImportOptions options) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            GameMetadataRepository repository = new GameMetadataRepository(connection, GameMetadata.class);
+            repository.executeScript(repository.initTable());
+            repository.createIndexes();
+            repository.initSortNames();
+
+            GameImporter importer = new GameImporter(repository, options);
+            ImportResult first = importer.importFile(export.toPath(), null);
+            ImportResult again = importer.importFile(export.toPath(), null);
+
+            System.out.printf("%d normalizer(s): import %,d ms (%,.0f games/s) | unchanged re-import %,d ms (%,.0f games/s)%n",
+                    options.parallelism(), first.elapsedMillis(), first.recordsPerSecond(),
+                    again.elapsedMillis(), again.recordsPerSecond());
+
+        }
+    }
+
+    private static void writeExport(File export, int count) throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(export.toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write("{\"title\": \"Game " + i + "\", \"platforms\": \"" + (i % 3 == 0 ? "PC" : "Switch")
+                        + "\", \"genres\": [\"Action\", \"Adventure\", \"action\"], \"developer\": \"Studio " + (i % 500)
+                        + "\", \"summary\": \"A generated game used for benchmarking the import pipeline.\""
+                        + ", \"metascore\": \"" + (i % 100) + ".0\", \"released\": \"Oct 10, 2007\"}\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package blum.test.benchmark;
+
+import blum.api.library.Facet;
+import blum.api.library.LibraryFilter;
+import blum.api.library.model.GameMetadata;
+import blum.core.library.LibrarySnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures facet filtering and counting on the in-memory library snapshot.
+ * Run with: gradle :core:benchmark -Pbenchmark=blum.test.benchmark.LibrarySnapshotBenchmark -Pargs="50000 2000"
+ */
+public class LibrarySnapshotBenchmark {
+
+    private static final String[] GENRES = {"Action", "Adventure", "RPG", "Strategy", "Puzzle", "Racing", "Simulation", "Platformer"};
+    private static final String[] PLATFORMS = {"PC", "Switch", "PlayStation", "Xbox"};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        Random random = new Random(42);
+        List<GameMetadata> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GameMetadata game = new GameMetadata();
+            game.setId(i + 1);
+            game.setName("Game " + i);
+            game.setGenres(GENRES[random.nextInt(GENRES.length)] + ", " + GENRES[random.nextInt(GENRES.length)]);
+            game.setTags("tag" + random.nextInt(500) + ", tag" + random.nextInt(500) + ", tag" + random.nextInt(500));
+            game.setPlatform(PLATFORMS[random.nextInt(PLATFORMS.length)]);
+            game.setCommunityRating(random.nextInt(100));
+            games.add(game);
+        }
+
+        LibrarySnapshot snapshot = new LibrarySnapshot(() -> games);
+        long start = System.nanoTime();
+        snapshot.reload();
+        System.out.printf("Loaded %,d games in %,d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+
+        LibraryFilter filter = LibraryFilter.all().with(Facet.GENRES, "rpg").with(Facet.PLATFORM, "pc");
+        int matches = 0;
+        int tags = 0;
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                matches = snapshot.filter(filter).length;
+                Map<String, Integer> counts = snapshot.countFacet(Facet.TAGS, filter);
+                tags = counts.size();
+            }
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / iterations;
+        System.out.printf("genre + platform filter with tag counts: %,d games, %,d tags, %.1f µs per request%n", matches, tags, micros);
+    }
+}
@@ -0,0 +1,55 @@
+package blum.test.benchmark;
+
+import blum.api.database.UpsertResult;
+import blum.api.library.model.GameMetadata;
+import blum.core.library.repositories.GameMetadataRepository;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+
+/**
+ * Compares a diff-based resync of an unchanged source with a plain read of the same rows.
+ * Run with: gradle :core:benchmark -Pbenchmark=blum.test.benchmark.MergeBenchmark -Pargs="20000"
+ */
+public class MergeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        File folder = Files.createTempDirectory("blum-bench").toFile();
+        File file = new File(folder, "merge.db");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            GameMetadataRepository repository = new GameMetadataRepository(connection, GameMetadata.class);
+            repository.executeScript(repository.initTable());
+            repository.createIndexes();
+            // Blind upserts need a unique conflict target
+            repository.executeScript("CREATE UNIQUE INDEX ux_bench_name ON metadata (name)");
+            repository.createAll(RepositoryBatchBenchmark.generate(count));
+
+            for (int run = 0; run < 3; run++) {
+                long start = System.nanoTime();
+                int read = repository.listQuery("SELECT * FROM metadata").size();
+                long readMillis = (System.nanoTime() - start) / 1_000_000;
+
+                List<GameMetadata> source = RepositoryBatchBenchmark.generate(count);
+                start = System.nanoTime();
+                UpsertResult result = repository.mergeAll(source, "name");
+                long mergeMillis = (System.nanoTime() - start) / 1_000_000;
+
+                start = System.nanoTime();
+                repository.upsertAll(RepositoryBatchBenchmark.generate(count), "name");
+                long upsertMillis = (System.nanoTime() - start) / 1_000_000;
+
+                System.out.printf("read %,d rows: %,d ms | merge unchanged (%,d written): %,d ms | blind upsert: %,d ms%n",
+                        read, readMillis, result.written(), mergeMillis, upsertMillis);
+            }
+
+        } finally {
+            for (File f : folder.listFiles()) f.delete();
+            folder.delete();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package blum.test.benchmark;
+
+import blum.api.library.model.GameMetadata;
+import blum.core.library.repositories.GameMetadataRepository;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares per-row create() against the batched createAll() path on a file database.
+ * Run with: gradle :core:benchmark -Pbenchmark=blum.test.benchmark.RepositoryBatchBenchmark -Pargs="2000 20000"
+ */
+public class RepositoryBatchBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int perRowCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int batchCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        File folder = Files.createTempDirectory("blum-bench").toFile();
+        try {
+            long perRow = run(new File(folder, "per-row.db"), perRowCount, false);
+            long batch = run(new File(folder, "batch.db"), batchCount, true);
+
+            System.out.printf("create()    : %,d rows in %,d ms (%,.0f rows/s)%n", perRowCount, perRow, perRowCount * 1000.0 / Math.max(1, perRow));
+            System.out.printf("createAll() : %,d rows in %,d ms (%,.0f rows/s)%n", batchCount, batch, batchCount * 1000.0 / Math.max(1, batch));
+        } finally {
+            for (File file : folder.listFiles()) file.delete();
+            folder.delete();
+        }
+    }
+
+    private static long run(File file, int count, boolean batched) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            GameMetadataRepository repository = new GameMetadataRepository(connection, GameMetadata.class);
+            repository.executeScript(repository.initTable());
+
+            List<GameMetadata> games = generate(count);
+
+            long start = System.nanoTime();
+            if (batched) {
+                repository.createAll(games);
+            } else {
+                for (GameMetadata game : games) repository.create(game);
+            }
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+            return elapsed;
+        }
+    }
+
+    static List<GameMetadata> generate(int count) {
+        List<GameMetadata> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GameMetadata game = new GameMetadata();
+            game.setName("Game " + i);
+            game.setSortName("game " + i);
+            game.setPlatform(i % 3 == 0 ? "PC" : "Switch");
+            game.setGenres("Action, Adventure");
+            game.setDescription("A generated game used for benchmarking the repository layer.");
+            game.setSource(i % 2 == 0 ? "steam" : "gog");
+            game.setCommunityRating(i % 100);
+            games.add(game);
+        }
+        return games;
+    }
+}
@@ -0,0 +1,105 @@
+package blum.test.benchmark;
+
+import blum.api.library.model.GameMetadata;
+import blum.core.library.AutocompleteIndex;
+import blum.core.library.CatalogFile;
+import blum.core.library.CatalogFileWriter;
+import blum.core.library.LibrarySnapshot;
+import blum.core.library.LibraryStatistics;
+import blum.core.library.repositories.GameMetadataRepository;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures the time for the library to be ready at startup, reading the catalog from the database
+ * or from the catalog file, and building the snapshot, the autocomplete index and the statistics from it.
+ * Run with: gradle :core:benchmark -Pbenchmark=blum.test.benchmark.StartupBenchmark -Pargs="50000 5"
+ */
+public class StartupBenchmark {
+
+    private static final String[] GENRES = {"Action", "Adventure", "RPG", "Strategy", "Puzzle", "Racing", "Simulation", "Platformer"};
+    private static final String[] PLATFORMS = {"PC", "Switch", "PlayStation", "Xbox"};
+    private static final String[] WORDS = {"dark", "legend", "star", "quest", "kingdom", "shadow", "racing", "world",
+            "tales", "heroes", "lost", "city", "island", "dragon", "space", "night"};
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File folder = Files.createTempDirectory("blum-bench").toFile();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + new File(folder, "library.db"))) {
+            GameMetadataRepository repository = new GameMetadataRepository(connection, GameMetadata.class);
+            repository.executeScript(repository.initTable());
+            repository.initCatalogVersion();
+            repository.createAll(generate(count));
+
+            CatalogFile file = new CatalogFile(new File(folder, "catalog.bin").toPath());
+            long start = System.nanoTime();
+            new CatalogFileWriter(repository, file, 0).write();
+            System.out.printf("%,d games, catalog file written in %,d ms (%,d KiB)%n", count,
+                    (System.nanoTime() - start) / 1_000_000, new File(folder, "catalog.bin").length() / 1024);
+
+            for (int round = 0; round < rounds; round++) {
+                long[] database = measure(() -> repository.listQuery("SELECT * FROM metadata"));
+                long[] catalog = measure(() -> file.read(repository.getCatalogVersion()));
+                System.out.printf("round %d: ready in %,d ms from the database (read in %,d ms), %,d ms from the catalog file (read in %,d ms)%n",
+                        round + 1, database[1] / 1_000_000, database[0] / 1_000_000, catalog[1] / 1_000_000, catalog[0] / 1_000_000);
+            }
+        } finally {
+            for (File file : folder.listFiles()) file.delete();
+            folder.delete();
+        }
+    }
+
+    /**
+     * @return the time to read the catalog and the time for the library to be ready, in nanoseconds
+     */
+    private static long[] measure(Loader loader) throws Exception {
+        long start = System.nanoTime();
+        List<GameMetadata> games = loader.load();
+        long read = System.nanoTime() - start;
+
+        LibrarySnapshot snapshot = new LibrarySnapshot(List::of);
+        AutocompleteIndex autocomplete = new AutocompleteIndex(List::of);
+        LibraryStatistics statistics = new LibraryStatistics(List::of);
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> snapshot.load(games)),
+                CompletableFuture.runAsync(() -> autocomplete.load(games)),
+                CompletableFuture.runAsync(() -> statistics.load(games))
+        ).join();
+        return new long[]{read, System.nanoTime() - start};
+    }
+
+    private static List<GameMetadata> generate(int count) {
+        Random random = new Random(42);
+        List<GameMetadata> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + Integer.toString(i, 36);
+            GameMetadata game = new GameMetadata();
+            game.setName(name);
+            game.setSortName(name);
+            game.setGenres(GENRES[random.nextInt(GENRES.length)] + ", " + GENRES[random.nextInt(GENRES.length)]);
+            game.setTags("tag" + random.nextInt(500) + ", tag" + random.nextInt(500) + ", tag" + random.nextInt(500));
+            game.setPlatform(PLATFORMS[random.nextInt(PLATFORMS.length)]);
+            game.setDevelopers("Studio " + random.nextInt(2000));
+            game.setDescription("A game about " + name + ". " + "Lorem ipsum dolor sit amet. ".repeat(1 + random.nextInt(10)));
+            game.setReleaseDate((1990 + random.nextInt(35)) + "-06-01");
+            game.setSource("steam");
+            game.setCommunityRating(random.nextInt(100));
+            games.add(game);
+        }
+        return games;
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+        List<GameMetadata> load() throws Exception;
+    }
+}
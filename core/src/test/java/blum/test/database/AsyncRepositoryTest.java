@@ -0,0 +1,122 @@
+package blum.test.database;
+
+import blum.api.database.AsyncRepository;
+import blum.core.database.ConnectionPool;
+import blum.core.database.DatabaseExecutor;
+import blum.core.database.PoolSettings;
+import blum.test.database.BlumRepositoryTest.Game;
+import blum.test.database.BlumRepositoryTest.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncRepositoryTest {
+
+    @TempDir
+    File folder;
+
+    private ConnectionPool pool;
+    private AsyncRepository<Game> games;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new ConnectionPool(new File(folder, "test.db"), new PoolSettings(2, 1000, "normal", -2000, 0, "memory", 1000));
+        GameRepository repository = new GameRepository(pool, Game.class);
+        repository.executeScript(repository.initTable());
+        games = new AsyncRepository<>(repository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testCallsCompleteWithTheirResult() throws Exception {
+        Game game = games.create(new Game("Portal", 120)).get(5, TimeUnit.SECONDS);
+        assertNotNull(game.getId());
+
+        games.createAll(List.of(new Game("Celeste", 30), new Game("Hades", 60))).get(5, TimeUnit.SECONDS);
+
+        assertEquals("Portal", games.findById(game.getId()).get(5, TimeUnit.SECONDS).getName());
+        assertEquals(3, games.listQuery("SELECT * FROM games").get(5, TimeUnit.SECONDS).size());
+        assertEquals(2, games.page(null, 2, "play_time").get(5, TimeUnit.SECONDS).items().size());
+        assertTrue(games.deleteById(game.getId()).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFailuresCompleteTheFuture() {
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> games.inTransaction(() -> {
+                    throw new SQLException("broken");
+                }).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLException.class, failure.getCause());
+    }
+
+    @Test
+    void testWorkRunsOffTheCallingThread() throws Exception {
+        Thread caller = Thread.currentThread();
+        assertNotSame(caller, games.submit(Thread::currentThread).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testConcurrencyIsBoundedByTheConnections() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(games.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                release.await(5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+                return 1;
+            }));
+        }
+
+        Thread.sleep(200);
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        // 2 readers and the writer
+        assertEquals(3, maxRunning.get());
+    }
+
+    @Test
+    void testSaturatedExecutorRejectsWork() throws Exception {
+        DatabaseExecutor executor = new DatabaseExecutor("test", 1, 2);
+        Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            AsyncRepository<Game> saturated = new AsyncRepository<>(new GameRepository(connection, Game.class), executor);
+
+            saturated.submit(() -> release.await(5, TimeUnit.SECONDS));
+            saturated.submit(() -> release.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Game> rejected = saturated.findById(1);
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        } finally {
+            release.countDown();
+            executor.close();
+            connection.close();
+        }
+    }
+}
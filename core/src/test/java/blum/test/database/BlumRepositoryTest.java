@@ -0,0 +1,301 @@
+package blum.test.database;
+
+import blum.api.annotation.Identifier;
+import blum.api.annotation.Named;
+import blum.api.database.BlumRepository;
+import blum.api.database.ConnectionProvider;
+import blum.api.database.SingleConnectionProvider;
+import blum.api.database.StatementCache;
+import blum.api.database.IndexDefinition;
+import blum.api.database.RepositoryListener;
+import blum.api.database.annotation.CompositeIndex;
+import blum.api.database.annotation.Model;
+import blum.api.database.annotation.Unique;
+import blum.api.exception.DatabaseQueryException;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InvalidClassException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlumRepositoryTest {
+
+    private Connection connection;
+    private GameRepository repository;
+
+    @Data
+    @NoArgsConstructor
+    @Model
+    @CompositeIndex(columns = {"play_time", "id"})
+    public static class Game {
+        @Identifier
+        private Integer id;
+        @Unique
+        private String name;
+        @Named("play_time")
+        private long playTime;
+        private byte[] icon;
+        @Named("last_played")
+        private Timestamp lastPlayed;
+
+        public Game(String name, long playTime) {
+            this.name = name;
+            this.playTime = playTime;
+        }
+    }
+
+    public static class GameRepository extends BlumRepository<Game> {
+
+        public GameRepository(Connection connection, Class<Game> type) throws InvalidClassException {
+            super(connection, type);
+        }
+
+        public GameRepository(ConnectionProvider provider, Class<Game> type) throws InvalidClassException {
+            super(provider, type);
+        }
+
+        @Override
+        public String getTableName() {
+            return "games";
+        }
+
+        @Override
+        public String initTable() {
+            return "CREATE TABLE games (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, play_time INTEGER, icon BLOB, last_played INTEGER);";
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameRepository(connection, Game.class);
+        assertFalse(repository.tableExists());
+        repository.executeScript(repository.initTable());
+        assertTrue(repository.tableExists());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    void testCreateAndQuery() throws Exception {
+        repository.create(new Game("Celeste", 3600L));
+
+        Game game = repository.query("SELECT * FROM games WHERE name = ?", "Celeste");
+
+        assertNotNull(game);
+        assertEquals(1, game.getId());
+        assertEquals(3600L, game.getPlayTime());
+    }
+
+    @Test
+    void testTypedParameters() throws Exception {
+        Game game = new Game("Hades", 120L);
+        game.setIcon(new byte[]{1, 2, 3});
+        game.setLastPlayed(new Timestamp(1_700_000_000_000L));
+        repository.create(game);
+
+        List<Game> byLong = repository.listQuery("SELECT * FROM games WHERE play_time > ?", 100L);
+        List<Game> byBytes = repository.listQuery("SELECT * FROM games WHERE icon = ?", (Object) new byte[]{1, 2, 3});
+        List<Game> byTimestamp = repository.listQuery("SELECT * FROM games WHERE last_played = ?", new Timestamp(1_700_000_000_000L));
+
+        assertEquals(1, byLong.size());
+        assertEquals(1, byBytes.size());
+        assertEquals(1, byTimestamp.size());
+        assertArrayEquals(new byte[]{1, 2, 3}, byTimestamp.get(0).getIcon());
+        assertEquals(new Timestamp(1_700_000_000_000L), byTimestamp.get(0).getLastPlayed());
+    }
+
+    @Test
+    void testValuesAreNotSplicedIntoSql() throws Exception {
+        repository.create(new Game("Baldur's Gate", 0L));
+
+        assertNotNull(repository.query("SELECT * FROM games WHERE name = ?", "Baldur's Gate"));
+        assertTrue(repository.listQuery("SELECT * FROM games WHERE name = ?", "x' OR '1'='1").isEmpty());
+    }
+
+    @Test
+    void testSelectThrowsWhenTheQueryFails() throws Exception {
+        repository.create(new Game("Celeste", 3600L));
+        assertEquals(1, repository.selectList("SELECT * FROM games").size());
+        assertEquals("Celeste", repository.selectFirst("SELECT * FROM games WHERE name = ?", "Celeste").getName());
+
+        repository.executeScript("DROP TABLE games");
+        // listQuery can't tell a failure from an empty result, selectList can
+        assertTrue(repository.listQuery("SELECT * FROM games").isEmpty());
+        assertThrows(SQLException.class, () -> repository.selectList("SELECT * FROM games"));
+        assertThrows(SQLException.class, () -> repository.selectFirst("SELECT * FROM games"));
+        assertThrows(DatabaseQueryException.class, () -> repository.page(null, 10, "name"));
+    }
+
+    @Test
+    void testStatementsAreCached() throws Exception {
+        SingleConnectionProvider provider = new SingleConnectionProvider(connection);
+        GameRepository games = new GameRepository(provider, Game.class);
+        games.listQuery("SELECT * FROM games WHERE name = ?", "a");
+        games.listQuery("SELECT * FROM games WHERE name = ?", "b");
+
+        StatementCache cache = provider.getStatementCache(connection);
+        assertEquals(1, cache.size());
+        PreparedStatement statement = cache.prepare("SELECT * FROM games WHERE name = ?");
+        assertSame(statement, cache.prepare("SELECT * FROM games WHERE name = ?"));
+
+        // Owned by the provider, closed with it rather than kept for the life of the connection
+        provider.close();
+        assertTrue(statement.isClosed());
+        assertFalse(connection.isClosed());
+    }
+
+    @Test
+    void testStatementCacheIsBounded() throws Exception {
+        StatementCache cache = new StatementCache(connection, 2);
+
+        cache.prepare("SELECT 1");
+        cache.prepare("SELECT 2");
+        cache.prepare("SELECT 3");
+
+        assertEquals(2, cache.size());
+        cache.clear();
+    }
+
+    @Test
+    void testCreateAllReturnsGeneratedIds() throws Exception {
+        repository.create(new Game("Existing", 0L));
+        List<Game> games = List.of(new Game("A", 1L), new Game("B", 2L), new Game("C", 3L), new Game("D", 4L), new Game("E", 5L));
+
+        long[] ids = repository.createAll(games);
+
+        assertArrayEquals(new long[]{2, 3, 4, 5, 6}, ids);
+        for (int i = 0; i < games.size(); i++) {
+            assertEquals(ids[i], (long) games.get(i).getId());
+            assertEquals(games.get(i).getName(), repository.query("SELECT * FROM games WHERE id = ?", ids[i]).getName());
+        }
+    }
+
+    @Test
+    void testCreateAllKeepsDefaultsAndReturnsTheIdOfEachRow() throws Exception {
+        repository.executeScript("DROP TABLE games; CREATE TABLE games (id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "name TEXT NOT NULL, play_time INTEGER, icon BLOB DEFAULT x'2A', last_played INTEGER)");
+        // Rows inserted in between, the ids of a batch aren't consecutive
+        repository.executeScript("CREATE TRIGGER games_copy AFTER INSERT ON games WHEN new.name = 'B' BEGIN " +
+                "INSERT INTO games (name, play_time) VALUES ('B copy', 0); END");
+
+        Game withIcon = new Game("C", 3L);
+        withIcon.setIcon(new byte[]{7});
+        List<Game> games = List.of(new Game("A", 1L), new Game("B", 2L), withIcon, new Game("D", 4L));
+
+        long[] ids = repository.createAll(games);
+
+        for (int i = 0; i < games.size(); i++) {
+            assertEquals(games.get(i).getName(), repository.query("SELECT * FROM games WHERE id = ?", ids[i]).getName());
+            assertEquals(ids[i], (long) games.get(i).getId());
+        }
+        assertArrayEquals(new byte[]{42}, repository.query("SELECT * FROM games WHERE name = ?", "A").getIcon());
+        assertArrayEquals(new byte[]{7}, repository.query("SELECT * FROM games WHERE name = ?", "C").getIcon());
+    }
+
+    @Test
+    void testTransactionRollsBack() throws Exception {
+        assertThrows(SQLException.class, () -> repository.inTransaction(() -> {
+            repository.createAll(List.of(new Game("A", 1L), new Game("B", 2L)));
+            repository.create(new Game(null, 3L)); // name is NOT NULL
+            return null;
+        }));
+
+        assertTrue(repository.listQuery("SELECT * FROM games").isEmpty());
+        assertTrue(connection.getAutoCommit());
+    }
+
+    @Test
+    void testStreamMapsLazily() throws Exception {
+        repository.createAll(List.of(new Game("A", 1L), new Game("B", 2L), new Game("C", 3L)));
+
+        try (Stream<Game> stream = repository.stream("SELECT * FROM games WHERE play_time >= ? ORDER BY id", 2L)) {
+            assertEquals(List.of("B", "C"), stream.map(Game::getName).toList());
+        }
+
+        try (Stream<Game> stream = repository.stream("SELECT * FROM games ORDER BY id")) {
+            assertEquals("A", stream.findFirst().orElseThrow().getName());
+        }
+
+        List<String> names = new ArrayList<>();
+        assertEquals(3, repository.forEach("SELECT * FROM games ORDER BY id", game -> names.add(game.getName())));
+        assertEquals(List.of("A", "B", "C"), names);
+    }
+
+    @Test
+    void testExecuteNotifiesOnlyChanges() throws Exception {
+        repository.create(new Game("Celeste", 1L));
+        AtomicInteger invalidations = new AtomicInteger();
+        repository.addListener(new RepositoryListener<>() {
+            @Override
+            public void onInvalidate() {
+                invalidations.incrementAndGet();
+            }
+        });
+
+        repository.execute("SELECT * FROM games");
+        repository.execute("UPDATE games SET play_time = 2 WHERE name = ?", "Hades");
+        repository.execute("UPDATE missing SET play_time = 2");
+        assertEquals(0, invalidations.get());
+
+        repository.execute("UPDATE games SET play_time = 2 WHERE name = ?", "Celeste");
+        assertEquals(1, invalidations.get());
+    }
+
+    @Test
+    void testStatementFailureIsReported() throws Exception {
+        // Deleting a row missing from an external content index corrupts it, SQLite then resets the statement
+        repository.executeScript("""
+                CREATE VIRTUAL TABLE games_fts USING fts5(name, content='games', content_rowid='id');
+                CREATE TRIGGER games_fts_insert AFTER INSERT ON games BEGIN
+                  INSERT INTO games_fts(rowid, name) VALUES (new.id, new.name);
+                END;
+                CREATE TRIGGER games_fts_update AFTER UPDATE ON games BEGIN
+                  INSERT INTO games_fts(games_fts, rowid, name) VALUES ('delete', old.id, old.name);
+                  INSERT INTO games_fts(rowid, name) VALUES (new.id, new.name);
+                END;
+                CREATE TRIGGER games_play_time AFTER INSERT ON games BEGIN
+                  UPDATE games SET play_time = 0 WHERE id = new.id;
+                END;
+                """);
+
+        SQLException failure = assertThrows(SQLException.class, () -> repository.create(new Game("Celeste", 1L)));
+        assertTrue(failure.getMessage().contains("SQLITE_CORRUPT"), failure.getMessage());
+    }
+
+    @Test
+    void testDeclaredIndexesAreCreatedOnce() throws Exception {
+        List<IndexDefinition> created = repository.createIndexes();
+
+        assertEquals(List.of("ux_games_name", "idx_games_play_time_id"), created.stream().map(IndexDefinition::name).toList());
+        assertTrue(repository.indexExists("ux_games_name"));
+        assertTrue(repository.createIndexes().isEmpty());
+
+        repository.create(new Game("Celeste", 1L));
+        assertThrows(SQLException.class, () -> repository.createAll(List.of(new Game("Celeste", 2L))));
+
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN QUERY PLAN SELECT * FROM games WHERE play_time = 1 ORDER BY id")) {
+            assertTrue(plan.next());
+            assertTrue(plan.getString("detail").contains("idx_games_play_time_id"));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package blum.test.database;
+
+import blum.api.database.PoolMetrics;
+import blum.core.database.ConnectionPool;
+import blum.core.database.PoolSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    @TempDir
+    File folder;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new ConnectionPool(new File(folder, "test.db"), new PoolSettings(2, 1000, "normal", -2000, 0, "memory", 1000));
+        pool.write(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                return statement.executeUpdate("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT)");
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private static String single(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    @Test
+    void testWalModeAndPragmas() throws Exception {
+        assertEquals("wal", pool.read(connection -> single(connection, "PRAGMA journal_mode")));
+        assertEquals("1", pool.read(connection -> single(connection, "PRAGMA synchronous")));
+        assertEquals("2", pool.read(connection -> single(connection, "PRAGMA temp_store")));
+        assertEquals("1", pool.read(connection -> single(connection, "PRAGMA foreign_keys")));
+    }
+
+    @Test
+    void testReadersAreQueryOnly() {
+        assertThrows(SQLException.class, () -> pool.read(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                return statement.executeUpdate("INSERT INTO items (name) VALUES ('x')");
+            }
+        }));
+    }
+
+    @Test
+    void testReadersDoNotWaitForTheWriter() throws Exception {
+        CountDownLatch inTransaction = new CountDownLatch(1);
+        CountDownLatch readDone = new CountDownLatch(1);
+
+        Thread writer = new Thread(() -> {
+            try {
+                pool.write(connection -> {
+                    connection.setAutoCommit(false);
+                    try (Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("INSERT INTO items (name) VALUES ('pending')");
+                        // Read-your-writes through the writer while it is held
+                        assertEquals("1", pool.read(c -> single(c, "SELECT COUNT(*) FROM items")));
+                        inTransaction.countDown();
+                        readDone.await(5, TimeUnit.SECONDS);
+                        connection.commit();
+                    } catch (InterruptedException e) {
+                        throw new SQLException(e);
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                    return null;
+                });
+            } catch (SQLException e) {
+                fail(e);
+            }
+        });
+        writer.start();
+
+        assertTrue(inTransaction.await(5, TimeUnit.SECONDS));
+        // The uncommitted row isn't visible to readers, which aren't blocked by the writer
+        assertEquals("0", pool.read(connection -> single(connection, "SELECT COUNT(*) FROM items")));
+        readDone.countDown();
+        writer.join();
+
+        assertEquals("1", pool.read(connection -> single(connection, "SELECT COUNT(*) FROM items")));
+    }
+
+    @Test
+    void testMetrics() throws Exception {
+        Connection first = pool.acquireReader();
+        Connection second = pool.acquireReader();
+        assertNotSame(first, second);
+        assertEquals(0, pool.getMetrics().idleReaders());
+
+        pool.releaseReader(first);
+        pool.releaseReader(second);
+
+        PoolMetrics metrics = pool.getMetrics();
+        assertEquals(2, metrics.readers());
+        assertEquals(2, metrics.idleReaders());
+        assertTrue(metrics.readerAcquisitions() >= 2);
+        assertTrue(metrics.writerAcquisitions() >= 1);
+    }
+
+    @Test
+    void testCloseWaitsForRunningWorkAndRejectsNewWork() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        CompletableFuture<Integer> running = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.write(connection -> {
+                    writing.countDown();
+                    try (Statement statement = connection.createStatement()) {
+                        finish.await(5, TimeUnit.SECONDS);
+                        return statement.executeUpdate("INSERT INTO items (name) VALUES ('running')");
+                    } catch (InterruptedException e) {
+                        throw new SQLException(e);
+                    }
+                });
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // Submitted before closing, so it still gets a connection
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+                return pool.read(connection -> single(connection, "SELECT 'queued'"));
+            } catch (SQLException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }, pool.getExecutor());
+
+        Thread closing = new Thread(pool::close);
+        closing.start();
+
+        // New work is rejected as soon as the pool is closing
+        long deadline = System.currentTimeMillis() + 5000;
+        boolean rejected = false;
+        while (!rejected && System.currentTimeMillis() < deadline) {
+            try {
+                pool.read(connection -> single(connection, "SELECT 1"));
+                Thread.sleep(5);
+            } catch (SQLException e) {
+                assertTrue(e.getMessage().contains("closed"), e.getMessage());
+                rejected = true;
+            }
+        }
+        assertTrue(rejected);
+        assertTrue(closing.isAlive());
+
+        finish.countDown();
+        assertEquals(1, running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        closing.join(5000);
+        assertFalse(closing.isAlive());
+    }
+}
@@ -4,6 +4,11 @@ import blum.api.annotation.Identifier;
 import blum.api.annotation.Ignored;
 import blum.api.annotation.Named;
 import blum.api.database.DatabaseMapper;
+import blum.api.database.IndexDefinition;
+import blum.api.database.RowMapper;
+import blum.api.database.annotation.CompositeIndex;
+import blum.api.database.annotation.Indexed;
+import blum.api.database.annotation.Unique;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,11 +18,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -123,6 +130,9 @@ class DatabaseMapperTest {
         public byte[] getBytesField() { return bytesField; }
     }
 
+    @Mock
+    private ResultSetMetaData mockMetaData;
+
     @BeforeEach
     void setUp() {
         reset(mockResultSet);
@@ -265,88 +275,6 @@ class DatabaseMapperTest {
         assertEquals(30, user.getAge());
     }
 
-    @Test
-    void testBuildInsertSQL() throws Exception {
-        // Arrange
-        UserWithAnnotations user = new UserWithAnnotations(null, "John Doe", "ignored", 30);
-
-        // Act
-        String sql = DatabaseMapper.buildInsertSQL(user, "users");
-
-        // Assert
-        assertNotNull(sql);
-        assertTrue(sql.startsWith("INSERT INTO users"));
-        assertTrue(sql.contains("user_name")); // Should use @Named annotation
-        assertTrue(sql.contains("'John Doe'"));
-        assertTrue(sql.contains("age"));
-        assertTrue(sql.contains("30"));
-        assertFalse(sql.contains("id")); // Should not include @Identifier field
-        assertFalse(sql.contains("internalField")); // Should not include @Ignored field
-    }
-
-    @Test
-    void testFormatValue() {
-        // Test via buildInsertSQL since formatValue is private
-        UserWithAnnotations user = new UserWithAnnotations(null, "John's Data", null, 25);
-
-        assertDoesNotThrow(() -> {
-            String sql = DatabaseMapper.buildInsertSQL(user, "users");
-            // SQL should properly escape single quotes
-            assertTrue(sql.contains("'John''s Data'"));
-        });
-    }
-
-    @Test
-    void testFormatSQL() {
-        // Arrange
-        String sql = "SELECT * FROM users WHERE name = ? AND age = ?";
-        String[] values = {"John Doe", "25"};
-
-        // Act
-        String formattedSQL = DatabaseMapper.formatSQL(sql, values);
-
-        // Assert
-        assertEquals("SELECT * FROM users WHERE name = 'John Doe' AND age = '25'", formattedSQL);
-    }
-
-    @Test
-    void testFormatSQLWithNoParameters() {
-        // Arrange
-        String sql = "SELECT * FROM users";
-
-        // Act
-        String formattedSQL = DatabaseMapper.formatSQL(sql);
-
-        // Assert
-        assertEquals("SELECT * FROM users", formattedSQL);
-    }
-
-    @Test
-    void testFormatSQLWithQuoteEscaping() {
-        // Arrange
-        String sql = "SELECT * FROM users WHERE name = ?";
-        String[] values = {"John's Data"};
-
-        // Act
-        String formattedSQL = DatabaseMapper.formatSQL(sql, values);
-
-        // Assert
-        assertEquals("SELECT * FROM users WHERE name = 'John''s Data'", formattedSQL);
-    }
-
-    @Test
-    void testFormatSQLWithMoreParametersThanValues() {
-        // Arrange
-        String sql = "SELECT * FROM users WHERE name = ? AND age = ? AND city = ?";
-        String[] values = {"John Doe"};
-
-        // Act
-        String formattedSQL = DatabaseMapper.formatSQL(sql, values);
-
-        // Assert
-        assertEquals("SELECT * FROM users WHERE name = 'John Doe' AND age = ? AND city = ?", formattedSQL);
-    }
-
     @Test
     void testGetColumnName() throws Exception {
         // Test field without annotation
@@ -398,4 +326,78 @@ class DatabaseMapperTest {
         assertEquals((short) 0, entity.getShortPrimitiveField());
         assertEquals((byte) 0, entity.getBytePrimitiveField());
     }
-}
\ No newline at end of file
+
+    @CompositeIndex(columns = {"user_name", "AGE"}, unique = true)
+    @CompositeIndex(columns = {"age"}, name = "by_age")
+    public static class IndexedUser {
+        @Identifier
+        private Long id;
+
+        @Indexed
+        @Named("user_name")
+        private String name;
+
+        @Unique
+        private String email;
+
+        private int age;
+
+        public IndexedUser() {}
+    }
+
+    @CompositeIndex(columns = {"missing"})
+    public static class BrokenIndexUser {
+        private String name;
+
+        public BrokenIndexUser() {}
+    }
+
+    @Test
+    void testIndexesFromAnnotations() throws Exception {
+        List<String> statements = DatabaseMapper.getIndexes(DatabaseMapper.getMapper(IndexedUser.class), "users").stream()
+                .map(IndexDefinition::toSQL)
+                .toList();
+
+        assertEquals(List.of(
+                "CREATE INDEX IF NOT EXISTS idx_users_user_name ON users (user_name)",
+                "CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email ON users (email)",
+                "CREATE UNIQUE INDEX IF NOT EXISTS ux_users_user_name_age ON users (user_name, age)",
+                "CREATE INDEX IF NOT EXISTS by_age ON users (age)"
+        ), statements);
+    }
+
+    @Test
+    void testCompositeIndexWithUnknownColumn() {
+        assertThrows(IllegalArgumentException.class,
+                () -> DatabaseMapper.getIndexes(DatabaseMapper.getMapper(BrokenIndexUser.class), "users"));
+    }
+
+    @Test
+    void testMapperIsCached() throws Exception {
+        assertSame(DatabaseMapper.getMapper(UserWithAnnotations.class), DatabaseMapper.getMapper(UserWithAnnotations.class));
+    }
+
+    @Test
+    void testBoundMapperReadsByIndex() throws Exception {
+        // Arrange
+        when(mockMetaData.getColumnCount()).thenReturn(3);
+        when(mockMetaData.getColumnLabel(1)).thenReturn("id");
+        when(mockMetaData.getColumnLabel(2)).thenReturn("USER_NAME");
+        when(mockMetaData.getColumnLabel(3)).thenReturn("age");
+        when(mockResultSet.getObject(1)).thenReturn(7L);
+        when(mockResultSet.getString(2)).thenReturn("Jane Doe");
+        when(mockResultSet.getInt(3)).thenReturn(25);
+        when(mockResultSet.wasNull()).thenReturn(false);
+
+        // Act
+        RowMapper<UserWithAnnotations> mapper = DatabaseMapper.getMapper(UserWithAnnotations.class).bind(mockMetaData);
+        UserWithAnnotations user = mapper.map(mockResultSet);
+
+        // Assert - columns are read by index, never by name
+        assertEquals(7L, user.getId());
+        assertEquals("Jane Doe", user.getName());
+        assertEquals(25, user.getAge());
+        assertNull(user.getInternalField());
+        verify(mockResultSet, never()).getString("user_name");
+    }
+}
@@ -0,0 +1,142 @@
+package blum.test.database;
+
+import blum.api.annotation.Identifier;
+import blum.api.annotation.Named;
+import blum.api.core.BlumConfiguration;
+import blum.api.database.BlumRepository;
+import blum.api.database.DatabaseMapper;
+import blum.api.database.EntityMapper;
+import blum.api.database.annotation.Model;
+import blum.api.library.model.GameMetadata;
+import blum.api.mapping.GeneratedMapper;
+import blum.api.mapping.GeneratedMappers;
+import blum.core.configuration.ConfigurationMapper;
+import blum.core.configuration.loader.ReflectionHelper;
+import blum.test.database.BlumRepositoryTest.Game;
+import blum.test.database.BlumRepositoryTest.GameRepository;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InvalidClassException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratedMapperTest {
+
+    /** Private fields without accessors, left to reflection by the processor */
+    @Model
+    public static class Hidden {
+        @Identifier
+        private Integer id;
+        @Named("display_name")
+        private String displayName;
+    }
+
+    public static class HiddenRepository extends BlumRepository<Hidden> {
+        public HiddenRepository(Connection connection) throws InvalidClassException {
+            super(connection, Hidden.class);
+        }
+
+        @Override
+        public String getTableName() {
+            return "hidden";
+        }
+
+        @Override
+        public String initTable() {
+            return "CREATE TABLE hidden (id INTEGER PRIMARY KEY AUTOINCREMENT, display_name TEXT);";
+        }
+    }
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    void testModelsHaveGeneratedMappers() throws Exception {
+        assertTrue(DatabaseMapper.getMapper(Game.class).isGenerated());
+        assertTrue(DatabaseMapper.getMapper(GameMetadata.class).isGenerated());
+
+        GeneratedMapper<Game> mapper = GeneratedMappers.find(Game.class);
+        assertNotNull(mapper);
+        assertEquals(List.of("id", "name", "playTime", "icon", "lastPlayed"), mapper.getFields());
+        assertEquals(List.of("id", "name", "play_time", "icon", "last_played"), mapper.getKeys());
+    }
+
+    @Test
+    void testGeneratedMapperConvertsNumbers() {
+        GeneratedMapper<Game> mapper = GeneratedMappers.find(Game.class);
+        Game game = mapper.newInstance();
+
+        mapper.set(game, 0, 7L);
+        mapper.set(game, 2, 42);
+        mapper.set(game, 4, new Timestamp(1000));
+
+        assertEquals(7, game.getId());
+        assertEquals(42L, mapper.get(game, 2));
+        assertEquals(new Timestamp(1000), game.getLastPlayed());
+    }
+
+    @Test
+    void testGeneratedMapperRoundTrip() throws Exception {
+        GameRepository repository = new GameRepository(connection, Game.class);
+        repository.executeScript(repository.initTable());
+
+        Game game = new Game("Portal", 30);
+        game.setIcon(new byte[]{1, 2});
+        repository.create(game);
+
+        Game found = repository.findById(game.getId());
+        assertEquals("Portal", found.getName());
+        assertEquals(30, found.getPlayTime());
+        assertArrayEquals(new byte[]{1, 2}, found.getIcon());
+    }
+
+    @Test
+    void testFallsBackToReflectionWithoutGeneratedMapper() throws Exception {
+        assertNull(GeneratedMappers.find(Hidden.class));
+        EntityMapper<Hidden> mapper = DatabaseMapper.getMapper(Hidden.class);
+        assertFalse(mapper.isGenerated());
+
+        HiddenRepository repository = new HiddenRepository(connection);
+        repository.executeScript(repository.initTable());
+        repository.execute("INSERT INTO hidden (display_name) VALUES (?)", "Celeste");
+
+        Hidden hidden = repository.findById(1);
+        assertEquals(1, mapper.getColumn("id").get(hidden));
+        assertEquals("Celeste", mapper.getColumn("display_name").get(hidden));
+    }
+
+    @Test
+    void testConfigurationParsedThroughGeneratedMapper() throws Exception {
+        assertNotNull(GeneratedMappers.find(BlumConfiguration.class));
+
+        Config conf = ConfigFactory.parseString("network.port = 8080\nglobal.debug = true\ndatabase.metrics.slowQuery = 40");
+        ConfigurationMapper mapper = new ConfigurationMapper(new ReflectionHelper());
+        BlumConfiguration parsed = mapper.parseConfigurationPart(conf.root(), BlumConfiguration.class, "blum");
+
+        assertEquals("blum", parsed.file);
+        assertEquals(8080, parsed.getNetworkPort());
+        assertTrue(parsed.isDebugMode());
+        assertEquals(40, parsed.getDatabaseSlowQuery());
+
+        Config rendered = mapper.toConfig(parsed).toConfig();
+        assertEquals(8080, rendered.getInt("network.port"));
+        assertFalse(rendered.hasPath("file"));
+    }
+}
@@ -0,0 +1,97 @@
+package blum.test.database;
+
+import blum.api.database.Page;
+import blum.test.database.BlumRepositoryTest.Game;
+import blum.test.database.BlumRepositoryTest.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPaginationTest {
+
+    private Connection connection;
+    private GameRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameRepository(connection, Game.class);
+        repository.executeScript(repository.initTable());
+        repository.createIndexes();
+
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // Duplicated play times, the identifier breaks ties
+            games.add(new Game("Game " + i, i % 5));
+        }
+        repository.createAll(games);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private List<Game> readAll(boolean descending, int limit) {
+        List<Game> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Game> page = repository.page(cursor, limit, descending, "play_time");
+            assertTrue(page.items().size() <= limit);
+            all.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    @Test
+    void testPagesCoverTheTableInOrder() {
+        List<Game> expected = repository.listQuery("SELECT * FROM games ORDER BY play_time, id");
+
+        assertEquals(expected, readAll(false, 7));
+        assertEquals(expected, readAll(false, 25));
+    }
+
+    @Test
+    void testDescendingPages() {
+        assertEquals(repository.listQuery("SELECT * FROM games ORDER BY play_time DESC, id DESC"), readAll(true, 4));
+    }
+
+    @Test
+    void testLastPageHasNoCursor() {
+        Page<Game> page = repository.page(null, 30, "play_time");
+
+        assertEquals(25, page.items().size());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testRejectsForeignCursors() {
+        String cursor = repository.page(null, 5, "play_time").nextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> repository.page(cursor, 5, "name"));
+        assertThrows(IllegalArgumentException.class, () -> repository.page("not a cursor", 5, "play_time"));
+        assertThrows(IllegalArgumentException.class, () -> repository.page(null, 5, "missing"));
+    }
+
+    @Test
+    void testSeekUsesTheSortIndex() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN QUERY PLAN SELECT * FROM games WHERE (play_time, id) > (2, 10) ORDER BY play_time, id LIMIT 8")) {
+            StringBuilder details = new StringBuilder();
+            while (plan.next()) details.append(plan.getString("detail")).append('\n');
+
+            assertTrue(details.toString().contains("idx_games_play_time_id"), details.toString());
+            assertFalse(details.toString().contains("TEMP B-TREE"), details.toString());
+        }
+    }
+}
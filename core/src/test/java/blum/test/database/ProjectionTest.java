@@ -0,0 +1,101 @@
+package blum.test.database;
+
+import blum.api.annotation.Named;
+import blum.api.database.DatabaseMapper;
+import blum.api.database.Page;
+import blum.test.database.BlumRepositoryTest.Game;
+import blum.test.database.BlumRepositoryTest.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectionTest {
+
+    public record GameTime(Integer id, String name, long playTime) {
+    }
+
+    public record Renamed(@Named("name") String title, byte[] icon, int missing) {
+    }
+
+    public interface GameView {
+        String getName();
+
+        long playTime();
+
+        default String label() {
+            return getName() + " (" + playTime() + ")";
+        }
+    }
+
+    private Connection connection;
+    private GameRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameRepository(connection, Game.class);
+        repository.executeScript(repository.initTable());
+        repository.createAll(List.of(new Game("Portal", 30), new Game("Celeste", 10), new Game("Hades", 20)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    void testRecordProjectionMatchesSnakeCaseColumns() {
+        List<GameTime> games = repository.listQuery("SELECT id, name, play_time FROM games ORDER BY play_time", GameTime.class);
+
+        assertEquals(List.of(new GameTime(2, "Celeste", 10), new GameTime(3, "Hades", 20), new GameTime(1, "Portal", 30)), games);
+    }
+
+    @Test
+    void testNamedComponentsAndMissingColumns() {
+        Renamed game = repository.query("SELECT name, icon FROM games WHERE name = ?", Renamed.class, "Hades");
+
+        assertEquals("Hades", game.title());
+        assertNull(game.icon());
+        assertEquals(0, game.missing());
+    }
+
+    @Test
+    void testInterfaceProjection() {
+        GameView game = repository.query("SELECT name, play_time FROM games WHERE id = ?", GameView.class, 1);
+
+        assertEquals("Portal", game.getName());
+        assertEquals("Portal (30)", game.label());
+        assertEquals(game, repository.query("SELECT name, play_time FROM games WHERE id = ?", GameView.class, 1));
+        assertTrue(game.toString().contains("name=Portal"));
+    }
+
+    @Test
+    void testProjectionPagesReadOnlyItsColumns() {
+        Page<GameTime> first = repository.page(GameTime.class, null, 2, false, "play_time");
+        Page<GameTime> second = repository.page(GameTime.class, first.nextCursor(), 2, false, "play_time");
+
+        assertEquals(List.of("Celeste", "Hades"), first.items().stream().map(GameTime::name).toList());
+        assertEquals(List.of("Portal"), second.items().stream().map(GameTime::name).toList());
+        assertFalse(second.hasNext());
+
+        // Cursors are the same as for entity pages
+        assertEquals(List.of("Portal"), repository.page(first.nextCursor(), 2, "play_time").items().stream().map(Game::getName).toList());
+    }
+
+    @Test
+    void testInvalidProjections() {
+        assertThrows(IllegalArgumentException.class, () -> repository.listQuery("SELECT * FROM games", Game.class));
+        assertThrows(IllegalArgumentException.class, () -> repository.page(Renamed.class, null, 2, false, "name"));
+    }
+
+    @Test
+    void testProjectionMappersAreCached() {
+        assertSame(DatabaseMapper.getProjection(GameTime.class), DatabaseMapper.getProjection(GameTime.class));
+    }
+}
@@ -0,0 +1,117 @@
+package blum.test.database;
+
+import blum.api.database.QueryMetrics;
+import blum.api.database.RepositoryMetrics;
+import blum.api.database.SlowQuery;
+import blum.api.database.StatementMetrics;
+import blum.test.database.BlumRepositoryTest.Game;
+import blum.test.database.BlumRepositoryTest.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryMetricsTest {
+
+    private Connection connection;
+    private GameRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameRepository(connection, Game.class);
+        repository.executeScript(repository.initTable());
+        repository.getQueryMetrics().reset();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private StatementMetrics statement(String sql) {
+        return repository.getMetrics().statements().stream()
+                .filter(metrics -> metrics.sql().equals(sql)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testNormalizeCollapsesLiteralsAndLists() {
+        assertEquals("SELECT * FROM games WHERE name = ? AND play_time > ?",
+                QueryMetrics.normalize("SELECT *\n  FROM games WHERE name = 'it''s' AND play_time > 42"));
+        assertEquals("SELECT * FROM games WHERE id IN (?, ...)",
+                QueryMetrics.normalize("SELECT * FROM games WHERE id IN (?, ?, ?)"));
+        assertEquals("SELECT * FROM t1 WHERE (a, b) IN (VALUES (?, ...), ...)",
+                QueryMetrics.normalize("SELECT * FROM t1 WHERE (a, b) IN (VALUES (?, ?), (?, ?), (?,?))"));
+    }
+
+    @Test
+    void testQueriesRecordRowsAndMappingTime() throws Exception {
+        repository.createAll(List.of(new Game("Portal", 10), new Game("Celeste", 20), new Game("Hades", 30)));
+        repository.listQuery("SELECT * FROM games WHERE play_time > ?", 5);
+        repository.listQuery("SELECT * FROM games WHERE play_time > ?", 25);
+
+        StatementMetrics select = statement("SELECT * FROM games WHERE play_time > ?");
+        assertEquals(2, select.count());
+        assertEquals(4, select.rows());
+        assertTrue(select.mappingMillis() > 0);
+        assertTrue(select.mappingMillis() <= select.totalMillis());
+        assertTrue(select.p50Millis() <= select.maxMillis());
+        assertEquals(2, select.histogram().values().stream().mapToLong(Long::longValue).sum());
+
+        StatementMetrics insert = repository.getMetrics().statements().stream()
+                .filter(metrics -> metrics.sql().startsWith("INSERT")).findFirst().orElseThrow();
+        assertEquals(3, insert.rows());
+
+        RepositoryMetrics metrics = repository.getMetrics();
+        assertEquals("games", metrics.table());
+        assertEquals(3, metrics.total().count());
+    }
+
+    @Test
+    void testFailuresAreCounted() {
+        assertTrue(repository.listQuery("SELECT * FROM missing").isEmpty());
+        assertFalse(repository.execute("UPDATE missing SET name = 'x'"));
+
+        assertEquals(1, statement("SELECT * FROM missing").errors());
+        assertEquals(1, statement("UPDATE missing SET name = ?").errors());
+        assertEquals(2, repository.getMetrics().total().errors());
+    }
+
+    @Test
+    void testExecuteRecordsChangedRows() throws Exception {
+        repository.createAll(List.of(new Game("Portal", 10), new Game("Celeste", 20)));
+        repository.execute("UPDATE games SET play_time = play_time + 1");
+
+        assertEquals(2, statement("UPDATE games SET play_time = play_time + ?").rows());
+    }
+
+    @Test
+    void testSlowQueriesAreLoggedWithTheirPlan() throws Exception {
+        repository.create(new Game("Portal", 10));
+        repository.getQueryMetrics().setSlowQueryMillis(0);
+
+        repository.listQuery("SELECT * FROM games WHERE play_time = ?", 10);
+        repository.findById(1);
+
+        List<SlowQuery> slow = repository.getMetrics().slowQueries();
+        assertEquals(2, slow.size());
+        // Most recent first
+        assertTrue(slow.get(0).plan().stream().anyMatch(line -> line.contains("USING INTEGER PRIMARY KEY")), slow.get(0).plan().toString());
+        assertTrue(slow.get(1).plan().stream().anyMatch(line -> line.startsWith("SCAN")), slow.get(1).plan().toString());
+        assertEquals("SELECT * FROM games WHERE play_time = ?", slow.get(1).sql());
+    }
+
+    @Test
+    void testDisabledMetricsRecordNothing() {
+        repository.getQueryMetrics().setEnabled(false);
+        repository.listQuery("SELECT * FROM games");
+
+        assertEquals(0, repository.getMetrics().total().count());
+        assertTrue(repository.getMetrics().statements().isEmpty());
+    }
+}
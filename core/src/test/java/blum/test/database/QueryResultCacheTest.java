@@ -0,0 +1,155 @@
+package blum.test.database;
+
+import blum.api.database.QueryCacheStats;
+import blum.api.database.QueryResultCache;
+import blum.test.database.BlumRepositoryTest.Game;
+import blum.test.database.BlumRepositoryTest.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryResultCacheTest {
+
+    public record Total(long total) {
+    }
+
+    private Connection connection;
+    private QueryResultCache cache;
+    private GameRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        cache = new QueryResultCache(1 << 20);
+        repository = new GameRepository(connection, Game.class);
+        repository.setResultCache(cache);
+        repository.executeScript(repository.initTable());
+        repository.createAll(List.of(new Game("Portal", 30), new Game("Celeste", 10), new Game("Hades", 20)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    void testTablesRead() {
+        assertEquals(Set.of("games"), QueryResultCache.tablesRead("SELECT count(*) FROM games WHERE play_time > ?"));
+        assertEquals(Set.of("games", "tags", "platforms"), QueryResultCache.tablesRead(
+                "SELECT * FROM main.games g JOIN \"tags\" t ON t.game = g.id, platforms AS p WHERE p.id = g.platform"));
+        assertEquals(Set.of("games", "recent"), QueryResultCache.tablesRead(
+                "WITH recent AS (SELECT * FROM games ORDER BY id DESC LIMIT 10) SELECT name FROM recent"));
+        assertEquals(Set.of("games"), QueryResultCache.tablesRead("SELECT 'from tags' FROM games -- join platforms"));
+    }
+
+    @Test
+    void testTablesWritten() {
+        assertEquals(Set.of("games"), QueryResultCache.tablesWritten("INSERT OR REPLACE INTO games (name) VALUES (?)"));
+        assertEquals(Set.of("games"), QueryResultCache.tablesWritten("UPDATE OR IGNORE games SET name = ?"));
+        assertEquals(Set.of("games"), QueryResultCache.tablesWritten("DELETE FROM games WHERE id = ?"));
+        assertEquals(Set.of(), QueryResultCache.tablesWritten("SELECT * FROM games"));
+        assertNull(QueryResultCache.tablesWritten("DROP TABLE games"));
+        assertNull(QueryResultCache.tablesWritten("WITH old AS (SELECT id FROM games) DELETE FROM games WHERE id IN old"));
+    }
+
+    @Test
+    void testCachedUntilTableWritten() throws Exception {
+        assertEquals(new Total(3), repository.cachedQuery("SELECT count(*) AS total FROM games", Total.class));
+        assertEquals(new Total(3), repository.cachedQuery("SELECT  count(*) AS total\n FROM games", Total.class));
+        assertEquals(1, cache.getStats().hits());
+
+        repository.create(new Game("Tunic", 5));
+        assertEquals(new Total(4), repository.cachedQuery("SELECT count(*) AS total FROM games", Total.class));
+        assertEquals(1, cache.getStats().invalidations());
+    }
+
+    @Test
+    void testParametersArePartOfTheKey() {
+        String sql = "SELECT count(*) AS total FROM games WHERE play_time > ?";
+
+        assertEquals(new Total(2), repository.cachedQuery(sql, Total.class, 15));
+        assertEquals(new Total(1), repository.cachedQuery(sql, Total.class, 25));
+        assertEquals(new Total(2), repository.cachedQuery(sql, Total.class, 15));
+
+        QueryCacheStats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.entries());
+    }
+
+    @Test
+    void testWritesOfAnotherRepositoryInvalidate() throws Exception {
+        GameRepository other = new GameRepository(connection, Game.class);
+        other.setResultCache(cache);
+
+        assertEquals(new Total(3), repository.cachedQuery("SELECT count(*) AS total FROM games", Total.class));
+        other.execute("DELETE FROM games WHERE name = ?", "Hades");
+        assertEquals(new Total(2), repository.cachedQuery("SELECT count(*) AS total FROM games", Total.class));
+    }
+
+    @Test
+    void testWritesToOtherTablesKeepResults() {
+        repository.execute("CREATE TABLE tags (name TEXT)");
+        assertEquals(new Total(3), repository.cachedQuery("SELECT count(*) AS total FROM games", Total.class));
+
+        repository.execute("INSERT INTO tags (name) VALUES (?)", "roguelike");
+        repository.cachedQuery("SELECT count(*) AS total FROM games", Total.class);
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    void testCachedEntitiesAreCopies() {
+        List<Game> games = repository.cachedListQuery("SELECT * FROM games ORDER BY id");
+        games.get(0).setName("Changed");
+
+        assertEquals("Portal", repository.cachedListQuery("SELECT * FROM games ORDER BY id").get(0).getName());
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    void testMemoryBound() {
+        QueryResultCache small = new QueryResultCache(2048);
+        repository.setResultCache(small);
+
+        for (int i = 0; i < 20; i++) {
+            repository.cachedQuery("SELECT count(*) AS total FROM games WHERE play_time > ?", Total.class, i);
+        }
+
+        QueryCacheStats stats = small.getStats();
+        assertTrue(stats.evictions() > 0);
+        assertTrue(stats.bytes() <= stats.maxBytes());
+        assertEquals(20 - stats.evictions(), stats.entries());
+    }
+
+    @Test
+    void testResultReadBeforeWriteIsNotCached() {
+        Set<String> tables = Set.of("games");
+        long stamp = cache.stamp(tables);
+        cache.invalidate("GAMES");
+
+        assertFalse(cache.put(QueryResultCache.key("SELECT * FROM games"), tables, List.of(), 0, stamp));
+        assertEquals(1, cache.getStats().rejected());
+    }
+
+    @Test
+    void testResultReadBeforeCommitIsNotCached() throws Exception {
+        Set<String> tables = Set.of("games");
+        long[] stamp = new long[1];
+        repository.inTransaction(() -> {
+            repository.create(new Game("Tunic", 5));
+            // A reader stamping the table now still loads the committed rows, without Tunic
+            stamp[0] = cache.stamp(tables);
+            return null;
+        });
+
+        assertFalse(cache.put(QueryResultCache.key("SELECT count(*) AS total FROM games"), tables, List.of(new Total(3)), 0, stamp[0]));
+        assertEquals(new Total(4), repository.cachedQuery("SELECT count(*) AS total FROM games", Total.class));
+    }
+}
@@ -0,0 +1,163 @@
+package blum.test.database;
+
+import blum.api.database.CacheStats;
+import blum.api.database.LruRepositoryCache;
+import blum.api.database.RepositoryCache;
+import blum.api.database.RepositoryListener;
+import blum.test.database.BlumRepositoryTest.Game;
+import blum.test.database.BlumRepositoryTest.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryCacheTest {
+
+    private Connection connection;
+    private GameRepository repository;
+    private LruRepositoryCache<Game> cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameRepository(connection, Game.class);
+        repository.executeScript(repository.initTable());
+
+        cache = new LruRepositoryCache<>(16);
+        repository.setCache(cache);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    void testLookupsAreCached() throws Exception {
+        repository.create(new Game("Celeste", 10L));
+
+        Game first = repository.findBy("name", "Celeste");
+        Game second = repository.findBy("name", "Celeste");
+
+        assertEquals(first, second);
+        assertNotSame(first, second, "Callers get copies, not the cached entity");
+        assertEquals(second, repository.findById(second.getId()));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.size());
+    }
+
+    @Test
+    void testNonIndexedColumnsBypassTheCache() throws Exception {
+        repository.create(new Game("Celeste", 10L));
+
+        assertNotNull(repository.findBy("play_time", 10L));
+        assertEquals(0, cache.getStats().size());
+        assertThrows(IllegalArgumentException.class, () -> repository.findBy("missing", 1));
+    }
+
+    @Test
+    void testDeleteWhereInvalidatesEveryDeletedEntry() throws Exception {
+        repository.createAll(List.of(new Game("Celeste", 10L), new Game("Hades", 20L), new Game("Tunic", 30L)));
+        Game celeste = repository.findBy("name", "Celeste");
+        Game hades = repository.findBy("name", "Hades");
+        Game tunic = repository.findBy("name", "Tunic");
+
+        List<Object> deletedIds = new ArrayList<>();
+        repository.addListener(new RepositoryListener<>() {
+            @Override
+            public void onDelete(Object id) {
+                deletedIds.add(id);
+            }
+        });
+
+        List<Object> ids = repository.deleteWhere("play_time < ?", 25L);
+        assertEquals(2, ids.size());
+        assertEquals(ids, deletedIds);
+        assertNull(repository.findById(celeste.getId()));
+        assertNull(repository.findBy("name", "Hades"));
+        assertNull(repository.findById(hades.getId()));
+        assertEquals(tunic, repository.findById(tunic.getId()));
+        assertTrue(repository.deleteWhere("play_time < ?", 25L).isEmpty());
+    }
+
+    @Test
+    void testWritesInvalidateEntries() throws Exception {
+        repository.create(new Game("Celeste", 10L));
+        Game game = repository.findBy("name", "Celeste");
+        repository.findById(game.getId());
+
+        game.setName("Celeste 64");
+        assertTrue(repository.update(game));
+        assertNull(repository.findBy("name", "Celeste"));
+        assertEquals("Celeste 64", repository.findById(game.getId()).getName());
+
+        assertTrue(repository.delete(game));
+        assertNull(repository.findById(game.getId()));
+    }
+
+    @Test
+    void testRawStatementsClearTheCache() throws Exception {
+        repository.create(new Game("Hades", 10L));
+        repository.findBy("name", "Hades");
+
+        repository.execute("UPDATE games SET play_time = ? WHERE name = ?", 99L, "Hades");
+
+        assertEquals(99L, repository.findBy("name", "Hades").getPlayTime());
+    }
+
+    @Test
+    void testRolledBackTransactionDoesNotLeaveStaleEntries() throws Exception {
+        repository.create(new Game("Hades", 10L));
+        Game game = repository.findBy("name", "Hades");
+
+        assertThrows(IllegalStateException.class, () -> repository.inTransaction(() -> {
+            game.setPlayTime(500L);
+            repository.update(game);
+            repository.findBy("name", "Hades");
+            throw new IllegalStateException("rollback");
+        }));
+
+        assertEquals(10L, repository.findBy("name", "Hades").getPlayTime());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        LruRepositoryCache<String> lru = new LruRepositoryCache<>(2);
+        RepositoryCache.Key a = new RepositoryCache.Key("id", 1);
+        RepositoryCache.Key b = new RepositoryCache.Key("id", 2);
+        RepositoryCache.Key c = new RepositoryCache.Key("id", 3);
+
+        lru.put(a, "a");
+        lru.put(b, "b");
+        lru.get(a);
+        lru.put(c, "c");
+
+        assertEquals("a", lru.get(a));
+        assertNull(lru.get(b));
+        assertEquals("c", lru.get(c));
+        assertEquals(1, lru.getStats().evictions());
+    }
+
+    @Test
+    void testExpiredEntries() throws Exception {
+        LruRepositoryCache<String> lru = new LruRepositoryCache<>(2, Duration.ofMillis(1));
+        RepositoryCache.Key key = new RepositoryCache.Key("id", 1);
+
+        lru.put(key, "a");
+        Thread.sleep(5);
+
+        assertNull(lru.get(key));
+        assertEquals(1, lru.getStats().evictions());
+        assertEquals(0, lru.getStats().size());
+    }
+}
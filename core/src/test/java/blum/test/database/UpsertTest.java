@@ -0,0 +1,144 @@
+package blum.test.database;
+
+import blum.api.database.RepositoryListener;
+import blum.api.database.UpsertResult;
+import blum.core.database.ConnectionPool;
+import blum.core.database.PoolSettings;
+import blum.test.database.BlumRepositoryTest.Game;
+import blum.test.database.BlumRepositoryTest.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpsertTest {
+
+    private Connection connection;
+    private GameRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameRepository(connection, Game.class);
+        repository.executeScript(repository.initTable());
+        repository.createIndexes();
+
+        repository.createAll(List.of(new Game("Celeste", 10L), new Game("Hades", 20L)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private long playTime(String name) {
+        return repository.findBy("name", name).getPlayTime();
+    }
+
+    @Test
+    void testUpsertInsertsAndUpdates() throws Exception {
+        int written = repository.upsertAll(List.of(new Game("Hades", 25L), new Game("Tunic", 5L)), "name");
+
+        assertEquals(2, written);
+        assertEquals(3, repository.listQuery("SELECT * FROM games").size());
+        assertEquals(25L, playTime("Hades"));
+        assertEquals(10L, playTime("Celeste"));
+    }
+
+    @Test
+    void testUpsertNeedsKnownColumns() {
+        assertThrows(IllegalArgumentException.class, () -> repository.upsertAll(List.of(new Game("A", 1L)), "missing"));
+        assertThrows(IllegalArgumentException.class, () -> repository.upsertAll(List.of(new Game("A", 1L))));
+    }
+
+    @Test
+    void testMergeOnlyWritesChangedRows() throws Exception {
+        List<String> events = new ArrayList<>();
+        repository.addListener(new RepositoryListener<>() {
+            @Override
+            public void onInsert(Game entity) {
+                events.add("insert " + entity.getName());
+            }
+
+            @Override
+            public void onUpdate(Game entity) {
+                events.add("update " + entity.getName());
+            }
+        });
+
+        Game celeste = new Game("Celeste", 10L);
+        Game hades = new Game("Hades", 30L);
+        Game tunic = new Game("Tunic", 5L);
+        UpsertResult result = repository.mergeAll(List.of(celeste, hades, tunic), "name");
+
+        assertEquals(new UpsertResult(1, 1, 1), result);
+        assertEquals(List.of("insert Tunic", "update Hades"), events);
+        assertEquals(30L, playTime("Hades"));
+        assertNotNull(celeste.getId());
+        assertEquals(repository.findBy("name", "Tunic").getId(), tunic.getId());
+    }
+
+    @Test
+    void testMergeOfUnchangedSourceWritesNothing() throws Exception {
+        List<Game> source = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            source.add(new Game("Game " + i, i));
+        }
+        assertEquals(2_000, repository.mergeAll(source, "name").inserted());
+
+        List<Game> again = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            again.add(new Game("Game " + i, i));
+        }
+        UpsertResult result = repository.mergeAll(again, "name");
+
+        assertEquals(0, result.written());
+        assertEquals(2_000, result.unchanged());
+    }
+
+    @Test
+    void testConcurrentMergesOfANewRowInsertItOnce(@TempDir File folder) throws Exception {
+        ConnectionPool pool = new ConnectionPool(new File(folder, "merge.db"), new PoolSettings(2, 1000, "normal", -2000, 0, "memory", 1000));
+        try {
+            GameRepository games = new GameRepository(pool, Game.class);
+            games.executeScript(games.initTable());
+            games.createIndexes();
+
+            for (int i = 0; i < 50; i++) {
+                String name = "Game " + i;
+                CountDownLatch start = new CountDownLatch(1);
+                List<CompletableFuture<UpsertResult>> merges = new ArrayList<>();
+                for (int j = 0; j < 2; j++) {
+                    merges.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                            return games.mergeAll(List.of(new Game(name, 10L)), "name");
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }));
+                }
+                start.countDown();
+
+                // The second merge must find the row of the first one instead of inserting it again
+                int inserted = 0;
+                for (CompletableFuture<UpsertResult> merge : merges) inserted += merge.get(5, TimeUnit.SECONDS).inserted();
+                assertEquals(1, inserted);
+            }
+            assertEquals(50, games.listQuery("SELECT * FROM games").size());
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package blum.test.database;
+
+import blum.api.database.PoolMetrics;
+import blum.core.database.ConnectionPool;
+import blum.core.database.PoolSettings;
+import blum.core.database.WriteBehindSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindQueueTest {
+
+    @TempDir
+    File folder;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new ConnectionPool(new File(folder, "test.db"),
+                new PoolSettings(2, 1000, "normal", -2000, 0, "memory", 1000),
+                new WriteBehindSettings(true, 1000, 100, 20));
+        pool.write(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                return statement.executeUpdate("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private CompletableFuture<Integer> insert(String name) {
+        return pool.submitWrite(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO items (name) VALUES (?)")) {
+                statement.setString(1, name);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    private int count() throws SQLException {
+        return pool.read(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM items")) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        });
+    }
+
+    @Test
+    void testWritesAreGroupedIntoBatches() throws Exception {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            futures.add(insert("item-" + i));
+        }
+
+        pool.flush();
+
+        for (CompletableFuture<Integer> future : futures) {
+            assertEquals(1, future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(250, count());
+
+        PoolMetrics metrics = pool.getMetrics();
+        assertEquals(0, metrics.pendingWrites());
+        // The flush marker is committed as a write too
+        assertEquals(251, metrics.queuedWrites());
+        assertTrue(metrics.writeBatches() < 251, "Writes should share transactions");
+    }
+
+    @Test
+    void testFailingWriteDoesNotRollBackItsBatch() throws Exception {
+        CompletableFuture<Integer> first = insert("first");
+        CompletableFuture<Integer> failing = insert(null);
+        CompletableFuture<Integer> last = insert("last");
+
+        pool.flush();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, last.get(5, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLException.class, exception.getCause());
+        assertEquals(2, count());
+    }
+
+    @Test
+    void testCloseCommitsQueuedWrites() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            insert("item-" + i);
+        }
+        pool.close();
+
+        pool = new ConnectionPool(new File(folder, "test.db"), new PoolSettings(1, 1000, "normal", -2000, 0, "memory", 1000));
+        assertEquals(100, count());
+    }
+
+    @Test
+    void testWritesSubmittedWhileClosingComplete() throws Exception {
+        List<CompletableFuture<Integer>> writes = new CopyOnWriteArrayList<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int writer = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 500; i++) writes.add(insert("item-" + writer + "-" + i));
+            });
+            writers.add(thread);
+            thread.start();
+        }
+        Thread.sleep(5);
+        pool.close();
+        for (Thread thread : writers) thread.join();
+
+        // Each write is either committed or refused, none is left pending
+        int committed = 0;
+        for (CompletableFuture<Integer> write : writes) {
+            try {
+                committed += write.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertEquals("Write-behind queue is closed", e.getCause().getMessage());
+            }
+        }
+
+        pool = new ConnectionPool(new File(folder, "test.db"), new PoolSettings(1, 1000, "normal", -2000, 0, "memory", 1000));
+        assertEquals(committed, count());
+    }
+}
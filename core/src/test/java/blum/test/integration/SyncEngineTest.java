@@ -0,0 +1,281 @@
+package blum.test.integration;
+
+import blum.api.database.SingleConnectionProvider;
+import blum.api.integration.StoreIntegration;
+import blum.api.integration.SyncBatch;
+import blum.api.integration.SyncCheckpoint;
+import blum.api.integration.SyncResult;
+import blum.api.integration.model.SyncState;
+import blum.api.library.model.GameMetadata;
+import blum.core.integration.SyncEngine;
+import blum.core.integration.repositories.SyncStateRepository;
+import blum.core.library.repositories.GameMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncEngineTest {
+
+    private Connection connection;
+    private GameMetadataRepository games;
+    private SyncStateRepository states;
+    private SyncEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        SingleConnectionProvider provider = new SingleConnectionProvider(connection);
+        games = new GameMetadataRepository(provider, GameMetadata.class);
+        games.executeScript(games.initTable());
+        games.createIndexes();
+        games.initCatalog(Locale.ENGLISH);
+        states = new SyncStateRepository(provider, SyncState.class);
+        states.executeScript(states.initTable());
+        states.createIndexes();
+        engine = new SyncEngine(games, states, 4, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        engine.close();
+        connection.close();
+    }
+
+    /**
+     * Store serving the changes of its catalog since a revision, a few games per page, like a paged delta API
+     */
+    private static class FakeStore implements StoreIntegration {
+
+        private final List<String> feeds;
+        private final int maxConcurrency;
+        private final int pageSize;
+
+        /** Changes in order, a removal when the genres are null */
+        private final Map<String, List<Change>> changes = new ConcurrentHashMap<>();
+
+        private final AtomicInteger fetches = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private volatile int failAt = -1;
+        private volatile CountDownLatch blocker;
+
+        FakeStore(List<String> feeds, int maxConcurrency, int pageSize) {
+            this.feeds = feeds;
+            this.maxConcurrency = maxConcurrency;
+            this.pageSize = pageSize;
+        }
+
+        void put(String feed, String name, String genres) {
+            changes.computeIfAbsent(feed, key -> new ArrayList<>()).add(new Change(name, genres));
+        }
+
+        void remove(String feed, String name) {
+            changes.computeIfAbsent(feed, key -> new ArrayList<>()).add(new Change(name, null));
+        }
+
+        @Override
+        public String source() {
+            return "fake";
+        }
+
+        @Override
+        public List<String> feeds() {
+            return feeds;
+        }
+
+        @Override
+        public int maxConcurrency() {
+            return maxConcurrency;
+        }
+
+        @Override
+        public SyncBatch fetch(String feed, SyncCheckpoint checkpoint) throws Exception {
+            int current = running.incrementAndGet();
+            maxRunning.accumulateAndGet(current, Math::max);
+            try {
+                if (fetches.incrementAndGet() == failAt) throw new IllegalStateException("Store unavailable");
+                if (blocker != null) blocker.await(5, TimeUnit.SECONDS);
+
+                List<Change> log = changes.getOrDefault(feed, List.of());
+                String etag = "rev-" + log.size();
+                if (etag.equals(checkpoint.etag())) return SyncBatch.unchanged(checkpoint);
+
+                int from = checkpoint.cursor() != null ? Integer.parseInt(checkpoint.cursor()) : 0;
+                int to = Math.min(log.size(), from + pageSize);
+
+                List<GameMetadata> changed = new ArrayList<>();
+                List<String> removed = new ArrayList<>();
+                for (Change change : log.subList(from, to)) {
+                    if (change.genres() == null) {
+                        removed.add(change.name());
+                    } else {
+                        GameMetadata game = new GameMetadata();
+                        game.setName(change.name());
+                        game.setGenres(change.genres());
+                        changed.add(game);
+                    }
+                }
+                boolean hasMore = to < log.size();
+                return new SyncBatch(changed, removed, new SyncCheckpoint(String.valueOf(to), hasMore ? null : etag, null), hasMore);
+            } finally {
+                Thread.sleep(5);
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private record Change(String name, String genres) {
+    }
+
+    private Map<String, String> catalog() {
+        Map<String, String> catalog = new TreeMap<>();
+        for (GameMetadata game : games.listQuery("SELECT * FROM metadata")) {
+            assertEquals("fake", game.getSource());
+            catalog.put(game.getName(), game.getGenres());
+        }
+        return catalog;
+    }
+
+    @Test
+    void testInitialSyncPagesInAndSavesTheCheckpoint() throws Exception {
+        FakeStore store = new FakeStore(List.of("library"), 1, 3);
+        for (int i = 0; i < 7; i++) store.put("library", "Game " + i, "Action");
+
+        SyncResult result = engine.sync(store, "library").get(10, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(3, result.batches());
+        assertEquals(7, result.inserted());
+        assertEquals(7, catalog().size());
+
+        SyncState state = states.find("fake", "library");
+        assertEquals(new SyncCheckpoint("7", "rev-7", null), state.checkpoint());
+        assertNull(state.getLastError());
+        assertTrue(state.getSyncedAt() > 0);
+    }
+
+    @Test
+    void testUnchangedFeedWritesNothing() throws Exception {
+        FakeStore store = new FakeStore(List.of("library"), 1, 10);
+        store.put("library", "Hades", "Action");
+        engine.sync(store, "library").get(10, TimeUnit.SECONDS);
+
+        long version = games.getCatalogVersion();
+        SyncResult result = engine.sync(store, "library").get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, result.batches());
+        assertEquals(0, result.fetched());
+        assertEquals(version, games.getCatalogVersion());
+    }
+
+    @Test
+    void testRefetchedGamesAreUnchanged() throws Exception {
+        FakeStore store = new FakeStore(List.of("library"), 1, 10);
+        store.put("library", "Hades", "Action");
+        store.put("library", "Celeste", "Platformer");
+        engine.sync(store, "library").get(10, TimeUnit.SECONDS);
+        long version = games.getCatalogVersion();
+
+        // A new revision serving the same games again, as after a full refresh of the store
+        store.put("library", "Hades", "Action");
+        store.put("library", "Celeste", "Platformer");
+        SyncResult result = engine.sync(store, "library").get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, result.updated());
+        assertEquals(2, result.unchanged());
+        assertEquals(version, games.getCatalogVersion());
+        assertEquals("Hades", games.getGame("Hades").getSortName());
+    }
+
+    @Test
+    void testAppliesOnlyDeltas() throws Exception {
+        FakeStore store = new FakeStore(List.of("library"), 1, 2);
+        store.put("library", "Hades", "Action");
+        store.put("library", "Celeste", "Platformer");
+        store.put("library", "Tetris", "Puzzle");
+        engine.sync(store, "library").get(10, TimeUnit.SECONDS);
+
+        store.put("library", "Celeste", "Platformer, Indie");
+        store.put("library", "Hades", "Action");
+        store.remove("library", "Tetris");
+        store.put("library", "Dead Cells", "Action");
+        SyncResult result = engine.sync(store, "library").get(10, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(1, result.unchanged());
+        assertEquals(1, result.removed());
+        assertEquals(Map.of("Celeste", "Platformer, Indie", "Dead Cells", "Action", "Hades", "Action"), catalog());
+    }
+
+    @Test
+    void testFeedsRunInParallelWithinTheStoreLimit() throws Exception {
+        FakeStore store = new FakeStore(List.of("a", "b", "c", "d"), 2, 1);
+        for (String feed : store.feeds()) {
+            for (int i = 0; i < 5; i++) store.put(feed, feed + i, "Action");
+        }
+
+        List<SyncResult> results = new ArrayList<>();
+        for (var future : store.feeds().stream().map(feed -> engine.sync(store, feed)).toList()) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+
+        assertTrue(results.stream().allMatch(SyncResult::isSuccessful));
+        assertEquals(20, catalog().size());
+        assertEquals(2, store.maxRunning.get());
+        assertEquals(4, states.listStates().size());
+    }
+
+    @Test
+    void testFailedSyncResumesFromTheLastAppliedBatch() throws Exception {
+        FakeStore store = new FakeStore(List.of("library"), 1, 2);
+        for (int i = 0; i < 6; i++) store.put("library", "Game " + i, "Action");
+        store.failAt = 3;
+
+        SyncResult failed = engine.sync(store, "library").get(10, TimeUnit.SECONDS);
+        assertFalse(failed.isSuccessful());
+        assertEquals(4, failed.inserted());
+
+        SyncState state = states.find("fake", "library");
+        assertEquals("Store unavailable", state.getLastError());
+        assertEquals("4", state.getCursor());
+        assertEquals(0, state.getSyncedAt());
+
+        SyncResult resumed = engine.sync(store, "library").get(10, TimeUnit.SECONDS);
+        assertTrue(resumed.isSuccessful());
+        assertEquals(1, resumed.batches());
+        assertEquals(2, resumed.inserted());
+        assertEquals(6, catalog().size());
+        assertNull(states.find("fake", "library").getLastError());
+    }
+
+    @Test
+    void testConcurrentSyncsOfAFeedAreJoined() throws Exception {
+        FakeStore store = new FakeStore(List.of("library"), 4, 10);
+        store.put("library", "Hades", "Action");
+        store.blocker = new CountDownLatch(1);
+
+        var first = engine.sync(store, "library");
+        var second = engine.sync(store, "library");
+        assertSame(first, second);
+
+        store.blocker.countDown();
+        assertEquals(1, first.get(10, TimeUnit.SECONDS).inserted());
+        assertEquals(1, store.fetches.get());
+    }
+}
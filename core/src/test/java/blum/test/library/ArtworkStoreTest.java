@@ -0,0 +1,214 @@
+package blum.test.library;
+
+import blum.api.library.ArtworkKind;
+import blum.api.library.model.GameArtwork;
+import blum.api.library.model.GameMetadata;
+import blum.api.network.FileResponse;
+import blum.core.library.CoreArtworkService;
+import blum.core.library.artwork.ArtworkStore;
+import blum.core.library.repositories.ArtworkRepository;
+import blum.core.library.repositories.GameMetadataRepository;
+import blum.core.network.EndpointExecutor;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ArtworkStoreTest {
+
+    private static final byte[] PNG = image(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 1, 2, 3);
+    private static final byte[] JPEG = image(0xFF, 0xD8, 0xFF, 0xE0, 4, 5, 6);
+
+    @TempDir
+    Path directory;
+
+    private Connection connection;
+    private GameMetadataRepository games;
+    private ArtworkStore store;
+    private CoreArtworkService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA foreign_keys=ON");
+        }
+        games = new GameMetadataRepository(connection, GameMetadata.class);
+        games.executeScript(games.initTable());
+        for (String name : List.of("Hades", "Celeste")) {
+            GameMetadata game = new GameMetadata();
+            game.setName(name);
+            games.create(game);
+        }
+
+        ArtworkRepository repository = new ArtworkRepository(connection, GameArtwork.class);
+        repository.executeScript(repository.initTable());
+        repository.createIndexes();
+        store = new ArtworkStore(directory, 1024);
+        service = new CoreArtworkService(repository, store, null, false);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static byte[] image(int... bytes) {
+        byte[] image = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) image[i] = (byte) bytes[i];
+        return image;
+    }
+
+    @Test
+    void testIdenticalImagesAreStoredOnce() throws Exception {
+        GameArtwork first = service.storeArtwork(1, ArtworkKind.COVER, new ByteArrayInputStream(PNG));
+        GameArtwork second = service.storeArtwork(2, ArtworkKind.ICON, new ByteArrayInputStream(PNG));
+
+        assertEquals(first.getHash(), second.getHash());
+        assertEquals("image/png", first.getContentType());
+        assertEquals(PNG.length, first.getSize());
+        assertEquals(1, store.hashes().size());
+        assertArrayEquals(PNG, Files.readAllBytes(service.getFile(first.getHash())));
+    }
+
+    @Test
+    void testReplacedImageIsDeletedOnceUnused() throws Exception {
+        String png = service.storeArtwork(1, ArtworkKind.COVER, new ByteArrayInputStream(PNG)).getHash();
+        service.storeArtwork(2, ArtworkKind.COVER, new ByteArrayInputStream(PNG));
+
+        GameArtwork replaced = service.storeArtwork(1, ArtworkKind.COVER, new ByteArrayInputStream(JPEG));
+        assertEquals("image/jpeg", replaced.getContentType());
+        assertNotNull(service.getFile(png));
+
+        assertTrue(service.removeArtwork(2, ArtworkKind.COVER));
+        assertNull(service.getFile(png));
+        assertEquals(1, service.listArtwork(1).size());
+    }
+
+    @Test
+    void testInvalidImagesAreRejected() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> store.put(new ByteArrayInputStream("<html>".getBytes())));
+        assertThrows(IllegalArgumentException.class, () -> store.put(new ByteArrayInputStream(new byte[0])));
+
+        byte[] large = Arrays.copyOf(PNG, 2048);
+        assertThrows(IllegalArgumentException.class, () -> store.put(new ByteArrayInputStream(large)));
+
+        assertTrue(store.hashes().isEmpty());
+        try (var files = Files.list(directory.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        }
+        assertNull(store.get("../artwork.db"));
+    }
+
+    @Test
+    void testPurgeDeletesUnreferencedImages() throws Exception {
+        store.put(new ByteArrayInputStream(JPEG));
+        service.storeArtwork(1, ArtworkKind.LOGO, new ByteArrayInputStream(PNG));
+
+        assertEquals(1, service.purgeUnreferenced());
+        assertEquals(1, store.hashes().size());
+    }
+
+    @Test
+    void testArtworkGoesWithItsGame() throws Exception {
+        service.storeArtwork(1, ArtworkKind.COVER, new ByteArrayInputStream(PNG));
+        service.storeArtwork(2, ArtworkKind.COVER, new ByteArrayInputStream(JPEG));
+
+        assertTrue(games.deleteById(1));
+        assertTrue(service.listArtwork(1).isEmpty());
+        assertEquals(1, service.listArtwork(2).size());
+
+        assertEquals(1, service.purgeUnreferenced());
+        assertEquals(1, store.hashes().size());
+    }
+
+    @Test
+    void testArtworkOfUnknownGameIsRejected() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> service.storeArtwork(99, ArtworkKind.COVER, new ByteArrayInputStream(PNG)));
+        assertTrue(store.hashes().isEmpty());
+    }
+
+    @Test
+    void testImagesAreKeptWhenTheirUseCantBeRead() throws Exception {
+        service.storeArtwork(1, ArtworkKind.COVER, new ByteArrayInputStream(PNG));
+        GameArtwork replaced = service.storeArtwork(1, ArtworkKind.ICON, new ByteArrayInputStream(JPEG));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE artwork RENAME TO artwork_moved");
+        }
+        assertThrows(SQLException.class, () -> service.purgeUnreferenced());
+        assertEquals(2, store.hashes().size());
+        assertNotNull(service.getFile(replaced.getHash()));
+    }
+
+    public static class Serving {
+        private final FileResponse response;
+
+        Serving(FileResponse response) {
+            this.response = response;
+        }
+
+        public FileResponse get() {
+            return response;
+        }
+    }
+
+    @Test
+    void testFileResponseIsRevalidatedWithEtag() throws Exception {
+        GameArtwork artwork = service.storeArtwork(1, ArtworkKind.COVER, new ByteArrayInputStream(PNG));
+        FileResponse file = new FileResponse(service.getFile(artwork.getHash()), artwork.getContentType(), artwork.getHash(), true);
+        EndpointExecutor executor = new EndpointExecutor(new Serving(file), Serving.class.getMethod("get"));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        });
+
+        executor.handle(request, response);
+        assertArrayEquals(PNG, body.toByteArray());
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        verify(response).setHeader("ETag", "\"" + artwork.getHash() + "\"");
+        verify(response).setHeader("Cache-Control", "public, max-age=31536000, immutable");
+        verify(response).setContentLengthLong(PNG.length);
+
+        HttpServletRequest revalidation = mock(HttpServletRequest.class);
+        HttpServletResponse notModified = mock(HttpServletResponse.class);
+        when(revalidation.getHeader("If-None-Match")).thenReturn("\"other\", W/\"" + artwork.getHash() + "\"");
+
+        executor.handle(revalidation, notModified);
+        verify(notModified).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(notModified, never()).getOutputStream();
+    }
+}
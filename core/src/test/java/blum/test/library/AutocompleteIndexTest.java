@@ -0,0 +1,101 @@
+package blum.test.library;
+
+import blum.api.library.Completion;
+import blum.api.library.model.GameMetadata;
+import blum.core.library.AutocompleteIndex;
+import blum.core.library.repositories.GameMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompleteIndexTest {
+
+    private Connection connection;
+    private GameMetadataRepository repository;
+    private AutocompleteIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameMetadataRepository(connection, GameMetadata.class);
+        repository.executeScript(repository.initTable());
+
+        repository.createAll(List.of(
+                game("The Witcher® 3: Wild Hunt", "Witcher 3, The"),
+                game("The Witcher 2: Assassins of Kings", null),
+                game("Pokémon Legends: Arceus", null),
+                game("Portal", null),
+                game("Portal 2", null),
+                game("Bridge Constructor Portal", null),
+                game("Hades", null)
+        ));
+
+        index = new AutocompleteIndex(() -> repository.listQuery("SELECT id, name, sort_name FROM metadata"));
+        index.reload();
+        repository.addListener(index);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static GameMetadata game(String name, String sortName) {
+        GameMetadata game = new GameMetadata();
+        game.setName(name);
+        game.setSortName(sortName);
+        return game;
+    }
+
+    private List<String> complete(String query) {
+        return index.complete(query, 5).stream().map(Completion::name).toList();
+    }
+
+    @Test
+    void testNormalizedWordsMatch() {
+        assertEquals("The Witcher® 3: Wild Hunt", complete("witcher 3").get(0));
+        assertEquals(List.of("Pokémon Legends: Arceus"), complete("POKEMON leg"));
+    }
+
+    @Test
+    void testPrefixesRankShorterNamesFirst() {
+        assertEquals(List.of("Portal", "Portal 2", "Bridge Constructor Portal"), complete("port"));
+        assertEquals(List.of("Portal 2"), complete("portal 2"));
+    }
+
+    @Test
+    void testToleratesTypos() {
+        assertEquals("The Witcher® 3: Wild Hunt", complete("wticher 3").get(0));
+        assertEquals(List.of("Hades"), complete("hdaes"));
+        assertEquals("Pokémon Legends: Arceus", complete("pokemn").get(0));
+        assertTrue(complete("xyzzy").isEmpty());
+    }
+
+    @Test
+    void testLastWordIsPrefixOnlyWhileTyped() {
+        double typed = index.complete("had", 1).get(0).score();
+        double complete = index.complete("had ", 1).get(0).score();
+        assertTrue(typed > complete);
+        assertEquals(List.of("Hades"), complete("hades "));
+    }
+
+    @Test
+    void testFollowsRepositoryWrites() throws Exception {
+        GameMetadata hades = repository.getGame("Hades");
+        hades.setName("Hades II");
+        repository.update(hades);
+        repository.create(game("Celeste", null));
+        repository.delete(repository.getGame("Portal 2"));
+
+        assertEquals(7, index.size());
+        assertEquals(List.of("Hades II"), complete("hades"));
+        assertEquals(List.of("Celeste"), complete("cel"));
+        assertEquals(List.of("Portal", "Bridge Constructor Portal"), complete("portal"));
+    }
+}
@@ -0,0 +1,124 @@
+package blum.test.library;
+
+import blum.api.library.model.GameMetadata;
+import blum.core.library.CatalogFile;
+import blum.core.library.CatalogFileWriter;
+import blum.core.library.repositories.GameMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogFileTest {
+
+    @TempDir
+    Path folder;
+
+    private Connection connection;
+    private GameMetadataRepository repository;
+    private CatalogFile file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameMetadataRepository(connection, GameMetadata.class);
+        repository.executeScript(repository.initTable());
+        repository.initCatalogVersion();
+        file = new CatalogFile(folder.resolve("catalog.bin"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static List<GameMetadata> games(int count) {
+        List<GameMetadata> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            games.add(new GameMetadata(i + 1, "Game " + i, i % 3 == 0 ? null : "game " + i, "PC", "Action, RPG", "Studio",
+                    null, null, null, "tag" + i, "Déscription ☃ " + "x".repeat(i % 100), "2020-01-01", null, "16", "EU",
+                    "steam", i % 2 == 0 ? null : i % 101, 80));
+        }
+        return games;
+    }
+
+    @Test
+    void testRoundTrip() throws Exception {
+        List<GameMetadata> games = games(10_000);
+        file.write(42, games);
+
+        assertEquals(games, file.read(42));
+
+        file.write(43, List.of());
+        assertEquals(List.of(), file.read(43));
+    }
+
+    @Test
+    void testOutdatedOrMissingFileIsIgnored() throws Exception {
+        assertNull(file.read(1));
+
+        file.write(1, games(10));
+        assertNull(file.read(2));
+    }
+
+    @Test
+    void testDamagedFileIsIgnored() throws Exception {
+        file.write(7, games(5_000));
+        Path path = folder.resolve("catalog.bin");
+        byte[] bytes = Files.readAllBytes(path);
+
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+        assertNull(file.read(7));
+
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 10));
+        assertNull(file.read(7));
+    }
+
+    @Test
+    void testWrittenAtTheCatalogVersion() throws Exception {
+        repository.createAll(games(100).stream().peek(game -> game.setId(0)).toList());
+        CatalogFileWriter writer = new CatalogFileWriter(repository, file, 0);
+        assertTrue(writer.write());
+
+        List<GameMetadata> games = file.read(repository.getCatalogVersion());
+        assertEquals(repository.listQuery("SELECT * FROM metadata ORDER BY id"), games);
+
+        GameMetadata game = games.get(0);
+        game.setName("Renamed");
+        repository.update(game);
+        assertNull(file.read(repository.getCatalogVersion()));
+
+        writer.schedule();
+        writer.close();
+        assertEquals("Renamed", file.read(repository.getCatalogVersion()).get(0).getName());
+    }
+
+    @Test
+    void testSortKeysKeepTheCatalogVersion() throws Exception {
+        repository.initSortNames();
+        repository.createAll(games(10).stream().peek(game -> game.setId(0)).toList());
+        long version = repository.getCatalogVersion();
+
+        repository.initSortKeys(Locale.ENGLISH);
+        repository.initSortKeys(Locale.forLanguageTag("sv"));
+        assertEquals(version, repository.getCatalogVersion());
+
+        repository.createAll(games(1).stream().peek(game -> game.setId(0)).toList());
+        assertEquals(version + 1, repository.getCatalogVersion());
+        repository.execute("UPDATE metadata SET sort_name = ? WHERE name = ?", "Zzz", "Game 5");
+        assertEquals(version + 2, repository.getCatalogVersion());
+    }
+}
@@ -0,0 +1,159 @@
+package blum.test.library;
+
+import blum.api.library.model.GameMetadata;
+import blum.core.library.importer.GameImporter;
+import blum.core.library.importer.ImportFormat;
+import blum.core.library.importer.ImportOptions;
+import blum.core.library.importer.ImportProgress;
+import blum.core.library.importer.ImportResult;
+import blum.core.library.repositories.GameMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameImportTest {
+
+    private Connection connection;
+    private GameMetadataRepository repository;
+    private GameImporter importer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameMetadataRepository(connection, GameMetadata.class);
+        repository.executeScript(repository.initTable());
+        repository.initSortNames();
+        importer = new GameImporter(repository, new ImportOptions(2, 2, 1, "steam"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private ImportResult run(String content, ImportFormat format) throws Exception {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return importer.importFrom(new ByteArrayInputStream(bytes), format, bytes.length, null);
+    }
+
+    @Test
+    void testNdjsonRecordsAreNormalized() throws Exception {
+        ImportResult result = run("""
+                {"title": "  Half-Life  2 ", "genre": "Shooter; Action|shooter", "metascore": "96.4", "released": "Nov 16, 2004"}
+                {"name": "Portal", "store": "GOG", "developers": ["Valve", "Valve"], "user_score": 91}
+                {"description": "no name"}
+                """, ImportFormat.NDJSON);
+
+        assertEquals(3, result.read());
+        assertEquals(1, result.skipped());
+        assertEquals(2, result.inserted());
+
+        GameMetadata halfLife = repository.getGame("Half-Life 2");
+        assertEquals("Shooter, Action", halfLife.getGenres());
+        assertEquals(96, halfLife.getPressRating());
+        assertEquals("2004-11-16", halfLife.getReleaseDate());
+        assertEquals("steam", halfLife.getSource());
+        assertEquals("Half-Life 2", halfLife.getSortName());
+
+        GameMetadata portal = repository.getGame("Portal");
+        assertEquals("gog", portal.getSource());
+        assertEquals("Valve", portal.getDevelopers());
+        assertEquals(91, portal.getCommunityRating());
+    }
+
+    @Test
+    void testJsonArrayWithNestedObjects() throws Exception {
+        ImportResult result = run("""
+                [
+                  {"name": "Celeste", "genres": [{"id": 1, "description": "Platformer"}, {"id": 2, "description": "Indie"}],
+                   "platforms": {"windows": true}, "release_date": "2018-01-25T00:00:00Z"},
+                  {"name": "Hades", "tags": ["Roguelike", 3], "pegi": null}
+                ]
+                """, ImportFormat.JSON);
+
+        assertEquals(2, result.inserted());
+        GameMetadata celeste = repository.getGame("Celeste");
+        assertEquals("Platformer, Indie", celeste.getGenres());
+        assertNull(celeste.getPlatform());
+        assertEquals("2018-01-25", celeste.getReleaseDate());
+        assertEquals("Roguelike, 3", repository.getGame("Hades").getTags());
+    }
+
+    @Test
+    void testCsvWithQuotedFields() throws Exception {
+        ImportResult result = run("\uFEFFName,Genres,Description,Press Rating\r\n"
+                + "\"Disco Elysium\",\"RPG, Detective\",\"A \"\"detective\"\"\nstory\",97\r\n"
+                + "\r\n"
+                + "Outer Wilds,Adventure,,85\r\n", ImportFormat.CSV);
+
+        assertEquals(2, result.inserted());
+        GameMetadata disco = repository.getGame("Disco Elysium");
+        assertEquals("RPG, Detective", disco.getGenres());
+        assertEquals("A \"detective\" story", disco.getDescription());
+        assertEquals(97, disco.getPressRating());
+        assertNull(repository.getGame("Outer Wilds").getDescription());
+    }
+
+    @Test
+    void testUnterminatedQuoteFails() {
+        assertThrows(IOException.class, () -> run("name,genres\n\"Broken,Action\n", ImportFormat.CSV));
+    }
+
+    @Test
+    void testReimportOnlyWritesChanges() throws Exception {
+        String export = """
+                {"name": "Portal", "metascore": 90}
+                {"name": "Portal 2", "metascore": 95}
+                {"name": "Portal", "store": "gog"}
+                """;
+        assertEquals(3, run(export, ImportFormat.NDJSON).inserted());
+
+        ImportResult again = run(export.replace("95", "96"), ImportFormat.NDJSON);
+        assertEquals(0, again.inserted());
+        assertEquals(1, again.updated());
+        assertEquals(2, again.unchanged());
+        assertEquals(3, repository.listQuery("SELECT * FROM metadata").size());
+        assertEquals(96, repository.query("SELECT * FROM metadata WHERE name = ?", "Portal 2").getPressRating());
+    }
+
+    @Test
+    void testDuplicatesInABatchKeepTheLastRecord() throws Exception {
+        ImportResult result = run("""
+                {"name": "Hades", "metascore": 90}
+                {"name": "Hades", "metascore": 93}
+                """, ImportFormat.NDJSON);
+
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.skipped());
+        assertEquals(93, repository.getGame("Hades").getPressRating());
+    }
+
+    @Test
+    void testProgressIsReportedPerBatch() throws Exception {
+        StringBuilder export = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            export.append("{\"name\": \"Game ").append(i).append("\"}\n");
+        }
+        byte[] bytes = export.toString().getBytes(StandardCharsets.UTF_8);
+
+        List<ImportProgress> reports = new CopyOnWriteArrayList<>();
+        GameImporter batched = new GameImporter(repository, new ImportOptions(50, 3, 2, "steam"));
+        ImportResult result = batched.importFrom(new ByteArrayInputStream(bytes), ImportFormat.NDJSON, bytes.length, reports::add);
+
+        assertEquals(500, result.inserted());
+        assertEquals(10, reports.size());
+        assertEquals(500, reports.get(9).written());
+        assertEquals(1.0, reports.get(9).fraction());
+        assertEquals(500, repository.listQuery("SELECT * FROM metadata").size());
+    }
+}
@@ -0,0 +1,139 @@
+package blum.test.library;
+
+import blum.api.database.Page;
+import blum.api.library.model.GameMetadata;
+import blum.api.library.model.GameSummary;
+import blum.core.library.repositories.GameMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameListingTest {
+
+    private Connection connection;
+    private GameMetadataRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameMetadataRepository(connection, GameMetadata.class);
+        repository.executeScript(repository.initTable());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static GameMetadata game(String name, String sortName) {
+        GameMetadata game = new GameMetadata();
+        game.setName(name);
+        game.setSortName(sortName);
+        return game;
+    }
+
+    @Test
+    void testGamesArePagedBySortName() throws Exception {
+        repository.create(game("Zelda", null));
+        repository.initSortNames();
+        repository.createAll(List.of(game("The Witcher", "Witcher"), game("Celeste", null), game("Hades", "Hades")));
+
+        Page<GameSummary> first = repository.listGames(null, 2);
+        Page<GameSummary> second = repository.listGames(first.nextCursor(), 2);
+
+        assertEquals(List.of("Celeste", "Hades"), first.items().stream().map(GameSummary::name).toList());
+        assertEquals(List.of("The Witcher", "Zelda"), second.items().stream().map(GameSummary::name).toList());
+        assertFalse(second.hasNext());
+        assertEquals("Zelda", second.items().get(1).sortName());
+    }
+
+    @Test
+    void testSortKeysFollowTheLocale() throws Exception {
+        repository.initSortNames();
+        repository.createAll(List.of(game("Zoo Tycoon", null), game("Överleva", null), game("éléa", null), game("Eador", null), game("Elden Ring", null)));
+
+        repository.initSortKeys(Locale.ENGLISH);
+        assertEquals(List.of("Eador", "Elden Ring", "éléa", "Överleva", "Zoo Tycoon"), namesOf(repository.listGames(null, 10)));
+
+        repository.initSortKeys(Locale.forLanguageTag("sv"));
+        assertEquals(List.of("Eador", "Elden Ring", "éléa", "Zoo Tycoon", "Överleva"), namesOf(repository.listGames(null, 10)));
+    }
+
+    @Test
+    void testSortKeysFollowRenames() throws Exception {
+        repository.initSortNames();
+        repository.initSortKeys(Locale.ENGLISH);
+        repository.createAll(List.of(game("Celeste", null), game("Hades", null), game("Tunic", null)));
+        repository.create(game("Unpacking", null));
+        // Written along with the games, reads don't compute keys
+        assertEquals(0, repository.fillSortKeys());
+
+        Page<GameSummary> first = repository.listGames(null, 2);
+        assertEquals(List.of("Celeste", "Hades"), namesOf(first));
+
+        GameMetadata celeste = repository.getGame("Celeste");
+        celeste.setSortName("Zzz");
+        repository.update(celeste);
+        repository.execute("UPDATE metadata SET sort_name = ? WHERE name = ?", "Aaa", "Tunic");
+
+        assertEquals(List.of("Tunic", "Hades", "Unpacking", "Celeste"), namesOf(repository.listGames(null, 10)));
+        assertEquals(List.of("Unpacking", "Celeste"), namesOf(repository.listGames(first.nextCursor(), 10)));
+        assertEquals(0, repository.fillSortKeys());
+        assertThrows(IllegalArgumentException.class, () -> repository.listGames("%%%", 10));
+    }
+
+    @Test
+    void testGamesWithoutSortKeyAreListedAfterTheOthers() throws Exception {
+        repository.initSortNames();
+        repository.initSortKeys(Locale.ENGLISH);
+        repository.createAll(List.of(game("Hades", null), game("Celeste", null)));
+
+        // Written behind the repository's back, their keys aren't computed yet
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO metadata (name, sort_name) VALUES ('Tunic', 'Tunic'), ('Abzu', 'Abzu'), ('Braid', NULL)");
+        }
+
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<GameSummary> page = repository.listGames(cursor, 2);
+            names.addAll(namesOf(page));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("Celeste", "Hades", "Abzu", "Braid", "Tunic"), names);
+
+        assertEquals(3, repository.fillSortKeys());
+        assertEquals(List.of("Abzu", "Braid", "Celeste", "Hades", "Tunic"), namesOf(repository.listGames(null, 10)));
+    }
+
+    @Test
+    void testSortKeysAreWrittenWithTheGames() throws Exception {
+        repository.initSortNames();
+        repository.initSortKeys(Locale.ENGLISH);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TRIGGER metadata_reject AFTER UPDATE OF sort_key ON metadata WHEN new.name = 'Broken' BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+        }
+
+        // The key can't be written, the game isn't inserted without it
+        assertThrows(SQLException.class, () -> repository.create(game("Broken", null)));
+        assertThrows(SQLException.class, () -> repository.createAll(List.of(game("Hades", null), game("Broken", null))));
+        assertTrue(namesOf(repository.listGames(null, 10)).isEmpty());
+
+        repository.create(game("Hades", null));
+        assertEquals(0, repository.fillSortKeys());
+    }
+
+    private static List<String> namesOf(Page<GameSummary> page) {
+        return page.items().stream().map(GameSummary::name).toList();
+    }
+}
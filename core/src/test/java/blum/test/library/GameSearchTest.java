@@ -0,0 +1,175 @@
+package blum.test.library;
+
+import blum.api.database.RepositoryListener;
+import blum.api.library.model.GameMetadata;
+import blum.core.library.repositories.GameMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSearchTest {
+
+    private Connection connection;
+    private GameMetadataRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameMetadataRepository(connection, GameMetadata.class);
+        repository.executeScript(repository.initTable());
+
+        repository.create(game("Hollow Knight", "Team Cherry", "metroidvania, souls-like", "Descend into a ruined kingdom."));
+        repository.create(game("Celeste", "Maddy Makes Games", "platformer", "Climb the mountain, a knight's tale it is not."));
+        repository.create(game("Hades", "Supergiant Games", "roguelike", "Battle out of the Underworld."));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static GameMetadata game(String name, String developers, String tags, String description) {
+        GameMetadata game = new GameMetadata();
+        game.setName(name);
+        game.setDevelopers(developers);
+        game.setTags(tags);
+        game.setDescription(description);
+        return game;
+    }
+
+    private static List<String> names(List<GameMetadata> games) {
+        return games.stream().map(GameMetadata::getName).toList();
+    }
+
+    @Test
+    void testExistingRowsAreIndexed() throws Exception {
+        repository.initSearchIndex();
+
+        assertEquals(List.of("Hades"), names(repository.search("underworld", 0, 10)));
+        assertEquals(List.of("Hades"), names(repository.search("supergi", 0, 10)));
+    }
+
+    @Test
+    void testNameMatchesRankFirst() throws Exception {
+        repository.initSearchIndex();
+
+        assertEquals(List.of("Hollow Knight", "Celeste"), names(repository.search("knight", 0, 10)));
+    }
+
+    @Test
+    void testPagination() throws Exception {
+        repository.initSearchIndex();
+
+        assertEquals(List.of("Hollow Knight"), names(repository.search("knight", 0, 1)));
+        assertEquals(List.of("Celeste"), names(repository.search("knight", 1, 1)));
+        assertTrue(repository.search("knight", 2, 1).isEmpty());
+    }
+
+    @Test
+    void testIndexFollowsWrites() throws Exception {
+        repository.initSearchIndex();
+
+        repository.create(game("Hollow Knight: Silksong", "Team Cherry", "metroidvania", "Play as Hornet."));
+        assertEquals(2, repository.search("team cher", 0, 10).size());
+
+        repository.execute("UPDATE metadata SET name = ? WHERE name = ?", "Hadès II", "Hades");
+        assertEquals(List.of("Hadès II"), names(repository.search("hades", 0, 10)));
+
+        repository.execute("DELETE FROM metadata WHERE name = ?", "Celeste");
+        assertTrue(repository.search("knight tale", 0, 10).isEmpty());
+        assertEquals(Set.of("Hollow Knight", "Hollow Knight: Silksong"), Set.copyOf(names(repository.search("knight", 0, 10))));
+    }
+
+    @Test
+    void testGamesWithoutSortNameAreIndexed() throws Exception {
+        // An empty index is where a write out of order shows, as a corrupt index
+        repository.execute("DELETE FROM metadata");
+        repository.initSearchIndex();
+        repository.initSortNames();
+
+        repository.create(game("Dead Cells", "Motion Twin", "roguelite", "Explore a changing castle."));
+        repository.createAll(List.of(game("Tunic", "Andrew Shouldice", "adventure", "A tiny fox in a big world.")));
+        GameMetadata imported = game("Pentiment", "Obsidian", "adventure", "A murder in a Bavarian abbey.");
+        imported.setSource("steam");
+        repository.importGames(List.of(imported));
+        repository.execute("INSERT INTO metadata (name, description) VALUES (?, ?)", "Hollow Knight: Silksong", "Play as Hornet.");
+
+        assertEquals(List.of("Dead Cells"), names(repository.search("castle", 0, 10)));
+        assertEquals(List.of("Tunic"), names(repository.search("fox", 0, 10)));
+        assertEquals(List.of("Pentiment"), names(repository.search("abbey", 0, 10)));
+        assertEquals(List.of("Hollow Knight: Silksong"), names(repository.search("hornet", 0, 10)));
+        assertEquals("Dead Cells", repository.getGame("Dead Cells").getSortName());
+        assertEquals("Tunic", repository.getGame("Tunic").getSortName());
+        repository.executeScript("INSERT INTO metadata_fts(metadata_fts) VALUES ('integrity-check')");
+    }
+
+    @Test
+    void testImportedGamesAreDeletedTogether() throws Exception {
+        repository.initSearchIndex();
+        GameMetadata pentiment = game("Pentiment", "Obsidian", "adventure", "A murder in a Bavarian abbey.");
+        GameMetadata grounded = game("Grounded", "Obsidian", "survival", "Shrunk in a backyard.");
+        GameMetadata local = game("Grounded", "Obsidian", "survival", "Installed by hand.");
+        pentiment.setSource("steam");
+        grounded.setSource("steam");
+        repository.importGames(List.of(pentiment, grounded));
+        repository.create(local);
+        Set<Object> imported = Set.copyOf(repository.selectList("SELECT * FROM metadata WHERE source = ?", "steam").stream()
+                .map(GameMetadata::getId).toList());
+
+        List<Object> deleted = new ArrayList<>();
+        repository.addListener(new RepositoryListener<>() {
+            @Override
+            public void onDelete(Object id) {
+                deleted.add(id);
+            }
+        });
+
+        assertEquals(2, repository.deleteImported("steam", List.of("Pentiment", "Grounded", "Unknown")));
+        assertEquals(2, imported.size());
+        assertEquals(imported, Set.copyOf(deleted));
+        assertEquals(List.of("Grounded"), names(repository.search("grounded", 0, 10)));
+        assertEquals(0, repository.deleteImported("steam", List.of()));
+        repository.executeScript("INSERT INTO metadata_fts(metadata_fts) VALUES ('integrity-check')");
+    }
+
+    @Test
+    void testIndexOnlyFollowsItsColumns() throws Exception {
+        repository.initSearchIndex();
+        // Update trigger of the indexes created before, reindexing on writes to any column
+        repository.executeScript("DROP TRIGGER metadata_fts_update; CREATE TRIGGER metadata_fts_update AFTER UPDATE ON metadata BEGIN " +
+                "INSERT INTO metadata_fts(metadata_fts, rowid, name, series, developers, genres, tags, description) " +
+                "VALUES ('delete', old.id, old.name, old.series, old.developers, old.genres, old.tags, old.description); " +
+                "INSERT INTO metadata_fts(rowid, name, series, developers, genres, tags, description) " +
+                "VALUES (new.id, new.name, new.series, new.developers, new.genres, new.tags, new.description); END;");
+
+        repository.initSearchIndex();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT sql FROM sqlite_master WHERE name = 'metadata_fts_update'")) {
+            assertTrue(resultSet.next());
+            assertTrue(resultSet.getString(1).contains("AFTER UPDATE OF name, series, developers, genres, tags, description"));
+        }
+        repository.execute("UPDATE metadata SET platform = ?, description = ? WHERE name = ?", "PC", "Escape the Underworld.", "Hades");
+        assertEquals(List.of("Hades"), names(repository.search("escape", 0, 10)));
+        repository.executeScript("INSERT INTO metadata_fts(metadata_fts) VALUES ('integrity-check')");
+    }
+
+    @Test
+    void testQuerySyntaxIsNotInterpreted() throws Exception {
+        repository.initSearchIndex();
+
+        assertEquals(List.of("Hades"), names(repository.search("(\"hades* -", 0, 10)));
+        assertTrue(repository.search("*  ( ) : -", 0, 10).isEmpty());
+        assertTrue(repository.search(null, 0, 10).isEmpty());
+    }
+}
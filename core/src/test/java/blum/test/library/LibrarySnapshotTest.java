@@ -0,0 +1,101 @@
+package blum.test.library;
+
+import blum.api.library.Facet;
+import blum.api.library.LibraryFilter;
+import blum.api.library.model.GameMetadata;
+import blum.core.library.LibrarySnapshot;
+import blum.core.library.repositories.GameMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibrarySnapshotTest {
+
+    private Connection connection;
+    private GameMetadataRepository repository;
+    private LibrarySnapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameMetadataRepository(connection, GameMetadata.class);
+        repository.executeScript(repository.initTable());
+
+        repository.createAll(List.of(
+                game("Hades", "Action, Rogue-like", "PC", 93),
+                game("Celeste", "Platformer", "Switch", 91),
+                game("Dead Cells", "action; rogue-like, Platformer", "PC", 89),
+                game("Tetris", null, "Switch", null)
+        ));
+
+        snapshot = new LibrarySnapshot(() -> repository.listQuery("SELECT * FROM metadata"));
+        snapshot.reload();
+        repository.addListener(snapshot);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static GameMetadata game(String name, String genres, String platform, Integer rating) {
+        GameMetadata game = new GameMetadata();
+        game.setName(name);
+        game.setGenres(genres);
+        game.setPlatform(platform);
+        game.setCommunityRating(rating);
+        return game;
+    }
+
+    private int[] idsOf(String... names) {
+        return Arrays.stream(names).mapToInt(name -> repository.getGame(name).getId()).sorted().toArray();
+    }
+
+    @Test
+    void testFacetCounts() {
+        Map<String, Integer> genres = snapshot.countFacet(Facet.GENRES, LibraryFilter.all());
+
+        assertEquals(List.of("Action", "Platformer", "Rogue-like"), List.copyOf(genres.keySet()));
+        assertEquals(Map.of("Action", 2, "Platformer", 2, "Rogue-like", 2), genres);
+        assertEquals(Map.of("PC", 2), snapshot.countFacet(Facet.PLATFORM, LibraryFilter.all().with(Facet.GENRES, "ACTION")));
+    }
+
+    @Test
+    void testCombinedFilters() {
+        LibraryFilter platformers = LibraryFilter.all().with(Facet.GENRES, "platformer");
+
+        assertArrayEquals(idsOf("Celeste", "Dead Cells"), snapshot.filter(platformers));
+        assertArrayEquals(idsOf("Dead Cells"), snapshot.filter(platformers.with(Facet.PLATFORM, "pc")));
+        assertArrayEquals(idsOf("Hades", "Celeste"), snapshot.filter(new LibraryFilter(Map.of(), null, 90)));
+        assertEquals(0, snapshot.filter(LibraryFilter.all().with(Facet.GENRES, "unknown")).length);
+    }
+
+    @Test
+    void testFollowsRepositoryWrites() throws Exception {
+        GameMetadata celeste = repository.getGame("Celeste");
+        celeste.setPlatform("PC");
+        repository.update(celeste);
+
+        repository.create(game("Hollow Knight", "Metroidvania", "Switch", 87));
+        repository.delete(repository.getGame("Tetris"));
+
+        assertEquals(4, snapshot.size());
+        assertEquals(Map.of("PC", 3, "Switch", 1), snapshot.countFacet(Facet.PLATFORM, LibraryFilter.all()));
+        assertArrayEquals(idsOf("Hollow Knight"), snapshot.filter(LibraryFilter.all().with(Facet.GENRES, "metroidvania")));
+    }
+
+    @Test
+    void testReloadsAfterRawStatements() {
+        repository.execute("UPDATE metadata SET platform = ?", "Steam Deck");
+
+        assertEquals(Map.of("Steam Deck", 4), snapshot.countFacet(Facet.PLATFORM, LibraryFilter.all()));
+    }
+}
@@ -0,0 +1,167 @@
+package blum.test.library;
+
+import blum.api.library.LibraryStats;
+import blum.api.library.RatingStats;
+import blum.api.library.model.GameMetadata;
+import blum.core.library.LibraryStatistics;
+import blum.core.library.repositories.GameMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryStatisticsTest {
+
+    public record Total(String platform, int total) {
+    }
+
+    private static final String[] PLATFORMS = {"PC", "Switch", "PS5", null};
+    private static final String[] SOURCES = {"steam", "gog", "epic"};
+    private static final String[] GENRES = {"Action", "Platformer", "Rogue-like", "Puzzle", "RPG"};
+    private static final String[] PEGI = {"3", "7", "12", "16", "18", null};
+
+    private Connection connection;
+    private GameMetadataRepository repository;
+    private LibraryStatistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        repository = new GameMetadataRepository(connection, GameMetadata.class);
+        repository.executeScript(repository.initTable());
+
+        repository.createAll(List.of(
+                game("Hades", "Action, Rogue-like", "PC", "2020-09-17", 93),
+                game("Celeste", "Platformer", "Switch", "Jan 25, 2018", 91),
+                game("Dead Cells", "action; rogue-like, Platformer", "PC", "2018-08-07", 89),
+                game("Tetris", null, "Switch", null, null)
+        ));
+
+        statistics = new LibraryStatistics(() -> repository.listQuery("SELECT * FROM metadata"));
+        statistics.reload();
+        repository.addListener(statistics);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static GameMetadata game(String name, String genres, String platform, String releaseDate, Integer rating) {
+        GameMetadata game = new GameMetadata();
+        game.setName(name);
+        game.setGenres(genres);
+        game.setPlatform(platform);
+        game.setReleaseDate(releaseDate);
+        game.setCommunityRating(rating);
+        return game;
+    }
+
+    private LibraryStats recompute() {
+        LibraryStatistics fresh = new LibraryStatistics(() -> repository.listQuery("SELECT * FROM metadata"));
+        fresh.reload();
+        return fresh.get();
+    }
+
+    @Test
+    void testAggregates() {
+        LibraryStats stats = statistics.get();
+
+        assertEquals(4, stats.games());
+        assertEquals(Map.of("PC", 2, "Switch", 2), stats.platforms());
+        assertEquals(List.of("Action", "Platformer", "Rogue-like"), List.copyOf(stats.genres().keySet()));
+        assertEquals(Map.of("Action", 2, "Platformer", 2, "Rogue-like", 2), stats.genres());
+        assertEquals(List.of(2018, 2020), List.copyOf(stats.releaseYears().keySet()));
+        assertEquals(Map.of(2018, 2, 2020, 1), stats.releaseYears());
+
+        assertEquals(new RatingStats(3, 91, 89, 93, Map.of(80, 1, 90, 2)), stats.communityRatings());
+        assertEquals(new RatingStats(0, 0, null, null, Map.of()), stats.pressRatings());
+    }
+
+    @Test
+    void testReadsBetweenWritesShareTheResult() throws Exception {
+        LibraryStats stats = statistics.get();
+        assertSame(stats, statistics.get());
+
+        repository.create(game("Hollow Knight", "Metroidvania", "Switch", "2017-02-24", 87));
+        assertNotSame(stats, statistics.get());
+        assertEquals(5, statistics.get().games());
+    }
+
+    @Test
+    void testFollowsRepositoryWrites() throws Exception {
+        GameMetadata celeste = repository.getGame("Celeste");
+        celeste.setPlatform("PC");
+        celeste.setCommunityRating(null);
+        repository.update(celeste);
+        repository.delete(repository.getGame("Hades"));
+
+        LibraryStats stats = statistics.get();
+        assertEquals(Map.of("PC", 2, "Switch", 1), stats.platforms());
+        assertEquals(Map.of("action", 1, "Platformer", 2, "rogue-like", 1), stats.genres());
+        assertEquals(new RatingStats(1, 89, 89, 89, Map.of(80, 1)), stats.communityRatings());
+        assertEquals(recompute(), stats);
+    }
+
+    @Test
+    void testRandomWritesMatchFullRecompute() throws Exception {
+        Random random = new Random(42);
+        List<Integer> ids = new ArrayList<>(repository.listQuery("SELECT * FROM metadata").stream().map(GameMetadata::getId).toList());
+
+        for (int i = 0; i < 500; i++) {
+            int operation = ids.isEmpty() ? 0 : random.nextInt(3);
+            if (operation == 0) {
+                GameMetadata game = randomGame(random, "Game " + i);
+                repository.create(game);
+                ids.add(game.getId());
+            } else if (operation == 1) {
+                int id = ids.get(random.nextInt(ids.size()));
+                GameMetadata game = randomGame(random, "Game " + i);
+                game.setId(id);
+                repository.update(game);
+            } else {
+                repository.deleteById(ids.remove(random.nextInt(ids.size())));
+            }
+        }
+
+        LibraryStats stats = statistics.get();
+        assertEquals(recompute(), stats);
+        assertEquals(ids.size(), stats.games());
+
+        Map<String, Integer> grouped = new LinkedHashMap<>();
+        for (Total total : repository.listQuery("SELECT platform, count(*) AS total FROM metadata WHERE platform IS NOT NULL "
+                + "GROUP BY platform ORDER BY total DESC, platform COLLATE NOCASE", Total.class)) {
+            grouped.put(total.platform(), total.total());
+        }
+        assertEquals(List.copyOf(grouped.entrySet()), List.copyOf(stats.platforms().entrySet()));
+    }
+
+    @Test
+    void testReloadsAfterRawStatements() {
+        repository.execute("UPDATE metadata SET platform = ?", "Steam Deck");
+
+        assertEquals(Map.of("Steam Deck", 4), statistics.get().platforms());
+    }
+
+    private static GameMetadata randomGame(Random random, String name) {
+        GameMetadata game = new GameMetadata();
+        game.setName(name);
+        game.setPlatform(PLATFORMS[random.nextInt(PLATFORMS.length)]);
+        game.setSource(SOURCES[random.nextInt(SOURCES.length)]);
+        game.setGenres(GENRES[random.nextInt(GENRES.length)] + ", " + GENRES[random.nextInt(GENRES.length)]);
+        game.setPegi(PEGI[random.nextInt(PEGI.length)]);
+        game.setReleaseDate(random.nextInt(4) == 0 ? null : (1990 + random.nextInt(35)) + "-01-01");
+        game.setPressRating(random.nextInt(3) == 0 ? null : random.nextInt(101));
+        game.setCommunityRating(random.nextInt(3) == 0 ? null : random.nextInt(101));
+        return game;
+    }
+}
@@ -0,0 +1,126 @@
+package blum.test.library;
+
+import blum.api.library.Thumbnail;
+import blum.api.library.ThumbnailStats;
+import blum.core.library.artwork.ThumbnailCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailCacheTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    @TempDir
+    Path directory;
+
+    private ThumbnailCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new ThumbnailCache(directory.resolve("thumbnails"), 1 << 20, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.close();
+    }
+
+    private Path image(String name, int width, int height, int type) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+
+        Path file = directory.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    @Test
+    void testResizedToTheNextWidth() throws Exception {
+        Path source = image("cover.png", 1200, 1800, BufferedImage.TYPE_INT_RGB);
+
+        Thumbnail thumbnail = cache.get(HASH, source, 200).get();
+        assertEquals(256, thumbnail.width());
+        assertEquals("image/jpeg", thumbnail.contentType());
+
+        BufferedImage resized = ImageIO.read(thumbnail.file().toFile());
+        assertEquals(256, resized.getWidth());
+        assertEquals(384, resized.getHeight());
+
+        assertEquals(thumbnail, cache.get(HASH, source, 256).get());
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    void testTransparentImagesStayPng() throws Exception {
+        Path source = image("logo.png", 800, 200, BufferedImage.TYPE_INT_ARGB);
+        assertEquals("image/png", cache.get(HASH, source, 64).get().contentType());
+    }
+
+    @Test
+    void testConcurrentRequestsResizeOnce() throws Exception {
+        Path source = image("background.png", 3840, 2160, BufferedImage.TYPE_INT_RGB);
+
+        List<CompletableFuture<Thumbnail>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) futures.add(cache.get(HASH, source, 512));
+        for (CompletableFuture<Thumbnail> future : futures) assertNotNull(future.get());
+
+        ThumbnailStats stats = cache.getStats();
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.generated());
+        assertEquals(7, stats.hits() + stats.coalesced());
+    }
+
+    @Test
+    void testSmallImagesAreServedAsIs() throws Exception {
+        Path source = image("icon.png", 100, 100, BufferedImage.TYPE_INT_RGB);
+
+        assertNull(cache.get(HASH, source, 128).get());
+        assertNull(cache.get(HASH, source, 128).get());
+        assertEquals(0, cache.getStats().generated());
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    void testDiskBoundEvictsLeastRecentlyUsed() throws Exception {
+        cache.close();
+        cache = new ThumbnailCache(directory.resolve("small"), 1, 1);
+        Path source = image("cover.png", 600, 900, BufferedImage.TYPE_INT_RGB);
+
+        Thumbnail first = cache.get(HASH, source, 64).get();
+        Thumbnail second = cache.get(HASH, source, 128).get();
+
+        assertFalse(Files.exists(first.file()));
+        assertTrue(Files.exists(second.file()));
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals(1, cache.getStats().entries());
+    }
+
+    @Test
+    void testDeleteRemovesEverySize() throws Exception {
+        Path source = image("cover.png", 600, 900, BufferedImage.TYPE_INT_RGB);
+        Path first = cache.get(HASH, source, 64).get().file();
+        Path second = cache.get(HASH, source, 512).get().file();
+
+        cache.delete(HASH);
+        assertFalse(Files.exists(first));
+        assertFalse(Files.exists(second));
+        assertEquals(0, cache.getStats().bytes());
+    }
+}
@@ -0,0 +1,23 @@
+plugins {
+    id("java")
+}
+
+group = "blum"
+version = "1.0.0"
+
+repositories {
+    mavenCentral()
+}
+
+// Annotation processor generating the mappers of @Model and @Mapped classes,
+// it refers to those types by name only so it doesn't depend on the api module
+
+dependencies {
+    testImplementation(platform("org.junit:junit-bom:5.10.0"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
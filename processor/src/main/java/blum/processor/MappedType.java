@@ -0,0 +1,197 @@
+package blum.processor;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class a mapper can be generated for, with the way each of its fields is read and written.
+ * Fields are reached through their accessors, declared or generated by Lombok, or directly when they aren't private.
+ */
+final class MappedType {
+
+    static final String NAMED = "blum.api.annotation.Named";
+    static final String IGNORED = "blum.api.annotation.Ignored";
+
+    final TypeElement element;
+    final List<MappedField> fields;
+    final boolean noArgConstructor;
+    final boolean fileConstructor;
+
+    private MappedType(TypeElement element, List<MappedField> fields, boolean noArgConstructor, boolean fileConstructor) {
+        this.element = element;
+        this.fields = fields;
+        this.noArgConstructor = noArgConstructor;
+        this.fileConstructor = fileConstructor;
+    }
+
+    /**
+     * A mapped field, its getter and setter being null when it is accessed directly
+     */
+    record MappedField(String name, String key, TypeMirror type, String getter, String setter) {
+    }
+
+    /**
+     * Thrown when a class can't be mapped without reflection
+     */
+    static final class UnmappableException extends Exception {
+        UnmappableException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * @param root whether the class is a configuration root, created with its file name rather than without arguments
+     */
+    static MappedType analyze(TypeElement type, boolean root, Types types) throws UnmappableException {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) throw new UnmappableException("it is abstract");
+        if (!type.getTypeParameters().isEmpty()) throw new UnmappableException("it is generic");
+        checkAccessible(type);
+
+        boolean noArg = false;
+        boolean file = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) continue;
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.isEmpty()) noArg = true;
+            if (parameters.size() == 1 && parameters.get(0).asType().toString().equals("java.lang.String")) file = true;
+        }
+        AnnotationMirror noArgsConstructor = annotation(type, "lombok.NoArgsConstructor");
+        noArg |= noArgsConstructor != null && accessible(element(noArgsConstructor, "access"));
+        // Only reflection reaches a private constructor
+        if (root && !file) throw new UnmappableException("it has no accessible file name constructor");
+        if (!root && !noArg) throw new UnmappableException("it has no accessible no-arg constructor");
+
+        List<MappedField> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC) || annotation(field, IGNORED) != null) continue;
+            fields.add(analyze(type, field, types));
+        }
+        return new MappedType(type, List.copyOf(fields), noArg, file);
+    }
+
+    private static MappedField analyze(TypeElement type, VariableElement field, Types types) throws UnmappableException {
+        String name = field.getSimpleName().toString();
+        boolean direct = !field.getModifiers().contains(Modifier.PRIVATE);
+        boolean writable = !field.getModifiers().contains(Modifier.FINAL);
+
+        // Lombok names the accessors of a boolean isActive field isActive and setActive
+        boolean prefixed = field.asType().getKind() == TypeKind.BOOLEAN && name.length() > 2
+                && name.startsWith("is") && Character.isUpperCase(name.charAt(2));
+        String property = capitalize(prefixed ? name.substring(2) : name);
+        String getterName = field.asType().getKind() == TypeKind.BOOLEAN ? (prefixed ? name : "is" + property) : "get" + property;
+        String setterName = "set" + property;
+
+        String getter = null;
+        ExecutableElement declaredGetter = method(type, getterName, 0);
+        if (declaredGetter != null) {
+            if (!declaredGetter.getModifiers().contains(Modifier.PRIVATE)
+                    && types.isSameType(declaredGetter.getReturnType(), field.asType())) getter = getterName;
+        } else if (lombok(type, field, "lombok.Getter", "lombok.Data", "lombok.Value")) {
+            getter = getterName;
+        }
+
+        String setter = null;
+        ExecutableElement declaredSetter = method(type, setterName, 1);
+        if (declaredSetter != null) {
+            if (!declaredSetter.getModifiers().contains(Modifier.PRIVATE)
+                    && types.isSameType(declaredSetter.getParameters().get(0).asType(), field.asType())) setter = setterName;
+        } else if (writable && lombok(type, field, "lombok.Setter", "lombok.Data")) {
+            setter = setterName;
+        }
+
+        if (getter == null && !direct) throw new UnmappableException("field " + name + " is private and has no getter");
+        if (setter == null && !(direct && writable)) throw new UnmappableException("field " + name + " has no setter");
+
+        AnnotationMirror named = annotation(field, NAMED);
+        String key = named != null ? String.valueOf(value(named)) : name;
+        return new MappedField(name, key, field.asType(), getter, setter);
+    }
+
+    private static void checkAccessible(TypeElement type) throws UnmappableException {
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            throw new UnmappableException("it is a local class");
+        }
+
+        Element current = type;
+        while (current instanceof TypeElement element) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) throw new UnmappableException("it is private");
+            if (element.getNestingKind() == NestingKind.MEMBER && element.getKind() == ElementKind.CLASS
+                    && !element.getModifiers().contains(Modifier.STATIC)) {
+                throw new UnmappableException("it is an inner class");
+            }
+            current = element.getEnclosingElement();
+        }
+    }
+
+    private static ExecutableElement method(TypeElement type, String name, int parameters) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == parameters
+                    && !method.getModifiers().contains(Modifier.STATIC)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether Lombok generates an accessible member: the annotation on the field wins over the one on the class
+     */
+    private static boolean lombok(TypeElement type, VariableElement field, String fieldAnnotation, String... typeAnnotations) {
+        AnnotationMirror onField = field != null ? annotation(field, fieldAnnotation) : null;
+        if (onField != null) return accessible(onField);
+
+        AnnotationMirror onType = annotation(type, fieldAnnotation);
+        if (onType != null) return accessible(onType);
+        for (String name : typeAnnotations) {
+            if (annotation(type, name) != null) return true;
+        }
+        return false;
+    }
+
+    private static boolean accessible(AnnotationMirror annotation) {
+        return accessible(value(annotation));
+    }
+
+    private static boolean accessible(Object level) {
+        if (level == null) return true;
+        String name = level.toString();
+        return !name.equals("PRIVATE") && !name.equals("NONE");
+    }
+
+    static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(name)) return mirror;
+        }
+        return null;
+    }
+
+    private static Object value(AnnotationMirror annotation) {
+        return element(annotation, "value");
+    }
+
+    private static Object element(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) return entry.getValue().getValue();
+        }
+        return null;
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,106 @@
+package blum.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Generates a mapper for every @Model class and every @Mapped class of the compiled sources, configuration roots
+ * inheriting @Mapped, so the runtime maps them without reflection. Classes whose fields or constructor can't be
+ * reached from generated code, e.g. private fields without accessors, are reported in a note and keep being
+ * mapped reflectively. Never claims annotations, so it runs alongside the other processors such as Lombok.
+ */
+@SupportedAnnotationTypes({MapperProcessor.MODEL, MapperProcessor.MAPPED})
+public class MapperProcessor extends AbstractProcessor {
+
+    static final String MODEL = "blum.api.database.annotation.Model";
+    static final String MAPPED = "blum.api.mapping.Mapped";
+    static final String CONFIGURATION_ROOT = "blum.api.configuration.ConfigurationRoot";
+
+    private final Set<String> processed = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        TypeElement configurationRoot = processingEnv.getElementUtils().getTypeElement(CONFIGURATION_ROOT);
+        boolean generatedAnnotation = processingEnv.getElementUtils().getTypeElement("javax.annotation.processing.Generated") != null;
+        MapperWriter writer = new MapperWriter(processingEnv.getTypeUtils(), generatedAnnotation);
+
+        for (TypeElement type : ElementFilter.typesIn(round.getRootElements())) {
+            visit(type, configurationRoot, writer);
+        }
+        return false;
+    }
+
+    private void visit(TypeElement type, TypeElement configurationRoot, MapperWriter writer) {
+        if (type.getKind() == ElementKind.CLASS && isMapped(type)
+                && processed.add(type.getQualifiedName().toString())) {
+            generate(type, isRoot(type, configurationRoot), writer);
+        }
+
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            visit(nested, configurationRoot, writer);
+        }
+    }
+
+    private boolean isMapped(TypeElement type) {
+        if (MappedType.annotation(type, MODEL) != null) return true;
+        // ConfigurationRoot itself is only a base class
+        if (type.getQualifiedName().contentEquals(CONFIGURATION_ROOT)) return false;
+
+        for (AnnotationMirror mirror : processingEnv.getElementUtils().getAllAnnotationMirrors(type)) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(MAPPED)) return true;
+        }
+        return false;
+    }
+
+    private boolean isRoot(TypeElement type, TypeElement configurationRoot) {
+        return configurationRoot != null && processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(type.asType()), configurationRoot.asType());
+    }
+
+    private void generate(TypeElement type, boolean root, MapperWriter writer) {
+        MappedType mapped;
+        try {
+            mapped = MappedType.analyze(type, root, processingEnv.getTypeUtils());
+        } catch (MappedType.UnmappableException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "No mapper generated for " + type.getQualifiedName() + ", " + e.getMessage()
+                            + ": it will be mapped by reflection", type);
+            return;
+        }
+
+        String packageName = packageOf(type);
+        String mapperName = MapperWriter.mapperName(type, packageName);
+        String qualifiedName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer out = file.openWriter()) {
+                out.write(writer.write(mapped, packageName, mapperName));
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write the mapper of " + type.getQualifiedName() + ": " + e.getMessage(), type);
+        }
+    }
+
+    private String packageOf(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+    }
+}
@@ -0,0 +1,134 @@
+package blum.processor;
+
+import blum.processor.MappedType.MappedField;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the source of the generated mapper of a class
+ */
+final class MapperWriter {
+
+    static final String MAPPER_INTERFACE = "blum.api.mapping.GeneratedMapper";
+    static final String SUFFIX = "_BlumMapper";
+
+    private final Types types;
+    private final boolean generatedAnnotation;
+
+    MapperWriter(Types types, boolean generatedAnnotation) {
+        this.types = types;
+        this.generatedAnnotation = generatedAnnotation;
+    }
+
+    /**
+     * Gets the simple name of the mapper of a class, its enclosing classes being joined by underscores
+     */
+    static String mapperName(TypeElement type, String packageName) {
+        String qualifiedName = type.getQualifiedName().toString();
+        String simpleName = packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        return simpleName.replace('.', '_') + SUFFIX;
+    }
+
+    String write(MappedType mapped, String packageName, String mapperName) {
+        String type = mapped.element.getQualifiedName().toString();
+        List<MappedField> fields = mapped.fields;
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) source.append("package ").append(packageName).append(";\n\n");
+
+        if (generatedAnnotation) source.append("@javax.annotation.processing.Generated(\"").append(MapperProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(mapperName)
+                .append(" implements ").append(MAPPER_INTERFACE).append('<').append(type).append("> {\n\n");
+
+        source.append("    private static final java.util.List<String> FIELDS = java.util.List.of(")
+                .append(fields.stream().map(field -> literal(field.name())).collect(Collectors.joining(", "))).append(");\n");
+        source.append("    private static final java.util.List<String> KEYS = java.util.List.of(")
+                .append(fields.stream().map(field -> literal(field.key())).collect(Collectors.joining(", "))).append(");\n\n");
+
+        source.append("    @Override\n    public Class<").append(type).append("> getType() {\n")
+                .append("        return ").append(type).append(".class;\n    }\n\n");
+        source.append("    @Override\n    public java.util.List<String> getFields() {\n        return FIELDS;\n    }\n\n");
+        source.append("    @Override\n    public java.util.List<String> getKeys() {\n        return KEYS;\n    }\n\n");
+
+        // A missing constructor is left to the interface, the runtime never calls it for this kind of class
+        if (mapped.noArgConstructor) {
+            source.append("    @Override\n    public ").append(type).append(" newInstance() {\n")
+                    .append("        return new ").append(type).append("();\n    }\n\n");
+        }
+        if (mapped.fileConstructor) {
+            source.append("    @Override\n    public ").append(type).append(" newInstance(String file) {\n")
+                    .append("        return new ").append(type).append("(file);\n    }\n\n");
+        }
+
+        source.append("    @Override\n    public Object get(").append(type).append(" instance, int field) {\n")
+                .append("        switch (field) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            MappedField field = fields.get(i);
+            String read = field.getter() != null ? field.getter() + "()" : field.name();
+            source.append("            case ").append(i).append(": return instance.").append(read).append(";\n");
+        }
+        source.append("            default: throw new IndexOutOfBoundsException(field);\n        }\n    }\n\n");
+
+        source.append("    @Override\n    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("    public void set(").append(type).append(" instance, int field, Object value) {\n")
+                .append("        switch (field) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            MappedField field = fields.get(i);
+            String converted = convert(field.type());
+            String write = field.setter() != null ? field.setter() + "(" + converted + ")" : field.name() + " = " + converted;
+            source.append("            case ").append(i).append(": instance.").append(write).append("; return;\n");
+        }
+        source.append("            default: throw new IndexOutOfBoundsException(field);\n        }\n    }\n}\n");
+
+        return source.toString();
+    }
+
+    /**
+     * Converts the value to the type of a field, numbers being widened or narrowed as JDBC and HOCON return any of them
+     */
+    private String convert(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN: return "value != null && (Boolean) value";
+            case CHAR: return "value == null ? '\\0' : (Character) value";
+            case BYTE: return "value == null ? (byte) 0 : ((Number) value).byteValue()";
+            case SHORT: return "value == null ? (short) 0 : ((Number) value).shortValue()";
+            case INT: return "value == null ? 0 : ((Number) value).intValue()";
+            case LONG: return "value == null ? 0L : ((Number) value).longValue()";
+            case FLOAT: return "value == null ? 0f : ((Number) value).floatValue()";
+            case DOUBLE: return "value == null ? 0d : ((Number) value).doubleValue()";
+            default: break;
+        }
+
+        String erased = types.erasure(type).toString();
+        switch (erased) {
+            case "java.lang.Byte": return boxed("Byte", "byteValue");
+            case "java.lang.Short": return boxed("Short", "shortValue");
+            case "java.lang.Integer": return boxed("Integer", "intValue");
+            case "java.lang.Long": return boxed("Long", "longValue");
+            case "java.lang.Float": return boxed("Float", "floatValue");
+            case "java.lang.Double": return boxed("Double", "doubleValue");
+            default: return "(" + erased + ") value";
+        }
+    }
+
+    private static String boxed(String wrapper, String accessor) {
+        return "value == null ? null : " + wrapper + ".valueOf(((Number) value)." + accessor + "())";
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': literal.append("\\\""); break;
+                case '\\': literal.append("\\\\"); break;
+                case '\n': literal.append("\\n"); break;
+                default: literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
@@ -0,0 +1,172 @@
+package blum.test.processor;
+
+import blum.processor.MapperProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapperProcessorTest {
+
+    // The processor refers to the api types by name, stubs stand for them
+    private static final String[] API = {
+            "package blum.api.database.annotation; @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) public @interface Model {}",
+            "package blum.api.mapping; @java.lang.annotation.Inherited @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.CLASS) public @interface Mapped {}",
+            "package blum.api.mapping; public interface GeneratedMapper<T> { Class<T> getType(); java.util.List<String> getFields(); java.util.List<String> getKeys();"
+                    + " default T newInstance() { throw new UnsupportedOperationException(); }"
+                    + " default T newInstance(String file) { throw new UnsupportedOperationException(); }"
+                    + " Object get(T instance, int field); void set(T instance, int field, Object value); }",
+            "package blum.api.configuration; public interface ConfigurationPart {}",
+            "package blum.api.configuration; @blum.api.mapping.Mapped public class ConfigurationRoot implements ConfigurationPart { public final String file; public ConfigurationRoot(String file) { this.file = file; } }",
+            "package lombok; public enum AccessLevel { PUBLIC, MODULE, PROTECTED, PACKAGE, PRIVATE, NONE }",
+            "package lombok; public @interface NoArgsConstructor { AccessLevel access() default AccessLevel.PUBLIC; }"
+    };
+
+    @TempDir
+    Path folder;
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    @Test
+    void testModelMapperOnlyHasItsConstructor() throws Exception {
+        compile(null, join(API, "package app; @blum.api.database.annotation.Model public class Game { public int id; public String name; }"));
+
+        String mapper = generated("app.Game_BlumMapper");
+        assertTrue(mapper.contains("public app.Game newInstance() {"));
+        assertFalse(mapper.contains("newInstance(String file)"));
+        assertFalse(mapper.contains("UnsupportedOperationException"));
+    }
+
+    @Test
+    void testModelWithoutNoArgConstructorIsMappedByReflection() throws Exception {
+        compile(null, join(API,
+                "package app; @blum.api.database.annotation.Model public class Named { public String name; public Named(String name) { this.name = name; } }",
+                "package app; @blum.api.database.annotation.Model @lombok.NoArgsConstructor(access = lombok.AccessLevel.PRIVATE) public class Hidden { public String name; public Hidden(String name) { this.name = name; } }"));
+
+        assertNull(generated("app.Named_BlumMapper"));
+        assertNull(generated("app.Hidden_BlumMapper"));
+        assertTrue(notes().stream().anyMatch(note -> note.contains("app.Named") && note.contains("no accessible no-arg constructor")));
+        assertTrue(notes().stream().anyMatch(note -> note.contains("app.Hidden") && note.contains("no accessible no-arg constructor")));
+    }
+
+    @Test
+    void testRootFromTheClasspathInheritsMapped() throws Exception {
+        Path api = Files.createDirectories(folder.resolve("api"));
+        compile(api, API);
+
+        compile(null, api.toFile(), "package app; public class AppConfig extends blum.api.configuration.ConfigurationRoot {"
+                + " public int port; public AppConfig(String file) { super(file); } }");
+
+        String mapper = generated("app.AppConfig_BlumMapper");
+        assertTrue(mapper.contains("public app.AppConfig newInstance(String file) {"));
+        assertFalse(mapper.contains("newInstance() {"));
+    }
+
+    @Test
+    void testRootWithoutFileConstructorIsMappedByReflection() throws Exception {
+        compile(null, join(API, "package app; public class Broken extends blum.api.configuration.ConfigurationRoot {"
+                + " public int port; public Broken() { super(\"broken\"); } }"));
+
+        assertNull(generated("app.Broken_BlumMapper"));
+        assertTrue(notes().stream().anyMatch(note -> note.contains("app.Broken") && note.contains("no accessible file name constructor")));
+    }
+
+    @Test
+    void testUnannotatedClassesAreIgnored() throws Exception {
+        compile(null, join(API,
+                "package app; public class Plain { public int id; }",
+                "package app; public class Part implements blum.api.configuration.ConfigurationPart { public int size; }",
+                "package app; @blum.api.mapping.Mapped public class MappedPart implements blum.api.configuration.ConfigurationPart { public int size; }"));
+
+        assertNull(generated("app.Plain_BlumMapper"));
+        assertNull(generated("app.Part_BlumMapper"));
+        assertNotNull(generated("app.MappedPart_BlumMapper"));
+    }
+
+    private void compile(Path output, String... sources) throws IOException {
+        compile(output, null, sources);
+    }
+
+    /**
+     * Compiles the sources with the processor, into the given folder or the test folder
+     */
+    private void compile(Path output, File classpath, String... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            Path classes = output != null ? output : Files.createDirectories(folder.resolve("classes"));
+            files.setLocation(StandardLocation.CLASS_OUTPUT, List.of(classes.toFile()));
+            files.setLocation(StandardLocation.SOURCE_OUTPUT, List.of(Files.createDirectories(folder.resolve("generated")).toFile()));
+            if (classpath != null) files.setLocation(StandardLocation.CLASS_PATH, List.of(classpath));
+
+            List<JavaFileObject> units = new ArrayList<>();
+            for (String source : sources) units.add(new Source(source));
+
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, null, null, units);
+            task.setProcessors(List.of(new MapperProcessor()));
+            assertTrue(task.call(), () -> diagnostics.getDiagnostics().toString());
+        }
+    }
+
+    private String generated(String mapper) throws IOException {
+        Path file = folder.resolve("generated").resolve(mapper.replace('.', '/') + ".java");
+        return Files.exists(file) ? Files.readString(file) : null;
+    }
+
+    private List<String> notes() {
+        return diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.NOTE)
+                .map(diagnostic -> diagnostic.getMessage(null)).toList();
+    }
+
+    private static String[] join(String[] first, String... more) {
+        String[] all = new String[first.length + more.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(more, 0, all, first.length, more.length);
+        return all;
+    }
+
+    /**
+     * In-memory source file, named after the class it declares
+     */
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String content;
+
+        Source(String content) {
+            super(URI.create("string:///" + name(content) + Kind.SOURCE.extension), Kind.SOURCE);
+            this.content = content;
+        }
+
+        private static String name(String content) {
+            String packageName = content.substring("package ".length(), content.indexOf(';'));
+            String[] words = content.substring(content.indexOf(';') + 1).split("[\\s{<]+");
+            for (int i = 0; i < words.length - 1; i++) {
+                if (words[i].equals("class") || words[i].equals("interface") || words[i].equals("enum") || words[i].equals("@interface")) {
+                    return packageName.replace('.', '/') + "/" + words[i + 1];
+                }
+            }
+            throw new IllegalArgumentException("No type declared in " + content);
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+}
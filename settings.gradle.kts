@@ -1,3 +1,4 @@
 rootProject.name = "blumproject"
 include("core")
-include("api")
\ No newline at end of file
+include("api")
+include("processor")
\ No newline at end of file